@@ -0,0 +1,49 @@
+package kin.base;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Scanner;
+import kin.base.xdr.XdrDataInputStream;
+
+/**
+ * Shared inputs for the benchmarks, mirroring what the SDK handles in production: a signed single payment
+ * transaction (the only kind {@code kin.sdk.TransactionSender} builds) and recorded Horizon responses.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String SECRET_SEED = "SDJHRQF4GCMIIKAAAQ6IHY42X73FQFLHUULAPSKKD4DFDM7UXWWCRHBE";
+    public static final String DESTINATION = "GDW6AUTBXTOC7FIKUO5BOO3OGLK4SF7ZPOBLMQHMZDI45J2Z6VXRB5NR";
+    public static final String TRANSACTIONS_PAGE_JSON = "transactions_page.json";
+    public static final String ACCOUNT_JSON = "account.json";
+
+    private BenchmarkFixtures() {
+        //no instances
+    }
+
+    public static Transaction signedPayment() {
+        Network.useTestNetwork();
+        KeyPair source = KeyPair.fromSecretSeed(SECRET_SEED);
+        Transaction transaction = new Transaction.Builder(new Account(source, 2908908335136768L))
+            .addOperation(
+                new PaymentOperation.Builder(KeyPair.fromAccountId(DESTINATION), new AssetTypeNative(), "2000")
+                    .build())
+            .addMemo(Memo.text("1-test-benchmark"))
+            .addFee(100)
+            .build();
+        transaction.sign(source);
+        return transaction;
+    }
+
+    public static String loadResource(String name) {
+        InputStream is = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(name);
+        if (is == null) {
+            throw new IllegalStateException("missing benchmark resource " + name);
+        }
+        Scanner scanner = new Scanner(is, "UTF-8").useDelimiter("\\A");
+        return scanner.hasNext() ? scanner.next() : "";
+    }
+
+    public static XdrDataInputStream xdrInput(byte[] bytes) {
+        return new XdrDataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,85 @@
+package kin.base;
+
+import kin.base.codec.Base32;
+import kin.base.codec.Base64;
+import kin.base.codec.DecoderException;
+import kin.base.codec.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Text codecs used for account ids, seeds, transaction hashes and XDR payloads.
+ */
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    private byte[] publicKey;
+    private String accountId;
+    private char[] secretSeed;
+    private byte[] envelopeBytes;
+    private String envelopeBase64;
+    private byte[] hash;
+    private char[] hashHex;
+    private Base32 base32;
+
+    @Setup
+    public void setup() {
+        KeyPair keyPair = KeyPair.fromSecretSeed(BenchmarkFixtures.SECRET_SEED);
+        publicKey = keyPair.getPublicKey();
+        accountId = keyPair.getAccountId();
+        secretSeed = keyPair.getSecretSeed();
+        Transaction transaction = BenchmarkFixtures.signedPayment();
+        envelopeBase64 = transaction.toEnvelopeXdrBase64();
+        envelopeBytes = Base64.decodeBase64(envelopeBase64);
+        hash = transaction.hash();
+        hashHex = Hex.encodeHex(hash);
+        base32 = new Base32();
+    }
+
+    @Benchmark
+    public String strKeyEncodeAccountId() {
+        return StrKey.encodeStellarAccountId(publicKey);
+    }
+
+    @Benchmark
+    public byte[] strKeyDecodeAccountId() {
+        return StrKey.decodeStellarAccountId(accountId);
+    }
+
+    @Benchmark
+    public byte[] strKeyDecodeSecretSeed() {
+        return StrKey.decodeStellarSecretSeed(secretSeed);
+    }
+
+    @Benchmark
+    public byte[] base32Encode() {
+        return base32.encode(publicKey);
+    }
+
+    @Benchmark
+    public byte[] base32Decode() {
+        return base32.decode(accountId);
+    }
+
+    @Benchmark
+    public String base64Encode() {
+        return Base64.encodeBase64String(envelopeBytes);
+    }
+
+    @Benchmark
+    public byte[] base64Decode() {
+        return Base64.decodeBase64(envelopeBase64);
+    }
+
+    @Benchmark
+    public char[] hexEncode() {
+        return Hex.encodeHex(hash);
+    }
+
+    @Benchmark
+    public byte[] hexDecode() throws DecoderException {
+        return Hex.decodeHex(hashHex);
+    }
+}
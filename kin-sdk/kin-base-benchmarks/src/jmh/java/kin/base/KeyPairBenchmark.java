@@ -0,0 +1,44 @@
+package kin.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Ed25519 operations behind account loading and transaction signing.
+ */
+@State(Scope.Thread)
+public class KeyPairBenchmark {
+
+    private KeyPair keyPair;
+    private byte[] data;
+    private byte[] signature;
+
+    @Setup
+    public void setup() {
+        keyPair = KeyPair.fromSecretSeed(BenchmarkFixtures.SECRET_SEED);
+        data = BenchmarkFixtures.signedPayment().hash();
+        signature = keyPair.sign(data);
+    }
+
+    @Benchmark
+    public KeyPair fromSecretSeed() {
+        return KeyPair.fromSecretSeed(BenchmarkFixtures.SECRET_SEED);
+    }
+
+    @Benchmark
+    public KeyPair fromAccountId() {
+        return KeyPair.fromAccountId(BenchmarkFixtures.DESTINATION);
+    }
+
+    @Benchmark
+    public byte[] sign() {
+        return keyPair.sign(data);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return keyPair.verify(data, signature);
+    }
+}
@@ -0,0 +1,35 @@
+package kin.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per transaction work done by the SDK before submitting: building, hashing and serializing the envelope.
+ */
+@State(Scope.Thread)
+public class TransactionBenchmark {
+
+    private Transaction transaction;
+
+    @Setup
+    public void setup() {
+        transaction = BenchmarkFixtures.signedPayment();
+    }
+
+    @Benchmark
+    public Transaction buildAndSign() {
+        return BenchmarkFixtures.signedPayment();
+    }
+
+    @Benchmark
+    public byte[] hash() {
+        return transaction.hash();
+    }
+
+    @Benchmark
+    public String toEnvelopeXdrBase64() {
+        return transaction.toEnvelopeXdrBase64();
+    }
+}
@@ -0,0 +1,43 @@
+package kin.base.responses;
+
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import kin.base.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Gson parsing of recorded Horizon responses, through the same {@link GsonSingleton} the request builders use.
+ */
+@State(Scope.Thread)
+public class JsonParsingBenchmark {
+
+    private static final Type TRANSACTIONS_PAGE_TYPE = new TypeToken<Page<TransactionResponse>>() {
+    }.getType();
+
+    private String transactionsPageJson;
+    private String accountJson;
+
+    @Setup
+    public void setup() {
+        transactionsPageJson = BenchmarkFixtures.loadResource(BenchmarkFixtures.TRANSACTIONS_PAGE_JSON);
+        accountJson = BenchmarkFixtures.loadResource(BenchmarkFixtures.ACCOUNT_JSON);
+    }
+
+    @Benchmark
+    public Page<TransactionResponse> parseTransactionsPage() {
+        return GsonSingleton.getInstance().fromJson(transactionsPageJson, TRANSACTIONS_PAGE_TYPE);
+    }
+
+    @Benchmark
+    public AccountResponse parseAccount() {
+        return GsonSingleton.getInstance().fromJson(accountJson, AccountResponse.class);
+    }
+
+    @Benchmark
+    public AccountBalanceResponse parseAccountBalance() {
+        return GsonSingleton.getInstance().fromJson(accountJson, AccountBalanceResponse.class);
+    }
+}
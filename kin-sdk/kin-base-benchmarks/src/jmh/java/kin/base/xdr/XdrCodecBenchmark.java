@@ -0,0 +1,68 @@
+package kin.base.xdr;
+
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import kin.base.BenchmarkFixtures;
+import kin.base.codec.Base64;
+import kin.base.responses.GsonSingleton;
+import kin.base.responses.Page;
+import kin.base.responses.TransactionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * XDR encoding and decoding of transaction envelopes, results and meta, as done when submitting a transaction and
+ * when reading ledger changes out of a {@link TransactionResponse}.
+ */
+@State(Scope.Thread)
+public class XdrCodecBenchmark {
+
+    private TransactionEnvelope envelope;
+    private byte[] envelopeBytes;
+    private byte[] resultBytes;
+    private byte[] metaBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        envelope = BenchmarkFixtures.signedPayment().toEnvelopeXdr();
+        envelopeBytes = encode(envelope);
+
+        Page<TransactionResponse> page = GsonSingleton.getInstance().fromJson(
+            BenchmarkFixtures.loadResource(BenchmarkFixtures.TRANSACTIONS_PAGE_JSON), new TypeToken<Page<TransactionResponse>>() {
+            }.getType());
+        List<TransactionResponse> records = page.getRecords();
+        TransactionResponse record = records.get(records.size() - 1);
+        resultBytes = Base64.decodeBase64(record.getResultXdr());
+        metaBytes = Base64.decodeBase64(record.getResultMetaXdr());
+    }
+
+    @Benchmark
+    public byte[] encodeEnvelope() throws IOException {
+        return encode(envelope);
+    }
+
+    @Benchmark
+    public TransactionEnvelope decodeEnvelope() throws IOException {
+        return TransactionEnvelope.decode(BenchmarkFixtures.xdrInput(envelopeBytes));
+    }
+
+    @Benchmark
+    public TransactionResult decodeResult() throws IOException {
+        return TransactionResult.decode(BenchmarkFixtures.xdrInput(resultBytes));
+    }
+
+    @Benchmark
+    public TransactionMeta decodeMeta() throws IOException {
+        return TransactionMeta.decode(BenchmarkFixtures.xdrInput(metaBytes));
+    }
+
+    private static byte[] encode(TransactionEnvelope envelope) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TransactionEnvelope.encode(new XdrDataOutputStream(outputStream), envelope);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,12 @@
+package kin.base;
+
+/**
+ * Stand-in for the class generated by the Android plugin for kin-base, which isn't applied in this module.
+ */
+public final class BuildConfig {
+
+    public static final String VERSION_NAME = "benchmarks";
+
+    private BuildConfig() {
+    }
+}
@@ -0,0 +1,445 @@
+package kin.base;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Routes the requests of a {@link Server} across several equivalent Horizon endpoints.
+ * <p>
+ * Each endpoint keeps an exponentially weighted moving average (EWMA) of its response latency and a health state.
+ * Requests go to the healthy endpoint with the lowest latency, endpoints failing with a connection error or a 5xx
+ * response are put aside for a cool down period, growing with consecutive failures.
+ * </p>
+ * <p>
+ * Idempotent (GET) requests fail over to the next endpoint on failure, and are hedged: when the first endpoint hasn't
+ * answered after the hedge delay, the same request is sent to the next endpoint and the first response wins.
+ * Other requests, i.e. transaction submissions, are sent once to the best endpoint, see
+ * {@link Server#submitTransaction(Transaction)} for how they are retried safely.
+ * </p>
+ * Requests are built against the first endpoint, and rewritten to the selected one.
+ */
+public class HorizonRouter implements Interceptor {
+
+  private static final String EVENT_STREAM = "text/event-stream";
+
+  private final List<Endpoint> endpoints;
+  private final double ewmaWeight;
+  private final long hedgeDelayMillis;
+  private final long failureCooldownMillis;
+  private final long maxCooldownMillis;
+  private volatile OkHttpClient transport;
+
+  private HorizonRouter(Builder builder) {
+    List<Endpoint> endpoints = new ArrayList<>();
+    for (URI uri : builder.uris) {
+      endpoints.add(new Endpoint(uri));
+    }
+    this.endpoints = Collections.unmodifiableList(endpoints);
+    this.ewmaWeight = builder.ewmaWeight;
+    this.hedgeDelayMillis = builder.hedgeDelayMillis;
+    this.failureCooldownMillis = builder.failureCooldownMillis;
+    this.maxCooldownMillis = builder.maxCooldownMillis;
+  }
+
+  /**
+   * Returns the endpoint requests are built against.
+   */
+  public URI getPrimaryUri() {
+    return endpoints.get(0).uri;
+  }
+
+  /**
+   * Returns the endpoints ordered by preference, the healthy ones by latency first.
+   */
+  public List<URI> getRankedUris() {
+    List<URI> uris = new ArrayList<>();
+    for (Endpoint endpoint : rank()) {
+      uris.add(endpoint.uri);
+    }
+    return uris;
+  }
+
+  /**
+   * Returns the latency average of <code>uri</code> in milliseconds, 0 when it wasn't measured yet.
+   */
+  public double getLatencyMillis(URI uri) {
+    return endpointFor(uri).getEwmaMillis();
+  }
+
+  /**
+   * Returns true unless <code>uri</code> is cooling down after a failure.
+   */
+  public boolean isHealthy(URI uri) {
+    return endpointFor(uri).isHealthy(System.currentTimeMillis());
+  }
+
+  /**
+   * Sets the client used to send hedged requests, it must not contain this router. Used by {@link Server}.
+   */
+  void setTransport(OkHttpClient transport) {
+    this.transport = transport;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    Endpoint origin = endpointOf(request);
+    if (origin == null) {
+      // Not a Horizon request, e.g. a redirection to another server.
+      return chain.proceed(request);
+    }
+    String path = request.url().toString().substring(origin.base.length());
+    List<Endpoint> ranked = rank();
+    if (!isIdempotent(request)) {
+      return execute(chain, ranked.get(0), path);
+    }
+
+    int next = 0;
+    IOException failure = null;
+    Response failed = null;
+    if (hedgeDelayMillis > 0 && transport != null && ranked.size() > 1 && !isEventStream(request)) {
+      Outcome outcome = executeHedged(request, ranked.get(0), ranked.get(1), path, callTimeoutMillis(chain));
+      if (outcome.isSuccessful()) {
+        return outcome.response;
+      }
+      failure = outcome.exception;
+      failed = outcome.response;
+      next = 2;
+    }
+    for (; next < ranked.size(); next++) {
+      closeQuietly(failed);
+      failed = null;
+      try {
+        Response response = execute(chain, ranked.get(next), path);
+        if (response.code() < 500) {
+          return response;
+        }
+        failed = response;
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    if (failed != null) {
+      return failed;
+    }
+    throw failure;
+  }
+
+  private Response execute(Chain chain, Endpoint endpoint, String path) throws IOException {
+    long start = System.nanoTime();
+    try {
+      Response response = chain.proceed(rewrite(chain.request(), endpoint, path));
+      endpoint.record(response.code() < 500, start, System.nanoTime());
+      return response;
+    } catch (IOException e) {
+      endpoint.record(false, start, System.nanoTime());
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the longest time a call can take without timing out in one of its phases, or 0 if one of them has no
+   * timeout.
+   */
+  private static long callTimeoutMillis(Chain chain) {
+    if (chain.connectTimeoutMillis() == 0 || chain.writeTimeoutMillis() == 0 || chain.readTimeoutMillis() == 0) {
+      return 0;
+    }
+    return (long) chain.connectTimeoutMillis() + chain.writeTimeoutMillis() + chain.readTimeoutMillis();
+  }
+
+  /**
+   * Sends the request to <code>first</code>, then to <code>second</code> too if it's slow, and waits for the first
+   * successful outcome. The calls are enqueued, so they may wait for the transport dispatcher before being sent. The
+   * wait is bounded by the hedge delay plus <code>callTimeoutMillis</code>, unless it's 0.
+   */
+  private Outcome executeHedged(Request request, Endpoint first, Endpoint second, String path,
+      long callTimeoutMillis) throws IOException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis + callTimeoutMillis);
+    BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+    AtomicBoolean decided = new AtomicBoolean();
+    List<Call> calls = new ArrayList<>(2);
+    calls.add(enqueue(request, first, path, outcomes, decided));
+    try {
+      Outcome outcome = outcomes.poll(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+      if (outcome != null && outcome.isSuccessful()) {
+        decided.set(true);
+        return outcome;
+      }
+      calls.add(enqueue(request, second, path, outcomes, decided));
+      int pending = outcome == null ? 2 : 1;
+      Outcome lastFailure = outcome;
+      while (pending > 0) {
+        if (callTimeoutMillis > 0) {
+          outcome = outcomes.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } else {
+          outcome = outcomes.take();
+        }
+        if (outcome == null) {
+          decided.set(true);
+          closeQuietly(lastFailure != null ? lastFailure.response : null);
+          for (Call call : calls) {
+            call.cancel();
+          }
+          throw new InterruptedIOException("Timed out waiting for a Horizon response");
+        }
+        pending--;
+        if (outcome.isSuccessful()) {
+          decided.set(true);
+          closeQuietly(lastFailure != null ? lastFailure.response : null);
+          cancelOthers(calls, outcome.call);
+          return outcome;
+        }
+        if (lastFailure != null) {
+          closeQuietly(lastFailure.response);
+        }
+        lastFailure = outcome;
+      }
+      decided.set(true);
+      return lastFailure;
+    } catch (InterruptedException e) {
+      decided.set(true);
+      for (Call call : calls) {
+        call.cancel();
+      }
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a Horizon response");
+    }
+  }
+
+  private Call enqueue(Request request, final Endpoint endpoint, String path, final BlockingQueue<Outcome> outcomes,
+      final AtomicBoolean decided) {
+    final long start = System.nanoTime();
+    final Call call = transport.newCall(rewrite(request, endpoint, path));
+    call.enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        if (!call.isCanceled()) {
+          endpoint.record(false, start, System.nanoTime());
+        }
+        outcomes.add(new Outcome(call, null, e));
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        endpoint.record(response.code() < 500, start, System.nanoTime());
+        Outcome outcome = new Outcome(call, response, null);
+        outcomes.add(outcome);
+        // Lost the race, checked once queued so that a decision made meanwhile doesn't leave it unclosed. Not closed if
+        // the caller took it.
+        if (decided.get() && outcomes.remove(outcome)) {
+          response.close();
+        }
+      }
+    });
+    return call;
+  }
+
+  private static void cancelOthers(List<Call> calls, Call winner) {
+    for (Call call : calls) {
+      if (call != winner) {
+        call.cancel();
+      }
+    }
+  }
+
+  private static void closeQuietly(Response response) {
+    if (response != null) {
+      response.close();
+    }
+  }
+
+  private static Request rewrite(Request request, Endpoint endpoint, String path) {
+    return request.newBuilder()
+        .url(endpoint.base + path)
+        .build();
+  }
+
+  private static boolean isIdempotent(Request request) {
+    return "GET".equals(request.method()) || "HEAD".equals(request.method());
+  }
+
+  private static boolean isEventStream(Request request) {
+    String accept = request.header("Accept");
+    return accept != null && accept.contains(EVENT_STREAM);
+  }
+
+  private Endpoint endpointOf(Request request) {
+    String url = request.url().toString();
+    for (Endpoint endpoint : endpoints) {
+      if (url.startsWith(endpoint.base)) {
+        return endpoint;
+      }
+    }
+    return null;
+  }
+
+  private Endpoint endpointFor(URI uri) {
+    for (Endpoint endpoint : endpoints) {
+      if (endpoint.uri.equals(uri)) {
+        return endpoint;
+      }
+    }
+    throw new IllegalArgumentException("Unknown endpoint " + uri);
+  }
+
+  private List<Endpoint> rank() {
+    final long now = System.currentTimeMillis();
+    List<Endpoint> ranked = new ArrayList<>(endpoints);
+    Collections.sort(ranked, new Comparator<Endpoint>() {
+      @Override
+      public int compare(Endpoint first, Endpoint second) {
+        boolean firstHealthy = first.isHealthy(now);
+        boolean secondHealthy = second.isHealthy(now);
+        if (firstHealthy != secondHealthy) {
+          return firstHealthy ? -1 : 1;
+        }
+        if (!firstHealthy) {
+          return compareLongs(first.getUnhealthyUntil(), second.getUnhealthyUntil());
+        }
+        return Double.compare(first.getEwmaMillis(), second.getEwmaMillis());
+      }
+    });
+    return ranked;
+  }
+
+  private static int compareLongs(long first, long second) {
+    return first < second ? -1 : (first == second ? 0 : 1);
+  }
+
+  private static String baseOf(URI uri) {
+    String base = uri.toString();
+    return base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+  }
+
+  private static class Outcome {
+
+    final Call call;
+    final Response response;
+    final IOException exception;
+
+    Outcome(Call call, Response response, IOException exception) {
+      this.call = call;
+      this.response = response;
+      this.exception = exception;
+    }
+
+    boolean isSuccessful() {
+      return response != null && response.code() < 500;
+    }
+  }
+
+  private class Endpoint {
+
+    final URI uri;
+    final String base;
+    private double ewmaMillis;
+    private int consecutiveFailures;
+    private long unhealthyUntil;
+
+    Endpoint(URI uri) {
+      this.uri = uri;
+      this.base = baseOf(uri);
+    }
+
+    synchronized void record(boolean success, long startNanos, long endNanos) {
+      double latencyMillis = (endNanos - startNanos) / 1e6;
+      ewmaMillis = ewmaMillis == 0 ? latencyMillis : ewmaWeight * latencyMillis + (1 - ewmaWeight) * ewmaMillis;
+      if (success) {
+        consecutiveFailures = 0;
+        unhealthyUntil = 0;
+      } else {
+        consecutiveFailures++;
+        long cooldown = failureCooldownMillis << Math.min(consecutiveFailures - 1, 16);
+        unhealthyUntil = System.currentTimeMillis() + Math.min(cooldown, maxCooldownMillis);
+      }
+    }
+
+    synchronized double getEwmaMillis() {
+      return ewmaMillis;
+    }
+
+    synchronized long getUnhealthyUntil() {
+      return unhealthyUntil;
+    }
+
+    synchronized boolean isHealthy(long nowMillis) {
+      return nowMillis >= unhealthyUntil;
+    }
+  }
+
+  public static class Builder {
+
+    private final List<URI> uris = new ArrayList<>();
+    private double ewmaWeight = 0.3;
+    private long hedgeDelayMillis = 1000;
+    private long failureCooldownMillis = 1000;
+    private long maxCooldownMillis = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * @param uris the Horizon endpoints, all serving the same network, requests are built against the first one
+     */
+    public Builder(List<String> uris) {
+      if (uris == null || uris.isEmpty()) {
+        throw new IllegalArgumentException("At least one Horizon endpoint is required");
+      }
+      for (String uri : uris) {
+        this.uris.add(URI.create(uri));
+      }
+    }
+
+    /**
+     * Sets the weight of the latest latency sample in the latency average, between 0 (exclusive) and 1.
+     */
+    public Builder ewmaWeight(double ewmaWeight) {
+      if (ewmaWeight <= 0 || ewmaWeight > 1) {
+        throw new IllegalArgumentException("ewmaWeight must be in (0, 1]");
+      }
+      this.ewmaWeight = ewmaWeight;
+      return this;
+    }
+
+    /**
+     * Sets how long to wait for the first endpoint before sending a GET request to a second one, 0 disables hedging.
+     */
+    public Builder hedgeDelay(long delay, TimeUnit timeUnit) {
+      if (delay < 0) {
+        throw new IllegalArgumentException("delay can't be negative");
+      }
+      this.hedgeDelayMillis = timeUnit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Sets how long a failing endpoint is put aside, doubled with each consecutive failure up to
+     * <code>maxCooldown</code>.
+     */
+    public Builder failureCooldown(long cooldown, long maxCooldown, TimeUnit timeUnit) {
+      if (cooldown <= 0 || maxCooldown < cooldown) {
+        throw new IllegalArgumentException("cooldown must be positive and not above maxCooldown");
+      }
+      this.failureCooldownMillis = timeUnit.toMillis(cooldown);
+      this.maxCooldownMillis = timeUnit.toMillis(maxCooldown);
+      return this;
+    }
+
+    public HorizonRouter build() {
+      return new HorizonRouter(this);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package kin.base;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Shared HTTP configuration for Horizon REST requests, Server-Sent Events streams and federation lookups.
+ * <p>
+ * All clients created from the same engine share a single connection pool and dispatcher, so connections (and their
+ * TLS sessions) opened by one component are reused by the others instead of being re-established. Server-Sent Events
+ * streams share the connection pool only, they are dispatched separately so that open streams don't hold the request
+ * limits of the dispatcher.
+ * </p>
+ * Use {@link HttpEngine#getDefault()} for the default configuration, or {@link Builder} to tune it, and pass the
+ * engine to {@link Server#Server(String, HttpEngine, int, TimeUnit)}.
+ */
+public class HttpEngine {
+
+  private final OkHttpClient baseClient;
+
+  private HttpEngine(Builder builder) {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(builder.maxRequests);
+    dispatcher.setMaxRequestsPerHost(builder.maxRequestsPerHost);
+    OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+        .dispatcher(dispatcher)
+        .connectionPool(new ConnectionPool(builder.maxIdleConnections, builder.keepAliveDurationMillis,
+            TimeUnit.MILLISECONDS))
+        .protocols(builder.http2Enabled ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+            : Collections.singletonList(Protocol.HTTP_1_1));
+    if (builder.tlsSessionCacheSize > 0) {
+      configureTlsSessionCache(clientBuilder, builder.tlsSessionCacheSize, builder.tlsSessionTimeoutSeconds);
+    }
+    baseClient = clientBuilder.build();
+  }
+
+  /**
+   * Returns the engine shared by all the servers created without an explicit engine configuration.
+   */
+  public static HttpEngine getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Returns a builder for a client sharing the connection pool and dispatcher of this engine, that can be further
+   * configured with timeouts and interceptors.
+   */
+  public OkHttpClient.Builder newClientBuilder() {
+    return baseClient.newBuilder();
+  }
+
+  /**
+   * Closes idle pooled connections, the engine is still usable afterwards.
+   */
+  public void evictConnections() {
+    baseClient.connectionPool().evictAll();
+  }
+
+  /**
+   * Returns the number of connections currently open in the shared pool.
+   */
+  public int getConnectionCount() {
+    return baseClient.connectionPool().connectionCount();
+  }
+
+  private static void configureTlsSessionCache(OkHttpClient.Builder clientBuilder, int cacheSize,
+      int timeoutSeconds) {
+    try {
+      TrustManagerFactory trustManagerFactory = TrustManagerFactory
+          .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+      trustManagerFactory.init((KeyStore) null);
+      TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
+      if (trustManagers.length != 1 || !(trustManagers[0] instanceof X509TrustManager)) {
+        throw new IllegalStateException("Unexpected default trust managers: " + Arrays.toString(trustManagers));
+      }
+      SSLContext sslContext = SSLContext.getInstance("TLS");
+      sslContext.init(null, trustManagers, null);
+      SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+      sessionContext.setSessionCacheSize(cacheSize);
+      sessionContext.setSessionTimeout(timeoutSeconds);
+      clientBuilder.sslSocketFactory(sslContext.getSocketFactory(), (X509TrustManager) trustManagers[0]);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Can't configure TLS session cache", e);
+    }
+  }
+
+  private static class DefaultHolder {
+
+    private static final HttpEngine INSTANCE = new Builder().build();
+  }
+
+  /**
+   * Builds {@link HttpEngine}, defaults are OkHttp defaults.
+   */
+  public static class Builder {
+
+    private int maxRequests = 64;
+    private int maxRequestsPerHost = 5;
+    private int maxIdleConnections = 5;
+    private long keepAliveDurationMillis = TimeUnit.MINUTES.toMillis(5);
+    private boolean http2Enabled = true;
+    private int tlsSessionCacheSize;
+    private int tlsSessionTimeoutSeconds;
+
+    /**
+     * Sets the maximum number of concurrent requests, requests above it are queued. Server-Sent Events streams don't
+     * count as requests.
+     */
+    public Builder maxRequests(int maxRequests) {
+      if (maxRequests < 1) {
+        throw new IllegalArgumentException("maxRequests must be positive");
+      }
+      this.maxRequests = maxRequests;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent requests to a single host, requests above it are queued.
+     * Server-Sent Events streams don't count as requests.
+     */
+    public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+      if (maxRequestsPerHost < 1) {
+        throw new IllegalArgumentException("maxRequestsPerHost must be positive");
+      }
+      this.maxRequestsPerHost = maxRequestsPerHost;
+      return this;
+    }
+
+    /**
+     * Sets how many idle connections are kept in the pool, and for how long.
+     */
+    public Builder keepAlive(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit) {
+      if (maxIdleConnections < 0) {
+        throw new IllegalArgumentException("maxIdleConnections can't be negative");
+      }
+      if (keepAliveDuration <= 0) {
+        throw new IllegalArgumentException("keepAliveDuration must be positive");
+      }
+      this.maxIdleConnections = maxIdleConnections;
+      this.keepAliveDurationMillis = timeUnit.toMillis(keepAliveDuration);
+      return this;
+    }
+
+    /**
+     * Enables or disables HTTP/2, which multiplexes all requests to the same host over one connection.
+     * Server-Sent Events streams always use HTTP/1.1.
+     */
+    public Builder http2Enabled(boolean http2Enabled) {
+      this.http2Enabled = http2Enabled;
+      return this;
+    }
+
+    /**
+     * Enables a dedicated TLS client session cache, so reconnections resume the previous TLS session instead of
+     * doing a full handshake. By default the platform session cache is used.
+     * @param cacheSize maximum number of cached sessions
+     * @param timeout how long a session can be resumed
+     * @param timeUnit unit of <code>timeout</code>
+     */
+    public Builder tlsSessionCache(int cacheSize, long timeout, TimeUnit timeUnit) {
+      if (cacheSize < 1) {
+        throw new IllegalArgumentException("cacheSize must be positive");
+      }
+      this.tlsSessionCacheSize = cacheSize;
+      this.tlsSessionTimeoutSeconds = (int) Math.min(Integer.MAX_VALUE, timeUnit.toSeconds(timeout));
+      return this;
+    }
+
+    public HttpEngine build() {
+      return new HttpEngine(this);
+    }
+  }
+}
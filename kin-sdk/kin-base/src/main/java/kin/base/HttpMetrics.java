@@ -0,0 +1,475 @@
+package kin.base;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Records the HTTP traffic of a {@link Server}: per endpoint latency histograms, bytes sent and received, status
+ * codes, retries and Horizon rate limit headroom.
+ * <p>
+ * Requests are grouped by host and endpoint template, where identifiers are replaced by <code>{id}</code>, e.g.
+ * <code>GET /accounts/{id}</code>, <code>POST /transactions</code> or <code>GET /ledgers (stream)</code> for
+ * Server-Sent Events streams, whose latency is the time to the response headers.
+ * Read the aggregated values with {@link #snapshot()}, or get every request as it completes with
+ * {@link #addListener(Listener)}.
+ * </p>
+ * @see Server#getHttpMetrics()
+ */
+public class HttpMetrics implements Interceptor {
+
+  /**
+   * Upper bounds, in milliseconds, of the latency histogram buckets. The last bucket has no upper bound.
+   */
+  public static final long[] LATENCY_BUCKETS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+  private static final String EVENT_STREAM = "text/event-stream";
+  private static final String ID = "{id}";
+  private static final Set<String> RESOURCES = new HashSet<>(Arrays.asList(
+      "accounts", "assets", "effects", "ledgers", "offers", "operations", "order_book", "paths", "payments",
+      "trades", "transactions", "data", "federation"));
+
+  private final ConcurrentHashMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+  private final Map<Call, Boolean> seenCalls = Collections.synchronizedMap(new WeakHashMap<Call, Boolean>());
+  private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Gets notified of every completed request, on the thread that made it. Must return quickly.
+   */
+  public interface Listener {
+
+    void onRequest(Sample sample);
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns the current values of all the endpoints seen so far.
+   */
+  public List<EndpointSnapshot> snapshot() {
+    List<EndpointSnapshot> snapshots = new ArrayList<>();
+    for (EndpointStats stats : endpoints.values()) {
+      snapshots.add(stats.snapshot());
+    }
+    return snapshots;
+  }
+
+  /**
+   * Clears all the recorded values.
+   */
+  public void reset() {
+    endpoints.clear();
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    boolean retry = seenCalls.put(chain.call(), Boolean.TRUE) != null;
+    EndpointStats stats = statsFor(request.url().host(), templateOf(request));
+    long bytesOut = contentLength(request.body());
+    long start = System.nanoTime();
+    Response response;
+    try {
+      response = chain.proceed(request);
+    } catch (IOException e) {
+      long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      stats.recordFailure(latencyMillis, bytesOut, retry);
+      notifyListeners(new Sample(stats.host, stats.template, 0, latencyMillis, bytesOut, retry, -1));
+      throw e;
+    }
+    long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    int rateLimitRemaining = parseHeader(response.header("X-Ratelimit-Remaining"));
+    stats.record(response.code(), latencyMillis, bytesOut, retry, parseHeader(response.header("X-Ratelimit-Limit")),
+        rateLimitRemaining);
+    notifyListeners(new Sample(stats.host, stats.template, response.code(), latencyMillis, bytesOut, retry,
+        rateLimitRemaining));
+    return countBytesIn(response, stats);
+  }
+
+  private void notifyListeners(Sample sample) {
+    for (Listener listener : listeners) {
+      listener.onRequest(sample);
+    }
+  }
+
+  private EndpointStats statsFor(String host, String template) {
+    String key = host + ' ' + template;
+    EndpointStats stats = endpoints.get(key);
+    if (stats == null) {
+      EndpointStats newStats = new EndpointStats(host, template);
+      stats = endpoints.putIfAbsent(key, newStats);
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the endpoint template of <code>request</code>, e.g. <code>GET /accounts/{id}/payments</code>.
+   */
+  static String templateOf(Request request) {
+    StringBuilder template = new StringBuilder(request.method()).append(' ');
+    List<String> segments = request.url().pathSegments();
+    boolean empty = true;
+    for (String segment : segments) {
+      if (segment.isEmpty()) {
+        continue;
+      }
+      template.append('/').append(RESOURCES.contains(segment) ? segment : ID);
+      empty = false;
+    }
+    if (empty) {
+      template.append('/');
+    }
+    String accept = request.header("Accept");
+    if (accept != null && accept.contains(EVENT_STREAM)) {
+      template.append(" (stream)");
+    }
+    return template.toString();
+  }
+
+  private static long contentLength(RequestBody body) {
+    if (body == null) {
+      return 0;
+    }
+    try {
+      return Math.max(0, body.contentLength());
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static int parseHeader(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static Response countBytesIn(Response response, final EndpointStats stats) {
+    ResponseBody body = response.body();
+    if (body == null) {
+      return response;
+    }
+    ForwardingSource counting = new ForwardingSource(body.source()) {
+      @Override
+      public long read(Buffer sink, long byteCount) throws IOException {
+        long read = super.read(sink, byteCount);
+        if (read > 0) {
+          stats.bytesIn.addAndGet(read);
+        }
+        return read;
+      }
+    };
+    return response.newBuilder()
+        .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(counting)))
+        .build();
+  }
+
+  /**
+   * A single completed (or failed) request.
+   */
+  public static class Sample {
+
+    private final String host;
+    private final String template;
+    private final int statusCode;
+    private final long latencyMillis;
+    private final long bytesOut;
+    private final boolean retry;
+    private final int rateLimitRemaining;
+
+    Sample(String host, String template, int statusCode, long latencyMillis, long bytesOut, boolean retry,
+        int rateLimitRemaining) {
+      this.host = host;
+      this.template = template;
+      this.statusCode = statusCode;
+      this.latencyMillis = latencyMillis;
+      this.bytesOut = bytesOut;
+      this.retry = retry;
+      this.rateLimitRemaining = rateLimitRemaining;
+    }
+
+    public String getHost() {
+      return host;
+    }
+
+    public String getTemplate() {
+      return template;
+    }
+
+    /**
+     * Returns the HTTP status code, 0 when the request failed without a response.
+     */
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    public long getLatencyMillis() {
+      return latencyMillis;
+    }
+
+    public long getBytesOut() {
+      return bytesOut;
+    }
+
+    /**
+     * Returns true if the request was sent again as part of the same call, e.g. a failover to another endpoint.
+     * Hedged requests (see {@link HorizonRouter}) are separate calls, not retries.
+     */
+    public boolean isRetry() {
+      return retry;
+    }
+
+    /**
+     * Returns the X-RateLimit-Remaining header of the response, -1 if missing.
+     */
+    public int getRateLimitRemaining() {
+      return rateLimitRemaining;
+    }
+  }
+
+  /**
+   * Aggregated values of a single endpoint.
+   */
+  public static class EndpointSnapshot {
+
+    private final String host;
+    private final String template;
+    private final long requestCount;
+    private final long failureCount;
+    private final long retryCount;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long totalLatencyMillis;
+    private final long[] latencyBucketCounts;
+    private final Map<Integer, Long> statusCodeCounts;
+    private final int rateLimitLimit;
+    private final int rateLimitRemaining;
+
+    EndpointSnapshot(String host, String template, long requestCount, long failureCount, long retryCount,
+        long bytesIn, long bytesOut, long totalLatencyMillis, long[] latencyBucketCounts,
+        Map<Integer, Long> statusCodeCounts, int rateLimitLimit, int rateLimitRemaining) {
+      this.host = host;
+      this.template = template;
+      this.requestCount = requestCount;
+      this.failureCount = failureCount;
+      this.retryCount = retryCount;
+      this.bytesIn = bytesIn;
+      this.bytesOut = bytesOut;
+      this.totalLatencyMillis = totalLatencyMillis;
+      this.latencyBucketCounts = latencyBucketCounts;
+      this.statusCodeCounts = statusCodeCounts;
+      this.rateLimitLimit = rateLimitLimit;
+      this.rateLimitRemaining = rateLimitRemaining;
+    }
+
+    public String getHost() {
+      return host;
+    }
+
+    public String getTemplate() {
+      return template;
+    }
+
+    /**
+     * Returns the number of requests sent, including failed ones and retries.
+     */
+    public long getRequestCount() {
+      return requestCount;
+    }
+
+    /**
+     * Returns the number of requests that failed without a response, e.g. connection errors or timeouts.
+     */
+    public long getFailureCount() {
+      return failureCount;
+    }
+
+    public long getRetryCount() {
+      return retryCount;
+    }
+
+    /**
+     * Returns the number of response body bytes read so far.
+     */
+    public long getBytesIn() {
+      return bytesIn;
+    }
+
+    /**
+     * Returns the number of request body bytes sent.
+     */
+    public long getBytesOut() {
+      return bytesOut;
+    }
+
+    public double getMeanLatencyMillis() {
+      return requestCount == 0 ? 0 : (double) totalLatencyMillis / requestCount;
+    }
+
+    /**
+     * Returns the number of requests in each latency bucket, see {@link #LATENCY_BUCKETS_MILLIS}.
+     */
+    public long[] getLatencyBucketCounts() {
+      return latencyBucketCounts.clone();
+    }
+
+    /**
+     * Returns an upper bound of the latency <code>percentile</code> (between 0 and 100), based on the histogram
+     * buckets, or {@link Long#MAX_VALUE} when it falls in the last bucket.
+     */
+    public long getLatencyPercentileMillis(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException("percentile must be between 0 and 100");
+      }
+      long total = 0;
+      for (long count : latencyBucketCounts) {
+        total += count;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(percentile / 100 * total);
+      long seen = 0;
+      for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+        seen += latencyBucketCounts[i];
+        if (seen >= rank) {
+          return LATENCY_BUCKETS_MILLIS[i];
+        }
+      }
+      return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of responses per HTTP status code.
+     */
+    public Map<Integer, Long> getStatusCodeCounts() {
+      return statusCodeCounts;
+    }
+
+    /**
+     * Returns the last X-RateLimit-Limit header seen, -1 if none.
+     */
+    public int getRateLimitLimit() {
+      return rateLimitLimit;
+    }
+
+    /**
+     * Returns the last X-RateLimit-Remaining header seen, -1 if none.
+     */
+    public int getRateLimitRemaining() {
+      return rateLimitRemaining;
+    }
+  }
+
+  private static class EndpointStats {
+
+    private final String host;
+    private final String template;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS_MILLIS.length + 1);
+    private final ConcurrentHashMap<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<>();
+    private volatile int rateLimitLimit = -1;
+    private volatile int rateLimitRemaining = -1;
+
+    EndpointStats(String host, String template) {
+      this.host = host;
+      this.template = template;
+    }
+
+    void record(int statusCode, long latencyMillis, long requestBytes, boolean retry, int limit, int remaining) {
+      recordRequest(latencyMillis, requestBytes, retry);
+      AtomicLong count = statusCodes.get(statusCode);
+      if (count == null) {
+        AtomicLong newCount = new AtomicLong();
+        count = statusCodes.putIfAbsent(statusCode, newCount);
+        if (count == null) {
+          count = newCount;
+        }
+      }
+      count.incrementAndGet();
+      if (limit >= 0) {
+        rateLimitLimit = limit;
+      }
+      if (remaining >= 0) {
+        rateLimitRemaining = remaining;
+      }
+    }
+
+    void recordFailure(long latencyMillis, long requestBytes, boolean retry) {
+      recordRequest(latencyMillis, requestBytes, retry);
+      failures.incrementAndGet();
+    }
+
+    private void recordRequest(long latencyMillis, long requestBytes, boolean retry) {
+      requests.incrementAndGet();
+      if (retry) {
+        retries.incrementAndGet();
+      }
+      bytesOut.addAndGet(requestBytes);
+      totalLatencyMillis.addAndGet(latencyMillis);
+      latencyBuckets.incrementAndGet(bucketOf(latencyMillis));
+    }
+
+    private static int bucketOf(long latencyMillis) {
+      for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+        if (latencyMillis <= LATENCY_BUCKETS_MILLIS[i]) {
+          return i;
+        }
+      }
+      return LATENCY_BUCKETS_MILLIS.length;
+    }
+
+    EndpointSnapshot snapshot() {
+      long[] buckets = new long[latencyBuckets.length()];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = latencyBuckets.get(i);
+      }
+      Map<Integer, Long> codes = new TreeMap<>();
+      for (Map.Entry<Integer, AtomicLong> entry : statusCodes.entrySet()) {
+        codes.put(entry.getKey(), entry.getValue().get());
+      }
+      return new EndpointSnapshot(host, template, requests.get(), failures.get(), retries.get(), bytesIn.get(),
+          bytesOut.get(), totalLatencyMillis.get(), buckets, Collections.unmodifiableMap(codes), rateLimitLimit,
+          rateLimitRemaining);
+    }
+  }
+}
@@ -0,0 +1,435 @@
+package kin.base;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.here.oksse.ServerSentEvent;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import kin.base.codec.Base64;
+import kin.base.requests.DecodePipeline;
+import kin.base.requests.EventListener;
+import kin.base.responses.GsonSingleton;
+import kin.base.responses.TransactionResponse;
+import kin.base.responses.operations.OperationResponse;
+import kin.base.xdr.AccountID;
+import kin.base.xdr.TransactionEnvelope;
+import kin.base.xdr.XdrDataInputStream;
+
+/**
+ * Watches many accounts through a single global stream of Horizon, instead of a stream per account.
+ * <p>
+ * Every event of the global <code>transactions</code> or <code>payments</code> stream is only scanned for the
+ * accounts it involves: the source and destination keys are decoded and checked against a compact table of the
+ * watched public keys (see {@link PublicKeyTable}). Only matching events are parsed, once, and delivered to the
+ * listeners of the matching accounts. Accounts can be watched and unwatched at any time, from any thread, without
+ * locking the stream.
+ * </p>
+ * Listeners are called on the stream thread, unless a decode executor is set with
+ * {@link #setDecodeExecutor(Executor, int)}: events are then filtered and parsed on its threads, and delivered in
+ * order by one of them at a time.
+ *
+ * @param <T> the type of events, {@link TransactionResponse} or {@link OperationResponse}
+ */
+public class MultiAccountWatcher<T> implements Closeable {
+
+  /**
+   * Listener of the events involving a watched account.
+   */
+  public interface Listener<T> {
+
+    /**
+     * @param account the watched account involved in the event, called once per involved watched account
+     */
+    void onEvent(KeyPair account, T event);
+  }
+
+  /**
+   * Listener of the events that could not be decoded, which are skipped.
+   */
+  public interface ErrorListener {
+
+    /**
+     * Called on the thread decoding the event, the stream thread unless a decode executor is set.
+     *
+     * @param data the JSON data of the event
+     */
+    void onDecodeError(String data, Exception error);
+  }
+
+  private static final String CURSOR_FUTURE_ONLY = "now";
+  private static final Object[] NO_LISTENERS = new Object[0];
+
+  private final Server server;
+  private final boolean payments;
+  private final TypeToken<T> type;
+  private final PublicKeyTable<Object[]> watched = new PublicKeyTable<>();
+  private final AtomicLong eventCount = new AtomicLong();
+  private final AtomicLong matchedEventCount = new AtomicLong();
+  private final AtomicLong failedEventCount = new AtomicLong();
+  private volatile ErrorListener errorListener;
+  private ServerSentEvent serverSentEvent;
+  private Executor decodeExecutor;
+  private int maxInFlight;
+
+  private MultiAccountWatcher(Server server, boolean payments, TypeToken<T> type) {
+    if (server == null) {
+      throw new IllegalArgumentException("server cannot be null");
+    }
+    this.server = server;
+    this.payments = payments;
+    this.type = type;
+  }
+
+  /**
+   * Watches the global <code>transactions</code> stream. A transaction involves its source account, the source
+   * accounts of its operations and the destinations of its payment, create account and merge operations.
+   */
+  public static MultiAccountWatcher<TransactionResponse> forTransactions(Server server) {
+    return new MultiAccountWatcher<>(server, false, new TypeToken<TransactionResponse>() {});
+  }
+
+  /**
+   * Watches the global <code>payments</code> stream. A payment involves its source account, and its sender and
+   * receiver (or funder and created account, or merged and receiving account).
+   */
+  public static MultiAccountWatcher<OperationResponse> forPayments(Server server) {
+    return new MultiAccountWatcher<>(server, true, new TypeToken<OperationResponse>() {});
+  }
+
+  /**
+   * Filters and parses the events on <code>executor</code> instead of the stream thread, so that watching a busy
+   * network scales across cores. Must be called before {@link #start(String)}.
+   *
+   * @param maxInFlight the maximum number of events being decoded or waiting for delivery
+   * @see DecodePipeline
+   */
+  public synchronized void setDecodeExecutor(Executor executor, int maxInFlight) {
+    if (serverSentEvent != null) {
+      throw new IllegalStateException("Watcher already started");
+    }
+    this.decodeExecutor = executor;
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Notifies <code>errorListener</code> of the events that could not be decoded, instead of printing their error.
+   */
+  public void setErrorListener(ErrorListener errorListener) {
+    this.errorListener = errorListener;
+  }
+
+  /**
+   * Starts streaming events from now on.
+   */
+  public void start() {
+    start(CURSOR_FUTURE_ONLY);
+  }
+
+  /**
+   * Starts streaming events after <code>cursor</code>, a paging token.
+   */
+  public synchronized void start(String cursor) {
+    if (serverSentEvent != null) {
+      throw new IllegalStateException("Watcher already started");
+    }
+    EventListener<String> listener = decodeExecutor != null ? newDecodePipeline() : new EventListener<String>() {
+      @Override
+      public void onEvent(String data) {
+        onData(data);
+      }
+    };
+    serverSentEvent = payments
+        ? server.payments().cursor(cursor).streamRaw(listener)
+        : server.transactions().cursor(cursor).streamRaw(listener);
+  }
+
+  /**
+   * Closes the stream. Watched accounts and their listeners are kept.
+   */
+  @Override
+  public synchronized void close() {
+    if (serverSentEvent != null) {
+      serverSentEvent.close();
+      serverSentEvent = null;
+    }
+  }
+
+  /**
+   * Adds a listener for the events involving <code>account</code>.
+   */
+  public void watch(KeyPair account, final Listener<T> listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener cannot be null");
+    }
+    watched.update(keyOf(account), new PublicKeyTable.Updater<Object[]>() {
+      @Override
+      public Object[] apply(Object[] current) {
+        Object[] listeners = current != null ? current : NO_LISTENERS;
+        Object[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        return updated;
+      }
+    });
+  }
+
+  /**
+   * Removes a listener of <code>account</code>; the account is no longer watched once its last listener is removed.
+   */
+  public void unwatch(KeyPair account, final Listener<T> listener) {
+    watched.update(keyOf(account), new PublicKeyTable.Updater<Object[]>() {
+      @Override
+      public Object[] apply(Object[] current) {
+        if (current == null) {
+          return null;
+        }
+        for (int i = 0; i < current.length; i++) {
+          if (current[i] == listener) {
+            if (current.length == 1) {
+              return null;
+            }
+            Object[] updated = new Object[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            return updated;
+          }
+        }
+        return current;
+      }
+    });
+  }
+
+  public boolean isWatching(KeyPair account) {
+    return watched.get(keyOf(account)) != null;
+  }
+
+  public int getWatchedAccountCount() {
+    return watched.size();
+  }
+
+  /**
+   * Returns the number of events received from the stream.
+   */
+  public long getEventCount() {
+    return eventCount.get();
+  }
+
+  /**
+   * Returns the number of received events involving at least one watched account.
+   */
+  public long getMatchedEventCount() {
+    return matchedEventCount.get();
+  }
+
+  /**
+   * Returns the number of received events skipped because they could not be decoded.
+   */
+  public long getFailedEventCount() {
+    return failedEventCount.get();
+  }
+
+  DecodePipeline<MatchedEvent<T>> newDecodePipeline() {
+    return new DecodePipeline<>(decodeExecutor, maxInFlight, new DecodePipeline.Decoder<MatchedEvent<T>>() {
+      @Override
+      public MatchedEvent<T> decode(String data) {
+        return match(data);
+      }
+    }, new EventListener<MatchedEvent<T>>() {
+      @Override
+      public void onEvent(MatchedEvent<T> event) {
+        dispatch(event);
+      }
+    });
+  }
+
+  /**
+   * Handles the data of a stream event.
+   */
+  void onData(String data) {
+    MatchedEvent<T> event = match(data);
+    if (event != null) {
+      dispatch(event);
+    }
+  }
+
+  /**
+   * Returns the event with the watched accounts it involves, or null if it involves none.
+   */
+  private MatchedEvent<T> match(String data) {
+    eventCount.incrementAndGet();
+    Matches matches = new Matches();
+    try {
+      if (payments) {
+        matchPayment(data, matches);
+      } else {
+        matchTransaction(data, matches);
+      }
+    } catch (IOException | RuntimeException e) {
+      onDecodeError(data, e);
+      return null;
+    }
+    if (matches.count == 0) {
+      return null;
+    }
+    matchedEventCount.incrementAndGet();
+    T event;
+    try {
+      event = GsonSingleton.getInstance().fromJson(data, type.getType());
+    } catch (JsonParseException e) {
+      onDecodeError(data, e);
+      return null;
+    }
+    return event != null ? new MatchedEvent<>(event, matches) : null;
+  }
+
+  private void onDecodeError(String data, Exception error) {
+    failedEventCount.incrementAndGet();
+    ErrorListener listener = errorListener;
+    if (listener != null) {
+      listener.onDecodeError(data, error);
+    } else {
+      error.printStackTrace();
+    }
+  }
+
+  private void dispatch(MatchedEvent<T> matched) {
+    Matches matches = matched.matches;
+    for (int i = 0; i < matches.count; i++) {
+      KeyPair account = KeyPair.fromPublicKey(matches.keys[i]);
+      for (Object listener : matches.listeners[i]) {
+        @SuppressWarnings("unchecked")
+        Listener<T> typedListener = (Listener<T>) listener;
+        typedListener.onEvent(account, matched.event);
+      }
+    }
+  }
+
+  /**
+   * Reads the account ids of the top level fields of a payment operation, skipping everything else.
+   */
+  private void matchPayment(String data, Matches matches) throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(data));
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "source_account":
+        case "from":
+        case "to":
+        case "funder":
+        case "account":
+        case "into":
+          match(StrKey.decodeStellarAccountId(reader.nextString()), matches);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+  }
+
+  /**
+   * Decodes the accounts of the transaction envelope, the only field read.
+   */
+  private void matchTransaction(String data, Matches matches) throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(data));
+    reader.beginObject();
+    String envelopeXdr = null;
+    while (reader.hasNext() && envelopeXdr == null) {
+      if ("envelope_xdr".equals(reader.nextName())) {
+        envelopeXdr = reader.nextString();
+      } else {
+        reader.skipValue();
+      }
+    }
+    if (envelopeXdr == null) {
+      return;
+    }
+    TransactionEnvelope envelope = TransactionEnvelope.decode(
+        new XdrDataInputStream(new ByteArrayInputStream(Base64.decodeBase64(envelopeXdr))));
+    kin.base.xdr.Transaction transaction = envelope.getTx();
+    match(transaction.getSourceAccount(), matches);
+    for (kin.base.xdr.Operation operation : transaction.getOperations()) {
+      match(operation.getSourceAccount(), matches);
+      kin.base.xdr.Operation.OperationBody body = operation.getBody();
+      switch (body.getDiscriminant()) {
+        case CREATE_ACCOUNT:
+          match(body.getCreateAccountOp().getDestination(), matches);
+          break;
+        case PAYMENT:
+          match(body.getPaymentOp().getDestination(), matches);
+          break;
+        case PATH_PAYMENT:
+          match(body.getPathPaymentOp().getDestination(), matches);
+          break;
+        case ACCOUNT_MERGE:
+          match(body.getDestination(), matches);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private void match(AccountID accountId, Matches matches) {
+    if (accountId != null) {
+      match(accountId.getAccountID().getEd25519().getUint256(), matches);
+    }
+  }
+
+  private void match(byte[] key, Matches matches) {
+    Object[] listeners = watched.get(key);
+    if (listeners != null) {
+      matches.add(key, listeners);
+    }
+  }
+
+  private static byte[] keyOf(KeyPair account) {
+    if (account == null) {
+      throw new IllegalArgumentException("account cannot be null");
+    }
+    return account.getPublicKey();
+  }
+
+  /**
+   * A parsed event and the watched accounts it involves.
+   */
+  static class MatchedEvent<T> {
+
+    final T event;
+    final Matches matches;
+
+    MatchedEvent(T event, Matches matches) {
+      this.event = event;
+      this.matches = matches;
+    }
+  }
+
+  /**
+   * The distinct watched accounts involved in an event, with their listeners at the time of the match.
+   */
+  private static class Matches {
+
+    byte[][] keys = new byte[2][];
+    Object[][] listeners = new Object[2][];
+    int count;
+
+    void add(byte[] key, Object[] keyListeners) {
+      for (int i = 0; i < count; i++) {
+        if (Arrays.equals(keys[i], key)) {
+          return;
+        }
+      }
+      if (count == keys.length) {
+        keys = Arrays.copyOf(keys, count * 2);
+        listeners = Arrays.copyOf(listeners, count * 2);
+      }
+      keys[count] = key;
+      listeners[count] = keyListeners;
+      count++;
+    }
+  }
+}
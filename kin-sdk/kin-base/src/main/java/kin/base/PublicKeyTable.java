@@ -0,0 +1,186 @@
+package kin.base;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent map from 32 bytes public keys to values, built for membership checks on every event of a busy stream.
+ * <p>
+ * Keys are stored inline as four longs in open addressing tables, so a watched key costs 32 bytes and a slot instead
+ * of a String and a map entry. The map is split into 256 segments by the first key byte; each segment is an immutable
+ * table that updates replace with a compare-and-set, so reads never block and updates only copy one segment.
+ * </p>
+ */
+class PublicKeyTable<V> {
+
+  static final int KEY_LENGTH = 32;
+
+  private static final int SEGMENTS = 256;
+  private static final int MIN_CAPACITY = 4;
+
+  /**
+   * Computes the new value of a key from its current one, null meaning absent.
+   */
+  interface Updater<V> {
+
+    V apply(V current);
+  }
+
+  private final AtomicReferenceArray<Table> segments = new AtomicReferenceArray<>(SEGMENTS);
+  private final AtomicInteger size = new AtomicInteger();
+
+  PublicKeyTable() {
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments.set(i, Table.EMPTY);
+    }
+  }
+
+  /**
+   * Returns the value of <code>key</code>, or null.
+   */
+  @SuppressWarnings("unchecked")
+  V get(byte[] key) {
+    checkKey(key);
+    return (V) segments.get(key[0] & 0xFF).get(longAt(key, 0), longAt(key, 8), longAt(key, 16), longAt(key, 24));
+  }
+
+  /**
+   * Atomically replaces the value of <code>key</code> with the one computed by <code>updater</code>, removing the key
+   * when it computes null. The updater may be called several times under contention.
+   *
+   * @return the new value
+   */
+  @SuppressWarnings("unchecked")
+  V update(byte[] key, Updater<V> updater) {
+    checkKey(key);
+    int segment = key[0] & 0xFF;
+    long k0 = longAt(key, 0);
+    long k1 = longAt(key, 8);
+    long k2 = longAt(key, 16);
+    long k3 = longAt(key, 24);
+    while (true) {
+      Table table = segments.get(segment);
+      V current = (V) table.get(k0, k1, k2, k3);
+      V updated = updater.apply(current);
+      if (updated == current) {
+        return current;
+      }
+      Table replacement = updated == null
+          ? table.without(k0, k1, k2, k3)
+          : table.with(k0, k1, k2, k3, updated, current == null);
+      if (segments.compareAndSet(segment, table, replacement)) {
+        if (current == null) {
+          size.incrementAndGet();
+        } else if (updated == null) {
+          size.decrementAndGet();
+        }
+        return updated;
+      }
+    }
+  }
+
+  int size() {
+    return size.get();
+  }
+
+  private static void checkKey(byte[] key) {
+    if (key == null || key.length != KEY_LENGTH) {
+      throw new IllegalArgumentException("key must be " + KEY_LENGTH + " bytes");
+    }
+  }
+
+  private static long longAt(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = offset; i < offset + 8; i++) {
+      value = (value << 8) | (bytes[i] & 0xFF);
+    }
+    return value;
+  }
+
+  /**
+   * Immutable open addressing table with linear probing, at most half full.
+   */
+  private static final class Table {
+
+    static final Table EMPTY = new Table(MIN_CAPACITY);
+
+    private final long[] keys;
+    private final Object[] values;
+    private final int mask;
+    private int count;
+
+    private Table(int capacity) {
+      this.keys = new long[capacity * 4];
+      this.values = new Object[capacity];
+      this.mask = capacity - 1;
+    }
+
+    Object get(long k0, long k1, long k2, long k3) {
+      for (int slot = slotOf(k1); ; slot = (slot + 1) & mask) {
+        Object value = values[slot];
+        if (value == null) {
+          return null;
+        }
+        if (matches(slot, k0, k1, k2, k3)) {
+          return value;
+        }
+      }
+    }
+
+    Table with(long k0, long k1, long k2, long k3, Object value, boolean isNew) {
+      int capacity = values.length;
+      if (isNew && (count + 1) * 2 > capacity) {
+        capacity *= 2;
+      }
+      Table table = copy(capacity, Long.MIN_VALUE, 0, 0, 0, false);
+      table.put(k0, k1, k2, k3, value);
+      return table;
+    }
+
+    Table without(long k0, long k1, long k2, long k3) {
+      int capacity = values.length;
+      while (capacity > MIN_CAPACITY && (count - 1) * 8 < capacity) {
+        capacity /= 2;
+      }
+      return copy(capacity, k0, k1, k2, k3, true);
+    }
+
+    /**
+     * Copies the entries into a new table, skipping the excluded key.
+     */
+    private Table copy(int capacity, long k0, long k1, long k2, long k3, boolean exclude) {
+      Table table = new Table(capacity);
+      for (int slot = 0; slot < values.length; slot++) {
+        if (values[slot] != null && !(exclude && matches(slot, k0, k1, k2, k3))) {
+          table.put(keys[slot * 4], keys[slot * 4 + 1], keys[slot * 4 + 2], keys[slot * 4 + 3], values[slot]);
+        }
+      }
+      return table;
+    }
+
+    private void put(long k0, long k1, long k2, long k3, Object value) {
+      int slot = slotOf(k1);
+      while (values[slot] != null && !matches(slot, k0, k1, k2, k3)) {
+        slot = (slot + 1) & mask;
+      }
+      if (values[slot] == null) {
+        count++;
+      }
+      keys[slot * 4] = k0;
+      keys[slot * 4 + 1] = k1;
+      keys[slot * 4 + 2] = k2;
+      keys[slot * 4 + 3] = k3;
+      values[slot] = value;
+    }
+
+    private boolean matches(int slot, long k0, long k1, long k2, long k3) {
+      int i = slot * 4;
+      return keys[i] == k0 && keys[i + 1] == k1 && keys[i + 2] == k2 && keys[i + 3] == k3;
+    }
+
+    private int slotOf(long k1) {
+      // Public keys are uniformly distributed, the first byte already picked the segment.
+      return (int) (k1 ^ (k1 >>> 32)) & mask;
+    }
+  }
+}
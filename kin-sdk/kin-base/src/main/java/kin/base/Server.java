@@ -6,8 +6,10 @@ import android.text.TextUtils;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import kin.base.requests.AccountsRequestBuilder;
+import kin.base.requests.CursorStore;
 import kin.base.requests.EffectsRequestBuilder;
 import kin.base.requests.LedgersRequestBuilder;
 import kin.base.requests.OffersRequestBuilder;
@@ -15,10 +17,17 @@ import kin.base.requests.OperationsRequestBuilder;
 import kin.base.requests.OrderBookRequestBuilder;
 import kin.base.requests.PathsRequestBuilder;
 import kin.base.requests.PaymentsRequestBuilder;
+import kin.base.requests.ReconnectPolicy;
+import kin.base.requests.RequestBuilder;
+import kin.base.requests.ResponseCache;
+import kin.base.requests.SingleFlight;
 import kin.base.requests.TradesRequestBuilder;
 import kin.base.requests.TransactionsRequestBuilder;
 import kin.base.responses.GsonSingleton;
+import kin.base.responses.HttpResponseException;
 import kin.base.responses.SubmitTransactionResponse;
+import kin.base.responses.SubmitTransactionResponse.Extras.ResultCodes;
+import kin.base.responses.TransactionResponse;
 import okhttp3.FormBody;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
@@ -35,11 +44,26 @@ public class Server {
     private static final int TEMPORARY_REDIRECT = 307;
     private static final String LOCATION_HEADER = "Location";
     private static final String KIN_SDK_ANDROID_VERSION_HEADER = "kin-sdk-android-version";
+    private static final int NOT_FOUND = 404;
+    private static final int SERVER_ERROR = 500;
+    private static final String TX_BAD_SEQ = "tx_bad_seq";
 
     private URI serverURI;
 
     private OkHttpClient httpClient;
 
+    private SingleFlight singleFlight;
+
+    private ResponseCache responseCache;
+
+    private CursorStore cursorStore;
+
+    private ReconnectPolicy reconnectPolicy = new ReconnectPolicy.Builder().build();
+
+    private HorizonRouter router;
+
+    private final HttpMetrics httpMetrics = new HttpMetrics();
+
     /**
      * Creates server with input uri
      *
@@ -47,7 +71,9 @@ public class Server {
      */
     public Server(String uri) {
         createUri(uri);
-        httpClient = new OkHttpClient();
+        httpClient = HttpEngine.getDefault().newClientBuilder()
+            .addInterceptor(httpMetrics)
+            .build();
     }
 
     /**
@@ -60,15 +86,57 @@ public class Server {
      * @param timeUnit transactions timeout unit
      */
     public Server(String uri, int transactionsTimeout, TimeUnit timeUnit) {
+        this(uri, HttpEngine.getDefault(), transactionsTimeout, timeUnit);
+    }
+
+    /**
+     * Creates server with input uri and timeout for transactions, sharing the connections of <code>httpEngine</code>
+     * with the other servers and components using it.
+     *
+     * @param uri Horizon server uri
+     * @param httpEngine shared HTTP configuration
+     * @param transactionsTimeout transactions timeout value
+     * @param timeUnit transactions timeout unit
+     * @see #Server(String, int, TimeUnit)
+     */
+    public Server(String uri, HttpEngine httpEngine, int transactionsTimeout, TimeUnit timeUnit) {
         createUri(uri);
-        httpClient = new OkHttpClient.Builder()
+        httpClient = httpEngine.newClientBuilder()
             .connectTimeout(transactionsTimeout, timeUnit)
             .writeTimeout(transactionsTimeout, timeUnit)
             .readTimeout(transactionsTimeout, timeUnit)
             .addInterceptor(new HeaderInterceptor())
+            .addInterceptor(httpMetrics)
             .build();
     }
 
+    /**
+     * Creates server routing requests across several Horizon endpoints serving the same network, see
+     * {@link HorizonRouter} for the routing rules.
+     *
+     * @param uris Horizon servers uris
+     * @param httpEngine shared HTTP configuration
+     * @param transactionsTimeout transactions timeout value
+     * @param timeUnit transactions timeout unit
+     */
+    public Server(List<String> uris, HttpEngine httpEngine, int transactionsTimeout, TimeUnit timeUnit) {
+        this(new HorizonRouter.Builder(uris).build(), httpEngine, transactionsTimeout, timeUnit);
+    }
+
+    /**
+     * Creates server routing requests across the endpoints of <code>router</code>.
+     *
+     * @param router routing configuration
+     * @param httpEngine shared HTTP configuration
+     * @param transactionsTimeout transactions timeout value
+     * @param timeUnit transactions timeout unit
+     */
+    public Server(HorizonRouter router, HttpEngine httpEngine, int transactionsTimeout, TimeUnit timeUnit) {
+        this(router.getPrimaryUri().toString(), httpEngine, transactionsTimeout, timeUnit);
+        this.router = router;
+        setRoutedHttpClient(httpClient);
+    }
+
     private void createUri(String uri) {
         try {
             serverURI = new URI(uri);
@@ -81,70 +149,70 @@ public class Server {
      * Returns {@link AccountsRequestBuilder} instance.
      */
     public AccountsRequestBuilder accounts() {
-        return new AccountsRequestBuilder(httpClient, serverURI);
+        return configure(new AccountsRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link EffectsRequestBuilder} instance.
      */
     public EffectsRequestBuilder effects() {
-        return new EffectsRequestBuilder(httpClient, serverURI);
+        return configure(new EffectsRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link LedgersRequestBuilder} instance.
      */
     public LedgersRequestBuilder ledgers() {
-        return new LedgersRequestBuilder(httpClient, serverURI);
+        return configure(new LedgersRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link OffersRequestBuilder} instance.
      */
     public OffersRequestBuilder offers() {
-        return new OffersRequestBuilder(httpClient, serverURI);
+        return configure(new OffersRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link OperationsRequestBuilder} instance.
      */
     public OperationsRequestBuilder operations() {
-        return new OperationsRequestBuilder(httpClient, serverURI);
+        return configure(new OperationsRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link OrderBookRequestBuilder} instance.
      */
     public OrderBookRequestBuilder orderBook() {
-        return new OrderBookRequestBuilder(httpClient, serverURI);
+        return configure(new OrderBookRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link TradesRequestBuilder} instance.
      */
     public TradesRequestBuilder trades() {
-        return new TradesRequestBuilder(httpClient, serverURI);
+        return configure(new TradesRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link PathsRequestBuilder} instance.
      */
     public PathsRequestBuilder paths() {
-        return new PathsRequestBuilder(httpClient, serverURI);
+        return configure(new PathsRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link PaymentsRequestBuilder} instance.
      */
     public PaymentsRequestBuilder payments() {
-        return new PaymentsRequestBuilder(httpClient, serverURI);
+        return configure(new PaymentsRequestBuilder(httpClient, serverURI));
     }
 
     /**
      * Returns {@link TransactionsRequestBuilder} instance.
      */
     public TransactionsRequestBuilder transactions() {
-        return new TransactionsRequestBuilder(httpClient, serverURI);
+        return configure(new TransactionsRequestBuilder(httpClient, serverURI));
     }
 
     /**
@@ -173,6 +241,9 @@ public class Server {
                 String location = response.header(LOCATION_HEADER);
                 if (response.code() == TEMPORARY_REDIRECT && location != null) {
                     return submitTransaction(transaction, location);
+                } else if (router != null && response.code() >= SERVER_ERROR) {
+                    // No definite answer, let submitTransaction(Transaction) find out if it was included.
+                    throw new HttpResponseException(response.code(), response.message());
                 } else {
                     ResponseBody body = response.body();
                     if (body != null) {
@@ -191,12 +262,73 @@ public class Server {
 
     /**
      * Submits transaction to the network.
+     * <p>With several Horizon endpoints, a submission failing without a definite answer (connection error or
+     * server error) is looked up by hash before being submitted again, so a transaction is never applied twice and an
+     * already included transaction is reported as successful.</p>
      *
      * @param transaction transaction to submit to the network.
      * @return {@link SubmitTransactionResponse}
      */
     public SubmitTransactionResponse submitTransaction(Transaction transaction) throws IOException {
-        return submitTransaction(transaction, null);
+        if (router == null) {
+            return submitTransaction(transaction, null);
+        }
+        try {
+            return submitTransaction(transaction, null);
+        } catch (IOException e) {
+            return resubmitTransaction(transaction);
+        }
+    }
+
+    private SubmitTransactionResponse resubmitTransaction(Transaction transaction) throws IOException {
+        // The failed endpoint is now ranked last, the lookup and the new submission go to another one.
+        String hash = Util.bytesToHex(transaction.hash()).toLowerCase();
+        TransactionResponse included = findTransaction(hash);
+        if (included != null) {
+            return SubmitTransactionResponse.fromTransaction(included);
+        }
+        SubmitTransactionResponse response = submitTransaction(transaction, null);
+        if (response != null && isBadSequence(response)) {
+            // The first submission made it in the meantime, and consumed the sequence number.
+            included = findTransaction(hash);
+            if (included != null) {
+                return SubmitTransactionResponse.fromTransaction(included);
+            }
+        }
+        return response;
+    }
+
+    private TransactionResponse findTransaction(String hash) throws IOException {
+        try {
+            return transactions().transaction(hash);
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isBadSequence(SubmitTransactionResponse response) {
+        if (response.isSuccess() || response.getExtras() == null) {
+            return false;
+        }
+        ResultCodes resultCodes = response.getExtras().getResultCodes();
+        return resultCodes != null && TX_BAD_SEQ.equals(resultCodes.getTransactionResultCode());
+    }
+
+    /**
+     * Returns the metrics of the HTTP requests made through this server.
+     */
+    public HttpMetrics getHttpMetrics() {
+        return httpMetrics;
+    }
+
+    /**
+     * Returns the router of a server created with several endpoints, or null.
+     */
+    public HorizonRouter getRouter() {
+        return router;
     }
 
     private Uri getUri(String url) {
@@ -209,6 +341,79 @@ public class Server {
         return uriBuilder.build();
     }
 
+    /**
+     * Coalesces identical concurrent GET requests made through this server, for the endpoints enabled in
+     * <code>singleFlight</code>.
+     *
+     * @param singleFlight the {@link SingleFlight} to use, or null to send every request
+     */
+    public void setSingleFlight(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Caches the responses of the requests made through this server, according to the policies of
+     * <code>responseCache</code>. Should be set once, before making requests.
+     *
+     * @param responseCache the {@link ResponseCache} to use
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        OkHttpClient.Builder builder = httpClient.newBuilder();
+        if (router != null) {
+            builder.interceptors().remove(router);
+        }
+        setRoutedHttpClient(responseCache.configure(builder).build());
+    }
+
+    /**
+     * Persists the cursor of the streams opened through this server, so that streams opened again after a restart
+     * first catch up with the events they missed. Opt-in: no store is set by default, and the SDK's KinClient doesn't set
+     * one.
+     *
+     * @param cursorStore the {@link CursorStore} to use, or null to stream from the requested cursor
+     */
+    public void setCursorStore(CursorStore cursorStore) {
+        this.cursorStore = cursorStore;
+    }
+
+    /**
+     * Sets when the streams opened through this server reconnect after a failure. All the streams share the circuit
+     * breaker of the policy. By default, streams back off from 1 second to 1 minute, and stop reconnecting for a
+     * minute after 10 consecutive failures.
+     *
+     * @param reconnectPolicy the {@link ReconnectPolicy} to use
+     */
+    public void setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+        if (reconnectPolicy == null) {
+            throw new IllegalArgumentException("reconnectPolicy cannot be null");
+        }
+        this.reconnectPolicy = reconnectPolicy;
+    }
+
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    private void setRoutedHttpClient(OkHttpClient transport) {
+        httpClient = transport;
+        if (router != null) {
+            router.setTransport(transport);
+            OkHttpClient.Builder builder = transport.newBuilder();
+            // First, so the rewritten requests still go through the other interceptors.
+            builder.interceptors().add(0, router);
+            httpClient = builder.build();
+        }
+    }
+
+    private <T extends RequestBuilder> T configure(T requestBuilder) {
+        requestBuilder.setSingleFlight(singleFlight);
+        requestBuilder.setResponseCache(responseCache);
+        requestBuilder.setCursorStore(cursorStore);
+        requestBuilder.setReconnectPolicy(reconnectPolicy);
+        return requestBuilder;
+    }
+
     /**
      * To support mocking a client
      */
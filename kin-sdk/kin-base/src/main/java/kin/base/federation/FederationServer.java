@@ -6,6 +6,7 @@ import com.moandjiezana.toml.Toml;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import kin.base.HttpEngine;
 import kin.base.requests.ResponseHandler;
 import kin.base.responses.HttpResponseException;
 import okhttp3.OkHttpClient;
@@ -26,7 +27,7 @@ import okhttp3.ResponseBody;
 public class FederationServer {
   private final URI serverUri;
   private final String domain;
-  private static OkHttpClient httpClient = new OkHttpClient();
+  private static OkHttpClient httpClient = HttpEngine.getDefault().newClientBuilder().build();
 
   /**
    * Creates a new <code>FederationServer</code> instance.
@@ -173,6 +174,15 @@ public class FederationServer {
     return domain;
   }
 
+  /**
+   * Makes federation requests share the connections of <code>httpEngine</code>.
+   *
+   * @param httpEngine shared HTTP configuration
+   */
+  public static void useHttpEngine(HttpEngine httpEngine) {
+    FederationServer.httpClient = httpEngine.newClientBuilder().build();
+  }
+
   /**
    * To support mocking a client
    *
@@ -5,6 +5,7 @@ import com.here.oksse.ServerSentEvent;
 import java.io.IOException;
 import java.net.URI;
 import kin.base.KeyPair;
+import kin.base.responses.AccountBalanceResponse;
 import kin.base.responses.AccountResponse;
 import kin.base.responses.Page;
 import okhttp3.OkHttpClient;
@@ -25,7 +26,7 @@ public class AccountsRequestBuilder extends RequestBuilder {
    */
   public AccountResponse account(URI uri) throws IOException {
     TypeToken type = new TypeToken<AccountResponse>() {};
-    ResponseHandler<AccountResponse> responseHandler = new ResponseHandler<AccountResponse>(httpClient, type);
+    ResponseHandler<AccountResponse> responseHandler = newSingleResponseHandler(type);
     return responseHandler.handleGetRequest(uri);
   }
 
@@ -40,6 +41,28 @@ public class AccountsRequestBuilder extends RequestBuilder {
     return this.account(this.buildUri());
   }
 
+  /**
+   * Requests specific <code>uri</code> and returns {@link AccountBalanceResponse}.
+   * @throws IOException
+   */
+  public AccountBalanceResponse accountBalance(URI uri) throws IOException {
+    TypeToken type = new TypeToken<AccountBalanceResponse>() {};
+    ResponseHandler<AccountBalanceResponse> responseHandler = newSingleResponseHandler(type);
+    return responseHandler.handleGetRequest(uri);
+  }
+
+  /**
+   * Requests <code>GET /accounts/{account}</code>, reading only the native balance and the sequence number of the
+   * account. Cheaper than {@link #account(KeyPair)} when the other account details are not needed.
+   * @see <a href="https://www.stellar.org/developers/horizon/reference/accounts-single.html">Account Details</a>
+   * @param account Account to fetch
+   * @throws IOException
+   */
+  public AccountBalanceResponse accountBalance(KeyPair account) throws IOException {
+    this.setSegments("accounts", account.getAccountId());
+    return this.accountBalance(this.buildUri());
+  }
+
   /**
    * Requests specific <code>uri</code> and returns {@link Page} of {@link AccountResponse}.
    * This method is helpful for getting the next set of results.
@@ -66,7 +89,7 @@ public class AccountsRequestBuilder extends RequestBuilder {
    * @return ServerSentEvent object, so you can <code>close()</code> connection when not needed anymore
    */
   public ServerSentEvent stream(final EventListener<AccountResponse> listener) {
-    return new StreamHandler<>(new TypeToken<AccountResponse>() {})
+    return newStreamHandler(new TypeToken<AccountResponse>() {})
         .handleStream(this.buildUri(),listener);
   }
 
@@ -77,7 +100,9 @@ public class AccountsRequestBuilder extends RequestBuilder {
    * @throws IOException
    */
   public Page<AccountResponse> execute() throws IOException, TooManyRequestsException {
-    return this.execute(httpClient, this.buildUri());
+    TypeToken type = new TypeToken<Page<AccountResponse>>() {};
+    ResponseHandler<Page<AccountResponse>> responseHandler = newResponseHandler(type);
+    return responseHandler.handleGetRequest(this.buildUri());
   }
 
   @Override
@@ -0,0 +1,67 @@
+package kin.base.requests;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long the responses of a Horizon resource can be served from a {@link ResponseCache}.
+ */
+public final class CachePolicy {
+
+  private static final CachePolicy FOREVER = new CachePolicy(Long.MAX_VALUE, false);
+
+  private final long ttlMillis;
+  private final boolean revalidate;
+
+  private CachePolicy(long ttlMillis, boolean revalidate) {
+    this.ttlMillis = ttlMillis;
+    this.revalidate = revalidate;
+  }
+
+  /**
+   * For immutable resources, e.g. a transaction or a closed ledger, responses never expire.
+   */
+  public static CachePolicy forever() {
+    return FOREVER;
+  }
+
+  /**
+   * Responses are served from the cache for <code>ttl</code>, then requested again.
+   */
+  public static CachePolicy ttl(long ttl, TimeUnit timeUnit) {
+    return new CachePolicy(checkTtl(ttl, timeUnit), false);
+  }
+
+  /**
+   * Responses are served from the cache for <code>ttl</code>, then revalidated with a conditional request using the
+   * response <code>ETag</code>, an unchanged resource is served from the cache again without being downloaded.
+   */
+  public static CachePolicy revalidate(long ttl, TimeUnit timeUnit) {
+    return new CachePolicy(checkTtl(ttl, timeUnit), true);
+  }
+
+  private static long checkTtl(long ttl, TimeUnit timeUnit) {
+    if (ttl < 0) {
+      throw new IllegalArgumentException("ttl can't be negative");
+    }
+    return timeUnit.toMillis(ttl);
+  }
+
+  long getTtlMillis() {
+    return ttlMillis;
+  }
+
+  boolean isRevalidate() {
+    return revalidate;
+  }
+
+  /**
+   * Returns the <code>Cache-Control</code> header value matching this policy, for the HTTP disk cache.
+   */
+  String toCacheControl() {
+    if (revalidate) {
+      return "no-cache";
+    }
+    long maxAgeSeconds = Math.min(TimeUnit.MILLISECONDS.toSeconds(ttlMillis), Integer.MAX_VALUE);
+    return "max-age=" + maxAgeSeconds;
+  }
+}
@@ -0,0 +1,29 @@
+package kin.base.requests;
+
+/**
+ * Persists the cursor of streams, so that a stream opened again after a restart resumes after the last event it
+ * delivered instead of losing the events that happened meanwhile.
+ * <p>
+ * Streams are identified by their URL with the cursor they were requested with, e.g.
+ * <code>https://horizon.kinfederation.com/accounts/GA.../transactions?cursor=now</code>, so that streams of the same
+ * resource opened from different cursors don't overwrite each other's position. {@link #save(String, String)} is called
+ * after every delivered event, from the stream thread; implementations writing to slow storage should batch writes.
+ * </p>
+ * <p>
+ * Opt-in: streams resume from a saved cursor only when a store is set with
+ * {@link kin.base.Server#setCursorStore(CursorStore)}.
+ * </p>
+ * @see kin.base.Server#setCursorStore(CursorStore)
+ */
+public interface CursorStore {
+
+  /**
+   * Returns the saved cursor of <code>stream</code>, or null if none was saved.
+   */
+  String load(String stream);
+
+  /**
+   * Saves the paging token of the last event delivered by <code>stream</code>.
+   */
+  void save(String stream, String cursor);
+}
@@ -0,0 +1,182 @@
+package kin.base.requests;
+
+import com.google.gson.reflect.TypeToken;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import kin.base.responses.GsonSingleton;
+
+/**
+ * Decodes the events of a raw stream on a pool of worker threads, and delivers them in the order they were received.
+ * <p>
+ * The stream thread only hands each event over to the pool, so parsing and decoding a busy stream scales across
+ * cores instead of being capped by a single thread. Horizon streams send events in paging token order, decoded events
+ * are put back in that order before delivery: an event decoded early waits for the ones received before it.
+ * Delivery is serialized, the listener is called by one worker at a time.
+ * </p>
+ * At most <code>maxInFlight</code> events are being decoded or waiting for delivery, beyond that the stream thread
+ * waits, so a slow listener slows down the stream instead of piling up events.
+ * <pre>
+ * server.transactions().cursor("now").streamRaw(
+ *     new DecodePipeline&lt;&gt;(executor, 256, DecodePipeline.parsing(new TypeToken&lt;TransactionResponse&gt;() {}),
+ *         listener));
+ * </pre>
+ *
+ * @param <T> the type of decoded events
+ */
+public class DecodePipeline<T> implements EventListener<String> {
+
+  /**
+   * Decodes the JSON data of an event, called on a worker thread.
+   */
+  public interface Decoder<T> {
+
+    /**
+     * @return the decoded event, or null to skip it
+     */
+    T decode(String data);
+  }
+
+  private static final Object SKIPPED = new Object();
+
+  private final Executor executor;
+  private final Decoder<T> decoder;
+  private final EventListener<T> listener;
+  private final Semaphore permits;
+  private final Object[] decoded;
+  private final Runnable[] deliveryCallbacks;
+  private final Object lock = new Object();
+  private long nextSequence;
+  private long nextToDeliver;
+  private boolean delivering;
+
+  /**
+   * @param executor the worker pool decoding the events
+   * @param maxInFlight the maximum number of events being decoded or waiting for delivery
+   * @param decoder decodes the data of each event
+   * @param listener receives the decoded events, in order
+   */
+  public DecodePipeline(Executor executor, int maxInFlight, Decoder<T> decoder, EventListener<T> listener) {
+    if (executor == null || decoder == null || listener == null) {
+      throw new IllegalArgumentException("executor, decoder and listener cannot be null");
+    }
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("maxInFlight must be positive");
+    }
+    this.executor = executor;
+    this.decoder = decoder;
+    this.listener = listener;
+    this.permits = new Semaphore(maxInFlight);
+    this.decoded = new Object[maxInFlight];
+    this.deliveryCallbacks = new Runnable[maxInFlight];
+  }
+
+  /**
+   * Returns a decoder parsing events to <code>type</code> with the responses Gson instance.
+   */
+  public static <T> Decoder<T> parsing(final TypeToken<T> type) {
+    return new Decoder<T>() {
+      @Override
+      public T decode(String data) {
+        return GsonSingleton.getInstance().fromJson(data, type.getType());
+      }
+    };
+  }
+
+  /**
+   * Hands an event over to the worker pool, called on the stream thread.
+   */
+  @Override
+  public void onEvent(final String data) {
+    onEvent(data, null);
+  }
+
+  /**
+   * Hands an event over to the worker pool, and runs <code>onDelivered</code> once it was delivered or skipped, in the
+   * order the events were received. The stream saves its cursor that way, rather than for events still in flight.
+   */
+  void onEvent(final String data, Runnable onDelivered) {
+    permits.acquireUninterruptibly();
+    final long sequence = nextSequence++;
+    synchronized (lock) {
+      deliveryCallbacks[slot(sequence)] = onDelivered;
+    }
+    Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        Object event = null;
+        try {
+          event = decoder.decode(data);
+        } catch (RuntimeException e) {
+          // Includes JSON errors, the event is skipped as with the single threaded stream.
+          e.printStackTrace();
+        }
+        complete(sequence, event != null ? event : SKIPPED);
+      }
+    };
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      // The pool was shut down, keep the following events in order anyway.
+      complete(sequence, SKIPPED);
+    }
+  }
+
+  /**
+   * Returns the number of events being decoded or waiting for delivery.
+   */
+  public int getInFlightCount() {
+    return decoded.length - permits.availablePermits();
+  }
+
+  /**
+   * Stores a decoded event, and delivers the decoded events following the last delivered one unless another worker
+   * is already delivering.
+   */
+  private void complete(long sequence, Object event) {
+    synchronized (lock) {
+      decoded[slot(sequence)] = event;
+      if (delivering) {
+        return;
+      }
+      delivering = true;
+    }
+    while (true) {
+      Object next;
+      Runnable onDelivered;
+      synchronized (lock) {
+        int slot = slot(nextToDeliver);
+        next = decoded[slot];
+        if (next == null) {
+          delivering = false;
+          return;
+        }
+        decoded[slot] = null;
+        onDelivered = deliveryCallbacks[slot];
+        deliveryCallbacks[slot] = null;
+        nextToDeliver++;
+      }
+      if (next != SKIPPED) {
+        deliver(next);
+      }
+      if (onDelivered != null) {
+        onDelivered.run();
+      }
+      permits.release();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void deliver(Object event) {
+    try {
+      listener.onEvent((T) event);
+    } catch (RuntimeException e) {
+      // Keeps delivering the following events.
+      e.printStackTrace();
+    }
+  }
+
+  private int slot(long sequence) {
+    return (int) (sequence % decoded.length);
+  }
+}
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.net.URI;
 import kin.base.KeyPair;
 import kin.base.responses.Page;
+import kin.base.responses.PageStream;
 import kin.base.responses.effects.EffectResponse;
 import okhttp3.OkHttpClient;
 
@@ -87,7 +88,7 @@ public class EffectsRequestBuilder extends RequestBuilder {
    * @return ServerSentEvent object, so you can <code>close()</code> connection when not needed anymore
    */
   public ServerSentEvent stream(final EventListener<EffectResponse> listener) {
-    return new StreamHandler<>(new TypeToken<EffectResponse>() {})
+    return newStreamHandler(new TypeToken<EffectResponse>() {})
         .handleStream(this.buildUri(),listener);
   }
 
@@ -98,7 +99,45 @@ public class EffectsRequestBuilder extends RequestBuilder {
    * @throws IOException
    */
   public Page<EffectResponse> execute() throws IOException, TooManyRequestsException {
-    return this.execute(httpClient, this.buildUri());
+    TypeToken type = new TypeToken<Page<EffectResponse>>() {};
+    ResponseHandler<Page<EffectResponse>> responseHandler = newResponseHandler(type);
+    return responseHandler.handleGetRequest(this.buildUri());
+  }
+
+  /**
+   * Build a {@link PagingCursor} iterating over all the {@link EffectResponse} records of this request, following the
+   * next page links.
+   * @param prefetchDepth maximum number of pages fetched ahead of the consumer
+   * @return {@link PagingCursor} of {@link EffectResponse}, must be closed if not consumed to the end
+   */
+  public PagingCursor<EffectResponse> paginate(int prefetchDepth) {
+    return new PagingCursor<>(httpClient, this.buildUri(), new TypeToken<Page<EffectResponse>>() {}, prefetchDepth);
+  }
+
+  /**
+   * Requests specific <code>uri</code> and returns a {@link PageStream} of {@link EffectResponse}, reading the records
+   * one at a time from the response body instead of loading the whole page.
+   * The stream must be consumed to the end or closed to release the connection.
+   * @return {@link PageStream} of {@link EffectResponse}
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException
+   */
+  public static PageStream<EffectResponse> executeStreaming(OkHttpClient httpClient, URI uri)
+      throws IOException, TooManyRequestsException {
+    PageStreamHandler<EffectResponse> streamHandler = new PageStreamHandler<>(httpClient,
+        new TypeToken<EffectResponse>() {});
+    return streamHandler.handleGetRequest(uri);
+  }
+
+  /**
+   * Build and execute request, reading the records lazily.
+   * @return {@link PageStream} of {@link EffectResponse}
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException
+   * @see #executeStreaming(OkHttpClient, URI)
+   */
+  public PageStream<EffectResponse> executeStreaming() throws IOException, TooManyRequestsException {
+    return executeStreaming(httpClient, this.buildUri());
   }
 
   @Override
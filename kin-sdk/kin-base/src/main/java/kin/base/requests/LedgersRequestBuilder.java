@@ -24,7 +24,7 @@ public class LedgersRequestBuilder extends RequestBuilder {
    */
   public LedgerResponse ledger(URI uri) throws IOException {
     TypeToken type = new TypeToken<LedgerResponse>() {};
-    ResponseHandler<LedgerResponse> responseHandler = new ResponseHandler<LedgerResponse>(httpClient, type);
+    ResponseHandler<LedgerResponse> responseHandler = newSingleResponseHandler(type);
     return responseHandler.handleGetRequest(uri);
   }
 
@@ -64,7 +64,7 @@ public class LedgersRequestBuilder extends RequestBuilder {
    * @return ServerSentEvent object, so you can <code>close()</code> connection when not needed anymore
    */
   public ServerSentEvent stream(final EventListener<LedgerResponse> listener) {
-    return new StreamHandler<>(new TypeToken<LedgerResponse>() {})
+    return newStreamHandler(new TypeToken<LedgerResponse>() {})
         .handleStream(this.buildUri(),listener);
   }
 
@@ -75,7 +75,19 @@ public class LedgersRequestBuilder extends RequestBuilder {
    * @throws IOException
    */
   public Page<LedgerResponse> execute() throws IOException, TooManyRequestsException {
-    return this.execute(httpClient, this.buildUri());
+    TypeToken type = new TypeToken<Page<LedgerResponse>>() {};
+    ResponseHandler<Page<LedgerResponse>> responseHandler = newResponseHandler(type);
+    return responseHandler.handleGetRequest(this.buildUri());
+  }
+
+  /**
+   * Build a {@link PagingCursor} iterating over all the {@link LedgerResponse} records of this request, following the
+   * next page links.
+   * @param prefetchDepth maximum number of pages fetched ahead of the consumer
+   * @return {@link PagingCursor} of {@link LedgerResponse}, must be closed if not consumed to the end
+   */
+  public PagingCursor<LedgerResponse> paginate(int prefetchDepth) {
+    return new PagingCursor<>(httpClient, this.buildUri(), new TypeToken<Page<LedgerResponse>>() {}, prefetchDepth);
   }
 
   @Override
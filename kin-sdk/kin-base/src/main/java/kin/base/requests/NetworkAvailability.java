@@ -0,0 +1,10 @@
+package kin.base.requests;
+
+/**
+ * Tells whether the device has network connectivity, so that streams don't try to reconnect while it has none.
+ * @see ReconnectPolicy.Builder#networkAvailability(NetworkAvailability)
+ */
+public interface NetworkAvailability {
+
+  boolean isNetworkAvailable();
+}
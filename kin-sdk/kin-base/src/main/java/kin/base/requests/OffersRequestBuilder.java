@@ -51,7 +51,9 @@ public class OffersRequestBuilder extends RequestBuilder {
    * @throws IOException
    */
   public Page<OfferResponse> execute() throws IOException, TooManyRequestsException {
-    return this.execute(httpClient, this.buildUri());
+    TypeToken type = new TypeToken<Page<OfferResponse>>() {};
+    ResponseHandler<Page<OfferResponse>> responseHandler = newResponseHandler(type);
+    return responseHandler.handleGetRequest(this.buildUri());
   }
 
   @Override
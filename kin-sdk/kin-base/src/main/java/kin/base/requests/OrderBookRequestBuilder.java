@@ -45,7 +45,9 @@ public class OrderBookRequestBuilder extends RequestBuilder {
   }
 
   public OrderBookResponse execute() throws IOException, TooManyRequestsException {
-    return this.execute(httpClient, this.buildUri());
+    TypeToken type = new TypeToken<OrderBookResponse>() {};
+    ResponseHandler<OrderBookResponse> responseHandler = newResponseHandler(type);
+    return responseHandler.handleGetRequest(this.buildUri());
   }
 
   @Override
@@ -0,0 +1,55 @@
+package kin.base.requests;
+
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.net.URI;
+import kin.base.responses.Page;
+import kin.base.responses.PageStream;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+/**
+ * Like {@link ResponseHandler} for pages, but returns a {@link PageStream} reading the records lazily from the
+ * response body instead of a fully parsed {@link Page}.
+ * The response stays open until the returned stream is fully consumed or closed.
+ */
+public class PageStreamHandler<T> {
+
+    private TypeToken<T> recordType;
+    private OkHttpClient httpClient;
+
+    public PageStreamHandler(OkHttpClient httpClient, TypeToken<T> recordType) {
+        this.recordType = recordType;
+        this.httpClient = httpClient;
+    }
+
+    public PageStream<T> handleGetRequest(final URI uri) throws IOException {
+        return handleResponse(httpClient.newCall(
+            new Request.Builder()
+                .url(uri.toString())
+                .build()
+        )
+            .execute());
+    }
+
+    public PageStream<T> handleResponse(final okhttp3.Response response) throws IOException, TooManyRequestsException {
+        if (response == null) {
+            return null;
+        }
+        ResponseBody responseBody;
+        try {
+            responseBody = ResponseHandler.checkResponse(response);
+        } catch (IOException | TooManyRequestsException e) {
+            response.close();
+            throw e;
+        }
+        PageStream<T> stream = Page.stream(responseBody.charStream(), recordType);
+        stream.setHeaders(
+            response.header("X-Ratelimit-Limit"),
+            response.header("X-Ratelimit-Remaining"),
+            response.header("X-Ratelimit-Reset")
+        );
+        return stream;
+    }
+}
@@ -0,0 +1,201 @@
+package kin.base.requests;
+
+import com.google.gson.reflect.TypeToken;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import kin.base.responses.Page;
+import kin.base.responses.Pageable;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * Iterates over all records of a paged Horizon resource, following the <code>next</code> links until an empty page
+ * is returned.
+ * <p>
+ * Pages are fetched on a background thread ahead of the consumer: while the records of page N are consumed, up to
+ * <code>prefetchDepth</code> following pages are requested. {@link #getCheckpoint()} returns the paging token of the
+ * last consumed record, a new cursor built with it as <code>cursor</code> resumes right after that record.
+ * {@link #close()} stops the iteration and cancels any in-flight request.
+ * </p>
+ * @see TransactionsRequestBuilder#paginate(int)
+ */
+public class PagingCursor<T extends Pageable> implements Closeable {
+
+  private static final Object END = new Object();
+
+  private final OkHttpClient httpClient;
+  private final URI firstPageUri;
+  private final ResponseHandler<Page<T>> responseHandler;
+  private final BlockingQueue<Object> pages;
+  // One permit per page the fetcher may request ahead of the consumer.
+  private final Semaphore prefetchPermits;
+  private Thread fetcher;
+  private volatile boolean closed;
+  private volatile Call currentCall;
+  // Also written by close(), from any thread.
+  private volatile ArrayList<T> records;
+  private int position;
+  private volatile boolean done;
+  private String checkpoint;
+
+  PagingCursor(OkHttpClient httpClient, URI firstPageUri, TypeToken<Page<T>> pageType, int prefetchDepth) {
+    if (prefetchDepth < 1) {
+      throw new IllegalArgumentException("prefetchDepth must be at least 1");
+    }
+    this.httpClient = httpClient;
+    this.firstPageUri = firstPageUri;
+    this.responseHandler = new ResponseHandler<>(httpClient, pageType);
+    // Room for the prefetched pages and the end of the iteration.
+    this.pages = new ArrayBlockingQueue<>(prefetchDepth + 1);
+    this.prefetchPermits = new Semaphore(prefetchDepth);
+  }
+
+  /**
+   * Returns true if there are more records, waiting for the next page if needed. Returns false once the cursor is
+   * closed.
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException when a page request failed.
+   */
+  public boolean hasNext() throws IOException {
+    ArrayList<T> records = this.records;
+    while (!done && (records == null || position >= records.size())) {
+      nextPage();
+      records = this.records;
+    }
+    return !done;
+  }
+
+  /**
+   * Returns the next record.
+   * @throws NoSuchElementException when all the records were consumed.
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException when a page request failed.
+   */
+  public T next() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    ArrayList<T> records = this.records;
+    if (records == null) {
+      // Closed meanwhile.
+      throw new NoSuchElementException();
+    }
+    T record = records.get(position);
+    // Release the record as soon as it's consumed, only the unread part of the page is retained.
+    records.set(position++, null);
+    checkpoint = record.getPagingToken();
+    return record;
+  }
+
+  /**
+   * Returns the paging token of the last record returned by {@link #next()}, or null if no record was consumed yet.
+   * Use it as the <code>cursor</code> of a new request to resume the iteration after that record.
+   */
+  public String getCheckpoint() {
+    return checkpoint;
+  }
+
+  /**
+   * Stops the iteration, cancels the in-flight page request and drops the prefetched pages.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    done = true;
+    records = null;
+    Call call = currentCall;
+    if (call != null) {
+      call.cancel();
+    }
+    if (fetcher != null) {
+      fetcher.interrupt();
+    }
+    pages.clear();
+    // Wakes up a consumer waiting for the next page.
+    pages.offer(END);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void nextPage() throws IOException {
+    if (fetcher == null) {
+      fetcher = new Thread(new Fetcher(), "kin-paging-cursor");
+      fetcher.setDaemon(true);
+      fetcher.start();
+    }
+    Object next;
+    try {
+      next = pages.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the next page");
+    }
+    if (next == END) {
+      done = true;
+      records = null;
+    } else if (next instanceof IOException) {
+      done = true;
+      throw (IOException) next;
+    } else if (next instanceof RuntimeException) {
+      done = true;
+      throw (RuntimeException) next;
+    } else {
+      prefetchPermits.release();
+      position = 0;
+      records = ((Page<T>) next).getRecords();
+    }
+  }
+
+  private class Fetcher implements Runnable {
+
+    @Override
+    public void run() {
+      URI uri = firstPageUri;
+      try {
+        while (!closed) {
+          prefetchPermits.acquire();
+          Page<T> page = fetch(uri);
+          if (page.getRecords() == null || page.getRecords().isEmpty()) {
+            break;
+          }
+          pages.put(page);
+          if (page.getLinks() == null || page.getLinks().getNext() == null) {
+            break;
+          }
+          uri = URI.create(page.getLinks().getNext().getHref());
+        }
+        pages.put(END);
+      } catch (InterruptedException e) {
+        // Closed.
+      } catch (IOException | RuntimeException e) {
+        if (!closed) {
+          try {
+            pages.put(e);
+          } catch (InterruptedException ignored) {
+            // Closed.
+          }
+        }
+      }
+    }
+
+    private Page<T> fetch(URI uri) throws IOException {
+      Call call = httpClient.newCall(new Request.Builder().url(uri.toString()).build());
+      currentCall = call;
+      if (closed) {
+        call.cancel();
+      }
+      try {
+        return responseHandler.handleResponse(call.execute());
+      } finally {
+        currentCall = null;
+      }
+    }
+  }
+}
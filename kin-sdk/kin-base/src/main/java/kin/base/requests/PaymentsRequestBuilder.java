@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.net.URI;
 import kin.base.KeyPair;
 import kin.base.responses.Page;
+import kin.base.responses.PageStream;
 import kin.base.responses.operations.OperationResponse;
 import okhttp3.OkHttpClient;
 
@@ -79,10 +80,20 @@ public class PaymentsRequestBuilder extends RequestBuilder {
    * @return ServerSentEvent object, so you can <code>close()</code> connection when not needed anymore
    */
   public ServerSentEvent stream(final EventListener<OperationResponse> listener) {
-    return new StreamHandler<>(new TypeToken<OperationResponse>() {})
+    return newStreamHandler(new TypeToken<OperationResponse>() {})
         .handleStream(this.buildUri(),listener);
   }
 
+  /**
+   * Streams the JSON data of each event, without parsing it into {@link OperationResponse}.
+   * @param listener {@link EventListener} receiving the data of each event
+   * @return ServerSentEvent object, so you can <code>close()</code> connection when not needed anymore
+   */
+  public ServerSentEvent streamRaw(final EventListener<String> listener) {
+    return newStreamHandler(new TypeToken<OperationResponse>() {})
+        .handleRawStream(this.buildUri(), listener);
+  }
+
   /**
    * Build and execute request.
    * @return {@link Page} of {@link OperationResponse}
@@ -90,7 +101,45 @@ public class PaymentsRequestBuilder extends RequestBuilder {
    * @throws IOException
    */
   public Page<OperationResponse> execute() throws IOException, TooManyRequestsException {
-    return this.execute(httpClient, this.buildUri());
+    TypeToken type = new TypeToken<Page<OperationResponse>>() {};
+    ResponseHandler<Page<OperationResponse>> responseHandler = newResponseHandler(type);
+    return responseHandler.handleGetRequest(this.buildUri());
+  }
+
+  /**
+   * Build a {@link PagingCursor} iterating over all the {@link OperationResponse} records of this request, following the
+   * next page links.
+   * @param prefetchDepth maximum number of pages fetched ahead of the consumer
+   * @return {@link PagingCursor} of {@link OperationResponse}, must be closed if not consumed to the end
+   */
+  public PagingCursor<OperationResponse> paginate(int prefetchDepth) {
+    return new PagingCursor<>(httpClient, this.buildUri(), new TypeToken<Page<OperationResponse>>() {}, prefetchDepth);
+  }
+
+  /**
+   * Requests specific <code>uri</code> and returns a {@link PageStream} of {@link OperationResponse}, reading the records
+   * one at a time from the response body instead of loading the whole page.
+   * The stream must be consumed to the end or closed to release the connection.
+   * @return {@link PageStream} of {@link OperationResponse}
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException
+   */
+  public static PageStream<OperationResponse> executeStreaming(OkHttpClient httpClient, URI uri)
+      throws IOException, TooManyRequestsException {
+    PageStreamHandler<OperationResponse> streamHandler = new PageStreamHandler<>(httpClient,
+        new TypeToken<OperationResponse>() {});
+    return streamHandler.handleGetRequest(uri);
+  }
+
+  /**
+   * Build and execute request, reading the records lazily.
+   * @return {@link PageStream} of {@link OperationResponse}
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException
+   * @see #executeStreaming(OkHttpClient, URI)
+   */
+  public PageStream<OperationResponse> executeStreaming() throws IOException, TooManyRequestsException {
+    return executeStreaming(httpClient, this.buildUri());
   }
 
   @Override
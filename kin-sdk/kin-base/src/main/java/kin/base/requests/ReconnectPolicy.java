@@ -0,0 +1,314 @@
+package kin.base.requests;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when disconnected streams reconnect, so that clients spread their reconnections over time instead of all
+ * hitting a recovering Horizon server at the same fixed interval.
+ * <p>
+ * Each stream waits an exponential backoff delay with decorrelated jitter between attempts: a random delay between
+ * the base delay and three times the previous delay, capped to the maximum delay. While the
+ * {@link NetworkAvailability} reports no network, streams wait for it without counting attempts. The circuit breaker
+ * is shared by all the streams of the policy: after too many consecutive failures, none of them reconnects until the
+ * cooldown has elapsed, then a single successful connection closes the circuit again. Only transport errors, server
+ * errors and 429 responses count as failures there, other responses such as a 404 only back off their own stream.
+ * </p>
+ * <p>
+ * With a polling fallback, a stream failing to connect several times in a row while the network is available, as
+ * behind proxies breaking long-lived connections, reads its events through paged requests instead. It polls often
+ * while events come in and less and less often while idle, and retries streaming from time to time.
+ * </p>
+ * @see kin.base.Server#setReconnectPolicy(ReconnectPolicy)
+ */
+public class ReconnectPolicy {
+
+  private static final long NETWORK_POLL_INTERVAL_MILLIS = 1000;
+
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final int maxAttempts;
+  private final int failureThreshold;
+  private final long cooldownMillis;
+  private final NetworkAvailability networkAvailability;
+  private final int pollingFailureThreshold;
+  private final long minPollIntervalMillis;
+  private final long maxPollIntervalMillis;
+  private final long streamingRetryMillis;
+  private final Object networkLock = new Object();
+  private int consecutiveFailures;
+  private long circuitOpenUntil;
+
+  private ReconnectPolicy(Builder builder) {
+    this.baseDelayMillis = builder.baseDelayMillis;
+    this.maxDelayMillis = builder.maxDelayMillis;
+    this.maxAttempts = builder.maxAttempts;
+    this.failureThreshold = builder.failureThreshold;
+    this.cooldownMillis = builder.cooldownMillis;
+    this.networkAvailability = builder.networkAvailability;
+    this.pollingFailureThreshold = builder.pollingFailureThreshold;
+    this.minPollIntervalMillis = builder.minPollIntervalMillis;
+    this.maxPollIntervalMillis = builder.maxPollIntervalMillis;
+    this.streamingRetryMillis = builder.streamingRetryMillis;
+  }
+
+  /**
+   * Wakes up the streams waiting for the network, to be called when connectivity is restored.
+   */
+  public void notifyNetworkAvailable() {
+    synchronized (networkLock) {
+      networkLock.notifyAll();
+    }
+  }
+
+  /**
+   * Returns true if the circuit breaker currently prevents reconnecting.
+   */
+  public boolean isCircuitOpen() {
+    return circuitOpenMillis(now()) > 0;
+  }
+
+  Backoff newBackoff() {
+    return new Backoff(new Random());
+  }
+
+  boolean isPollingFallbackEnabled() {
+    return pollingFailureThreshold > 0;
+  }
+
+  /**
+   * Returns true if a stream which failed to connect <code>failures</code> times in a row should poll instead.
+   */
+  boolean shouldPoll(int failures) {
+    return isPollingFallbackEnabled() && failures >= pollingFailureThreshold;
+  }
+
+  PollInterval newPollInterval() {
+    return new PollInterval();
+  }
+
+  /**
+   * Returns how long a stream polls before retrying to stream.
+   */
+  long streamingRetryMillis() {
+    return streamingRetryMillis;
+  }
+
+  boolean isNetworkAvailable() {
+    return networkAvailability == null || networkAvailability.isNetworkAvailable();
+  }
+
+  /**
+   * Waits until the network is available, or until {@link #notifyNetworkAvailable()} is called.
+   */
+  void awaitNetwork() throws InterruptedException {
+    synchronized (networkLock) {
+      networkLock.wait(NETWORK_POLL_INTERVAL_MILLIS);
+    }
+  }
+
+  synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    circuitOpenUntil = 0;
+  }
+
+  synchronized void recordFailure(long now) {
+    consecutiveFailures++;
+    if (failureThreshold > 0 && consecutiveFailures >= failureThreshold && circuitOpenUntil <= now) {
+      // Also reopens the circuit right away when the first attempt after the cooldown fails.
+      circuitOpenUntil = now + cooldownMillis;
+    }
+  }
+
+  /**
+   * Returns how long reconnections are still prevented by the circuit breaker, 0 if they are allowed.
+   */
+  synchronized long circuitOpenMillis(long now) {
+    return Math.max(0, circuitOpenUntil - now);
+  }
+
+  static long now() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
+  /**
+   * Reconnection attempts of a single stream.
+   */
+  class Backoff {
+
+    private final Random random;
+    private long previousDelayMillis;
+    private int attempts;
+
+    Backoff(Random random) {
+      this.random = random;
+      this.previousDelayMillis = baseDelayMillis;
+    }
+
+    /**
+     * Returns true once the stream made the maximum number of attempts.
+     */
+    boolean isExhausted() {
+      return maxAttempts > 0 && attempts >= maxAttempts;
+    }
+
+    /**
+     * Returns the delay before the next attempt, and counts it.
+     */
+    long nextDelayMillis() {
+      attempts++;
+      long upperBound = Math.min(maxDelayMillis, previousDelayMillis * 3);
+      long delay = baseDelayMillis;
+      if (upperBound > baseDelayMillis) {
+        delay += (long) (random.nextDouble() * (upperBound - baseDelayMillis));
+      }
+      previousDelayMillis = delay;
+      return delay;
+    }
+
+    /**
+     * Returns the number of attempts since the last successful connection.
+     */
+    int getAttempts() {
+      return attempts;
+    }
+
+    /**
+     * Starts over after a successful connection.
+     */
+    void reset() {
+      attempts = 0;
+      previousDelayMillis = baseDelayMillis;
+    }
+  }
+
+  /**
+   * Interval between the polls of a stream, back to the minimum after a poll reading events, and doubled after each
+   * idle poll up to the maximum.
+   */
+  class PollInterval {
+
+    private long intervalMillis = minPollIntervalMillis;
+
+    /**
+     * Returns the delay before the next poll.
+     *
+     * @param activity true if the last poll read events
+     */
+    long nextMillis(boolean activity) {
+      intervalMillis = activity ? minPollIntervalMillis : Math.min(maxPollIntervalMillis, intervalMillis * 2);
+      return intervalMillis;
+    }
+  }
+
+  public static class Builder {
+
+    private long baseDelayMillis = TimeUnit.SECONDS.toMillis(1);
+    private long maxDelayMillis = TimeUnit.MINUTES.toMillis(1);
+    private int maxAttempts;
+    private int failureThreshold = 10;
+    private long cooldownMillis = TimeUnit.MINUTES.toMillis(1);
+    private NetworkAvailability networkAvailability;
+    private int pollingFailureThreshold;
+    private long minPollIntervalMillis;
+    private long maxPollIntervalMillis;
+    private long streamingRetryMillis = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Sets the minimum delay between reconnection attempts, 1 second by default.
+     */
+    public Builder baseDelay(long delay, TimeUnit timeUnit) {
+      if (delay <= 0) {
+        throw new IllegalArgumentException("delay must be positive");
+      }
+      this.baseDelayMillis = timeUnit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Caps the delay between reconnection attempts, 1 minute by default.
+     */
+    public Builder maxDelay(long delay, TimeUnit timeUnit) {
+      if (delay <= 0) {
+        throw new IllegalArgumentException("delay must be positive");
+      }
+      this.maxDelayMillis = timeUnit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Sets the number of consecutive attempts after which a stream gives up, 0 (the default) to never give up.
+     */
+    public Builder maxAttempts(int maxAttempts) {
+      if (maxAttempts < 0) {
+        throw new IllegalArgumentException("maxAttempts can't be negative");
+      }
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Opens the circuit for <code>cooldown</code> after <code>failureThreshold</code> consecutive failures of the
+     * streams of this policy, 10 failures and 1 minute by default. A threshold of 0 disables the circuit breaker.
+     */
+    public Builder circuitBreaker(int failureThreshold, long cooldown, TimeUnit timeUnit) {
+      if (failureThreshold < 0) {
+        throw new IllegalArgumentException("failureThreshold can't be negative");
+      }
+      if (cooldown < 0) {
+        throw new IllegalArgumentException("cooldown can't be negative");
+      }
+      this.failureThreshold = failureThreshold;
+      this.cooldownMillis = timeUnit.toMillis(cooldown);
+      return this;
+    }
+
+    /**
+     * Sets the network availability gate, none by default.
+     */
+    public Builder networkAvailability(NetworkAvailability networkAvailability) {
+      this.networkAvailability = networkAvailability;
+      return this;
+    }
+
+    /**
+     * Polls Horizon instead of streaming after <code>failureThreshold</code> consecutive failed connections of a
+     * stream, disabled by default. The poll interval starts at <code>minInterval</code>, and doubles up to
+     * <code>maxInterval</code> while no event comes in.
+     * <p>
+     * A stream opened from <code>now</code> which delivered no event yet reads the latest event as soon as it fails,
+     * and polls from there. The events between opening it and its first failure are skipped if it never connected.
+     * </p>
+     */
+    public Builder pollingFallback(int failureThreshold, long minInterval, long maxInterval, TimeUnit timeUnit) {
+      if (failureThreshold <= 0) {
+        throw new IllegalArgumentException("failureThreshold must be positive");
+      }
+      if (minInterval <= 0 || maxInterval < minInterval) {
+        throw new IllegalArgumentException("minInterval must be positive and maxInterval at least minInterval");
+      }
+      this.pollingFailureThreshold = failureThreshold;
+      this.minPollIntervalMillis = timeUnit.toMillis(minInterval);
+      this.maxPollIntervalMillis = timeUnit.toMillis(maxInterval);
+      return this;
+    }
+
+    /**
+     * Sets how long a stream polls before retrying to stream, 5 minutes by default.
+     */
+    public Builder streamingRetryInterval(long interval, TimeUnit timeUnit) {
+      if (interval <= 0) {
+        throw new IllegalArgumentException("interval must be positive");
+      }
+      this.streamingRetryMillis = timeUnit.toMillis(interval);
+      return this;
+    }
+
+    public ReconnectPolicy build() {
+      if (maxDelayMillis < baseDelayMillis) {
+        throw new IllegalArgumentException("maxDelay can't be less than baseDelay");
+      }
+      return new ReconnectPolicy(this);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package kin.base.requests;
 
 import android.net.Uri;
+import com.google.gson.reflect.TypeToken;
 import java.net.URI;
 import java.util.ArrayList;
 import okhttp3.OkHttpClient;
@@ -13,7 +14,13 @@ public abstract class RequestBuilder {
   protected final Uri.Builder uriBuilder;
   protected final OkHttpClient httpClient;
   private final ArrayList<String> segments;
+  private final String endpoint;
   private boolean segmentsAdded;
+  private SingleFlight singleFlight;
+  private ResponseCache responseCache;
+  private CursorStore cursorStore;
+  private ReconnectPolicy reconnectPolicy;
+  private StreamStateListener streamStateListener;
 
   RequestBuilder(OkHttpClient httpClient, URI serverURI, String defaultSegment) {
     uriBuilder = Uri.parse(serverURI.toString()).buildUpon();
@@ -23,6 +30,70 @@ public abstract class RequestBuilder {
     }
     segmentsAdded = false; // Allow overwriting segments
     this.httpClient = httpClient;
+    this.endpoint = defaultSegment;
+  }
+
+  /**
+   * Sets the {@link SingleFlight} coalescing identical concurrent requests made with this builder, used by
+   * {@link kin.base.Server}.
+   */
+  public void setSingleFlight(SingleFlight singleFlight) {
+    this.singleFlight = singleFlight;
+  }
+
+  /**
+   * Sets the {@link ResponseCache} of the requests made with this builder, used by {@link kin.base.Server}.
+   */
+  public void setResponseCache(ResponseCache responseCache) {
+    this.responseCache = responseCache;
+  }
+
+  /**
+   * Sets the {@link CursorStore} of the streams opened with this builder, used by {@link kin.base.Server}.
+   */
+  public void setCursorStore(CursorStore cursorStore) {
+    this.cursorStore = cursorStore;
+  }
+
+  /**
+   * Sets the {@link ReconnectPolicy} of the streams opened with this builder, used by {@link kin.base.Server}.
+   */
+  public void setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+    this.reconnectPolicy = reconnectPolicy;
+  }
+
+  /**
+   * Notifies <code>streamStateListener</code> of the state changes of the streams opened with this builder.
+   */
+  public void setStreamStateListener(StreamStateListener streamStateListener) {
+    this.streamStateListener = streamStateListener;
+  }
+
+  /**
+   * Returns a {@link ResponseHandler} for list requests of this builder, coalesced and cached when enabled for its
+   * endpoint.
+   */
+  <T> ResponseHandler<T> newResponseHandler(TypeToken<T> type) {
+    return new ResponseHandler<>(httpClient, type, singleFlight, endpoint, responseCache, endpoint);
+  }
+
+  /**
+   * Returns a {@link ResponseHandler} for single resource requests of this builder, e.g.
+   * <code>GET /transactions/{id}</code>.
+   */
+  <T> ResponseHandler<T> newSingleResponseHandler(TypeToken<T> type) {
+    return new ResponseHandler<>(httpClient, type, singleFlight, endpoint, responseCache, endpoint + "/{id}");
+  }
+
+  /**
+   * Returns a {@link StreamHandler} for the streams of this builder, resuming from the {@link CursorStore} when set.
+   */
+  <T> StreamHandler<T> newStreamHandler(TypeToken<T> type) {
+    StreamHandler<T> streamHandler = new StreamHandler<>(httpClient, type);
+    streamHandler.setCursorStore(cursorStore);
+    streamHandler.setReconnectPolicy(reconnectPolicy);
+    streamHandler.setStreamStateListener(streamStateListener);
+    return streamHandler;
   }
 
   protected RequestBuilder setSegments(String... segments) {
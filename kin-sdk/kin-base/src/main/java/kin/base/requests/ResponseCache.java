@@ -0,0 +1,232 @@
+package kin.base.requests;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Cache;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Cache of Horizon responses, configured with a {@link CachePolicy} per resource.
+ * <p>
+ * Parsed responses are kept in memory, in a size bounded LRU, so cache hits don't parse anything. An optional HTTP
+ * disk cache keeps the raw responses across process restarts, following the same policies.
+ * </p>
+ * Resources are named after the request builder resource path, <code>{id}</code> standing for single resources, see
+ * the constants of this class. By default immutable single resources (transactions, ledgers, operations) are cached
+ * forever, ledger lists (e.g. the latest ledger) are revalidated after {@value #DEFAULT_TTL_SECONDS} seconds. Other
+ * resources are not cached unless a policy is set for them.
+ * <p><strong>Note:</strong> cached responses are shared between callers, they must not be modified. In particular
+ * accounts are not cached by default, as {@link kin.base.Transaction.Builder} increments the sequence number of the
+ * account it's built from.</p>
+ * @see kin.base.Server#setResponseCache(ResponseCache)
+ */
+public class ResponseCache {
+
+  public static final String TRANSACTION = "transactions/{id}";
+  public static final String LEDGER = "ledgers/{id}";
+  public static final String OPERATION = "operations/{id}";
+  public static final String ACCOUNT = "accounts/{id}";
+  public static final String LEDGERS = "ledgers";
+
+  private static final int DEFAULT_TTL_SECONDS = 5;
+
+  private final Map<String, CachePolicy> policies;
+  private final LinkedHashMap<String, Entry> entries;
+  private final Cache diskCache;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  private ResponseCache(Builder builder) {
+    this.policies = new HashMap<>(builder.policies);
+    this.diskCache = builder.diskDirectory != null ? new Cache(builder.diskDirectory, builder.diskMaxBytes) : null;
+    this.entries = new LruMap(builder.maxEntries);
+  }
+
+  /**
+   * Returns the number of requests served from the memory cache, including revalidated ones.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Returns the number of cacheable requests that were downloaded and parsed.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Drops all cached responses, from memory and disk.
+   * @throws IOException when the disk cache can't be cleared
+   */
+  public void clear() throws IOException {
+    synchronized (entries) {
+      entries.clear();
+    }
+    if (diskCache != null) {
+      diskCache.evictAll();
+    }
+  }
+
+  /**
+   * Adds the disk cache, when configured, to a client builder. Used by {@link kin.base.Server}.
+   */
+  public OkHttpClient.Builder configure(OkHttpClient.Builder clientBuilder) {
+    if (diskCache != null) {
+      clientBuilder.cache(diskCache)
+          .addNetworkInterceptor(new CacheControlInterceptor());
+    }
+    return clientBuilder;
+  }
+
+  CachePolicy policyFor(String resource) {
+    return policies.get(resource);
+  }
+
+  /**
+   * Returns the cached entry for <code>key</code>, even if stale, or null.
+   */
+  Entry get(String key) {
+    synchronized (entries) {
+      return entries.get(key);
+    }
+  }
+
+  void put(String key, Entry entry) {
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+
+  void recordHit() {
+    hitCount.incrementAndGet();
+  }
+
+  void recordMiss() {
+    missCount.incrementAndGet();
+  }
+
+  /**
+   * Parsed response with its validator.
+   */
+  static class Entry {
+
+    final Object value;
+    final String etag;
+    final long expiresAtMillis;
+
+    Entry(Object value, String etag, CachePolicy policy, long nowMillis) {
+      this.value = value;
+      this.etag = etag;
+      long ttlMillis = policy.getTtlMillis();
+      this.expiresAtMillis = ttlMillis > Long.MAX_VALUE - nowMillis ? Long.MAX_VALUE : nowMillis + ttlMillis;
+    }
+
+    boolean isFresh(long nowMillis) {
+      return nowMillis < expiresAtMillis;
+    }
+  }
+
+  /**
+   * Sets the <code>Cache-Control</code> header of the responses according to the policy tagged on the request,
+   * Horizon doesn't send caching headers.
+   */
+  private static class CacheControlInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+      Request request = chain.request();
+      Response response = chain.proceed(request);
+      if (request.tag() instanceof CachePolicy && response.isSuccessful()) {
+        return response.newBuilder()
+            .removeHeader("Pragma")
+            .header("Cache-Control", ((CachePolicy) request.tag()).toCacheControl())
+            .build();
+      }
+      return response;
+    }
+  }
+
+  private static class LruMap extends LinkedHashMap<String, Entry> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxEntries;
+
+    LruMap(int maxEntries) {
+      super(16, 0.75f, true);
+      this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > maxEntries;
+    }
+  }
+
+  public static class Builder {
+
+    private final Map<String, CachePolicy> policies = new HashMap<>();
+    private int maxEntries = 256;
+    private File diskDirectory;
+    private long diskMaxBytes;
+
+    public Builder() {
+      policies.put(TRANSACTION, CachePolicy.forever());
+      policies.put(LEDGER, CachePolicy.forever());
+      policies.put(OPERATION, CachePolicy.forever());
+      policies.put(LEDGERS, CachePolicy.revalidate(DEFAULT_TTL_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Sets the policy of a resource, e.g. <code>"transactions/{id}"</code> or <code>"payments"</code>, null disables
+     * caching for it.
+     */
+    public Builder policy(String resource, CachePolicy policy) {
+      if (policy == null) {
+        policies.remove(resource);
+      } else {
+        policies.put(resource, policy);
+      }
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of parsed responses kept in memory, least recently used ones are evicted first.
+     */
+    public Builder maxEntries(int maxEntries) {
+      if (maxEntries < 1) {
+        throw new IllegalArgumentException("maxEntries must be positive");
+      }
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    /**
+     * Also caches raw responses on disk.
+     * @param directory a directory used only by this cache
+     * @param maxBytes maximum size of the disk cache, least recently used responses are evicted first
+     */
+    public Builder diskCache(File directory, long maxBytes) {
+      if (maxBytes < 1) {
+        throw new IllegalArgumentException("maxBytes must be positive");
+      }
+      this.diskDirectory = directory;
+      this.diskMaxBytes = maxBytes;
+      return this;
+    }
+
+    public ResponseCache build() {
+      return new ResponseCache(this);
+    }
+  }
+}
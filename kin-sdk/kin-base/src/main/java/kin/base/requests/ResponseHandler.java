@@ -3,6 +3,7 @@ package kin.base.requests;
 import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.Callable;
 import kin.base.responses.ClientProtocolException;
 import kin.base.responses.GsonSingleton;
 import kin.base.responses.HttpResponseException;
@@ -13,8 +14,14 @@ import okhttp3.ResponseBody;
 
 public class ResponseHandler<T> {
 
+    private static final int HTTP_NOT_MODIFIED = 304;
+
     private TypeToken<T> type;
     private OkHttpClient httpClient;
+    private SingleFlight singleFlight;
+    private String endpoint;
+    private ResponseCache responseCache;
+    private String resource;
 
     /**
      * "Generics on a type are typically erased at runtime, except when the type is compiled with the
@@ -27,13 +34,70 @@ public class ResponseHandler<T> {
         this.httpClient = httpClient;
     }
 
+    /**
+     * Coalesces the GET requests to <code>endpoint</code> through <code>singleFlight</code>, and caches the responses
+     * of <code>resource</code> in <code>responseCache</code>, when enabled for them.
+     */
+    ResponseHandler(OkHttpClient httpClient, TypeToken<T> type, SingleFlight singleFlight, String endpoint,
+        ResponseCache responseCache, String resource) {
+        this(httpClient, type);
+        this.singleFlight = singleFlight;
+        this.endpoint = endpoint;
+        this.responseCache = responseCache;
+        this.resource = resource;
+    }
+
+    @SuppressWarnings("unchecked")
     public T handleGetRequest(final URI uri) throws IOException {
-        return handleResponse(httpClient.newCall(
-            new Request.Builder()
-                .url(uri.toString())
-                .build()
-        )
-            .execute());
+        final String key = type.getType() + " " + uri;
+        final CachePolicy cachePolicy = responseCache != null ? responseCache.policyFor(resource) : null;
+        if (cachePolicy != null) {
+            ResponseCache.Entry cached = responseCache.get(key);
+            if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+                responseCache.recordHit();
+                return (T) cached.value;
+            }
+        }
+        if (singleFlight != null && singleFlight.isEnabled(endpoint)) {
+            return singleFlight.execute(endpoint, key, new Callable<T>() {
+                @Override
+                public T call() throws IOException {
+                    return executeGetRequest(uri, key, cachePolicy);
+                }
+            });
+        }
+        return executeGetRequest(uri, key, cachePolicy);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T executeGetRequest(URI uri, String key, CachePolicy cachePolicy) throws IOException {
+        Request.Builder requestBuilder = new Request.Builder()
+            .url(uri.toString());
+        if (cachePolicy == null) {
+            return handleResponse(httpClient.newCall(requestBuilder.build()).execute());
+        }
+
+        // Tagged with its policy for the disk cache, see ResponseCache
+        requestBuilder.tag(cachePolicy);
+        ResponseCache.Entry cached = responseCache.get(key);
+        if (cached != null && cachePolicy.isRevalidate() && cached.etag != null) {
+            requestBuilder.header("If-None-Match", cached.etag);
+        }
+        okhttp3.Response response = httpClient.newCall(requestBuilder.build()).execute();
+        if (response.code() == HTTP_NOT_MODIFIED && cached != null) {
+            response.close();
+            responseCache.put(key, new ResponseCache.Entry(cached.value, cached.etag, cachePolicy,
+                System.currentTimeMillis()));
+            responseCache.recordHit();
+            return (T) cached.value;
+        }
+        String etag = response.header("ETag");
+        T object = handleResponse(response);
+        responseCache.recordMiss();
+        if (object != null) {
+            responseCache.put(key, new ResponseCache.Entry(object, etag, cachePolicy, System.currentTimeMillis()));
+        }
+        return object;
     }
 
     public T handleResponse(final okhttp3.Response response) throws IOException, TooManyRequestsException {
@@ -41,30 +105,7 @@ public class ResponseHandler<T> {
             return null;
         }
         try {
-            // Too Many Requests
-            if (response.code() == 429) {
-                String retryAfterString = response.header("Retry-After");
-                if (retryAfterString != null) {
-                    try {
-                        int retryAfter = Integer.parseInt(retryAfterString);
-                        throw new TooManyRequestsException(retryAfter);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-                throw new TooManyRequestsException(0);
-            }
-
-            // Other errors
-            if (response.code() >= 300) {
-                throw new HttpResponseException(response.code(), response.message());
-            }
-            // No content
-            ResponseBody responseBody = response.body();
-            if (responseBody == null) {
-                throw new ClientProtocolException("Response contains no content");
-            }
-
+            ResponseBody responseBody = checkResponse(response);
             T object = GsonSingleton.getInstance().fromJson(responseBody.string(), type.getType());
             if (object instanceof Response) {
                 ((Response) object).setHeaders(
@@ -79,4 +120,35 @@ public class ResponseHandler<T> {
         }
     }
 
+    /**
+     * Throws the matching exception for error responses.
+     * @return the body of a successful response
+     */
+    static ResponseBody checkResponse(final okhttp3.Response response) throws IOException, TooManyRequestsException {
+        // Too Many Requests
+        if (response.code() == 429) {
+            String retryAfterString = response.header("Retry-After");
+            if (retryAfterString != null) {
+                try {
+                    int retryAfter = Integer.parseInt(retryAfterString);
+                    throw new TooManyRequestsException(retryAfter);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            throw new TooManyRequestsException(0);
+        }
+
+        // Other errors
+        if (response.code() >= 300) {
+            throw new HttpResponseException(response.code(), response.message());
+        }
+        // No content
+        ResponseBody responseBody = response.body();
+        if (responseBody == null) {
+            throw new ClientProtocolException("Response contains no content");
+        }
+        return responseBody;
+    }
+
 }
@@ -0,0 +1,134 @@
+package kin.base.requests;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical GET requests: while a request is in flight, the same request made from other threads
+ * waits for it and gets the same parsed result (or exception) instead of going to the network.
+ * <p>
+ * Coalescing is enabled per endpoint, named after the request builder resource path, e.g. <code>"accounts"</code>,
+ * <code>"ledgers"</code> or <code>"transactions"</code>. Requests are identical when they have the same URI and are
+ * parsed to the same type.
+ * </p>
+ * <p><strong>Note:</strong> coalesced callers share the same response instance, it must not be modified.</p>
+ * @see kin.base.Server#setSingleFlight(SingleFlight)
+ */
+public class SingleFlight {
+
+  private final Set<String> endpoints;
+  private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+  /**
+   * @param endpoints the endpoints for which requests are coalesced
+   */
+  public SingleFlight(String... endpoints) {
+    this.endpoints = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(endpoints)));
+  }
+
+  public boolean isEnabled(String endpoint) {
+    return endpoints.contains(endpoint);
+  }
+
+  /**
+   * Returns the number of requests to <code>endpoint</code> actually sent to the network.
+   */
+  public long getExecutedCount(String endpoint) {
+    Stats endpointStats = stats.get(endpoint);
+    return endpointStats != null ? endpointStats.executed.get() : 0;
+  }
+
+  /**
+   * Returns the number of requests to <code>endpoint</code> that joined an identical in-flight request.
+   */
+  public long getCoalescedCount(String endpoint) {
+    Stats endpointStats = stats.get(endpoint);
+    return endpointStats != null ? endpointStats.coalesced.get() : 0;
+  }
+
+  /**
+   * Runs <code>request</code>, unless an identical request is already in flight, in which case its result is
+   * returned once completed.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T execute(String endpoint, String key, Callable<T> request) throws IOException {
+    Flight flight = new Flight();
+    Flight inFlight = flights.putIfAbsent(key, flight);
+    Stats endpointStats = statsFor(endpoint);
+    if (inFlight != null) {
+      endpointStats.coalesced.incrementAndGet();
+      return (T) inFlight.await();
+    }
+    endpointStats.executed.incrementAndGet();
+    try {
+      T result = request.call();
+      flight.complete(result, null);
+      return result;
+    } catch (IOException | RuntimeException e) {
+      flight.complete(null, e);
+      throw e;
+    } catch (Exception e) {
+      IOException exception = new IOException(e);
+      flight.complete(null, exception);
+      throw exception;
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  private Stats statsFor(String endpoint) {
+    Stats endpointStats = stats.get(endpoint);
+    if (endpointStats == null) {
+      Stats newStats = new Stats();
+      endpointStats = stats.putIfAbsent(endpoint, newStats);
+      if (endpointStats == null) {
+        endpointStats = newStats;
+      }
+    }
+    return endpointStats;
+  }
+
+  private static class Flight {
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Object result;
+    private Exception exception;
+
+    void complete(Object result, Exception exception) {
+      this.result = result;
+      this.exception = exception;
+      done.countDown();
+    }
+
+    Object await() throws IOException {
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for an identical request");
+      }
+      if (exception instanceof IOException) {
+        throw (IOException) exception;
+      }
+      if (exception != null) {
+        throw (RuntimeException) exception;
+      }
+      return result;
+    }
+  }
+
+  private static class Stats {
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+  }
+}
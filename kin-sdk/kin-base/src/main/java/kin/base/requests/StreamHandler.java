@@ -1,19 +1,36 @@
 package kin.base.requests;
 
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import com.here.oksse.OkSse;
 import com.here.oksse.ServerSentEvent;
+import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
 import kin.base.responses.GsonSingleton;
+import kin.base.responses.Page;
+import kin.base.responses.PageStream;
+import okhttp3.Call;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 
 public class StreamHandler<T> {
 
   private static final String OPEN_MESSAGE_DATA = "\"hello\""; //opening message contains "hello" string
+  private static final String CURSOR_PARAMETER = "cursor";
+  private static final String CURSOR_NOW = "now";
+  private static final int PAGE_LIMIT = 200;
   private TypeToken<T> type;
-  private OkSse okSse = new OkSse();
+  private final OkSse okSse;
+  private final OkHttpClient httpClient;
+  private CursorStore cursorStore;
+  private ReconnectPolicy reconnectPolicy;
+  private StreamStateListener stateListener;
 
   /**
    * "Generics on a type are typically erased at runtime, except when the type is compiled with the
@@ -25,23 +42,66 @@ public class StreamHandler<T> {
    */
   public StreamHandler(TypeToken<T> type) {
     this.type = type;
+    this.okSse = new OkSse();
+    this.httpClient = okSse.getClient();
   }
 
-  public ServerSentEvent handleStream(final URI uri, final EventListener<T> listener) {
-    Request request = new Request.Builder()
-        .url(uri.toString())
+  /**
+   * Streams through a client derived from <code>httpClient</code>, sharing its connection pool.
+   *
+   * @param httpClient client to derive the stream client from
+   * @param type
+   */
+  public StreamHandler(OkHttpClient httpClient, TypeToken<T> type) {
+    this.type = type;
+    this.okSse = new OkSse(newStreamClient(httpClient));
+    this.httpClient = httpClient;
+  }
+
+  /**
+   * Returns a client for long lived streams, sharing the connection pool of <code>httpClient</code>.
+   * <p>
+   * An open stream holds its dispatcher slot until closed, so streams use their own dispatcher without per host limit,
+   * instead of queueing behind each other and the REST requests of <code>httpClient</code>.
+   * </p>
+   */
+  static OkHttpClient newStreamClient(OkHttpClient httpClient) {
+    return httpClient.newBuilder()
+        .dispatcher(StreamDispatcherHolder.INSTANCE)
+        // Streams stay open while waiting for new events, they must not time out on reads.
+        .readTimeout(0, TimeUnit.MILLISECONDS)
         .build();
+  }
 
-    return okSse.newServerSentEvent(request, new ServerSentEvent.Listener() {
-      @Override
-      public void onOpen(ServerSentEvent sse, okhttp3.Response response) {
-      }
+  /**
+   * Persists the cursor of the streams opened by this handler, and resumes them from the saved cursor.
+   *
+   * @param cursorStore the {@link CursorStore} to use, or null to start from the requested cursor
+   */
+  public void setCursorStore(CursorStore cursorStore) {
+    this.cursorStore = cursorStore;
+  }
 
+  /**
+   * Sets when the streams opened by this handler reconnect after a failure.
+   *
+   * @param reconnectPolicy the {@link ReconnectPolicy} to use, or null for a default policy per stream
+   */
+  public void setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+    this.reconnectPolicy = reconnectPolicy;
+  }
+
+  /**
+   * Notifies <code>stateListener</code> of the state changes of the streams opened by this handler.
+   */
+  public void setStreamStateListener(StreamStateListener stateListener) {
+    this.stateListener = stateListener;
+  }
+
+  public ServerSentEvent handleStream(final URI uri, final EventListener<T> listener) {
+    return handleRawStream(uri, new EventListener<String>() {
       @Override
-      public void onMessage(ServerSentEvent sse, String id, String event, String data) {
-        if (OPEN_MESSAGE_DATA.equals(data)) {
-          return;
-        }
+      public void onEvent(String data) {
         try {
           T object = GsonSingleton.getInstance().fromJson(data, type.getType());
           if (object != null) {
@@ -51,31 +111,484 @@ public class StreamHandler<T> {
           e.printStackTrace();
         }
       }
+    });
+  }
 
-      @Override
-      public void onComment(ServerSentEvent sse, String comment) {
+  /**
+   * Streams the JSON data of each event without parsing it, for callers that only parse the events they need.
+   * <p>
+   * The paging token of each delivered event is recorded, and reconnections resume right after it. When a
+   * {@link CursorStore} is set and has a cursor for this stream, the events since that cursor are first read through
+   * paged requests, then streaming continues from the last of them.
+   * </p>
+   * Failed connections are retried according to the {@link ReconnectPolicy}, and fall back to polling when it has a
+   * polling fallback.
+   */
+  public ServerSentEvent handleRawStream(final URI uri, final EventListener<String> listener) {
+    HttpUrl url = HttpUrl.parse(uri.toString());
+    // Keyed with the requested cursor, a stream from now and one from the first event of the same resource keep their
+    // own positions.
+    String stream = url.toString();
+    String storedCursor = cursorStore != null ? cursorStore.load(stream) : null;
+    ReconnectPolicy policy = reconnectPolicy != null ? reconnectPolicy : new ReconnectPolicy.Builder().build();
+    StreamListener sseListener = new StreamListener(stream, listener, policy);
+    PagedStream pagedStream = new PagedStream(url, sseListener);
+    if (storedCursor == null) {
+      pagedStream.openStream();
+    } else {
+      sseListener.lastCursor = storedCursor;
+      sseListener.setState(StreamState.CATCHING_UP);
+      pagedStream.startCatchUp();
+    }
+    return pagedStream;
+  }
+
+  /**
+   * Delivers the data of each event and records its id, the paging token of the event in Horizon streams. Decides
+   * whether and when to reconnect after a failure, and tracks the state of the stream.
+   */
+  class StreamListener implements ServerSentEvent.Listener {
+
+    // Default reconnection delay of OkSse, until the server sends another one.
+    private static final long DEFAULT_RETRY_TIME_MILLIS = 3000;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    private final String stream;
+    private final EventListener<String> listener;
+    private final ReconnectPolicy policy;
+    private final ReconnectPolicy.Backoff backoff;
+    private volatile long retryTimeMillis = DEFAULT_RETRY_TIME_MILLIS;
+    private volatile StreamState state;
+    private volatile boolean closed;
+    volatile String lastCursor;
+    // The stream this listener belongs to, which reconnects it.
+    PagedStream pagedStream;
+
+    StreamListener(String stream, EventListener<String> listener, ReconnectPolicy policy) {
+      this.stream = stream;
+      this.listener = listener;
+      this.policy = policy;
+      this.backoff = policy.newBackoff();
+    }
+
+    StreamState getState() {
+      return state;
+    }
+
+    void setState(StreamState state) {
+      synchronized (this) {
+        // A closed stream stays closed, whatever reconnection was in progress.
+        if (this.state == state || (closed && state != StreamState.CLOSED)) {
+          return;
+        }
+        this.state = state;
+      }
+      StreamStateListener stateListener = StreamHandler.this.stateListener;
+      if (stateListener != null) {
+        stateListener.onStateChanged(state);
       }
+    }
 
-      @Override
-      public boolean onRetryTime(ServerSentEvent sse, long milliseconds) {
-        return true;
+    boolean isClosed() {
+      return closed;
+    }
+
+    void close() {
+      closed = true;
+      setState(StreamState.CLOSED);
+    }
+
+    @Override
+    public void onOpen(ServerSentEvent sse, okhttp3.Response response) {
+      backoff.reset();
+      policy.recordSuccess();
+      setState(StreamState.CONNECTED);
+    }
+
+    @Override
+    public void onMessage(ServerSentEvent sse, String id, String event, String data) {
+      if (OPEN_MESSAGE_DATA.equals(data)) {
+        return;
       }
+      deliver(id, data);
+    }
 
-      @Override
-      public boolean onRetryError(ServerSentEvent sse, Throwable throwable, okhttp3.Response response) {
-        return true;
+    void deliver(final String cursor, String data) {
+      if (listener instanceof DecodePipeline) {
+        // The pipeline delivers the event later, the cursor is saved once it did so reloading it doesn't skip events.
+        ((DecodePipeline<?>) listener).onEvent(data, cursor == null ? null : new Runnable() {
+          @Override
+          public void run() {
+            saveCursor(cursor);
+          }
+        });
+      } else {
+        listener.onEvent(data);
+        saveCursor(cursor);
       }
+      if (cursor != null) {
+        // Reconnections resume after the events handed over, the pipeline delivers them anyway.
+        lastCursor = cursor;
+      }
+    }
 
-      @Override
-      public void onClosed(ServerSentEvent sse) {
+    private void saveCursor(String cursor) {
+      if (cursor != null && cursorStore != null) {
+        cursorStore.save(stream, cursor);
       }
+    }
 
-      @Override
-      public Request onPreRetry(ServerSentEvent sse, Request originalRequest) {
-        return originalRequest;
+    @Override
+    public void onComment(ServerSentEvent sse, String comment) {
+    }
+
+    @Override
+    public boolean onRetryTime(ServerSentEvent sse, long milliseconds) {
+      retryTimeMillis = milliseconds;
+      return true;
+    }
+
+    /**
+     * Gives up the failed connection, the paged stream reconnects from a background thread rather than blocking the
+     * OkHttp thread while waiting.
+     * <p>
+     * Only transport errors and server errors count toward the circuit breaker and the polling fallback, shared by
+     * the streams of the policy. Other responses, e.g. a 404 for an account not created yet, are about this stream
+     * only and just retried with its backoff.
+     * </p>
+     */
+    @Override
+    public boolean onRetryError(ServerSentEvent sse, Throwable throwable, okhttp3.Response response) {
+      if (closed) {
+        return false;
       }
-    });
+      boolean serverFailure = isServerFailure(response);
+      if (serverFailure) {
+        policy.recordFailure(ReconnectPolicy.now());
+      }
+      if (backoff.isExhausted()) {
+        setState(StreamState.FAILED);
+        return false;
+      }
+      // The retry time sent by the server is the minimum delay.
+      pagedStream.startReconnect(Math.max(backoff.nextDelayMillis(), retryTimeMillis), serverFailure);
+      return false;
+    }
+
+    private boolean isServerFailure(okhttp3.Response response) {
+      return response == null || response.code() >= HTTP_SERVER_ERROR || response.code() == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    @Override
+    public void onClosed(ServerSentEvent sse) {
+      // Connections given up for a reconnection are no longer the current one of the paged stream.
+      if (state != StreamState.FAILED && pagedStream.isCurrent(sse)) {
+        close();
+      }
+    }
+
+    @Override
+    public Request onPreRetry(ServerSentEvent sse, Request originalRequest) {
+      setState(StreamState.CONNECTING);
+      return withCursor(originalRequest.url(), lastCursor);
+    }
+  }
+
+  private static String pagingTokenOf(JsonObject record) {
+    JsonElement pagingToken = record.get("paging_token");
+    return pagingToken != null ? pagingToken.getAsString() : null;
   }
 
+  private static Request withCursor(HttpUrl url, String cursor) {
+    if (cursor != null) {
+      url = url.newBuilder().setQueryParameter(CURSOR_PARAMETER, cursor).build();
+    }
+    return new Request.Builder().url(url).build();
+  }
+
+  /**
+   * A stream reading events through paged requests on a background thread when needed: the events since the stored
+   * cursor before opening the stream, and the new events while streaming fails repeatedly. Reconnects the stream after
+   * failures, from a background thread as well.
+   */
+  class PagedStream implements ServerSentEvent {
+
+    private final HttpUrl url;
+    private final StreamListener listener;
+    private final PageStreamHandler<JsonObject> pageHandler =
+        new PageStreamHandler<>(httpClient, new TypeToken<JsonObject>() {});
+    private ServerSentEvent serverSentEvent;
+    private long timeoutMillis = -1;
+    private volatile Call currentCall;
+    private boolean headRead;
+
+    PagedStream(HttpUrl url, StreamListener listener) {
+      this.url = url;
+      this.listener = listener;
+      listener.pagedStream = this;
+    }
+
+    void startCatchUp() {
+      start("kin-stream-catch-up", new Runnable() {
+        @Override
+        public void run() {
+          try {
+            readPages(pageUrl(listener.lastCursor));
+          } catch (IOException | RuntimeException e) {
+            // The stream itself replays the remaining events from the last delivered cursor.
+            if (!isClosed()) {
+              e.printStackTrace();
+            }
+          }
+          openStream();
+        }
+      });
+    }
+
+    /**
+     * Reconnects once the failed connection gave up, after waiting for the network, for the circuit breaker and for
+     * <code>delayMillis</code>. Polls for new events first when streaming fails repeatedly because of the server.
+     */
+    void startReconnect(final long delayMillis, final boolean serverFailure) {
+      synchronized (this) {
+        serverSentEvent = null;
+      }
+      start("kin-stream-reconnect", new Runnable() {
+        @Override
+        public void run() {
+          if (awaitReconnect(delayMillis, serverFailure)) {
+            openStream();
+          }
+        }
+      });
+    }
+
+    /**
+     * Waits before reconnecting, returns false if closed meanwhile.
+     */
+    private boolean awaitReconnect(long delayMillis, boolean serverFailure) {
+      ReconnectPolicy policy = listener.policy;
+      if (serverFailure && policy.isPollingFallbackEnabled()) {
+        readHead();
+      }
+      try {
+        while (!isClosed() && !policy.isNetworkAvailable()) {
+          listener.setState(StreamState.WAITING_FOR_NETWORK);
+          policy.awaitNetwork();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      if (isClosed()) {
+        return false;
+      }
+      if (serverFailure && policy.shouldPoll(listener.backoff.getAttempts())) {
+        listener.backoff.reset();
+        listener.setState(StreamState.POLLING);
+        poll();
+        return !isClosed();
+      }
+      long circuitOpenMillis = policy.circuitOpenMillis(ReconnectPolicy.now());
+      if (circuitOpenMillis > 0) {
+        listener.setState(StreamState.CIRCUIT_OPEN);
+        if (!await(circuitOpenMillis)) {
+          return false;
+        }
+      }
+      listener.setState(StreamState.RECONNECTING);
+      return await(delayMillis);
+    }
+
+    private void start(String name, Runnable runnable) {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    private void poll() {
+      ReconnectPolicy.PollInterval interval = listener.policy.newPollInterval();
+      long retryStreamingAt = ReconnectPolicy.now() + listener.policy.streamingRetryMillis();
+      while (!isClosed() && ReconnectPolicy.now() < retryStreamingAt) {
+        int count = 0;
+        try {
+          count = readPages(pageUrl(pollCursor()));
+        } catch (IOException | RuntimeException e) {
+          if (!isClosed()) {
+            e.printStackTrace();
+          }
+        }
+        if (!await(interval.nextMillis(count > 0))) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Reads where a stream opened from <code>now</code> stands as soon as the server fails it, if it delivered no
+     * event yet, so that polling later on reads the events since that failure instead of skipping them. Read again
+     * when polling starts if it fails here.
+     */
+    private void readHead() {
+      try {
+        pollCursor();
+      } catch (IOException | RuntimeException e) {
+        if (!isClosed()) {
+          e.printStackTrace();
+        }
+      }
+    }
 
+    /**
+     * Returns the cursor to poll from: the last delivered event, else the one the stream was opened with. The latest
+     * event is read once for streams opened from <code>now</code>, as polling from <code>now</code> would always
+     * skip the events since the previous poll.
+     */
+    private String pollCursor() throws IOException {
+      String cursor = listener.lastCursor;
+      if (cursor != null) {
+        return cursor;
+      }
+      cursor = url.queryParameter(CURSOR_PARAMETER);
+      if (!CURSOR_NOW.equals(cursor)) {
+        return cursor;
+      }
+      if (!headRead && !isClosed()) {
+        HttpUrl headUrl = url.newBuilder()
+            .removeAllQueryParameters(CURSOR_PARAMETER)
+            .setQueryParameter("limit", "1")
+            .setQueryParameter("order", RequestBuilder.Order.DESC.getValue())
+            .build();
+        try (PageStream<JsonObject> page = pageHandler.handleResponse(execute(headUrl))) {
+          if (page.hasNext()) {
+            listener.lastCursor = pagingTokenOf(page.next());
+          }
+        } finally {
+          currentCall = null;
+        }
+        headRead = true;
+      }
+      // Null if the stream had no event yet, all the following ones are new.
+      return listener.lastCursor;
+    }
+
+    /**
+     * Waits before the next poll or reconnection, returns false if closed meanwhile.
+     */
+    private synchronized boolean await(long millis) {
+      if (!isClosed() && millis > 0) {
+        try {
+          wait(millis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }
+      return !isClosed();
+    }
+
+    synchronized void openStream() {
+      if (!isClosed()) {
+        listener.setState(StreamState.CONNECTING);
+        serverSentEvent = okSse.newServerSentEvent(withCursor(url, listener.lastCursor), listener);
+        if (serverSentEvent != null && timeoutMillis >= 0) {
+          serverSentEvent.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+
+    private HttpUrl pageUrl(String cursor) {
+      HttpUrl.Builder builder = url.newBuilder().removeAllQueryParameters(CURSOR_PARAMETER);
+      if (cursor != null) {
+        builder.setQueryParameter(CURSOR_PARAMETER, cursor);
+      }
+      return builder
+          .setQueryParameter("limit", String.valueOf(PAGE_LIMIT))
+          .setQueryParameter("order", RequestBuilder.Order.ASC.getValue())
+          .build();
+    }
+
+    /**
+     * Delivers the records of the pages from <code>pageUrl</code> on, and returns their number.
+     */
+    private int readPages(HttpUrl pageUrl) throws IOException {
+      int count = 0;
+      while (!isClosed() && pageUrl != null) {
+        int pageCount;
+        Page.Links links;
+        try (PageStream<JsonObject> page = pageHandler.handleResponse(execute(pageUrl))) {
+          pageCount = 0;
+          while (!isClosed() && page.hasNext()) {
+            JsonObject record = page.next();
+            listener.deliver(pagingTokenOf(record), record.toString());
+            pageCount++;
+          }
+          links = page.getLinks();
+        } finally {
+          currentCall = null;
+        }
+        count += pageCount;
+        pageUrl = pageCount < PAGE_LIMIT || links == null || links.getNext() == null
+            ? null : HttpUrl.parse(links.getNext().getHref());
+      }
+      return count;
+    }
+
+    private okhttp3.Response execute(HttpUrl pageUrl) throws IOException {
+      Call call = httpClient.newCall(new Request.Builder().url(pageUrl).build());
+      currentCall = call;
+      if (isClosed()) {
+        call.cancel();
+      }
+      return call.execute();
+    }
+
+    private boolean isClosed() {
+      return listener.isClosed();
+    }
+
+    synchronized boolean isCurrent(ServerSentEvent sse) {
+      return serverSentEvent == sse;
+    }
+
+    @Override
+    public synchronized Request request() {
+      return serverSentEvent != null ? serverSentEvent.request() : withCursor(url, listener.lastCursor);
+    }
+
+    @Override
+    public synchronized void setTimeout(long timeout, TimeUnit unit) {
+      timeoutMillis = unit.toMillis(timeout);
+      if (serverSentEvent != null) {
+        serverSentEvent.setTimeout(timeout, unit);
+      }
+    }
+
+    @Override
+    public synchronized void close() {
+      listener.close();
+      notifyAll();
+      Call call = currentCall;
+      if (call != null) {
+        call.cancel();
+      }
+      if (serverSentEvent != null) {
+        serverSentEvent.close();
+        serverSentEvent = null;
+      }
+    }
+  }
+
+  private static class StreamDispatcherHolder {
+
+    private static final Dispatcher INSTANCE = newDispatcher();
+
+    private static Dispatcher newDispatcher() {
+      Dispatcher dispatcher = new Dispatcher();
+      dispatcher.setMaxRequests(Integer.MAX_VALUE);
+      dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+      return dispatcher;
+    }
+  }
 }
@@ -0,0 +1,46 @@
+package kin.base.requests;
+
+/**
+ * State of a Server-Sent Events stream.
+ * @see StreamStateListener
+ */
+public enum StreamState {
+  /**
+   * Connecting to Horizon.
+   */
+  CONNECTING,
+  /**
+   * Reading the events missed since the stored cursor through paged requests, before connecting.
+   * @see CursorStore
+   */
+  CATCHING_UP,
+  /**
+   * Connected and receiving events.
+   */
+  CONNECTED,
+  /**
+   * Disconnected, waiting for the reconnect backoff delay.
+   */
+  RECONNECTING,
+  /**
+   * Disconnected, waiting for the network to be available again.
+   */
+  WAITING_FOR_NETWORK,
+  /**
+   * Disconnected, waiting for the circuit breaker to allow reconnecting after too many consecutive failures.
+   */
+  CIRCUIT_OPEN,
+  /**
+   * Streaming failed repeatedly, reading the new events through periodic paged requests until streaming is retried.
+   * @see ReconnectPolicy.Builder#pollingFallback(int, long, long, java.util.concurrent.TimeUnit)
+   */
+  POLLING,
+  /**
+   * Gave up reconnecting after the maximum number of attempts of the {@link ReconnectPolicy}.
+   */
+  FAILED,
+  /**
+   * Closed.
+   */
+  CLOSED
+}
@@ -0,0 +1,10 @@
+package kin.base.requests;
+
+/**
+ * Notified of the state changes of a stream, on the stream thread.
+ * @see RequestBuilder#setStreamStateListener(StreamStateListener)
+ */
+public interface StreamStateListener {
+
+  void onStateChanged(StreamState state);
+}
@@ -44,6 +44,8 @@ public class TradesRequestBuilder extends RequestBuilder {
     }
 
     public TradeResponse execute() throws IOException, TooManyRequestsException {
-        return this.execute(httpClient, this.buildUri());
+        TypeToken type = new TypeToken<TradeResponse>() {};
+        ResponseHandler<TradeResponse> responseHandler = newResponseHandler(type);
+        return responseHandler.handleGetRequest(this.buildUri());
     }
 }
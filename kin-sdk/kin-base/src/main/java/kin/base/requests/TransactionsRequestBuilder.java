@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.net.URI;
 import kin.base.KeyPair;
 import kin.base.responses.Page;
+import kin.base.responses.PageStream;
 import kin.base.responses.TransactionResponse;
 import okhttp3.OkHttpClient;
 
@@ -30,7 +31,7 @@ public class TransactionsRequestBuilder extends RequestBuilder {
    */
   public TransactionResponse transaction(URI uri) throws IOException {
     TypeToken type = new TypeToken<TransactionResponse>() {};
-    ResponseHandler<TransactionResponse> responseHandler = new ResponseHandler<TransactionResponse>(httpClient, type);
+    ResponseHandler<TransactionResponse> responseHandler = newSingleResponseHandler(type);
     return responseHandler.handleGetRequest(uri);
   }
 
@@ -92,10 +93,20 @@ public class TransactionsRequestBuilder extends RequestBuilder {
    * @return ServerSentEvent object, so you can <code>close()</code> connection when not needed anymore
    */
   public ServerSentEvent stream(final EventListener<TransactionResponse> listener) {
-    return new StreamHandler<>(new TypeToken<TransactionResponse>() {})
+    return newStreamHandler(new TypeToken<TransactionResponse>() {})
         .handleStream(this.buildUri(),listener);
   }
 
+  /**
+   * Streams the JSON data of each event, without parsing it into {@link TransactionResponse}.
+   * @param listener {@link EventListener} receiving the data of each event
+   * @return ServerSentEvent object, so you can <code>close()</code> connection when not needed anymore
+   */
+  public ServerSentEvent streamRaw(final EventListener<String> listener) {
+    return newStreamHandler(new TypeToken<TransactionResponse>() {})
+        .handleRawStream(this.buildUri(), listener);
+  }
+
   /**
    * Build and execute request.
    * @return {@link Page} of {@link TransactionResponse}
@@ -103,7 +114,45 @@ public class TransactionsRequestBuilder extends RequestBuilder {
    * @throws IOException
    */
   public Page<TransactionResponse> execute() throws IOException, TooManyRequestsException {
-    return this.execute(httpClient, this.buildUri());
+    TypeToken type = new TypeToken<Page<TransactionResponse>>() {};
+    ResponseHandler<Page<TransactionResponse>> responseHandler = newResponseHandler(type);
+    return responseHandler.handleGetRequest(this.buildUri());
+  }
+
+  /**
+   * Build a {@link PagingCursor} iterating over all the {@link TransactionResponse} records of this request, following the
+   * next page links.
+   * @param prefetchDepth maximum number of pages fetched ahead of the consumer
+   * @return {@link PagingCursor} of {@link TransactionResponse}, must be closed if not consumed to the end
+   */
+  public PagingCursor<TransactionResponse> paginate(int prefetchDepth) {
+    return new PagingCursor<>(httpClient, this.buildUri(), new TypeToken<Page<TransactionResponse>>() {}, prefetchDepth);
+  }
+
+  /**
+   * Requests specific <code>uri</code> and returns a {@link PageStream} of {@link TransactionResponse}, reading the records
+   * one at a time from the response body instead of loading the whole page.
+   * The stream must be consumed to the end or closed to release the connection.
+   * @return {@link PageStream} of {@link TransactionResponse}
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException
+   */
+  public static PageStream<TransactionResponse> executeStreaming(OkHttpClient httpClient, URI uri)
+      throws IOException, TooManyRequestsException {
+    PageStreamHandler<TransactionResponse> streamHandler = new PageStreamHandler<>(httpClient,
+        new TypeToken<TransactionResponse>() {});
+    return streamHandler.handleGetRequest(uri);
+  }
+
+  /**
+   * Build and execute request, reading the records lazily.
+   * @return {@link PageStream} of {@link TransactionResponse}
+   * @throws TooManyRequestsException when too many requests were sent to the Horizon server.
+   * @throws IOException
+   * @see #executeStreaming(OkHttpClient, URI)
+   */
+  public PageStream<TransactionResponse> executeStreaming() throws IOException, TooManyRequestsException {
+    return executeStreaming(httpClient, this.buildUri());
   }
 
   @Override
@@ -0,0 +1,34 @@
+package kin.base.responses;
+
+/**
+ * Projection of the account response holding only the native balance and the sequence number, read by
+ * {@link AccountBalanceTypeAdapter} without building the full {@link AccountResponse}.
+ * @see kin.base.requests.AccountsRequestBuilder#accountBalance(kin.base.KeyPair)
+ */
+public class AccountBalanceResponse extends Response {
+
+  /**
+   * Number of decimal digits in Horizon amounts, {@link #getNativeBalance()} is scaled by 10^BALANCE_SCALE.
+   */
+  public static final int BALANCE_SCALE = 7;
+
+  private final Long sequenceNumber;
+  private final Long nativeBalance;
+
+  AccountBalanceResponse(Long sequenceNumber, Long nativeBalance) {
+    this.sequenceNumber = sequenceNumber;
+    this.nativeBalance = nativeBalance;
+  }
+
+  public Long getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  /**
+   * Returns the native balance as an unscaled amount of 10^-{@value #BALANCE_SCALE} units, or null if the account has
+   * no native balance line.
+   */
+  public Long getNativeBalance() {
+    return nativeBalance;
+  }
+}
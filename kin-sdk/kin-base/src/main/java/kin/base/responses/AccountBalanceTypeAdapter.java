@@ -0,0 +1,117 @@
+package kin.base.responses;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Streams the account JSON keeping only <code>sequence</code> and the native line of <code>balances</code>, every
+ * other field is skipped.
+ */
+class AccountBalanceTypeAdapter extends TypeAdapter<AccountBalanceResponse> {
+  @Override
+  public void write(JsonWriter out, AccountBalanceResponse value) throws IOException {
+    // Don't need this.
+  }
+
+  @Override
+  public AccountBalanceResponse read(JsonReader in) throws IOException {
+    Long sequenceNumber = null;
+    Long nativeBalance = null;
+
+    in.beginObject();
+    while (in.hasNext()) {
+      String name = in.nextName();
+      if ("sequence".equals(name) && in.peek() != JsonToken.NULL) {
+        sequenceNumber = Long.parseLong(in.nextString());
+      } else if ("balances".equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+        in.beginArray();
+        while (in.hasNext()) {
+          Long balance = readNativeBalance(in);
+          if (balance != null) {
+            nativeBalance = balance;
+          }
+        }
+        in.endArray();
+      } else {
+        in.skipValue();
+      }
+    }
+    in.endObject();
+    return new AccountBalanceResponse(sequenceNumber, nativeBalance);
+  }
+
+  private static Long readNativeBalance(JsonReader in) throws IOException {
+    String assetType = null;
+    String balance = null;
+
+    in.beginObject();
+    while (in.hasNext()) {
+      String name = in.nextName();
+      if ("asset_type".equals(name)) {
+        assetType = in.nextString();
+      } else if ("balance".equals(name)) {
+        balance = in.nextString();
+      } else {
+        in.skipValue();
+      }
+    }
+    in.endObject();
+    return "native".equals(assetType) && balance != null ? parseAmount(balance) : null;
+  }
+
+  /**
+   * Parses a decimal amount such as <code>"9999.9999800"</code> to a long scaled by
+   * 10^{@link AccountBalanceResponse#BALANCE_SCALE}.
+   */
+  static long parseAmount(String amount) {
+    int length = amount.length();
+    int index = 0;
+    boolean negative = false;
+    if (length > 0 && amount.charAt(0) == '-') {
+      negative = true;
+      index++;
+    }
+    long value = 0;
+    int fractionDigits = -1;
+    boolean hasDigits = false;
+    for (; index < length; index++) {
+      char c = amount.charAt(index);
+      if (c == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+        continue;
+      }
+      if (c < '0' || c > '9') {
+        throw new JsonParseException("Invalid amount " + amount);
+      }
+      hasDigits = true;
+      if (fractionDigits >= 0) {
+        if (fractionDigits == AccountBalanceResponse.BALANCE_SCALE) {
+          if (c != '0') {
+            throw new JsonParseException("Amount " + amount + " has too many decimal digits");
+          }
+          continue;
+        }
+        fractionDigits++;
+      }
+      value = appendDigit(value, c - '0', amount);
+    }
+    if (!hasDigits) {
+      throw new JsonParseException("Invalid amount " + amount);
+    }
+    for (int i = Math.max(fractionDigits, 0); i < AccountBalanceResponse.BALANCE_SCALE; i++) {
+      value = appendDigit(value, 0, amount);
+    }
+    return negative ? -value : value;
+  }
+
+  private static long appendDigit(long value, int digit, String amount) {
+    if (value > (Long.MAX_VALUE - digit) / 10) {
+      throw new JsonParseException("Amount " + amount + " is out of range");
+    }
+    return value * 10 + digit;
+  }
+}
@@ -0,0 +1,82 @@
+package kin.base.responses;
+
+import kin.base.responses.effects.AccountCreatedEffectResponse;
+import kin.base.responses.effects.AccountCreditedEffectResponse;
+import kin.base.responses.effects.AccountDebitedEffectResponse;
+import kin.base.responses.effects.AccountFlagsUpdatedEffectResponse;
+import kin.base.responses.effects.AccountHomeDomainUpdatedEffectResponse;
+import kin.base.responses.effects.AccountRemovedEffectResponse;
+import kin.base.responses.effects.AccountThresholdsUpdatedEffectResponse;
+import kin.base.responses.effects.EffectResponse;
+import kin.base.responses.effects.OfferCreatedEffectResponse;
+import kin.base.responses.effects.OfferRemovedEffectResponse;
+import kin.base.responses.effects.OfferUpdatedEffectResponse;
+import kin.base.responses.effects.SignerCreatedEffectResponse;
+import kin.base.responses.effects.SignerRemovedEffectResponse;
+import kin.base.responses.effects.SignerUpdatedEffectResponse;
+import kin.base.responses.effects.TradeEffectResponse;
+import kin.base.responses.effects.TrustlineAuthorizedEffectResponse;
+import kin.base.responses.effects.TrustlineCreatedEffectResponse;
+import kin.base.responses.effects.TrustlineDeauthorizedEffectResponse;
+import kin.base.responses.effects.TrustlineRemovedEffectResponse;
+import kin.base.responses.effects.TrustlineUpdatedEffectResponse;
+
+/**
+ * Maps effect <code>type_i</code> values to {@link EffectResponse} subclasses.
+ */
+class EffectTypeAdapterFactory extends TypeIdAdapterFactory<EffectResponse> {
+
+  EffectTypeAdapterFactory() {
+    super(EffectResponse.class);
+  }
+
+  @Override
+  Class<? extends EffectResponse> subtypeFor(int typeId) {
+    switch (typeId) {
+      // Account effects
+      case 0:
+        return AccountCreatedEffectResponse.class;
+      case 1:
+        return AccountRemovedEffectResponse.class;
+      case 2:
+        return AccountCreditedEffectResponse.class;
+      case 3:
+        return AccountDebitedEffectResponse.class;
+      case 4:
+        return AccountThresholdsUpdatedEffectResponse.class;
+      case 5:
+        return AccountHomeDomainUpdatedEffectResponse.class;
+      case 6:
+        return AccountFlagsUpdatedEffectResponse.class;
+      // Signer effects
+      case 10:
+        return SignerCreatedEffectResponse.class;
+      case 11:
+        return SignerRemovedEffectResponse.class;
+      case 12:
+        return SignerUpdatedEffectResponse.class;
+      // Trustline effects
+      case 20:
+        return TrustlineCreatedEffectResponse.class;
+      case 21:
+        return TrustlineRemovedEffectResponse.class;
+      case 22:
+        return TrustlineUpdatedEffectResponse.class;
+      case 23:
+        return TrustlineAuthorizedEffectResponse.class;
+      case 24:
+        return TrustlineDeauthorizedEffectResponse.class;
+      // Trading effects
+      case 30:
+        return OfferCreatedEffectResponse.class;
+      case 31:
+        return OfferRemovedEffectResponse.class;
+      case 32:
+        return OfferUpdatedEffectResponse.class;
+      case 33:
+        return TradeEffectResponse.class;
+      default:
+        return null;
+    }
+  }
+}
@@ -2,6 +2,7 @@ package kin.base.responses;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
 import kin.base.Asset;
 import kin.base.KeyPair;
@@ -9,38 +10,56 @@ import kin.base.responses.effects.EffectResponse;
 import kin.base.responses.operations.OperationResponse;
 
 public class GsonSingleton {
-  private static Gson instance = null;
+
+  /**
+   * Response types resolved by {@link #warmUp()}, both as single resources and as page records.
+   */
+  private static final Class<?>[] RESPONSE_TYPES = {
+      AccountResponse.class,
+      EffectResponse.class,
+      LedgerResponse.class,
+      OfferResponse.class,
+      OperationResponse.class,
+      PathResponse.class,
+      TradeResponse.class,
+      TransactionResponse.class
+  };
 
   protected GsonSingleton() {}
 
+  // Initialized on first access by the class loader, which also publishes it safely to all threads.
+  private static class Holder {
+    private static final Gson INSTANCE = new GsonBuilder()
+        .registerTypeAdapter(Asset.class, new AssetDeserializer())
+        .registerTypeAdapter(KeyPair.class, new KeyPairTypeAdapter().nullSafe())
+        .registerTypeAdapter(AccountBalanceResponse.class, new AccountBalanceTypeAdapter().nullSafe())
+        .registerTypeAdapterFactory(new OperationTypeAdapterFactory())
+        .registerTypeAdapterFactory(new EffectTypeAdapterFactory())
+        .registerTypeAdapterFactory(new TransactionTypeAdapterFactory())
+        .registerTypeAdapterFactory(new PageTypeAdapterFactory())
+        .create();
+  }
+
   public static Gson getInstance() {
-    if (instance == null) {
-      TypeToken accountPageType = new TypeToken<Page<AccountResponse>>() {};
-      TypeToken effectPageType = new TypeToken<Page<EffectResponse>>() {};
-      TypeToken ledgerPageType = new TypeToken<Page<LedgerResponse>>() {};
-      TypeToken offerPageType = new TypeToken<Page<OfferResponse>>() {};
-      TypeToken operationPageType = new TypeToken<Page<OperationResponse>>() {};
-      TypeToken pathPageType = new TypeToken<Page<PathResponse>>() {};
-      TypeToken tradePageType = new TypeToken<Page<TradeResponse>>() {};
-      TypeToken transactionPageType = new TypeToken<Page<TransactionResponse>>() {};
+    return Holder.INSTANCE;
+  }
 
-      instance = new GsonBuilder()
-                      .registerTypeAdapter(Asset.class, new AssetDeserializer())
-                      .registerTypeAdapter(KeyPair.class, new KeyPairTypeAdapter().nullSafe())
-                      .registerTypeAdapter(OperationResponse.class, new OperationDeserializer())
-                      .registerTypeAdapter(EffectResponse.class, new EffectDeserializer())
-                      .registerTypeAdapter(TransactionResponse.class, new TransactionDeserializer())
-                      .registerTypeAdapter(accountPageType.getType(), new PageDeserializer<AccountResponse>(accountPageType))
-                      .registerTypeAdapter(effectPageType.getType(), new PageDeserializer<AccountResponse>(effectPageType))
-                      .registerTypeAdapter(ledgerPageType.getType(), new PageDeserializer<LedgerResponse>(ledgerPageType))
-                      .registerTypeAdapter(offerPageType.getType(), new PageDeserializer<OfferResponse>(offerPageType))
-                      .registerTypeAdapter(operationPageType.getType(), new PageDeserializer<OperationResponse>(operationPageType))
-                      .registerTypeAdapter(pathPageType.getType(), new PageDeserializer<PathResponse>(pathPageType))
-                      .registerTypeAdapter(tradePageType.getType(), new PageDeserializer<TradeResponse>(tradePageType))
-                      .registerTypeAdapter(transactionPageType.getType(), new PageDeserializer<TransactionResponse>(transactionPageType))
-                      .create();
+  /**
+   * Builds the type adapters of all Horizon response types ahead of time, including every operation and effect
+   * subtype, so the first request doesn't pay for the reflective adapter discovery.
+   * <p>Blocking, should be called off the main thread, e.g. when the app starts.</p>
+   */
+  public static void warmUp() {
+    Gson gson = getInstance();
+    gson.getAdapter(AccountBalanceResponse.class);
+    gson.getAdapter(OrderBookResponse.class);
+    gson.getAdapter(SubmitTransactionResponse.class);
+    for (Class<?> type : RESPONSE_TYPES) {
+      TypeAdapter<?> adapter = gson.getAdapter(type);
+      if (adapter instanceof TypeIdAdapterFactory.Warmable) {
+        ((TypeIdAdapterFactory.Warmable) adapter).warmUp();
+      }
+      gson.getAdapter(TypeToken.getParameterized(Page.class, type));
     }
-    return instance;
   }
-
 }
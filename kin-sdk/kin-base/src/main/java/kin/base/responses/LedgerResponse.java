@@ -9,7 +9,7 @@ import kin.base.Server;
  * @see kin.base.requests.LedgersRequestBuilder
  * @see Server#ledgers()
  */
-public class LedgerResponse extends Response {
+public class LedgerResponse extends Response implements Pageable {
   @SerializedName("sequence")
   private final Long sequence;
   @SerializedName("hash")
@@ -61,6 +61,7 @@ public class LedgerResponse extends Response {
     return hash;
   }
 
+  @Override
   public String getPagingToken() {
     return pagingToken;
   }
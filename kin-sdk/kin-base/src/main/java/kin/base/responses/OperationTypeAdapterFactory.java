@@ -0,0 +1,54 @@
+package kin.base.responses;
+
+import kin.base.responses.operations.AccountMergeOperationResponse;
+import kin.base.responses.operations.AllowTrustOperationResponse;
+import kin.base.responses.operations.ChangeTrustOperationResponse;
+import kin.base.responses.operations.CreateAccountOperationResponse;
+import kin.base.responses.operations.CreatePassiveOfferOperationResponse;
+import kin.base.responses.operations.InflationOperationResponse;
+import kin.base.responses.operations.ManageDataOperationResponse;
+import kin.base.responses.operations.ManageOfferOperationResponse;
+import kin.base.responses.operations.OperationResponse;
+import kin.base.responses.operations.PathPaymentOperationResponse;
+import kin.base.responses.operations.PaymentOperationResponse;
+import kin.base.responses.operations.SetOptionsOperationResponse;
+
+/**
+ * Maps operation <code>type_i</code> values to {@link OperationResponse} subclasses.
+ */
+class OperationTypeAdapterFactory extends TypeIdAdapterFactory<OperationResponse> {
+
+  OperationTypeAdapterFactory() {
+    super(OperationResponse.class);
+  }
+
+  @Override
+  Class<? extends OperationResponse> subtypeFor(int typeId) {
+    switch (typeId) {
+      case 0:
+        return CreateAccountOperationResponse.class;
+      case 1:
+        return PaymentOperationResponse.class;
+      case 2:
+        return PathPaymentOperationResponse.class;
+      case 3:
+        return ManageOfferOperationResponse.class;
+      case 4:
+        return CreatePassiveOfferOperationResponse.class;
+      case 5:
+        return SetOptionsOperationResponse.class;
+      case 6:
+        return ChangeTrustOperationResponse.class;
+      case 7:
+        return AllowTrustOperationResponse.class;
+      case 8:
+        return AccountMergeOperationResponse.class;
+      case 9:
+        return InflationOperationResponse.class;
+      case 10:
+        return ManageDataOperationResponse.class;
+      default:
+        return null;
+    }
+  }
+}
@@ -1,8 +1,10 @@
 package kin.base.responses;
 
+import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -18,9 +20,17 @@ public class Page<T> extends Response {
   private ArrayList<T> records;
   @SerializedName("links")
   private Links links;
+  // Resolved type of this page, so the next pages are parsed with the actual record type.
+  private transient TypeToken<Page<T>> pageType;
 
   Page() {}
 
+  Page(ArrayList<T> records, Links links, TypeToken<Page<T>> pageType) {
+    this.records = records;
+    this.links = links;
+    this.pageType = pageType;
+  }
+
   public ArrayList<T> getRecords() {
     return records;
   }
@@ -39,12 +49,23 @@ public class Page<T> extends Response {
     if (this.getLinks().getNext() == null) {
       return null;
     }
-    TypeToken type = new TypeToken<Page<T>>() {};
+    TypeToken<Page<T>> type = pageType != null ? pageType : new TypeToken<Page<T>>() {};
     ResponseHandler<Page<T>> responseHandler = new ResponseHandler<Page<T>>(httpClient, type);
     URI uri = new URI(this.getLinks().getNext().getHref());
     return responseHandler.handleGetRequest(uri);
   }
 
+  /**
+   * Returns a lazy iterator over the records of the page JSON read from <code>reader</code>, records are parsed one at
+   * a time instead of being collected into a {@link Page}.
+   * @param reader page JSON, closed once all records were read or when the returned {@link PageStream} is closed
+   * @param recordType type of the page records
+   */
+  public static <T> PageStream<T> stream(Reader reader, TypeToken<T> recordType) {
+    Gson gson = GsonSingleton.getInstance();
+    return new PageStream<>(reader, gson.getAdapter(recordType), gson);
+  }
+
   /**
    * Links connected to page response.
    */
@@ -0,0 +1,138 @@
+package kin.base.responses;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator over the records of a {@link Page}, parsed one at a time straight from the response body.
+ * <p>Unlike {@link Page}, records are not kept once returned by {@link #next()}, so iterating a page uses constant
+ * memory regardless of its size. The underlying response is released when the last record has been read, or when
+ * {@link #close()} is called.</p>
+ * @see Page#stream(Reader, com.google.gson.reflect.TypeToken)
+ */
+public class PageStream<T> extends Response implements Iterator<T>, Closeable {
+
+  private final JsonReader reader;
+  private final TypeAdapter<T> recordAdapter;
+  private final TypeAdapter<Page.Links> linksAdapter;
+  private Page.Links links;
+  private boolean started;
+  private boolean inRecords;
+  private boolean finished;
+
+  PageStream(Reader reader, TypeAdapter<T> recordAdapter, Gson gson) {
+    this.reader = new JsonReader(reader);
+    this.recordAdapter = recordAdapter;
+    this.linksAdapter = gson.getAdapter(Page.Links.class);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (finished) {
+      return false;
+    }
+    try {
+      if (!started) {
+        started = true;
+        reader.beginObject();
+        moveToRecords();
+      }
+      if (inRecords && reader.hasNext()) {
+        return true;
+      }
+      finish();
+      return false;
+    } catch (IOException e) {
+      closeQuietly();
+      throw new JsonIOException(e);
+    }
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    try {
+      return recordAdapter.read(reader);
+    } catch (IOException e) {
+      closeQuietly();
+      throw new JsonIOException(e);
+    }
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("remove");
+  }
+
+  /**
+   * Returns the page links. Horizon sends <code>_links</code> before the records, so they are available as soon as
+   * iteration has started, otherwise they are read once all records were consumed.
+   */
+  public Page.Links getLinks() {
+    hasNext();
+    return links;
+  }
+
+  @Override
+  public void close() throws IOException {
+    finished = true;
+    reader.close();
+  }
+
+  /**
+   * Reads top level fields until the start of <code>_embedded.records</code>, or until the end of the page if it has
+   * no records.
+   */
+  private void moveToRecords() throws IOException {
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if ("_links".equals(name)) {
+        links = linksAdapter.read(reader);
+      } else if ("_embedded".equals(name)) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if ("records".equals(reader.nextName())) {
+            reader.beginArray();
+            inRecords = true;
+            return;
+          }
+          reader.skipValue();
+        }
+        reader.endObject();
+      } else {
+        reader.skipValue();
+      }
+    }
+  }
+
+  private void finish() throws IOException {
+    if (inRecords) {
+      inRecords = false;
+      reader.endArray();
+      while (reader.hasNext()) {
+        reader.nextName();
+        reader.skipValue();
+      }
+      reader.endObject();
+      moveToRecords();
+    }
+    reader.endObject();
+    close();
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (IOException ignored) {
+    }
+  }
+}
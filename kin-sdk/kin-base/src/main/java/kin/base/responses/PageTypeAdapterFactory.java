@@ -0,0 +1,93 @@
+package kin.base.responses;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+
+/**
+ * Reads any {@link Page} type in a single pass: <code>_links</code> and <code>_embedded.records</code> are read
+ * straight from the stream, each record through the adapter of the page record type.
+ * <p>Gson caches the adapter created here per page {@link TypeToken}, so the record adapter is resolved once for
+ * each page type.</p>
+ */
+class PageTypeAdapterFactory implements TypeAdapterFactory {
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    if (type.getRawType() != Page.class) {
+      return null;
+    }
+    Type recordType = Object.class;
+    if (type.getType() instanceof ParameterizedType) {
+      recordType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+    }
+    TypeAdapter<?> recordAdapter = gson.getAdapter(TypeToken.get(recordType));
+    TypeAdapter<Page.Links> linksAdapter = gson.getAdapter(Page.Links.class);
+    return (TypeAdapter<T>) new Adapter(recordAdapter, linksAdapter, type).nullSafe();
+  }
+
+  private static class Adapter<E> extends TypeAdapter<Page<E>> {
+
+    private final TypeAdapter<E> recordAdapter;
+    private final TypeAdapter<Page.Links> linksAdapter;
+    private final TypeToken<Page<E>> pageType;
+
+    Adapter(TypeAdapter<E> recordAdapter, TypeAdapter<Page.Links> linksAdapter, TypeToken<Page<E>> pageType) {
+      this.recordAdapter = recordAdapter;
+      this.linksAdapter = linksAdapter;
+      this.pageType = pageType;
+    }
+
+    @Override
+    public void write(JsonWriter out, Page<E> value) throws IOException {
+      // Don't need this.
+    }
+
+    @Override
+    public Page<E> read(JsonReader in) throws IOException {
+      ArrayList<E> records = null;
+      Page.Links links = null;
+
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = in.nextName();
+        if ("_links".equals(name)) {
+          links = linksAdapter.read(in);
+        } else if ("_embedded".equals(name)) {
+          records = readEmbeddedRecords(in);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return new Page<>(records, links, pageType);
+    }
+
+    private ArrayList<E> readEmbeddedRecords(JsonReader in) throws IOException {
+      ArrayList<E> records = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("records".equals(in.nextName())) {
+          records = new ArrayList<>();
+          in.beginArray();
+          while (in.hasNext()) {
+            records.add(recordAdapter.read(in));
+          }
+          in.endArray();
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return records;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package kin.base.responses;
+
+/**
+ * Record of a {@link Page} that can be used as a cursor position.
+ * @see <a href="https://www.stellar.org/developers/horizon/reference/resources/page.html" target="_blank">Page documentation</a>
+ */
+public interface Pageable {
+
+  /**
+   * Returns the paging token of this record, requests made with it as <code>cursor</code> continue right after it.
+   */
+  String getPagingToken();
+}
@@ -35,6 +35,15 @@ public class SubmitTransactionResponse extends Response {
         this.resultXdr = resultXdr;
     }
 
+    /**
+     * Creates the successful submission response of an already included transaction, i.e. when a submission is
+     * retried and Horizon already knows the transaction hash.
+     */
+    public static SubmitTransactionResponse fromTransaction(TransactionResponse transaction) {
+        return new SubmitTransactionResponse(null, transaction.getLedger(), transaction.getHash(),
+            transaction.getEnvelopeXdr(), transaction.getResultXdr());
+    }
+
     public boolean isSuccess() {
         return ledger != null;
     }
@@ -25,7 +25,7 @@ import kin.base.xdr.XdrDataInputStream;
  * @see kin.base.requests.TransactionsRequestBuilder
  * @see Server#transactions()
  */
-public class TransactionResponse extends Response {
+public class TransactionResponse extends Response implements Pageable {
   @SerializedName("hash")
   private final String hash;
   @SerializedName("ledger")
@@ -50,6 +50,11 @@ public class TransactionResponse extends Response {
   private final String resultMetaXdr;
   @SerializedName("_links")
   private final Links links;
+  // Raw memo fields, turned into a Memo by TransactionTypeAdapterFactory after the record is read.
+  @SerializedName("memo_type")
+  private String memoType;
+  @SerializedName("memo")
+  private String memoValue;
 
   // GSON won't serialize `transient` variables automatically. We need this behaviour
   // because Memo is an abstract class and GSON tries to instantiate it.
@@ -87,6 +92,7 @@ public class TransactionResponse extends Response {
     return sourceAccount;
   }
 
+  @Override
   public String getPagingToken() {
     return pagingToken;
   }
@@ -165,6 +171,14 @@ public class TransactionResponse extends Response {
     return TransactionMeta.decode(xdrDataInputStream);
   }
 
+  String getMemoType() {
+    return memoType;
+  }
+
+  String getMemoValue() {
+    return memoValue;
+  }
+
   public void setMemo(Memo memo) {
     memo = checkNotNull(memo, "memo cannot be null");
     if (this.memo != null) {
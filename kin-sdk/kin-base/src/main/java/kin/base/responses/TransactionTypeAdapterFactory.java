@@ -0,0 +1,72 @@
+package kin.base.responses;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import kin.base.Memo;
+import kin.base.codec.Base64;
+
+/**
+ * Reads {@link TransactionResponse} in a single pass over the stream, the raw <code>memo_type</code> and
+ * <code>memo</code> fields are captured by the reflective adapter and converted into a {@link Memo} afterwards.
+ */
+class TransactionTypeAdapterFactory implements TypeAdapterFactory {
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    if (type.getRawType() != TransactionResponse.class) {
+      return null;
+    }
+    final TypeAdapter<TransactionResponse> delegate = gson.getDelegateAdapter(this,
+        TypeToken.get(TransactionResponse.class));
+    return (TypeAdapter<T>) new TypeAdapter<TransactionResponse>() {
+      @Override
+      public void write(JsonWriter out, TransactionResponse value) throws IOException {
+        // Don't need this.
+      }
+
+      @Override
+      public TransactionResponse read(JsonReader in) throws IOException {
+        TransactionResponse transaction = delegate.read(in);
+        if (transaction != null) {
+          transaction.setMemo(toMemo(transaction.getMemoType(), transaction.getMemoValue()));
+        }
+        return transaction;
+      }
+    };
+  }
+
+  private static Memo toMemo(String memoType, String memoValue) {
+    if (memoType == null) {
+      throw new JsonParseException("Missing memo type.");
+    }
+    if (memoType.equals("none")) {
+      return Memo.none();
+    }
+    // Because of the way "encoding/json" works on structs in Go, if transaction
+    // has an empty `memo_text` value, the `memo` field won't be present in a JSON
+    // representation of a transaction. That's why we need to handle a special case
+    // here.
+    if (memoType.equals("text")) {
+      return Memo.text(memoValue != null ? memoValue : "");
+    }
+    if (memoValue == null) {
+      throw new JsonParseException("Missing memo value.");
+    }
+    if (memoType.equals("id")) {
+      return Memo.id(Long.parseLong(memoValue));
+    } else if (memoType.equals("hash")) {
+      return Memo.hash(Base64.decodeBase64(memoValue));
+    } else if (memoType.equals("return")) {
+      return Memo.returnHash(Base64.decodeBase64(memoValue));
+    } else {
+      throw new JsonParseException("Unknown memo type.");
+    }
+  }
+}
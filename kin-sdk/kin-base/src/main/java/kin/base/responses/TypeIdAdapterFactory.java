@@ -0,0 +1,214 @@
+package kin.base.responses;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming deserialization of polymorphic Horizon resources (operations, effects), where the concrete class is
+ * selected by the numeric <code>type_i</code> field.
+ * <p>
+ * The record is read once from the {@link JsonReader}. Horizon writes <code>type_i</code> right after the few common
+ * fields (<code>_links</code>, <code>id</code>, <code>paging_token</code>...), so only those are buffered until the
+ * concrete class is known, all the following fields are bound straight from the stream into the new instance.
+ * Field bindings are resolved once per concrete class and cached.
+ * </p>
+ */
+abstract class TypeIdAdapterFactory<T> implements TypeAdapterFactory {
+
+  private static final String TYPE_ID_FIELD = "type_i";
+  // Upper bound of the type ids probed by Warmable#warmUp(), Horizon type ids are small numbers.
+  private static final int MAX_TYPE_ID = 64;
+
+  private final Class<T> baseType;
+
+  TypeIdAdapterFactory(Class<T> baseType) {
+    this.baseType = baseType;
+  }
+
+  /**
+   * @return the concrete class for the given <code>type_i</code> value, or null if the type is unknown.
+   */
+  abstract Class<? extends T> subtypeFor(int typeId);
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <R> TypeAdapter<R> create(Gson gson, TypeToken<R> type) {
+    if (type.getRawType() != baseType) {
+      return null;
+    }
+    return (TypeAdapter<R>) new Adapter(gson);
+  }
+
+  /**
+   * Adapter that can resolve its lazily built state ahead of time.
+   */
+  interface Warmable {
+
+    void warmUp();
+  }
+
+  private class Adapter extends TypeAdapter<T> implements Warmable {
+
+    private final Gson gson;
+    private final TypeAdapter<JsonElement> elementAdapter;
+    private final Map<Integer, SubtypeBinding> bindings = new ConcurrentHashMap<>();
+
+    Adapter(Gson gson) {
+      this.gson = gson;
+      this.elementAdapter = gson.getAdapter(JsonElement.class);
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+      // Don't need this.
+    }
+
+    @Override
+    public void warmUp() {
+      for (int typeId = 0; typeId < MAX_TYPE_ID; typeId++) {
+        if (subtypeFor(typeId) != null) {
+          bindingFor(typeId);
+        }
+      }
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      SubtypeBinding binding = null;
+      T instance = null;
+      Map<String, JsonElement> buffered = null;
+
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = in.nextName();
+        if (instance != null) {
+          binding.read(name, in, instance);
+        } else if (TYPE_ID_FIELD.equals(name) && in.peek() == JsonToken.NUMBER) {
+          binding = bindingFor(in.nextInt());
+          instance = binding.newInstance();
+          if (buffered != null) {
+            for (Map.Entry<String, JsonElement> entry : buffered.entrySet()) {
+              binding.read(entry.getKey(), entry.getValue(), instance);
+            }
+          }
+        } else {
+          if (buffered == null) {
+            buffered = new HashMap<>();
+          }
+          buffered.put(name, elementAdapter.read(in));
+        }
+      }
+      in.endObject();
+
+      if (instance == null) {
+        throw new JsonParseException("Missing " + TYPE_ID_FIELD + " for " + baseType.getSimpleName());
+      }
+      return instance;
+    }
+
+    private SubtypeBinding bindingFor(int typeId) {
+      SubtypeBinding binding = bindings.get(typeId);
+      if (binding == null) {
+        Class<? extends T> subtype = subtypeFor(typeId);
+        if (subtype == null) {
+          throw new JsonParseException("Invalid " + baseType.getSimpleName() + " type " + typeId);
+        }
+        binding = new SubtypeBinding(gson, subtype);
+        bindings.put(typeId, binding);
+      }
+      return binding;
+    }
+  }
+
+  /**
+   * Field bindings of a single concrete class, following Gson's own naming rules ({@link SerializedName} or the
+   * field name, static and transient fields excluded).
+   */
+  private static class SubtypeBinding {
+
+    private final TypeAdapter<?> instanceAdapter;
+    private final Map<String, BoundField> fields = new HashMap<>();
+
+    SubtypeBinding(Gson gson, Class<?> subtype) {
+      // Gson's reflective adapter knows how to instantiate classes without a no-args constructor, reading an empty
+      // object through it gives us a fresh instance to bind the fields into.
+      this.instanceAdapter = gson.getAdapter(subtype);
+      for (Class<?> clazz = subtype; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+        for (Field field : clazz.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+          if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+            continue;
+          }
+          SerializedName serializedName = field.getAnnotation(SerializedName.class);
+          String name = serializedName != null ? serializedName.value() : field.getName();
+          if (!fields.containsKey(name)) {
+            field.setAccessible(true);
+            fields.put(name, new BoundField(field, gson.getAdapter(TypeToken.get(field.getGenericType()))));
+          }
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T newInstance() {
+      return (T) instanceAdapter.fromJsonTree(new JsonObject());
+    }
+
+    void read(String name, JsonReader in, Object instance) throws IOException {
+      BoundField field = fields.get(name);
+      if (field == null) {
+        in.skipValue();
+      } else {
+        field.set(instance, field.adapter.read(in));
+      }
+    }
+
+    void read(String name, JsonElement element, Object instance) {
+      BoundField field = fields.get(name);
+      if (field != null) {
+        field.set(instance, field.adapter.fromJsonTree(element));
+      }
+    }
+  }
+
+  private static class BoundField {
+
+    private final Field field;
+    private final TypeAdapter<?> adapter;
+
+    BoundField(Field field, TypeAdapter<?> adapter) {
+      this.field = field;
+      this.adapter = adapter;
+    }
+
+    void set(Object instance, Object value) {
+      if (value == null && field.getType().isPrimitive()) {
+        return;
+      }
+      try {
+        field.set(instance, value);
+      } catch (IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+}
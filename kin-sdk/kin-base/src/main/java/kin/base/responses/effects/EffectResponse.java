@@ -4,6 +4,7 @@ import com.google.gson.annotations.SerializedName;
 import kin.base.KeyPair;
 import kin.base.Server;
 import kin.base.responses.Link;
+import kin.base.responses.Pageable;
 import kin.base.responses.Response;
 
 /**
@@ -12,7 +13,7 @@ import kin.base.responses.Response;
  * @see kin.base.requests.EffectsRequestBuilder
  * @see Server#effects()
  */
-public abstract class EffectResponse extends Response {
+public abstract class EffectResponse extends Response implements Pageable {
   @SerializedName("id")
   protected String id;
   @SerializedName("account")
@@ -60,6 +61,7 @@ public abstract class EffectResponse extends Response {
     return type;
   }
 
+  @Override
   public String getPagingToken() {
     return pagingToken;
   }
@@ -4,6 +4,7 @@ import com.google.gson.annotations.SerializedName;
 import kin.base.KeyPair;
 import kin.base.Server;
 import kin.base.responses.Link;
+import kin.base.responses.Pageable;
 import kin.base.responses.Response;
 
 /**
@@ -12,7 +13,7 @@ import kin.base.responses.Response;
  * @see kin.base.requests.OperationsRequestBuilder
  * @see Server#operations()
  */
-public abstract class OperationResponse extends Response {
+public abstract class OperationResponse extends Response implements Pageable {
   @SerializedName("id")
   protected Long id;
   @SerializedName("source_account")
@@ -32,6 +33,7 @@ public abstract class OperationResponse extends Response {
     return sourceAccount;
   }
 
+  @Override
   public String getPagingToken() {
     return pagingToken;
   }
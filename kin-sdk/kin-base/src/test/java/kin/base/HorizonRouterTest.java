@@ -0,0 +1,191 @@
+package kin.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import kin.base.responses.LedgerResponse;
+import kin.base.responses.SubmitTransactionResponse;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class HorizonRouterTest {
+
+  private static final String LEDGER = "{\"sequence\": 7, \"hash\": \"abc\"}";
+
+  private MockWebServer first;
+  private MockWebServer second;
+
+  @Before
+  public void setUp() throws IOException {
+    Network.useTestNetwork();
+    first = new MockWebServer();
+    first.start();
+    second = new MockWebServer();
+    second.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Network.use(null);
+    first.shutdown();
+    second.shutdown();
+  }
+
+  private Server newServer(long hedgeDelayMillis) {
+    HorizonRouter router = new HorizonRouter.Builder(
+        Arrays.asList(first.url("/").toString(), second.url("/").toString()))
+        .hedgeDelay(hedgeDelayMillis, TimeUnit.MILLISECONDS)
+        .build();
+    return new Server(router, HttpEngine.getDefault(), 10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testFailsOverOnServerError() throws IOException {
+    Server server = newServer(0);
+    first.enqueue(new MockResponse().setResponseCode(503));
+    second.enqueue(new MockResponse().setBody(LEDGER));
+
+    LedgerResponse ledger = server.ledgers().ledger(7);
+
+    assertEquals(Long.valueOf(7), ledger.getSequence());
+    assertFalse(server.getRouter().isHealthy(URI.create(first.url("/").toString())));
+    assertEquals(Arrays.asList(URI.create(second.url("/").toString()), URI.create(first.url("/").toString())),
+        server.getRouter().getRankedUris());
+  }
+
+  @Test
+  public void testPrefersLowerLatency() throws Exception {
+    Server server = newServer(0);
+    first.enqueue(new MockResponse().setBody(LEDGER).setBodyDelay(200, TimeUnit.MILLISECONDS));
+    second.enqueue(new MockResponse().setBody(LEDGER));
+    second.enqueue(new MockResponse().setBody(LEDGER));
+
+    server.ledgers().ledger(7);
+    server.ledgers().ledger(7);
+    server.ledgers().ledger(7);
+
+    assertEquals(1, first.getRequestCount());
+    assertEquals(2, second.getRequestCount());
+    assertEquals("/ledgers/7", second.takeRequest().getPath());
+  }
+
+  @Test
+  public void testHedgesSlowRequest() throws IOException {
+    Server server = newServer(100);
+    first.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    second.enqueue(new MockResponse().setBody(LEDGER));
+
+    long start = System.nanoTime();
+    LedgerResponse ledger = server.ledgers().ledger(7);
+
+    assertEquals(Long.valueOf(7), ledger.getSequence());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10000);
+    assertEquals(1, second.getRequestCount());
+  }
+
+  @Test
+  public void testHedgedRequestTimesOutWhenCallsAreNotDispatched() throws Exception {
+    HttpEngine engine = new HttpEngine.Builder().maxRequestsPerHost(1).build();
+    HorizonRouter router = new HorizonRouter.Builder(
+        Arrays.asList(first.url("/").toString(), second.url("/").toString()))
+        .hedgeDelay(100, TimeUnit.MILLISECONDS)
+        .build();
+    Server server = new Server(router, engine, 1, TimeUnit.SECONDS);
+    // A call without read timeout holds the only dispatcher slot of the host, the hedged calls stay queued.
+    first.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    Call blocking = engine.newClientBuilder().readTimeout(0, TimeUnit.MILLISECONDS).build()
+        .newCall(new Request.Builder().url(first.url("/blocking")).build());
+    blocking.enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        response.close();
+      }
+    });
+    first.takeRequest();
+
+    long start = System.nanoTime();
+    try {
+      server.ledgers().ledger(7);
+      fail();
+    } catch (InterruptedIOException e) {
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10000);
+    } finally {
+      blocking.cancel();
+    }
+    assertEquals(0, second.getRequestCount());
+  }
+
+  @Test
+  public void testSubmitFindsIncludedTransaction() throws Exception {
+    Server server = newServer(0);
+    Transaction transaction = buildTransaction();
+    String hash = Util.bytesToHex(transaction.hash()).toLowerCase();
+    first.enqueue(new MockResponse().setResponseCode(504));
+    second.enqueue(new MockResponse().setBody(transactionJson(hash)));
+
+    SubmitTransactionResponse response = server.submitTransaction(transaction);
+
+    assertTrue(response.isSuccess());
+    assertEquals(hash, response.getHash());
+    assertEquals(Long.valueOf(826150), response.getLedger());
+    assertEquals("POST", first.takeRequest().getMethod());
+    RecordedRequest lookup = second.takeRequest();
+    assertEquals("GET", lookup.getMethod());
+    assertEquals("/transactions/" + hash, lookup.getPath());
+    assertEquals(1, second.getRequestCount());
+  }
+
+  @Test
+  public void testSubmitResubmitsUnknownTransaction() throws Exception {
+    Server server = newServer(0);
+    Transaction transaction = buildTransaction();
+    String hash = Util.bytesToHex(transaction.hash()).toLowerCase();
+    first.enqueue(new MockResponse().setResponseCode(500));
+    second.enqueue(new MockResponse().setResponseCode(404).setBody("{}"));
+    second.enqueue(new MockResponse().setBody(transactionJson(hash)));
+
+    SubmitTransactionResponse response = server.submitTransaction(transaction);
+
+    assertTrue(response.isSuccess());
+    assertEquals("GET", second.takeRequest().getMethod());
+    assertEquals("POST", second.takeRequest().getMethod());
+  }
+
+  private static String transactionJson(String hash) {
+    return "{\"hash\": \"" + hash + "\", \"ledger\": 826150, \"envelope_xdr\": \"AAAA\", \"result_xdr\": \"AAAA\","
+        + " \"memo_type\": \"none\"}";
+  }
+
+  private static Transaction buildTransaction() {
+    KeyPair source = KeyPair.fromSecretSeed("SCH27VUZZ6UAKB67BDNF6FA42YMBMQCBKXWGMFD5TZ6S5ZZCZFLRXKHS");
+    KeyPair destination = KeyPair.fromAccountId("GDW6AUTBXTOC7FIKUO5BOO3OGLK4SF7ZPOBLMQHMZDI45J2Z6VXRB5NR");
+    Transaction transaction = new Transaction.Builder(new Account(source, 2908908335136768L))
+        .addOperation(new CreateAccountOperation.Builder(destination, "2000").build())
+        .build();
+    transaction.sign(source);
+    return transaction;
+  }
+}
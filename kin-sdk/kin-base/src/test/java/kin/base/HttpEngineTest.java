@@ -0,0 +1,75 @@
+package kin.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class HttpEngineTest {
+
+  private static final String LEDGER = "{\"sequence\": 1, \"hash\": \"abc\"}";
+
+  private MockWebServer mockWebServer;
+
+  @Before
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void testServersShareConnections() throws Exception {
+    HttpEngine engine = new HttpEngine.Builder().build();
+    Server first = new Server(mockWebServer.url("/").toString(), engine, 10, TimeUnit.SECONDS);
+    Server second = new Server(mockWebServer.url("/").toString(), engine, 10, TimeUnit.SECONDS);
+    mockWebServer.enqueue(new MockResponse().setBody(LEDGER));
+    mockWebServer.enqueue(new MockResponse().setBody(LEDGER));
+
+    first.ledgers().ledger(1);
+    second.ledgers().ledger(1);
+
+    assertEquals(1, engine.getConnectionCount());
+    assertEquals(0, mockWebServer.takeRequest().getSequenceNumber());
+    assertEquals(1, mockWebServer.takeRequest().getSequenceNumber());
+  }
+
+  @Test
+  public void testBuilderSettings() {
+    HttpEngine engine = new HttpEngine.Builder()
+        .maxRequests(10)
+        .maxRequestsPerHost(8)
+        .keepAlive(2, 30, TimeUnit.SECONDS)
+        .http2Enabled(false)
+        .tlsSessionCache(16, 1, TimeUnit.HOURS)
+        .build();
+    OkHttpClient client = engine.newClientBuilder().build();
+
+    assertEquals(10, client.dispatcher().getMaxRequests());
+    assertEquals(8, client.dispatcher().getMaxRequestsPerHost());
+    assertEquals(Collections.singletonList(Protocol.HTTP_1_1), client.protocols());
+    assertSame(client.connectionPool(), engine.newClientBuilder().build().connectionPool());
+    assertSame(client.dispatcher(), engine.newClientBuilder().build().dispatcher());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxRequestsPerHost() {
+    new HttpEngine.Builder().maxRequestsPerHost(0);
+  }
+}
@@ -0,0 +1,148 @@
+package kin.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import kin.base.HttpMetrics.EndpointSnapshot;
+import kin.base.HttpMetrics.Sample;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class HttpMetricsTest {
+
+  private static final String LEDGER = "{\"sequence\": 7, \"hash\": \"abc\"}";
+
+  private MockWebServer mockWebServer;
+
+  @Before
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void testTemplates() {
+    assertEquals("GET /accounts/{id}", HttpMetrics.templateOf(get("https://horizon.com/accounts/GABC")));
+    assertEquals("GET /accounts/{id}/payments",
+        HttpMetrics.templateOf(get("https://horizon.com/accounts/GABC/payments?cursor=now")));
+    assertEquals("GET /ledgers", HttpMetrics.templateOf(get("https://horizon.com/ledgers/")));
+    assertEquals("GET /", HttpMetrics.templateOf(get("https://horizon.com/")));
+    assertEquals("GET /ledgers (stream)", HttpMetrics.templateOf(new Request.Builder()
+        .url("https://horizon.com/ledgers")
+        .header("Accept", "text/event-stream")
+        .build()));
+  }
+
+  @Test
+  public void testRecordsRequests() throws IOException {
+    Server server = new Server(mockWebServer.url("/").toString(), 10, TimeUnit.SECONDS);
+    final List<Sample> samples = new ArrayList<>();
+    server.getHttpMetrics().addListener(new HttpMetrics.Listener() {
+      @Override
+      public void onRequest(Sample sample) {
+        samples.add(sample);
+      }
+    });
+    mockWebServer.enqueue(new MockResponse().setBody(LEDGER)
+        .addHeader("X-Ratelimit-Limit", "3600")
+        .addHeader("X-Ratelimit-Remaining", "3599"));
+    mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody("{}"));
+
+    server.ledgers().ledger(7);
+    try {
+      server.ledgers().ledger(8);
+    } catch (IOException expected) {
+    }
+
+    List<EndpointSnapshot> snapshots = server.getHttpMetrics().snapshot();
+    assertEquals(1, snapshots.size());
+    EndpointSnapshot snapshot = snapshots.get(0);
+    assertEquals("GET /ledgers/{id}", snapshot.getTemplate());
+    assertEquals(2, snapshot.getRequestCount());
+    assertEquals(0, snapshot.getRetryCount());
+    assertEquals(Long.valueOf(1), snapshot.getStatusCodeCounts().get(200));
+    assertEquals(Long.valueOf(1), snapshot.getStatusCodeCounts().get(404));
+    // The error body isn't read.
+    assertEquals(LEDGER.length(), snapshot.getBytesIn());
+    assertEquals(3600, snapshot.getRateLimitLimit());
+    assertEquals(3599, snapshot.getRateLimitRemaining());
+    long total = 0;
+    for (long count : snapshot.getLatencyBucketCounts()) {
+      total += count;
+    }
+    assertEquals(2, total);
+    assertTrue(snapshot.getLatencyPercentileMillis(50) > 0);
+
+    assertEquals(2, samples.size());
+    assertEquals(200, samples.get(0).getStatusCode());
+    assertEquals(3599, samples.get(0).getRateLimitRemaining());
+    assertEquals(404, samples.get(1).getStatusCode());
+    assertEquals(-1, samples.get(1).getRateLimitRemaining());
+  }
+
+  @Test
+  public void testCountsFailoverAsRetry() throws IOException {
+    MockWebServer other = new MockWebServer();
+    other.start();
+    try {
+      HorizonRouter router = new HorizonRouter.Builder(
+          Arrays.asList(mockWebServer.url("/").toString(), other.url("/").toString()))
+          .hedgeDelay(0, TimeUnit.MILLISECONDS)
+          .build();
+      Server server = new Server(router, HttpEngine.getDefault(), 10, TimeUnit.SECONDS);
+      mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+      other.enqueue(new MockResponse().setBody(LEDGER));
+
+      server.ledgers().ledger(7);
+
+      long retries = 0;
+      long requests = 0;
+      for (EndpointSnapshot snapshot : server.getHttpMetrics().snapshot()) {
+        retries += snapshot.getRetryCount();
+        requests += snapshot.getRequestCount();
+      }
+      assertEquals(2, requests);
+      assertEquals(1, retries);
+    } finally {
+      other.shutdown();
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    long[] buckets = new long[HttpMetrics.LATENCY_BUCKETS_MILLIS.length + 1];
+    buckets[2] = 90;
+    buckets[5] = 9;
+    buckets[buckets.length - 1] = 1;
+    EndpointSnapshot snapshot = new EndpointSnapshot("horizon.com", "GET /ledgers", 100, 0, 0, 0, 0, 5000,
+        buckets, Collections.<Integer, Long>emptyMap(), -1, -1);
+
+    assertEquals(25, snapshot.getLatencyPercentileMillis(50));
+    assertEquals(25, snapshot.getLatencyPercentileMillis(90));
+    assertEquals(250, snapshot.getLatencyPercentileMillis(99));
+    assertEquals(Long.MAX_VALUE, snapshot.getLatencyPercentileMillis(100));
+    assertEquals(50.0, snapshot.getMeanLatencyMillis(), 0);
+  }
+
+  private static Request get(String url) {
+    return new Request.Builder().url(url).build();
+  }
+}
@@ -0,0 +1,223 @@
+package kin.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import kin.base.requests.EventListener;
+import kin.base.responses.TransactionResponse;
+import kin.base.responses.operations.OperationResponse;
+import kin.base.responses.operations.PaymentOperationResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MultiAccountWatcherTest {
+
+  private final KeyPair alice = KeyPair.random();
+  private final KeyPair bob = KeyPair.random();
+  private final KeyPair carol = KeyPair.random();
+  private Server server;
+
+  @Before
+  public void setup() {
+    Network.useTestNetwork();
+    server = new Server("https://horizon.example.com");
+  }
+
+  @Test
+  public void payments_OnlyWatchedAccountsNotified() {
+    MultiAccountWatcher<OperationResponse> watcher = MultiAccountWatcher.forPayments(server);
+    RecordingListener<OperationResponse> bobListener = new RecordingListener<>();
+    watcher.watch(bob, bobListener);
+
+    watcher.onData(paymentJson(alice, bob));
+    watcher.onData(paymentJson(alice, carol));
+
+    assertEquals(1, bobListener.events.size());
+    assertEquals(bob.getAccountId(), bobListener.accounts.get(0).getAccountId());
+    PaymentOperationResponse payment = (PaymentOperationResponse) bobListener.events.get(0);
+    assertEquals(bob.getAccountId(), payment.getTo().getAccountId());
+    assertEquals(2, watcher.getEventCount());
+    assertEquals(1, watcher.getMatchedEventCount());
+  }
+
+  @Test
+  public void payments_BothSidesWatched_EachAccountNotifiedOnceWithSameEvent() {
+    MultiAccountWatcher<OperationResponse> watcher = MultiAccountWatcher.forPayments(server);
+    RecordingListener<OperationResponse> listener = new RecordingListener<>();
+    watcher.watch(alice, listener);
+    watcher.watch(bob, listener);
+
+    // alice is both source_account and from, she must be notified once.
+    watcher.onData(paymentJson(alice, bob));
+
+    assertEquals(2, listener.events.size());
+    assertEquals(alice.getAccountId(), listener.accounts.get(0).getAccountId());
+    assertEquals(bob.getAccountId(), listener.accounts.get(1).getAccountId());
+    assertTrue(listener.events.get(0) == listener.events.get(1));
+  }
+
+  @Test
+  public void unwatch_LastListener_AccountNoLongerWatched() {
+    MultiAccountWatcher<OperationResponse> watcher = MultiAccountWatcher.forPayments(server);
+    RecordingListener<OperationResponse> first = new RecordingListener<>();
+    RecordingListener<OperationResponse> second = new RecordingListener<>();
+    watcher.watch(bob, first);
+    watcher.watch(bob, second);
+    assertEquals(1, watcher.getWatchedAccountCount());
+
+    watcher.unwatch(bob, first);
+    watcher.onData(paymentJson(alice, bob));
+    assertEquals(0, first.events.size());
+    assertEquals(1, second.events.size());
+
+    watcher.unwatch(bob, second);
+    assertFalse(watcher.isWatching(bob));
+    assertEquals(0, watcher.getWatchedAccountCount());
+    watcher.onData(paymentJson(alice, bob));
+    assertEquals(1, second.events.size());
+  }
+
+  @Test
+  public void transactions_OperationDestinationsAndSourcesMatched() {
+    MultiAccountWatcher<TransactionResponse> watcher = MultiAccountWatcher.forTransactions(server);
+    RecordingListener<TransactionResponse> listener = new RecordingListener<>();
+    watcher.watch(carol, listener);
+
+    Transaction payment = new Transaction.Builder(new Account(alice, 1L))
+        .addOperation(new PaymentOperation.Builder(bob, new AssetTypeNative(), "10").build())
+        .build();
+    Transaction creation = new Transaction.Builder(new Account(alice, 2L))
+        .addOperation(new CreateAccountOperation.Builder(carol, "10").build())
+        .build();
+    Transaction fromCarol = new Transaction.Builder(new Account(alice, 3L))
+        .addOperation(new PaymentOperation.Builder(bob, new AssetTypeNative(), "10")
+            .setSourceAccount(carol).build())
+        .build();
+
+    watcher.onData(transactionJson(payment, "1"));
+    watcher.onData(transactionJson(creation, "2"));
+    watcher.onData(transactionJson(fromCarol, "3"));
+
+    assertEquals(2, listener.events.size());
+    assertEquals("2", listener.events.get(0).getPagingToken());
+    assertEquals("3", listener.events.get(1).getPagingToken());
+    assertEquals(3, watcher.getEventCount());
+  }
+
+  @Test
+  public void decodeExecutor_EventsDecodedOnPoolAndDeliveredInOrder() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      MultiAccountWatcher<OperationResponse> watcher = MultiAccountWatcher.forPayments(server);
+      watcher.setDecodeExecutor(executor, 16);
+      final List<String> receivers = new ArrayList<>();
+      final CountDownLatch done = new CountDownLatch(100);
+      MultiAccountWatcher.Listener<OperationResponse> listener = new MultiAccountWatcher.Listener<OperationResponse>() {
+        @Override
+        public void onEvent(KeyPair account, OperationResponse event) {
+          receivers.add(((PaymentOperationResponse) event).getTo().getAccountId());
+          done.countDown();
+        }
+      };
+      watcher.watch(bob, listener);
+      watcher.watch(carol, listener);
+      EventListener<String> pipeline = watcher.newDecodePipeline();
+
+      for (int i = 0; i < 100; i++) {
+        pipeline.onEvent(paymentJson(alice, i % 2 == 0 ? bob : carol));
+        pipeline.onEvent(paymentJson(alice, KeyPair.random()));
+      }
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      for (int i = 0; i < 100; i++) {
+        assertEquals((i % 2 == 0 ? bob : carol).getAccountId(), receivers.get(i));
+      }
+      // The last event, not watched, can still be decoding once the last watched one is delivered.
+      long deadline = System.currentTimeMillis() + 1000;
+      while (watcher.getEventCount() < 200 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(200, watcher.getEventCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void onData_MalformedEvent_Ignored() {
+    MultiAccountWatcher<OperationResponse> watcher = MultiAccountWatcher.forPayments(server);
+    RecordingListener<OperationResponse> listener = new RecordingListener<>();
+    watcher.watch(bob, listener);
+
+    watcher.onData("{\"to\": \"not an account\"}");
+    watcher.onData(paymentJson(alice, bob));
+
+    assertEquals(1, listener.events.size());
+  }
+
+  @Test
+  public void onData_MalformedEvent_ReportedToErrorListener() {
+    MultiAccountWatcher<OperationResponse> watcher = MultiAccountWatcher.forPayments(server);
+    final List<String> failedData = new ArrayList<>();
+    watcher.setErrorListener(new MultiAccountWatcher.ErrorListener() {
+      @Override
+      public void onDecodeError(String data, Exception error) {
+        failedData.add(data);
+      }
+    });
+    watcher.watch(bob, new RecordingListener<OperationResponse>());
+
+    watcher.onData("{\"to\": \"not an account\"}");
+    watcher.onData(paymentJson(alice, bob));
+
+    assertEquals(1, failedData.size());
+    assertEquals("{\"to\": \"not an account\"}", failedData.get(0));
+    assertEquals(1, watcher.getFailedEventCount());
+  }
+
+  private static String paymentJson(KeyPair from, KeyPair to) {
+    return "{\n" +
+        "  \"_links\": {\"self\": {\"href\": \"/operations/3940808587743233\"}},\n" +
+        "  \"amount\": \"100.0\",\n" +
+        "  \"asset_type\": \"native\",\n" +
+        "  \"from\": \"" + from.getAccountId() + "\",\n" +
+        "  \"id\": 3940808587743233,\n" +
+        "  \"paging_token\": \"3940808587743233\",\n" +
+        "  \"source_account\": \"" + from.getAccountId() + "\",\n" +
+        "  \"to\": \"" + to.getAccountId() + "\",\n" +
+        "  \"type\": \"payment\",\n" +
+        "  \"type_i\": 1\n" +
+        "}";
+  }
+
+  private String transactionJson(Transaction transaction, String pagingToken) {
+    transaction.sign(alice);
+    return "{\n" +
+        "  \"hash\": \"5c2e4dad596941ef944d72741c8f8f1a4282f8f2f141e81d827f44bf365d626b\",\n" +
+        "  \"paging_token\": \"" + pagingToken + "\",\n" +
+        "  \"ledger\": 915744,\n" +
+        "  \"memo_type\": \"none\",\n" +
+        "  \"source_account\": \"" + transaction.getSourceAccount().getAccountId() + "\",\n" +
+        "  \"envelope_xdr\": \"" + transaction.toEnvelopeXdrBase64() + "\"\n" +
+        "}";
+  }
+
+  private static class RecordingListener<T> implements MultiAccountWatcher.Listener<T> {
+
+    final List<KeyPair> accounts = new ArrayList<>();
+    final List<T> events = new ArrayList<>();
+
+    @Override
+    public void onEvent(KeyPair account, T event) {
+      accounts.add(account);
+      events.add(event);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package kin.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+public class PublicKeyTableTest {
+
+  private static final PublicKeyTable.Updater<String> REMOVE = new PublicKeyTable.Updater<String>() {
+    @Override
+    public String apply(String current) {
+      return null;
+    }
+  };
+
+  @Test
+  public void update_AddsReplacesAndRemoves() {
+    PublicKeyTable<String> table = new PublicKeyTable<>();
+    byte[] key = KeyPair.random().getPublicKey();
+
+    table.update(key, set("a"));
+    assertEquals("a", table.get(key));
+    assertEquals(1, table.size());
+
+    table.update(key, set("b"));
+    assertEquals("b", table.get(key));
+    assertEquals(1, table.size());
+
+    table.update(key, REMOVE);
+    assertNull(table.get(key));
+    assertEquals(0, table.size());
+  }
+
+  @Test
+  public void update_SameValue_NoOp() {
+    PublicKeyTable<String> table = new PublicKeyTable<>();
+    byte[] key = KeyPair.random().getPublicKey();
+    String value = "a";
+
+    table.update(key, set(value));
+    assertSame(value, table.update(key, set(value)));
+    table.update(KeyPair.random().getPublicKey(), REMOVE);
+
+    assertEquals(1, table.size());
+  }
+
+  @Test
+  public void get_ManyKeysSharingSegments_Found() {
+    PublicKeyTable<Integer> table = new PublicKeyTable<>();
+    List<byte[]> keys = new ArrayList<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      byte[] key = new byte[PublicKeyTable.KEY_LENGTH];
+      random.nextBytes(key);
+      // Only 4 segments, so that tables grow well beyond their minimum capacity.
+      key[0] = (byte) (i % 4);
+      keys.add(key);
+      table.update(key, set(i));
+    }
+    assertEquals(5000, table.size());
+
+    for (int i = 0; i < keys.size(); i += 2) {
+      table.update(keys.get(i), PublicKeyTableTest.<Integer>remove());
+    }
+
+    assertEquals(2500, table.size());
+    for (int i = 0; i < keys.size(); i++) {
+      assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), table.get(keys.get(i)));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void get_WrongKeyLength_IllegalArgumentException() {
+    new PublicKeyTable<String>().get(new byte[31]);
+  }
+
+  @Test
+  public void update_ConcurrentCounters_NoLostUpdate() throws InterruptedException {
+    final PublicKeyTable<Integer> table = new PublicKeyTable<>();
+    final byte[][] keys = new byte[16][];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = KeyPair.random().getPublicKey();
+      keys[i][0] = 7;
+    }
+    final int threads = 4;
+    final int increments = 2000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < increments; i++) {
+              table.update(keys[i % keys.length], new PublicKeyTable.Updater<Integer>() {
+                @Override
+                public Integer apply(Integer current) {
+                  return current == null ? 1 : current + 1;
+                }
+              });
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+    start.countDown();
+    done.await();
+
+    int total = 0;
+    for (byte[] key : keys) {
+      total += table.get(key);
+    }
+    assertEquals(threads * increments, total);
+    assertEquals(keys.length, table.size());
+  }
+
+  private static <V> PublicKeyTable.Updater<V> set(final V value) {
+    return new PublicKeyTable.Updater<V>() {
+      @Override
+      public V apply(V current) {
+        return value;
+      }
+    };
+  }
+
+  private static <V> PublicKeyTable.Updater<V> remove() {
+    return new PublicKeyTable.Updater<V>() {
+      @Override
+      public V apply(V current) {
+        return null;
+      }
+    };
+  }
+}
@@ -0,0 +1,139 @@
+package kin.base.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class DecodePipelineTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void onEvent_DecodedInParallel_DeliveredInOrder() throws Exception {
+    final int count = 2000;
+    final List<Integer> delivered = new ArrayList<>();
+    final AtomicInteger concurrentDeliveries = new AtomicInteger();
+    final AtomicInteger maxConcurrentDeliveries = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(count);
+    final Random random = new Random(42);
+    DecodePipeline<Integer> pipeline = new DecodePipeline<>(executor, 64, new DecodePipeline.Decoder<Integer>() {
+      @Override
+      public Integer decode(String data) {
+        if (random.nextInt(10) == 0) {
+          sleep(1);
+        }
+        return Integer.valueOf(data);
+      }
+    }, new EventListener<Integer>() {
+      @Override
+      public void onEvent(Integer event) {
+        maxConcurrentDeliveries.set(Math.max(maxConcurrentDeliveries.get(), concurrentDeliveries.incrementAndGet()));
+        delivered.add(event);
+        concurrentDeliveries.decrementAndGet();
+        done.countDown();
+      }
+    });
+
+    for (int i = 0; i < count; i++) {
+      pipeline.onEvent(String.valueOf(i));
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < count; i++) {
+      assertEquals(Integer.valueOf(i), delivered.get(i));
+    }
+    assertEquals(1, maxConcurrentDeliveries.get());
+    assertEquals(0, pipeline.getInFlightCount());
+  }
+
+  @Test
+  public void onEvent_DecodeFailureOrNull_Skipped() throws Exception {
+    final List<Integer> delivered = new ArrayList<>();
+    final CountDownLatch done = new CountDownLatch(2);
+    DecodePipeline<Integer> pipeline = new DecodePipeline<>(executor, 4, new DecodePipeline.Decoder<Integer>() {
+      @Override
+      public Integer decode(String data) {
+        return data.isEmpty() ? null : Integer.valueOf(data);
+      }
+    }, new EventListener<Integer>() {
+      @Override
+      public void onEvent(Integer event) {
+        synchronized (delivered) {
+          delivered.add(event);
+        }
+        done.countDown();
+      }
+    });
+
+    pipeline.onEvent("1");
+    pipeline.onEvent("not a number");
+    pipeline.onEvent("");
+    pipeline.onEvent("4");
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(2, delivered.size());
+    assertEquals(Integer.valueOf(1), delivered.get(0));
+    assertEquals(Integer.valueOf(4), delivered.get(1));
+  }
+
+  @Test
+  public void onEvent_MaxInFlightReached_StreamThreadWaits() throws Exception {
+    final CountDownLatch decodeAllowed = new CountDownLatch(1);
+    final DecodePipeline<String> pipeline = new DecodePipeline<>(executor, 2, new DecodePipeline.Decoder<String>() {
+      @Override
+      public String decode(String data) {
+        try {
+          decodeAllowed.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return data;
+      }
+    }, new EventListener<String>() {
+      @Override
+      public void onEvent(String event) {
+      }
+    });
+    Thread streamThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 3; i++) {
+          pipeline.onEvent(String.valueOf(i));
+        }
+      }
+    });
+
+    streamThread.start();
+    streamThread.join(200);
+    assertTrue(streamThread.isAlive());
+    assertEquals(2, pipeline.getInFlightCount());
+
+    decodeAllowed.countDown();
+    streamThread.join(1000);
+    assertFalse(streamThread.isAlive());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package kin.base.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import kin.base.Server;
+import kin.base.responses.HttpResponseException;
+import kin.base.responses.TransactionResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class PagingCursorTest {
+
+  private MockWebServer mockWebServer;
+  private Server server;
+
+  @Before
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+    server = new Server(mockWebServer.url("/").toString());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void testFollowsNextLinksUntilEmptyPage() throws Exception {
+    enqueuePage("2", "1", "2");
+    enqueuePage("3", "3");
+    enqueuePage("3");
+
+    PagingCursor<TransactionResponse> cursor = server.transactions().limit(2).paginate(2);
+    assertNull(cursor.getCheckpoint());
+    assertTrue(cursor.hasNext());
+    assertEquals("1", cursor.next().getPagingToken());
+    assertEquals("2", cursor.next().getPagingToken());
+    assertEquals("2", cursor.getCheckpoint());
+    assertEquals("3", cursor.next().getPagingToken());
+    assertFalse(cursor.hasNext());
+    assertEquals("3", cursor.getCheckpoint());
+
+    assertEquals(3, mockWebServer.getRequestCount());
+    assertEquals("/transactions?limit=2", mockWebServer.takeRequest().getPath());
+    assertEquals("/transactions?cursor=2", mockWebServer.takeRequest().getPath());
+    assertEquals("/transactions?cursor=3", mockWebServer.takeRequest().getPath());
+  }
+
+  @Test
+  public void testPageErrorIsThrownToConsumer() throws Exception {
+    enqueuePage("1", "1");
+    mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+    PagingCursor<TransactionResponse> cursor = server.transactions().paginate(1);
+    assertEquals("1", cursor.next().getPagingToken());
+    try {
+      cursor.hasNext();
+      fail();
+    } catch (HttpResponseException e) {
+      assertEquals(500, e.getStatusCode());
+    }
+    assertEquals("1", cursor.getCheckpoint());
+  }
+
+  @Test
+  public void testCloseStopsIteration() throws Exception {
+    enqueuePage("2", "1", "2");
+    enqueuePage("3", "3");
+
+    PagingCursor<TransactionResponse> cursor = server.transactions().paginate(1);
+    assertEquals("1", cursor.next().getPagingToken());
+    cursor.close();
+    assertFalse(cursor.hasNext());
+    assertEquals("1", cursor.getCheckpoint());
+  }
+
+  @Test
+  public void testPrefetchesAtMostPrefetchDepthPages() throws Exception {
+    enqueuePage("2", "1");
+    enqueuePage("3", "2");
+    enqueuePage("4", "3");
+    enqueuePage("4");
+
+    PagingCursor<TransactionResponse> cursor = server.transactions().paginate(1);
+    assertTrue(cursor.hasNext());
+
+    // The first page is consumed, only the second one is requested ahead.
+    assertEquals("/transactions", mockWebServer.takeRequest(1, TimeUnit.SECONDS).getPath());
+    assertEquals("/transactions?cursor=2", mockWebServer.takeRequest(1, TimeUnit.SECONDS).getPath());
+    assertNull(mockWebServer.takeRequest(200, TimeUnit.MILLISECONDS));
+    cursor.close();
+  }
+
+  private void enqueuePage(String nextCursor, String... pagingTokens) {
+    StringBuilder records = new StringBuilder();
+    for (String pagingToken : pagingTokens) {
+      if (records.length() > 0) {
+        records.append(',');
+      }
+      records.append("{\"paging_token\": \"").append(pagingToken).append("\", \"memo_type\": \"none\"}");
+    }
+    String next = mockWebServer.url("/transactions?cursor=" + nextCursor).toString();
+    mockWebServer.enqueue(new MockResponse().setBody(
+        "{\"_links\": {\"next\": {\"href\": \"" + next + "\"}}, \"_embedded\": {\"records\": [" + records + "]}}"));
+  }
+}
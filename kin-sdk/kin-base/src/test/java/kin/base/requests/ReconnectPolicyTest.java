@@ -0,0 +1,113 @@
+package kin.base.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ReconnectPolicyTest {
+
+  @Test
+  public void nextDelay_DecorrelatedJitterWithinBounds() {
+    ReconnectPolicy policy = new ReconnectPolicy.Builder()
+        .baseDelay(100, TimeUnit.MILLISECONDS)
+        .maxDelay(5, TimeUnit.SECONDS)
+        .build();
+    ReconnectPolicy.Backoff backoff = policy.new Backoff(new Random(42));
+
+    long previous = 100;
+    long max = 0;
+    for (int i = 0; i < 50; i++) {
+      long delay = backoff.nextDelayMillis();
+      assertTrue(delay >= 100);
+      assertTrue(delay <= Math.min(5000, previous * 3));
+      max = Math.max(max, delay);
+      previous = delay;
+    }
+    // Grows well beyond the base delay.
+    assertTrue(max > 1000);
+  }
+
+  @Test
+  public void reset_StartsOverFromBaseDelay() {
+    ReconnectPolicy policy = new ReconnectPolicy.Builder()
+        .baseDelay(100, TimeUnit.MILLISECONDS)
+        .maxDelay(1, TimeUnit.MINUTES)
+        .maxAttempts(3)
+        .build();
+    ReconnectPolicy.Backoff backoff = policy.new Backoff(new Random(1));
+    backoff.nextDelayMillis();
+    backoff.nextDelayMillis();
+    backoff.nextDelayMillis();
+    assertTrue(backoff.isExhausted());
+
+    backoff.reset();
+
+    assertFalse(backoff.isExhausted());
+    assertTrue(backoff.nextDelayMillis() <= 300);
+  }
+
+  @Test
+  public void circuitBreaker_OpensAfterThresholdAndClosesOnSuccess() {
+    ReconnectPolicy policy = new ReconnectPolicy.Builder()
+        .circuitBreaker(3, 10, TimeUnit.SECONDS)
+        .build();
+
+    policy.recordFailure(1000);
+    policy.recordFailure(1000);
+    assertEquals(0, policy.circuitOpenMillis(1000));
+    policy.recordFailure(1000);
+    assertEquals(10000, policy.circuitOpenMillis(1000));
+    assertEquals(4000, policy.circuitOpenMillis(7000));
+
+    // Half-open after the cooldown, a failure opens it again right away.
+    assertEquals(0, policy.circuitOpenMillis(11000));
+    policy.recordFailure(11000);
+    assertEquals(10000, policy.circuitOpenMillis(11000));
+
+    policy.recordSuccess();
+    assertEquals(0, policy.circuitOpenMillis(11000));
+    policy.recordFailure(11000);
+    assertEquals(0, policy.circuitOpenMillis(11000));
+  }
+
+  @Test
+  public void circuitBreaker_ZeroThreshold_NeverOpens() {
+    ReconnectPolicy policy = new ReconnectPolicy.Builder()
+        .circuitBreaker(0, 10, TimeUnit.SECONDS)
+        .build();
+    for (int i = 0; i < 100; i++) {
+      policy.recordFailure(1000);
+    }
+    assertEquals(0, policy.circuitOpenMillis(1000));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void build_MaxDelayBelowBaseDelay_IllegalArgumentException() {
+    new ReconnectPolicy.Builder()
+        .baseDelay(10, TimeUnit.SECONDS)
+        .maxDelay(1, TimeUnit.SECONDS)
+        .build();
+  }
+
+  @Test
+  public void pollInterval_BacksOffWhileIdleAndResetsOnActivity() {
+    ReconnectPolicy policy = new ReconnectPolicy.Builder()
+        .pollingFallback(3, 2, 30, TimeUnit.SECONDS)
+        .build();
+    ReconnectPolicy.PollInterval interval = policy.newPollInterval();
+
+    assertEquals(4000, interval.nextMillis(false));
+    assertEquals(8000, interval.nextMillis(false));
+    assertEquals(16000, interval.nextMillis(false));
+    assertEquals(30000, interval.nextMillis(false));
+    assertEquals(30000, interval.nextMillis(false));
+    assertEquals(2000, interval.nextMillis(true));
+    assertFalse(policy.shouldPoll(2));
+    assertTrue(policy.shouldPoll(3));
+    assertFalse(new ReconnectPolicy.Builder().build().shouldPoll(100));
+  }
+}
@@ -0,0 +1,153 @@
+package kin.base.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import kin.base.KeyPair;
+import kin.base.Server;
+import kin.base.responses.AccountBalanceResponse;
+import kin.base.responses.AccountResponse;
+import kin.base.responses.TransactionResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class ResponseCacheTest {
+
+  private static final KeyPair ACCOUNT = KeyPair.fromAccountId("GBRPYHIL2CI3FNQ4BXLFMNDLFJUNPU2HY3ZMFSHONUCEOASW7QC7OX2H");
+  private static final String ACCOUNT_JSON = "{\"sequence\": \"1\", \"balances\": [{\"balance\": \"10.0\", \"asset_type\": \"native\"}]}";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private MockWebServer mockWebServer;
+  private Server server;
+
+  @Before
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+    server = new Server(mockWebServer.url("/").toString());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void testImmutableResourceIsCachedForever() throws Exception {
+    ResponseCache cache = new ResponseCache.Builder().build();
+    server.setResponseCache(cache);
+    mockWebServer.enqueue(new MockResponse().setBody(transactionJson("abc")));
+
+    TransactionResponse first = server.transactions().transaction("abc");
+    TransactionResponse second = server.transactions().transaction("abc");
+
+    assertSame(first, second);
+    assertEquals(1, mockWebServer.getRequestCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void testRevalidateWithETag() throws Exception {
+    ResponseCache cache = new ResponseCache.Builder()
+        .policy(ResponseCache.ACCOUNT, CachePolicy.revalidate(0, TimeUnit.SECONDS))
+        .build();
+    server.setResponseCache(cache);
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT_JSON).setHeader("ETag", "\"v1\""));
+    mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+    AccountBalanceResponse first = server.accounts().accountBalance(ACCOUNT);
+    AccountBalanceResponse second = server.accounts().accountBalance(ACCOUNT);
+
+    assertSame(first, second);
+    assertNull(mockWebServer.takeRequest().getHeader("If-None-Match"));
+    assertEquals("\"v1\"", mockWebServer.takeRequest().getHeader("If-None-Match"));
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void testExpiredTtlIsRequestedAgain() throws Exception {
+    ResponseCache cache = new ResponseCache.Builder()
+        .policy(ResponseCache.ACCOUNT, CachePolicy.ttl(0, TimeUnit.SECONDS))
+        .build();
+    server.setResponseCache(cache);
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT_JSON).setHeader("ETag", "\"v1\""));
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT_JSON));
+
+    AccountBalanceResponse first = server.accounts().accountBalance(ACCOUNT);
+    AccountBalanceResponse second = server.accounts().accountBalance(ACCOUNT);
+
+    assertNotSame(first, second);
+    mockWebServer.takeRequest();
+    assertNull(mockWebServer.takeRequest().getHeader("If-None-Match"));
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testResourceWithoutPolicyIsNotCached() throws Exception {
+    server.setResponseCache(new ResponseCache.Builder().policy(ResponseCache.TRANSACTION, null).build());
+    mockWebServer.enqueue(new MockResponse().setBody(transactionJson("abc")));
+    mockWebServer.enqueue(new MockResponse().setBody(transactionJson("abc")));
+
+    server.transactions().transaction("abc");
+    server.transactions().transaction("abc");
+
+    assertEquals(2, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void testAccountIsNotCachedByDefault() throws Exception {
+    server.setResponseCache(new ResponseCache.Builder().build());
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT_JSON));
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT_JSON));
+
+    AccountResponse first = server.accounts().account(ACCOUNT);
+    first.incrementSequenceNumber();
+    AccountResponse second = server.accounts().account(ACCOUNT);
+
+    assertEquals(Long.valueOf(1), second.getSequenceNumber());
+    assertEquals(2, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void testEvictedResponseIsServedFromDisk() throws Exception {
+    File directory = temporaryFolder.newFolder();
+    ResponseCache cache = new ResponseCache.Builder()
+        .maxEntries(1)
+        .diskCache(directory, 1024 * 1024)
+        .build();
+    server.setResponseCache(cache);
+    mockWebServer.enqueue(new MockResponse().setBody(transactionJson("a")));
+    mockWebServer.enqueue(new MockResponse().setBody(transactionJson("b")));
+
+    server.transactions().transaction("a");
+    server.transactions().transaction("b");
+    TransactionResponse evicted = server.transactions().transaction("a");
+
+    assertEquals("a", evicted.getHash());
+    assertEquals(2, mockWebServer.getRequestCount());
+    assertEquals(3, cache.getMissCount());
+    RecordedRequest request = mockWebServer.takeRequest();
+    assertEquals("/transactions/a", request.getPath());
+  }
+
+  private static String transactionJson(String hash) {
+    return "{\"hash\": \"" + hash + "\", \"memo_type\": \"none\"}";
+  }
+}
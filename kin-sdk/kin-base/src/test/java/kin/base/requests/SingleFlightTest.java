@@ -0,0 +1,111 @@
+package kin.base.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import kin.base.KeyPair;
+import kin.base.Server;
+import kin.base.responses.AccountBalanceResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class SingleFlightTest {
+
+  private static final String ACCOUNT_ID = "GBRPYHIL2CI3FNQ4BXLFMNDLFJUNPU2HY3ZMFSHONUCEOASW7QC7OX2H";
+  private static final String ACCOUNT = "{\"sequence\": \"1\", \"balances\": [{\"balance\": \"10.0\", \"asset_type\": \"native\"}]}";
+
+  private MockWebServer mockWebServer;
+  private Server server;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+    server = new Server(mockWebServer.url("/").toString());
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    executor.shutdownNow();
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void testConcurrentIdenticalRequestsAreCoalesced() throws Exception {
+    SingleFlight singleFlight = new SingleFlight("accounts");
+    server.setSingleFlight(singleFlight);
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT).setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+    List<AccountBalanceResponse> responses = getBalanceConcurrently(4);
+
+    assertEquals(1, mockWebServer.getRequestCount());
+    assertEquals(1, singleFlight.getExecutedCount("accounts"));
+    assertEquals(3, singleFlight.getCoalescedCount("accounts"));
+    for (AccountBalanceResponse response : responses) {
+      assertSame(responses.get(0), response);
+    }
+    assertEquals(new Long(100000000L), responses.get(0).getNativeBalance());
+  }
+
+  @Test
+  public void testSequentialRequestsAreNotCoalesced() throws Exception {
+    SingleFlight singleFlight = new SingleFlight("accounts");
+    server.setSingleFlight(singleFlight);
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT));
+    mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT));
+
+    server.accounts().accountBalance(KeyPair.fromAccountId(ACCOUNT_ID));
+    server.accounts().accountBalance(KeyPair.fromAccountId(ACCOUNT_ID));
+
+    assertEquals(2, mockWebServer.getRequestCount());
+    assertEquals(2, singleFlight.getExecutedCount("accounts"));
+    assertEquals(0, singleFlight.getCoalescedCount("accounts"));
+  }
+
+  @Test
+  public void testEndpointNotEnabled() throws Exception {
+    SingleFlight singleFlight = new SingleFlight("ledgers");
+    server.setSingleFlight(singleFlight);
+    for (int i = 0; i < 2; i++) {
+      mockWebServer.enqueue(new MockResponse().setBody(ACCOUNT).setHeadersDelay(200, TimeUnit.MILLISECONDS));
+    }
+
+    getBalanceConcurrently(2);
+
+    assertEquals(2, mockWebServer.getRequestCount());
+    assertEquals(0, singleFlight.getExecutedCount("accounts"));
+  }
+
+  private List<AccountBalanceResponse> getBalanceConcurrently(int count) throws Exception {
+    List<Future<AccountBalanceResponse>> futures = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      futures.add(executor.submit(new Callable<AccountBalanceResponse>() {
+        @Override
+        public AccountBalanceResponse call() throws IOException {
+          return server.accounts().accountBalance(KeyPair.fromAccountId(ACCOUNT_ID));
+        }
+      }));
+    }
+    List<AccountBalanceResponse> responses = new ArrayList<>();
+    for (Future<AccountBalanceResponse> future : futures) {
+      responses.add(future.get());
+    }
+    return responses;
+  }
+}
@@ -0,0 +1,429 @@
+package kin.base.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.reflect.TypeToken;
+import com.here.oksse.ServerSentEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import kin.base.Server;
+import kin.base.responses.TransactionResponse;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class StreamHandlerTest {
+
+  private static final String STREAM = "https://horizon.example.com/accounts/GA/transactions";
+
+  private MockWebServer mockWebServer;
+  private MapCursorStore cursorStore;
+  private StreamHandler<TransactionResponse> streamHandler;
+  private final List<ServerSentEvent> streams = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+    cursorStore = new MapCursorStore();
+    streamHandler = new StreamHandler<>(new OkHttpClient(), new TypeToken<TransactionResponse>() {});
+    streamHandler.setCursorStore(cursorStore);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (ServerSentEvent stream : streams) {
+      stream.close();
+    }
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void onMessage_RecordsAndSavesCursorOfDeliveredEvents() {
+    List<String> events = new ArrayList<>();
+    StreamHandler<TransactionResponse>.StreamListener listener = newListener(events, fastPolicy().build());
+
+    listener.onMessage(null, null, null, "\"hello\"");
+    assertNull(listener.lastCursor);
+    listener.onMessage(null, "12", null, "{\"paging_token\": \"12\"}");
+    listener.onMessage(null, "13", null, "{\"paging_token\": \"13\"}");
+
+    assertEquals(2, events.size());
+    assertEquals("13", listener.lastCursor);
+    assertEquals("13", cursorStore.load(STREAM));
+  }
+
+  @Test
+  public void onMessage_DecodePipeline_SavesCursorOnceDelivered() throws Exception {
+    final CountDownLatch decoding = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    DecodePipeline<String> pipeline = new DecodePipeline<>(executor, 4, new DecodePipeline.Decoder<String>() {
+      @Override
+      public String decode(String data) {
+        try {
+          decoding.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return data;
+      }
+    }, recording(new ArrayList<String>(), null));
+    StreamHandler<TransactionResponse>.StreamListener listener =
+        streamHandler.new StreamListener(STREAM, pipeline, fastPolicy().build());
+
+    listener.onMessage(null, "12", null, "{\"paging_token\": \"12\"}");
+    assertEquals("12", listener.lastCursor);
+    assertNull(cursorStore.load(STREAM));
+
+    decoding.countDown();
+    assertTrue(cursorStore.await(STREAM, "12", 5000));
+    executor.shutdown();
+  }
+
+  @Test
+  public void newStreamClient_SharesConnectionPoolButNotDispatcher() {
+    OkHttpClient httpClient = new OkHttpClient();
+
+    OkHttpClient streamClient = StreamHandler.newStreamClient(httpClient);
+
+    assertSame(httpClient.connectionPool(), streamClient.connectionPool());
+    assertNotSame(httpClient.dispatcher(), streamClient.dispatcher());
+    assertEquals(Integer.MAX_VALUE, streamClient.dispatcher().getMaxRequestsPerHost());
+    assertEquals(0, streamClient.readTimeoutMillis());
+  }
+
+  @Test
+  public void onPreRetry_ResumesFromLastDeliveredCursor() {
+    StreamHandler<TransactionResponse>.StreamListener listener =
+        newListener(new ArrayList<String>(), fastPolicy().build());
+    Request original = new Request.Builder().url(STREAM + "?cursor=now").build();
+
+    assertEquals(STREAM + "?cursor=now", listener.onPreRetry(null, original).url().toString());
+
+    listener.onMessage(null, "42", null, "{\"paging_token\": \"42\"}");
+    assertEquals(STREAM + "?cursor=42", listener.onPreRetry(null, original).url().toString());
+  }
+
+  @Test
+  public void handleRawStream_StoredCursor_CatchesUpThroughPagesFirst() throws Exception {
+    String stream = mockWebServer.url("/accounts/GA/transactions?cursor=now").toString();
+    // The position of the stream from the first event is kept apart.
+    cursorStore.save(mockWebServer.url("/accounts/GA/transactions").toString(), "100");
+    cursorStore.save(stream, "5");
+    List<String> firstPage = new ArrayList<>();
+    for (int i = 6; i < 206; i++) {
+      firstPage.add(String.valueOf(i));
+    }
+    enqueuePage("205", firstPage);
+    List<String> lastPage = new ArrayList<>();
+    lastPage.add("206");
+    enqueuePage("206", lastPage);
+    List<String> events = new ArrayList<>();
+    CountDownLatch caughtUp = new CountDownLatch(201);
+
+    ServerSentEvent sse = streamHandler.handleRawStream(
+        mockWebServer.url("/accounts/GA/transactions?cursor=now").uri(), recording(events, caughtUp));
+
+    assertTrue(caughtUp.await(5, TimeUnit.SECONDS));
+    assertTrue(cursorStore.await(stream, "206", 5000));
+    assertEquals("100", cursorStore.load(mockWebServer.url("/accounts/GA/transactions").toString()));
+    assertTrue(events.get(0).contains("\"paging_token\":\"6\""));
+    assertTrue(events.get(200).contains("\"paging_token\":\"206\""));
+    assertEquals("/accounts/GA/transactions?cursor=5&limit=200&order=asc", mockWebServer.takeRequest().getPath());
+    assertEquals("/accounts/GA/transactions?cursor=205", mockWebServer.takeRequest().getPath());
+    sse.close();
+  }
+
+  @Test
+  public void handleRawStream_ServerCursorStore_Applied() throws Exception {
+    Server server = new Server(mockWebServer.url("/").toString());
+    server.setCursorStore(cursorStore);
+    String stream = mockWebServer.url("/ledgers?cursor=now").toString();
+    cursorStore.save(stream, "7");
+    enqueuePage("7", new ArrayList<String>());
+
+    ServerSentEvent sse = server.ledgers().cursor("now").stream(new EventListener<kin.base.responses.LedgerResponse>() {
+      @Override
+      public void onEvent(kin.base.responses.LedgerResponse ledger) {
+      }
+    });
+
+    assertEquals("/ledgers?cursor=7&limit=200&order=asc", mockWebServer.takeRequest(5, TimeUnit.SECONDS).getPath());
+    sse.close();
+  }
+
+  @Test
+  public void onRetryError_MaxAttempts_GivesUpAndFails() throws Exception {
+    final List<StreamState> states = Collections.synchronizedList(new ArrayList<StreamState>());
+    streamHandler.setStreamStateListener(new StreamStateListener() {
+      @Override
+      public void onStateChanged(StreamState state) {
+        states.add(state);
+      }
+    });
+    StreamHandler<TransactionResponse>.StreamListener listener =
+        newListener(new ArrayList<String>(), fastPolicy().maxAttempts(2).build());
+
+    listener.onOpen(null, null);
+    assertFalse(listener.onRetryError(null, new IOException(), null));
+    assertTrue(awaitStateCount(states, 3));
+    assertFalse(listener.onRetryError(null, new IOException(), null));
+    assertTrue(awaitStateCount(states, 5));
+    assertFalse(listener.onRetryError(null, new IOException(), null));
+    listener.onClosed(null);
+
+    assertEquals(StreamState.FAILED, listener.getState());
+    assertEquals(Arrays.asList(StreamState.CONNECTED, StreamState.RECONNECTING, StreamState.CONNECTING,
+        StreamState.RECONNECTING, StreamState.CONNECTING, StreamState.FAILED), states);
+  }
+
+  @Test
+  public void onOpen_ResetsAttempts() throws Exception {
+    StreamHandler<TransactionResponse>.StreamListener listener =
+        newListener(new ArrayList<String>(), fastPolicy().maxAttempts(1).build());
+
+    listener.onRetryError(null, new IOException(), null);
+    assertTrue(awaitState(listener, StreamState.CONNECTING));
+    listener.onOpen(null, null);
+    listener.onRetryError(null, new IOException(), null);
+
+    assertTrue(awaitState(listener, StreamState.CONNECTING));
+  }
+
+  @Test
+  public void onRetryError_NoNetwork_ReconnectsWhenNetworkAvailable() throws Exception {
+    final AtomicBoolean networkAvailable = new AtomicBoolean();
+    ReconnectPolicy policy = fastPolicy()
+        .networkAvailability(new NetworkAvailability() {
+          @Override
+          public boolean isNetworkAvailable() {
+            return networkAvailable.get();
+          }
+        })
+        .build();
+    StreamHandler<TransactionResponse>.StreamListener listener = newListener(new ArrayList<String>(), policy);
+
+    // Returns right away, the OkHttp thread doesn't wait for the network.
+    assertFalse(listener.onRetryError(null, new IOException(), null));
+    assertTrue(awaitState(listener, StreamState.WAITING_FOR_NETWORK));
+
+    networkAvailable.set(true);
+    policy.notifyNetworkAvailable();
+
+    assertTrue(awaitState(listener, StreamState.CONNECTING));
+  }
+
+  @Test
+  public void close_WhileWaitingToReconnect_StaysClosed() throws Exception {
+    final AtomicBoolean networkAvailable = new AtomicBoolean();
+    ReconnectPolicy policy = fastPolicy()
+        .networkAvailability(new NetworkAvailability() {
+          @Override
+          public boolean isNetworkAvailable() {
+            return networkAvailable.get();
+          }
+        })
+        .build();
+    final List<StreamState> states = Collections.synchronizedList(new ArrayList<StreamState>());
+    streamHandler.setStreamStateListener(new StreamStateListener() {
+      @Override
+      public void onStateChanged(StreamState state) {
+        states.add(state);
+      }
+    });
+    StreamHandler<TransactionResponse>.StreamListener listener = newListener(new ArrayList<String>(), policy);
+    listener.onRetryError(null, new IOException(), null);
+    assertTrue(awaitState(listener, StreamState.WAITING_FOR_NETWORK));
+
+    listener.pagedStream.close();
+    networkAvailable.set(true);
+    policy.notifyNetworkAvailable();
+    Thread.sleep(100);
+
+    assertEquals(StreamState.CLOSED, listener.getState());
+    assertEquals(Arrays.asList(StreamState.WAITING_FOR_NETWORK, StreamState.CLOSED), states);
+    assertFalse(listener.onRetryError(null, new IOException(), null));
+  }
+
+  @Test
+  public void onRetryError_ClientError_RetriesWithoutOpeningCircuitOrPolling() throws Exception {
+    ReconnectPolicy policy = fastPolicy()
+        .circuitBreaker(1, 1, TimeUnit.MINUTES)
+        .pollingFallback(1, 10, 100, TimeUnit.MILLISECONDS)
+        .build();
+    StreamHandler<TransactionResponse>.StreamListener listener = newListener(new ArrayList<String>(), policy);
+    okhttp3.Response notFound = new okhttp3.Response.Builder()
+        .request(new Request.Builder().url(STREAM).build())
+        .protocol(Protocol.HTTP_1_1)
+        .code(404)
+        .message("Not Found")
+        .build();
+
+    assertFalse(listener.onRetryError(null, new IOException(), notFound));
+
+    assertTrue(awaitState(listener, StreamState.CONNECTING));
+    assertFalse(policy.isCircuitOpen());
+  }
+
+  @Test
+  public void onRetryError_RepeatedFailures_FallsBackToPolling() throws Exception {
+    ReconnectPolicy policy = fastPolicy()
+        .pollingFallback(1, 10, 100, TimeUnit.MILLISECONDS)
+        .streamingRetryInterval(1, TimeUnit.MINUTES)
+        .build();
+    List<String> events = new ArrayList<>();
+    CountDownLatch polled = new CountDownLatch(2);
+    StreamHandler<TransactionResponse>.StreamListener listener =
+        streamHandler.new StreamListener(STREAM, recording(events, polled), policy);
+    listener.onRetryTime(null, 1);
+    StreamHandler<TransactionResponse>.PagedStream pagedStream =
+        streamHandler.new PagedStream(mockWebServer.url("/accounts/GA/transactions?cursor=now"), listener);
+    streams.add(pagedStream);
+    enqueuePage("5", Arrays.asList("5"));
+    enqueuePage("7", Arrays.asList("6", "7"));
+
+    assertFalse(listener.onRetryError(null, new IOException(), null));
+    assertTrue(awaitState(listener, StreamState.POLLING));
+
+    assertTrue(polled.await(5, TimeUnit.SECONDS));
+    assertEquals("/accounts/GA/transactions?limit=1&order=desc", mockWebServer.takeRequest().getPath());
+    assertEquals("/accounts/GA/transactions?cursor=5&limit=200&order=asc", mockWebServer.takeRequest().getPath());
+    assertTrue(events.get(0).contains("\"paging_token\":\"6\""));
+    assertTrue(cursorStore.await(STREAM, "7", 5000));
+    pagedStream.close();
+    assertEquals(StreamState.CLOSED, listener.getState());
+  }
+
+  @Test
+  public void onRetryError_StreamFromNowWithoutEvents_ReadsLatestEventOnFirstFailure() throws Exception {
+    ReconnectPolicy policy = fastPolicy()
+        .pollingFallback(2, 10, 100, TimeUnit.MILLISECONDS)
+        .build();
+    StreamHandler<TransactionResponse>.StreamListener listener = newListener(new ArrayList<String>(), policy);
+    enqueuePage("5", Arrays.asList("5"));
+
+    assertFalse(listener.onRetryError(null, new IOException(), null));
+
+    // Polling later on starts from this event, not from the latest event at that time.
+    assertEquals("/accounts/GA/transactions?limit=1&order=desc",
+        mockWebServer.takeRequest(5, TimeUnit.SECONDS).getPath());
+    assertTrue(awaitState(listener, StreamState.CONNECTING));
+  }
+
+  private StreamHandler<TransactionResponse>.StreamListener newListener(List<String> events,
+      ReconnectPolicy policy) {
+    StreamHandler<TransactionResponse>.StreamListener listener =
+        streamHandler.new StreamListener(STREAM, recording(events, null), policy);
+    // Shorter than the backoff delays, so that the listener doesn't wait.
+    listener.onRetryTime(null, 1);
+    streams.add(streamHandler.new PagedStream(mockWebServer.url("/accounts/GA/transactions?cursor=now"), listener));
+    return listener;
+  }
+
+  private static boolean awaitState(StreamHandler<TransactionResponse>.StreamListener listener, StreamState state)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (listener.getState() != state) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(5);
+    }
+    return true;
+  }
+
+  private static boolean awaitStateCount(List<StreamState> states, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (states.size() < count) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(5);
+    }
+    return true;
+  }
+
+  private static ReconnectPolicy.Builder fastPolicy() {
+    return new ReconnectPolicy.Builder()
+        .baseDelay(1, TimeUnit.MILLISECONDS)
+        .maxDelay(10, TimeUnit.MILLISECONDS);
+  }
+
+  private void enqueuePage(String nextCursor, List<String> pagingTokens) {
+    StringBuilder records = new StringBuilder();
+    for (String pagingToken : pagingTokens) {
+      if (records.length() > 0) {
+        records.append(',');
+      }
+      records.append("{\"paging_token\": \"").append(pagingToken).append("\", \"memo_type\": \"none\"}");
+    }
+    String next = mockWebServer.url("/accounts/GA/transactions?cursor=" + nextCursor).toString();
+    mockWebServer.enqueue(new MockResponse().setBody(
+        "{\"_links\": {\"next\": {\"href\": \"" + next + "\"}}, \"_embedded\": {\"records\": [" + records + "]}}"));
+  }
+
+  private static EventListener<String> recording(final List<String> events, final CountDownLatch latch) {
+    return new EventListener<String>() {
+      @Override
+      public void onEvent(String data) {
+        synchronized (events) {
+          events.add(data);
+        }
+        if (latch != null) {
+          latch.countDown();
+        }
+      }
+    };
+  }
+
+  private static class MapCursorStore implements CursorStore {
+
+    private final Map<String, String> cursors = new HashMap<>();
+
+    @Override
+    public synchronized String load(String stream) {
+      return cursors.get(stream);
+    }
+
+    @Override
+    public synchronized void save(String stream, String cursor) {
+      cursors.put(stream, cursor);
+      notifyAll();
+    }
+
+    synchronized boolean await(String stream, String cursor, long timeoutMillis) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + timeoutMillis;
+      while (!cursor.equals(cursors.get(stream))) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        wait(remaining);
+      }
+      return true;
+    }
+  }
+}
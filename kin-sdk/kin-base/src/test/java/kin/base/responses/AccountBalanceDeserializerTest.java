@@ -0,0 +1,49 @@
+package kin.base.responses;
+
+import com.google.gson.JsonParseException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class AccountBalanceDeserializerTest extends TestCase {
+  @Test
+  public void testDeserialize() {
+    String json = new AccountDeserializerTest().json;
+    AccountResponse account = GsonSingleton.getInstance().fromJson(json, AccountResponse.class);
+    AccountBalanceResponse accountBalance = GsonSingleton.getInstance().fromJson(json, AccountBalanceResponse.class);
+
+    assertEquals(accountBalance.getSequenceNumber(), account.getSequenceNumber());
+    assertEquals(accountBalance.getNativeBalance(), new Long(200000300L));
+  }
+
+  @Test
+  public void testDeserializeWithoutNativeBalance() {
+    String json = "{\"sequence\": \"5\", \"balances\": [{\"balance\": \"1.5\", \"asset_type\": \"credit_alphanum4\"}]}";
+    AccountBalanceResponse accountBalance = GsonSingleton.getInstance().fromJson(json, AccountBalanceResponse.class);
+
+    assertEquals(accountBalance.getSequenceNumber(), new Long(5));
+    assertNull(accountBalance.getNativeBalance());
+  }
+
+  @Test
+  public void testParseAmount() {
+    assertEquals(AccountBalanceTypeAdapter.parseAmount("9999.9999800"), 99999999800L);
+    assertEquals(AccountBalanceTypeAdapter.parseAmount("11"), 110000000L);
+    assertEquals(AccountBalanceTypeAdapter.parseAmount("0.1"), 1000000L);
+    assertEquals(AccountBalanceTypeAdapter.parseAmount("1.000000000"), 10000000L);
+    assertEquals(AccountBalanceTypeAdapter.parseAmount("922337203685.4775807"), Long.MAX_VALUE);
+    assertEquals(AccountBalanceTypeAdapter.parseAmount("-2.5"), -25000000L);
+  }
+
+  @Test
+  public void testParseInvalidAmount() {
+    String[] invalid = {"", ".", "1.2.3", "abc", "1.00000001", "922337203685.4775808"};
+    for (String amount : invalid) {
+      try {
+        AccountBalanceTypeAdapter.parseAmount(amount);
+        fail(amount);
+      } catch (JsonParseException e) {
+        // expected
+      }
+    }
+  }
+}
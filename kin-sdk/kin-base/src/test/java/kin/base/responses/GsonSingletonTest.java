@@ -0,0 +1,44 @@
+package kin.base.responses;
+
+import com.google.gson.Gson;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.TestCase;
+import kin.base.responses.operations.OperationResponse;
+import kin.base.responses.operations.PaymentOperationResponse;
+import org.junit.Test;
+
+public class GsonSingletonTest extends TestCase {
+  @Test
+  public void testSameInstanceAcrossThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Callable<Gson> getInstance = new Callable<Gson>() {
+        @Override
+        public Gson call() {
+          return GsonSingleton.getInstance();
+        }
+      };
+      Future<Gson> first = executor.submit(getInstance);
+      for (int i = 0; i < 8; i++) {
+        assertSame(first.get(), executor.submit(getInstance).get());
+      }
+      assertSame(first.get(), GsonSingleton.getInstance());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testWarmUp() {
+    GsonSingleton.warmUp();
+
+    OperationResponse operation = GsonSingleton.getInstance().fromJson(
+        "{\"type_i\": 1, \"amount\": \"10.0\", \"asset_type\": \"native\"}", OperationResponse.class);
+    assertTrue(operation instanceof PaymentOperationResponse);
+    assertEquals(((PaymentOperationResponse) operation).getAmount(), "10.0");
+    assertNull(GsonSingleton.getInstance().fromJson("null", OperationResponse.class));
+  }
+}
@@ -1,5 +1,6 @@
 package kin.base.responses;
 
+import com.google.gson.JsonParseException;
 import junit.framework.TestCase;
 import kin.base.Asset;
 import kin.base.AssetTypeNative;
@@ -555,4 +556,44 @@ public class OperationDeserializerTest extends TestCase {
 
     assertEquals(operation.getValue(), null);
   }
+
+  @Test
+  public void testDeserializeTypeIdBeforeCommonFields() {
+    String json = "{\n" +
+            "  \"type_i\": 1,\n" +
+            "  \"amount\": \"100.0\",\n" +
+            "  \"asset_type\": \"native\",\n" +
+            "  \"from\": \"GB6NVEN5HSUBKMYCE5ZOWSK5K23TBWRUQLZY3KNMXUZ3AQ2ESC4MY4AQ\",\n" +
+            "  \"id\": 3940808587743233,\n" +
+            "  \"paging_token\": \"3940808587743233\",\n" +
+            "  \"source_account\": \"GB6NVEN5HSUBKMYCE5ZOWSK5K23TBWRUQLZY3KNMXUZ3AQ2ESC4MY4AQ\",\n" +
+            "  \"to\": \"GDWNY2POLGK65VVKIH5KQSH7VWLKRTQ5M6ADLJAYC2UEHEBEARCZJWWI\",\n" +
+            "  \"unknown_field\": {\"nested\": [1, 2]},\n" +
+            "  \"type\": \"payment\"\n" +
+            "}";
+    PaymentOperationResponse operation = (PaymentOperationResponse) GsonSingleton.getInstance().fromJson(json, OperationResponse.class);
+
+    assertEquals(operation.getSourceAccount().getAccountId(), "GB6NVEN5HSUBKMYCE5ZOWSK5K23TBWRUQLZY3KNMXUZ3AQ2ESC4MY4AQ");
+    assertEquals(operation.getId(), new Long(3940808587743233L));
+    assertEquals(operation.getPagingToken(), "3940808587743233");
+    assertEquals(operation.getType(), "payment");
+    assertEquals(operation.getTo().getAccountId(), "GDWNY2POLGK65VVKIH5KQSH7VWLKRTQ5M6ADLJAYC2UEHEBEARCZJWWI");
+    assertEquals(operation.getAmount(), "100.0");
+    assertEquals(operation.getAsset(), new AssetTypeNative());
+  }
+
+  @Test
+  public void testDeserializeUnknownOperationType() {
+    String json = "{\n" +
+            "  \"id\": 3940808587743233,\n" +
+            "  \"type\": \"bump_sequence\",\n" +
+            "  \"type_i\": 11\n" +
+            "}";
+    try {
+      GsonSingleton.getInstance().fromJson(json, OperationResponse.class);
+      fail();
+    } catch (JsonParseException e) {
+      // expected
+    }
+  }
 }
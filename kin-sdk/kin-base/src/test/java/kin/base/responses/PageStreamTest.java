@@ -0,0 +1,64 @@
+package kin.base.responses;
+
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.NoSuchElementException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class PageStreamTest extends TestCase {
+  @Test
+  public void testStreamRecords() {
+    String json = new TransactionPageDeserializerTest().json;
+    Page<TransactionResponse> page = GsonSingleton.getInstance().fromJson(json, new TypeToken<Page<TransactionResponse>>() {}.getType());
+    PageStream<TransactionResponse> stream = Page.stream(new StringReader(json), new TypeToken<TransactionResponse>() {});
+
+    int count = 0;
+    while (stream.hasNext()) {
+      TransactionResponse transaction = stream.next();
+      assertEquals(transaction.getHash(), page.getRecords().get(count).getHash());
+      assertEquals(transaction.getPagingToken(), page.getRecords().get(count).getPagingToken());
+      count++;
+    }
+    assertEquals(count, page.getRecords().size());
+    assertEquals(stream.getLinks().getNext().getHref(), "/transactions?order=asc&limit=10&cursor=81058917781504");
+    try {
+      stream.next();
+      fail();
+    } catch (NoSuchElementException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testStreamLinksAfterRecords() {
+    String json = "{\"_embedded\": {\"records\": [{\"hash\": \"a\", \"memo_type\": \"none\"}, {\"hash\": \"b\", \"memo_type\": \"none\"}], \"count\": 2}, " +
+        "\"_links\": {\"next\": {\"href\": \"/transactions?cursor=2\"}}}";
+    PageStream<TransactionResponse> stream = Page.stream(new StringReader(json), new TypeToken<TransactionResponse>() {});
+
+    assertEquals(stream.next().getHash(), "a");
+    assertEquals(stream.next().getHash(), "b");
+    assertFalse(stream.hasNext());
+    assertEquals(stream.getLinks().getNext().getHref(), "/transactions?cursor=2");
+  }
+
+  @Test
+  public void testStreamEmptyPage() {
+    String json = "{\"_links\": {\"next\": {\"href\": \"/transactions?cursor=\"}}, \"_embedded\": {\"records\": []}}";
+    PageStream<TransactionResponse> stream = Page.stream(new StringReader(json), new TypeToken<TransactionResponse>() {});
+
+    assertFalse(stream.hasNext());
+    assertEquals(stream.getLinks().getNext().getHref(), "/transactions?cursor=");
+  }
+
+  @Test
+  public void testCloseStopsIteration() throws IOException {
+    String json = "{\"_embedded\": {\"records\": [{\"hash\": \"a\", \"memo_type\": \"none\"}, {\"hash\": \"b\", \"memo_type\": \"none\"}]}}";
+    PageStream<TransactionResponse> stream = Page.stream(new StringReader(json), new TypeToken<TransactionResponse>() {});
+
+    assertEquals(stream.next().getHash(), "a");
+    stream.close();
+    assertFalse(stream.hasNext());
+  }
+}
@@ -7,7 +7,9 @@ import kin.base.CreateAccountOperation;
 import kin.base.LedgerEntryChange;
 import kin.base.LedgerEntryChanges;
 import kin.base.MemoHash;
+import kin.base.MemoId;
 import kin.base.MemoNone;
+import kin.base.MemoText;
 import kin.base.Operation;
 import kin.base.TrustLineLedgerEntryChange;
 import org.junit.Test;
@@ -105,6 +107,23 @@ public class TransactionDeserializerTest extends TestCase {
     assertTrue(transaction.getMemo() instanceof MemoNone);
   }
 
+  @Test
+  public void testDeserializeMemoTextWithoutValue() {
+    TransactionResponse transaction = GsonSingleton.getInstance()
+        .fromJson(jsonMemoNone.replace("\"memo_type\": \"none\"", "\"memo_type\": \"text\""), TransactionResponse.class);
+    assertTrue(transaction.getMemo() instanceof MemoText);
+    assertEquals("", ((MemoText) transaction.getMemo()).getText());
+  }
+
+  @Test
+  public void testDeserializeMemoId() {
+    TransactionResponse transaction = GsonSingleton.getInstance()
+        .fromJson(jsonMemoNone.replace("\"memo_type\": \"none\"", "\"memo_type\": \"id\", \"memo\": \"9876543210\""),
+            TransactionResponse.class);
+    assertTrue(transaction.getMemo() instanceof MemoId);
+    assertEquals(9876543210L, ((MemoId) transaction.getMemo()).getId());
+  }
+
   String json = "{\n" +
       "  \"_links\": {\n" +
       "    \"account\": {\n" +
@@ -28,6 +28,19 @@ public class TransactionPageDeserializerTest extends TestCase {
     assertEquals(transactionsPage.getLinks().getSelf().getHref(), "/transactions?order=asc&limit=10&cursor=");
   }
 
+  @Test
+  public void testDeserializeLinksFirstWithUnknownFields() {
+    String json = "{\"_links\": {\"self\": {\"href\": \"/transactions?cursor=\"}}, \"unknown\": [1, {\"a\": 2}], " +
+        "\"_embedded\": {\"count\": 1, \"records\": [{\"hash\": \"abc\", \"memo_type\": \"none\", \"paging_token\": \"1\"}]}}";
+    Page<TransactionResponse> transactionsPage = GsonSingleton.getInstance().fromJson(json, new TypeToken<Page<TransactionResponse>>() {}.getType());
+
+    assertEquals(transactionsPage.getRecords().size(), 1);
+    assertEquals(transactionsPage.getRecords().get(0).getHash(), "abc");
+    assertEquals(transactionsPage.getRecords().get(0).getPagingToken(), "1");
+    assertEquals(transactionsPage.getLinks().getSelf().getHref(), "/transactions?cursor=");
+    assertNull(transactionsPage.getLinks().getNext());
+  }
+
   String json = "{\n" +
           "  \"_embedded\": {\n" +
           "    \"records\": [\n" +
@@ -0,0 +1,252 @@
+package kin.horizon.fake;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.net.ServerSocketFactory;
+import kin.base.Network;
+import kin.horizon.fake.LedgerState.AccountState;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * In-process Horizon server backed by an in-memory ledger, for load and latency tests.
+ * <p>
+ * Accounts are funded directly with {@link #createAccount(String, String)}; submitted transactions are then applied
+ * to the in-memory balances and sequence numbers when a ledger closes, either on a timer or on every submission. The
+ * server serves <code>accounts</code>, <code>ledgers</code> and <code>transactions</code> resources, their pages and
+ * their Server-Sent Events streams, and can inject latency, 500 errors and 429 responses with {@link Faults}.
+ * Only <code>CREATE_ACCOUNT</code> and native <code>PAYMENT</code> operations are supported.
+ * </p>
+ * <pre>
+ * FakeHorizon horizon = new FakeHorizon.Builder(network).ledgerCloseInterval(5, TimeUnit.SECONDS).build();
+ * horizon.start();
+ * horizon.createAccount(accountId, "1000");
+ * Server server = new Server(horizon.getUrl());
+ * </pre>
+ */
+public class FakeHorizon implements Closeable {
+
+    private static final long STREAM_TIMEOUT_MILLIS = 10000;
+
+    private final LedgerState state;
+    private final long ledgerCloseIntervalMillis;
+    private final MockWebServer server = new MockWebServer();
+    private ScheduledExecutorService ledgerCloser;
+    private boolean started;
+
+    private FakeHorizon(Builder builder) {
+        this.state = new LedgerState(builder.network, builder.baseFee);
+        this.ledgerCloseIntervalMillis = builder.ledgerCloseIntervalMillis;
+        long submissionTimeoutMillis = Math.max(2 * ledgerCloseIntervalMillis, 1000);
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setDispatcher(new HorizonDispatcher(state, builder.faults, ledgerCloseIntervalMillis == 0,
+            submissionTimeoutMillis, STREAM_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * Starts serving on a local port and closing ledgers.
+     */
+    public synchronized void start() throws IOException {
+        if (started) {
+            throw new IllegalStateException("FakeHorizon already started");
+        }
+        started = true;
+        server.start();
+        if (ledgerCloseIntervalMillis > 0) {
+            ledgerCloser = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fake-horizon-ledger-closer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ledgerCloser.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    state.closeLedger();
+                }
+            }, ledgerCloseIntervalMillis, ledgerCloseIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the base url to give to the Horizon client, with a trailing slash.
+     */
+    public String getUrl() {
+        return server.url("/").toString();
+    }
+
+    /**
+     * Creates a funded account, outside of any transaction.
+     *
+     * @param balance the native balance, as a decimal amount.
+     */
+    public void createAccount(String accountId, String balance) {
+        state.createAccount(accountId, LedgerState.toStroops(balance));
+    }
+
+    /**
+     * Returns the native balance of an account as a decimal amount, or null if it doesn't exist.
+     */
+    public String getBalance(String accountId) {
+        AccountState account = state.getAccount(accountId);
+        return account != null ? LedgerState.toAmount(account.balance) : null;
+    }
+
+    /**
+     * Returns the sequence number of an account.
+     *
+     * @throws IllegalArgumentException if the account doesn't exist.
+     */
+    public long getSequenceNumber(String accountId) {
+        AccountState account = state.getAccount(accountId);
+        if (account == null) {
+            throw new IllegalArgumentException("Account " + accountId + " doesn't exist");
+        }
+        return account.sequence;
+    }
+
+    /**
+     * Closes a ledger now, applying the pending transactions.
+     *
+     * @return the sequence of the closed ledger.
+     */
+    public long closeLedger() {
+        return state.closeLedger().sequence;
+    }
+
+    public long getLedgerSequence() {
+        return state.getLedgerSequence();
+    }
+
+    /**
+     * Returns the number of transactions successfully applied so far.
+     */
+    public int getTransactionCount() {
+        return state.getTransactionCount();
+    }
+
+    /**
+     * Returns the number of transactions waiting for the next ledger.
+     */
+    public int getPendingCount() {
+        return state.getPendingCount();
+    }
+
+    /**
+     * Returns the number of HTTP requests served so far.
+     */
+    public int getRequestCount() {
+        return server.getRequestCount();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (ledgerCloser != null) {
+            ledgerCloser.shutdownNow();
+            ledgerCloser = null;
+        }
+        state.close();
+        if (started) {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * Disables Nagle's algorithm on accepted connections: responses are written in several small chunks, which would
+     * otherwise each wait for the client's delayed acknowledgement and add tens of milliseconds to every request.
+     */
+    private static class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new NoDelayServerSocket();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return new NoDelayServerSocket(port, 50, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return new NoDelayServerSocket(port, backlog, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            return new NoDelayServerSocket(port, backlog, address);
+        }
+    }
+
+    private static class NoDelayServerSocket extends ServerSocket {
+
+        NoDelayServerSocket() throws IOException {
+        }
+
+        NoDelayServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            super(port, backlog, address);
+        }
+
+        @Override
+        public Socket accept() throws IOException {
+            Socket socket = super.accept();
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+    }
+
+    public static class Builder {
+
+        private final Network network;
+        private long ledgerCloseIntervalMillis = 5000;
+        private int baseFee = 100;
+        private Faults faults = Faults.NONE;
+
+        public Builder(Network network) {
+            if (network == null) {
+                throw new IllegalArgumentException("network cannot be null");
+            }
+            this.network = network;
+        }
+
+        /**
+         * Sets how often ledgers close, 5 seconds by default. With an interval of 0 a ledger closes on every
+         * submitted transaction.
+         */
+        public Builder ledgerCloseInterval(long interval, TimeUnit timeUnit) {
+            if (interval < 0) {
+                throw new IllegalArgumentException("interval can't be negative");
+            }
+            this.ledgerCloseIntervalMillis = timeUnit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Sets the minimum fee per operation, in stroops.
+         */
+        public Builder baseFee(int baseFee) {
+            this.baseFee = baseFee;
+            return this;
+        }
+
+        public Builder faults(Faults faults) {
+            if (faults == null) {
+                throw new IllegalArgumentException("faults cannot be null");
+            }
+            this.faults = faults;
+            return this;
+        }
+
+        public FakeHorizon build() {
+            return new FakeHorizon(this);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package kin.horizon.fake;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and failures injected by {@link FakeHorizon} into its responses.
+ * <p>
+ * Every request is delayed by the base latency plus a uniformly distributed jitter, then fails with a 500 error with
+ * probability <code>errorRate</code>, or with a 429 (too many requests) with probability <code>rateLimitRate</code>.
+ * Failures are drawn from a seeded random, so a load test run can be replayed.
+ * </p>
+ */
+public class Faults {
+
+    /**
+     * No latency and no failures.
+     */
+    public static final Faults NONE = new Builder().build();
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final int retryAfterSeconds;
+    private final Random random;
+
+    private Faults(Builder builder) {
+        this.latencyMillis = builder.latencyMillis;
+        this.jitterMillis = builder.jitterMillis;
+        this.errorRate = builder.errorRate;
+        this.rateLimitRate = builder.rateLimitRate;
+        this.retryAfterSeconds = builder.retryAfterSeconds;
+        this.random = new Random(builder.seed);
+    }
+
+    long nextLatencyMillis() {
+        if (jitterMillis == 0) {
+            return latencyMillis;
+        }
+        synchronized (random) {
+            return latencyMillis + (long) (random.nextDouble() * jitterMillis);
+        }
+    }
+
+    boolean nextError() {
+        return draw(errorRate);
+    }
+
+    boolean nextRateLimited() {
+        return draw(rateLimitRate);
+    }
+
+    int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    private boolean draw(double rate) {
+        if (rate == 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    public static class Builder {
+
+        private long latencyMillis;
+        private long jitterMillis;
+        private double errorRate;
+        private double rateLimitRate;
+        private int retryAfterSeconds = 1;
+        private long seed = 42;
+
+        /**
+         * Delays every response by <code>latency</code> plus a random duration up to <code>jitter</code>.
+         */
+        public Builder latency(long latency, long jitter, TimeUnit timeUnit) {
+            if (latency < 0 || jitter < 0) {
+                throw new IllegalArgumentException("latency and jitter can't be negative");
+            }
+            this.latencyMillis = timeUnit.toMillis(latency);
+            this.jitterMillis = timeUnit.toMillis(jitter);
+            return this;
+        }
+
+        /**
+         * Sets the probability, between 0 and 1, of a request failing with a 500 error.
+         */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = checkRate(errorRate);
+            return this;
+        }
+
+        /**
+         * Sets the probability, between 0 and 1, of a request being rejected with a 429 error and a
+         * <code>Retry-After</code> header of <code>retryAfterSeconds</code>.
+         */
+        public Builder rateLimitRate(double rateLimitRate, int retryAfterSeconds) {
+            this.rateLimitRate = checkRate(rateLimitRate);
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Faults build() {
+            return new Faults(this);
+        }
+
+        private static double checkRate(double rate) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("rate must be between 0 and 1");
+            }
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package kin.horizon.fake;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import kin.base.codec.Base64;
+import kin.horizon.fake.LedgerState.AccountState;
+import kin.horizon.fake.LedgerState.LedgerRecord;
+import kin.horizon.fake.LedgerState.Submission;
+import kin.horizon.fake.LedgerState.TransactionRecord;
+import kin.base.xdr.Memo;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Serves the Horizon REST resources and Server-Sent Events streams of a {@link LedgerState}.
+ * <p>
+ * Streams are served as long polls: the response is held until new records are available (or the stream timeout
+ * elapsed), then the records are written as events with their paging token as id and the response ends. SSE clients
+ * reconnect right away with the <code>Last-Event-ID</code> header, so no event is lost between two polls.
+ * </p>
+ */
+class HorizonDispatcher extends Dispatcher {
+
+    private static final String EVENT_STREAM = "text/event-stream";
+    private static final String JSON = "application/hal+json; charset=utf-8";
+    private static final String PROBLEM_JSON = "application/problem+json; charset=utf-8";
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 200;
+    private static final int STREAM_RETRY_MILLIS = 100;
+    private static final String RATE_LIMIT = "3600";
+
+    private final LedgerState state;
+    private final Faults faults;
+    private final boolean closeLedgerOnSubmit;
+    private final long submissionTimeoutMillis;
+    private final long streamTimeoutMillis;
+
+    HorizonDispatcher(LedgerState state, Faults faults, boolean closeLedgerOnSubmit, long submissionTimeoutMillis,
+        long streamTimeoutMillis) {
+        this.state = state;
+        this.faults = faults;
+        this.closeLedgerOnSubmit = closeLedgerOnSubmit;
+        this.submissionTimeoutMillis = submissionTimeoutMillis;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        long latencyMillis = faults.nextLatencyMillis();
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+        if (faults.nextRateLimited()) {
+            return problem(429, "rate_limit_exceeded", "Rate Limit Exceeded")
+                .addHeader("Retry-After", faults.getRetryAfterSeconds());
+        }
+        if (faults.nextError()) {
+            return problem(500, "server_error", "Internal Server Error");
+        }
+
+        HttpUrl url = request.getRequestUrl();
+        List<String> segments = url.pathSegments();
+        String resource = segments.get(0);
+        String id = segments.size() > 1 && !segments.get(1).isEmpty() ? segments.get(1) : null;
+        String subresource = segments.size() > 2 ? segments.get(2) : null;
+        boolean stream = isEventStream(request);
+
+        if ("POST".equals(request.getMethod())) {
+            if ("transactions".equals(resource) && id == null) {
+                return submitTransaction(request.getUtf8Body());
+            }
+            return problem(404, "not_found", "Resource Missing");
+        }
+        if ("accounts".equals(resource) && id != null && subresource == null) {
+            return account(id);
+        }
+        if ("accounts".equals(resource) && id != null && "transactions".equals(subresource)) {
+            return transactions(url, id, stream, request.getHeader("Last-Event-ID"));
+        }
+        if ("ledgers".equals(resource) && id == null) {
+            return ledgers(url, stream, request.getHeader("Last-Event-ID"));
+        }
+        if ("ledgers".equals(resource) && subresource == null) {
+            return ledger(id);
+        }
+        if ("transactions".equals(resource) && id == null) {
+            return transactions(url, null, stream, request.getHeader("Last-Event-ID"));
+        }
+        if ("transactions".equals(resource) && subresource == null) {
+            return transaction(id);
+        }
+        return problem(404, "not_found", "Resource Missing");
+    }
+
+    private MockResponse account(String accountId) {
+        AccountState account = state.getAccount(accountId);
+        if (account == null) {
+            return problem(404, "not_found", "Resource Missing");
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("id", accountId);
+        json.addProperty("paging_token", "");
+        json.addProperty("account_id", accountId);
+        json.addProperty("sequence", String.valueOf(account.sequence));
+        json.addProperty("subentry_count", 0);
+        JsonObject thresholds = new JsonObject();
+        thresholds.addProperty("low_threshold", 0);
+        thresholds.addProperty("med_threshold", 0);
+        thresholds.addProperty("high_threshold", 0);
+        json.add("thresholds", thresholds);
+        JsonObject flags = new JsonObject();
+        flags.addProperty("auth_required", false);
+        flags.addProperty("auth_revocable", false);
+        json.add("flags", flags);
+        JsonArray balances = new JsonArray();
+        JsonObject balance = new JsonObject();
+        balance.addProperty("balance", LedgerState.toAmount(account.balance));
+        balance.addProperty("asset_type", "native");
+        balances.add(balance);
+        json.add("balances", balances);
+        JsonArray signers = new JsonArray();
+        JsonObject signer = new JsonObject();
+        signer.addProperty("public_key", accountId);
+        signer.addProperty("weight", 1);
+        signers.add(signer);
+        json.add("signers", signers);
+        return json(200, json);
+    }
+
+    private MockResponse ledger(String sequence) {
+        LedgerRecord ledger;
+        try {
+            ledger = state.getLedger(Long.parseLong(sequence));
+        } catch (NumberFormatException e) {
+            ledger = null;
+        }
+        if (ledger == null) {
+            return problem(404, "not_found", "Resource Missing");
+        }
+        return json(200, toJson(ledger));
+    }
+
+    private MockResponse transaction(String hash) {
+        TransactionRecord transaction = state.getTransaction(hash);
+        if (transaction == null) {
+            return problem(404, "not_found", "Resource Missing");
+        }
+        return json(200, toJson(transaction));
+    }
+
+    private MockResponse ledgers(HttpUrl url, boolean stream, String lastEventId) throws InterruptedException {
+        boolean descending = "desc".equals(url.queryParameter("order"));
+        int limit = limit(url);
+        if (stream) {
+            long cursor = streamCursor(url, lastEventId);
+            long deadline = System.currentTimeMillis() + streamTimeoutMillis;
+            List<LedgerRecord> ledgers = state.ledgers(cursor, false, limit);
+            while (ledgers.isEmpty() && System.currentTimeMillis() < deadline && !state.isClosed()) {
+                state.awaitLedgerAfter(state.getLedgerSequence(), deadline - System.currentTimeMillis());
+                ledgers = state.ledgers(cursor, false, limit);
+            }
+            StringBuilder events = new StringBuilder();
+            for (LedgerRecord ledger : ledgers) {
+                appendEvent(events, ledger.pagingToken, toJson(ledger));
+            }
+            return eventStream(events);
+        }
+        long cursor = pageCursor(url, descending);
+        List<LedgerRecord> ledgers = state.ledgers(cursor, descending, limit);
+        JsonArray records = new JsonArray();
+        long last = cursor;
+        for (LedgerRecord ledger : ledgers) {
+            records.add(toJson(ledger));
+            last = ledger.pagingToken;
+        }
+        return json(200, page(url, records, last));
+    }
+
+    private MockResponse transactions(HttpUrl url, String accountId, boolean stream, String lastEventId)
+        throws InterruptedException {
+        if (accountId != null && state.getAccount(accountId) == null && !stream) {
+            return problem(404, "not_found", "Resource Missing");
+        }
+        boolean descending = "desc".equals(url.queryParameter("order"));
+        int limit = limit(url);
+        if (stream) {
+            long cursor = streamCursor(url, lastEventId);
+            long deadline = System.currentTimeMillis() + streamTimeoutMillis;
+            List<TransactionRecord> transactions = state.transactions(accountId, cursor, false, limit);
+            while (transactions.isEmpty() && System.currentTimeMillis() < deadline && !state.isClosed()) {
+                state.awaitLedgerAfter(state.getLedgerSequence(), deadline - System.currentTimeMillis());
+                transactions = state.transactions(accountId, cursor, false, limit);
+            }
+            StringBuilder events = new StringBuilder();
+            for (TransactionRecord transaction : transactions) {
+                appendEvent(events, transaction.pagingToken, toJson(transaction));
+            }
+            return eventStream(events);
+        }
+        long cursor = pageCursor(url, descending);
+        List<TransactionRecord> transactions = state.transactions(accountId, cursor, descending, limit);
+        JsonArray records = new JsonArray();
+        long last = cursor;
+        for (TransactionRecord transaction : transactions) {
+            records.add(toJson(transaction));
+            last = transaction.pagingToken;
+        }
+        return json(200, page(url, records, last));
+    }
+
+    private MockResponse submitTransaction(String formBody) throws InterruptedException {
+        String envelopeXdr = null;
+        for (String field : formBody.split("&")) {
+            if (field.startsWith("tx=")) {
+                envelopeXdr = HttpUrl.parse("http://localhost/?" + field).queryParameter("tx");
+            }
+        }
+        Submission submission;
+        try {
+            if (envelopeXdr == null) {
+                throw new IOException("Missing tx");
+            }
+            submission = state.submit(envelopeXdr);
+        } catch (IOException | RuntimeException e) {
+            return problem(400, "transaction_malformed", "Transaction Malformed");
+        }
+        if (closeLedgerOnSubmit) {
+            state.closeLedger();
+        }
+        if (!submission.await(submissionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            return problem(504, "timeout", "Timeout");
+        }
+        TransactionRecord record = submission.getRecord();
+        if (record != null) {
+            JsonObject json = new JsonObject();
+            json.addProperty("hash", record.hash);
+            json.addProperty("ledger", record.ledger);
+            json.addProperty("envelope_xdr", record.envelopeXdr);
+            json.addProperty("result_xdr", record.resultXdr);
+            json.addProperty("result_meta_xdr", record.resultMetaXdr);
+            return json(200, json);
+        }
+        JsonObject resultCodes = new JsonObject();
+        resultCodes.addProperty("transaction", submission.getResultCode());
+        JsonArray operations = new JsonArray();
+        for (String operationCode : submission.getOperationCodes()) {
+            operations.add(operationCode);
+        }
+        if (operations.size() > 0) {
+            resultCodes.add("operations", operations);
+        }
+        JsonObject extras = new JsonObject();
+        extras.addProperty("envelope_xdr", submission.envelopeXdr);
+        extras.add("result_codes", resultCodes);
+        extras.addProperty("result_xdr", submission.getResultXdr());
+        JsonObject json = problemJson(400, "transaction_failed", "Transaction Failed");
+        json.add("extras", extras);
+        return new MockResponse()
+            .setResponseCode(400)
+            .setHeader("Content-Type", PROBLEM_JSON)
+            .setBody(json.toString());
+    }
+
+    private JsonObject toJson(LedgerRecord ledger) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", ledgerHash(ledger.sequence));
+        json.addProperty("paging_token", String.valueOf(ledger.pagingToken));
+        json.addProperty("hash", ledgerHash(ledger.sequence));
+        if (ledger.sequence > 1) {
+            json.addProperty("prev_hash", ledgerHash(ledger.sequence - 1));
+        }
+        json.addProperty("sequence", ledger.sequence);
+        json.addProperty("transaction_count", ledger.transactionCount);
+        json.addProperty("operation_count", ledger.operationCount);
+        json.addProperty("closed_at", formatTime(ledger.closedAtMillis));
+        json.addProperty("total_coins", "10000000000000.00000");
+        json.addProperty("fee_pool", "0.00000");
+        json.addProperty("base_fee_in_stroops", ledger.baseFee);
+        json.addProperty("base_reserve", "0");
+        json.addProperty("max_tx_set_size", 500);
+        return json;
+    }
+
+    private JsonObject toJson(TransactionRecord transaction) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", transaction.hash);
+        json.addProperty("paging_token", String.valueOf(transaction.pagingToken));
+        json.addProperty("hash", transaction.hash);
+        json.addProperty("ledger", transaction.ledger);
+        json.addProperty("created_at", formatTime(transaction.createdAtMillis));
+        json.addProperty("source_account", transaction.sourceAccount);
+        json.addProperty("source_account_sequence", String.valueOf(transaction.sourceAccountSequence));
+        json.addProperty("fee_paid", transaction.feePaid);
+        json.addProperty("operation_count", transaction.operationCount);
+        json.addProperty("envelope_xdr", transaction.envelopeXdr);
+        json.addProperty("result_xdr", transaction.resultXdr);
+        json.addProperty("result_meta_xdr", transaction.resultMetaXdr);
+        addMemo(json, transaction.memo);
+        return json;
+    }
+
+    private static void addMemo(JsonObject json, Memo memo) {
+        switch (memo.getDiscriminant()) {
+            case MEMO_TEXT:
+                json.addProperty("memo_type", "text");
+                json.addProperty("memo", memo.getText());
+                break;
+            case MEMO_ID:
+                json.addProperty("memo_type", "id");
+                json.addProperty("memo", String.valueOf(memo.getId().getUint64()));
+                break;
+            case MEMO_HASH:
+                json.addProperty("memo_type", "hash");
+                json.addProperty("memo", Base64.encodeBase64String(memo.getHash().getHash()));
+                break;
+            case MEMO_RETURN:
+                json.addProperty("memo_type", "return");
+                json.addProperty("memo", Base64.encodeBase64String(memo.getRetHash().getHash()));
+                break;
+            default:
+                json.addProperty("memo_type", "none");
+        }
+    }
+
+    private static JsonObject page(HttpUrl url, JsonArray records, long lastPagingToken) {
+        JsonObject links = new JsonObject();
+        links.add("self", link(url));
+        links.add("next", link(url.newBuilder().setQueryParameter("cursor", String.valueOf(lastPagingToken)).build()));
+        JsonObject embedded = new JsonObject();
+        embedded.add("records", records);
+        JsonObject json = new JsonObject();
+        json.add("_links", links);
+        json.add("_embedded", embedded);
+        return json;
+    }
+
+    private static JsonObject link(HttpUrl url) {
+        JsonObject link = new JsonObject();
+        link.addProperty("href", url.toString());
+        return link;
+    }
+
+    private long streamCursor(HttpUrl url, String lastEventId) {
+        String cursor = lastEventId != null ? lastEventId : url.queryParameter("cursor");
+        if (cursor == null || "now".equals(cursor)) {
+            // Everything up to the last closed ledger is in the past.
+            return LedgerState.ledgerPagingToken(state.getLedgerSequence() + 1) - 1;
+        }
+        return parseCursor(cursor);
+    }
+
+    private static long pageCursor(HttpUrl url, boolean descending) {
+        String cursor = url.queryParameter("cursor");
+        if (cursor == null || cursor.isEmpty()) {
+            return descending ? Long.MAX_VALUE : 0;
+        }
+        return parseCursor(cursor);
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static int limit(HttpUrl url) {
+        String limit = url.queryParameter("limit");
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limit)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_LIMIT;
+        }
+    }
+
+    private static boolean isEventStream(RecordedRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(EVENT_STREAM);
+    }
+
+    private static void appendEvent(StringBuilder events, long id, JsonObject data) {
+        events.append("id: ").append(id).append('\n')
+            .append("data: ").append(data.toString()).append("\n\n");
+    }
+
+    private static MockResponse eventStream(StringBuilder events) {
+        return new MockResponse()
+            .setHeader("Content-Type", EVENT_STREAM)
+            .setBody("retry: " + STREAM_RETRY_MILLIS + "\n\n" + events);
+    }
+
+    private static MockResponse json(int code, JsonObject json) {
+        return new MockResponse()
+            .setResponseCode(code)
+            .setHeader("Content-Type", JSON)
+            .setHeader("X-Ratelimit-Limit", RATE_LIMIT)
+            .setHeader("X-Ratelimit-Remaining", RATE_LIMIT)
+            .setHeader("X-Ratelimit-Reset", RATE_LIMIT)
+            .setBody(json.toString());
+    }
+
+    private static MockResponse problem(int status, String type, String title) {
+        return new MockResponse()
+            .setResponseCode(status)
+            .setHeader("Content-Type", PROBLEM_JSON)
+            .setBody(problemJson(status, type, title).toString());
+    }
+
+    private static JsonObject problemJson(int status, String type, String title) {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", "https://stellar.org/horizon-errors/" + type);
+        json.addProperty("title", title);
+        json.addProperty("status", status);
+        return json;
+    }
+
+    private static String ledgerHash(long sequence) {
+        return String.format(Locale.US, "%064x", sequence);
+    }
+
+    private static String formatTime(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+}
@@ -0,0 +1,536 @@
+package kin.horizon.fake;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import kin.base.AssetTypeNative;
+import kin.base.CreateAccountOperation;
+import kin.base.KeyPair;
+import kin.base.Network;
+import kin.base.Operation;
+import kin.base.PaymentOperation;
+import kin.base.Transaction;
+import kin.base.codec.Base64;
+import kin.base.xdr.CreateAccountResultCode;
+import kin.base.xdr.DecoratedSignature;
+import kin.base.xdr.LedgerEntryChange;
+import kin.base.xdr.OperationResult;
+import kin.base.xdr.PaymentResultCode;
+import kin.base.xdr.TransactionEnvelope;
+import kin.base.xdr.TransactionResultCode;
+import kin.base.xdr.XdrDataInputStream;
+
+/**
+ * In-memory ledger of {@link FakeHorizon}: accounts with their native balance and sequence number, closed ledgers
+ * and applied transactions.
+ * <p>
+ * Submitted transactions are queued and applied in submission order when the next ledger closes, following the core
+ * rules the SDK relies on: sequence number, fee, source signature and balances. Only <code>CREATE_ACCOUNT</code> and
+ * native <code>PAYMENT</code> operations are supported. As in Horizon, only successful transactions are recorded.
+ * </p>
+ * All methods are synchronized on the instance, which is also notified on every ledger close.
+ */
+class LedgerState {
+
+    static final int AMOUNT_DECIMALS = 5;
+
+    private static final long TOID_LEDGER_SHIFT = 32;
+    private static final long TOID_TRANSACTION_SHIFT = 12;
+
+    private final byte[] networkId;
+    private final int baseFee;
+    private final Map<String, AccountState> accounts = new HashMap<>();
+    private final List<LedgerRecord> ledgers = new ArrayList<>();
+    private final List<TransactionRecord> transactions = new ArrayList<>();
+    private final Map<String, TransactionRecord> transactionsByHash = new HashMap<>();
+    private final List<Submission> pending = new ArrayList<>();
+    private boolean closed;
+
+    LedgerState(Network network, int baseFee) {
+        this.networkId = network.getNetworkId();
+        this.baseFee = baseFee;
+        // Genesis.
+        ledgers.add(new LedgerRecord(1, 0, 0, baseFee, System.currentTimeMillis()));
+    }
+
+    static long toStroops(String amount) {
+        return new BigDecimal(amount).movePointRight(AMOUNT_DECIMALS).longValueExact();
+    }
+
+    static String toAmount(long stroops) {
+        return BigDecimal.valueOf(stroops, AMOUNT_DECIMALS).toPlainString();
+    }
+
+    static long ledgerPagingToken(long ledgerSequence) {
+        return ledgerSequence << TOID_LEDGER_SHIFT;
+    }
+
+    synchronized int getBaseFee() {
+        return baseFee;
+    }
+
+    synchronized void createAccount(String accountId, long balance) {
+        if (accounts.containsKey(accountId)) {
+            throw new IllegalArgumentException("Account " + accountId + " already exists");
+        }
+        accounts.put(accountId, new AccountState(accountId, balance, ledgerPagingToken(getLedgerSequence())));
+    }
+
+    /**
+     * Returns a copy of the account, or null if it doesn't exist.
+     */
+    synchronized AccountState getAccount(String accountId) {
+        AccountState account = accounts.get(accountId);
+        return account != null ? account.copy() : null;
+    }
+
+    synchronized long getLedgerSequence() {
+        return ledgers.get(ledgers.size() - 1).sequence;
+    }
+
+    synchronized LedgerRecord getLedger(long sequence) {
+        return sequence >= 1 && sequence <= ledgers.size() ? ledgers.get((int) sequence - 1) : null;
+    }
+
+    synchronized TransactionRecord getTransaction(String hash) {
+        return transactionsByHash.get(hash);
+    }
+
+    synchronized int getTransactionCount() {
+        return transactions.size();
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns up to <code>limit</code> ledgers after (or before, when <code>descending</code>) the
+     * <code>cursor</code> paging token.
+     */
+    synchronized List<LedgerRecord> ledgers(long cursor, boolean descending, int limit) {
+        List<LedgerRecord> page = new ArrayList<>();
+        if (descending) {
+            for (int i = ledgers.size() - 1; i >= 0 && page.size() < limit; i--) {
+                if (ledgers.get(i).pagingToken < cursor) {
+                    page.add(ledgers.get(i));
+                }
+            }
+        } else {
+            for (int i = 0; i < ledgers.size() && page.size() < limit; i++) {
+                if (ledgers.get(i).pagingToken > cursor) {
+                    page.add(ledgers.get(i));
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns up to <code>limit</code> transactions after (or before) <code>cursor</code>, involving
+     * <code>accountId</code> if not null.
+     */
+    synchronized List<TransactionRecord> transactions(String accountId, long cursor, boolean descending,
+        int limit) {
+        List<TransactionRecord> page = new ArrayList<>();
+        int size = transactions.size();
+        for (int n = 0; n < size && page.size() < limit; n++) {
+            TransactionRecord transaction = transactions.get(descending ? size - 1 - n : n);
+            boolean inRange = descending ? transaction.pagingToken < cursor : transaction.pagingToken > cursor;
+            if (inRange && (accountId == null || transaction.participants.contains(accountId))) {
+                page.add(transaction);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Waits until a ledger after <code>ledgerSequence</code> is closed, or <code>timeoutMillis</code> elapsed.
+     */
+    synchronized void awaitLedgerAfter(long ledgerSequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (getLedgerSequence() <= ledgerSequence && remaining > 0 && !closed) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Releases the waiting streams, for shutdown.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Queues a transaction for the next ledger.
+     *
+     * @throws IOException when the envelope can't be decoded.
+     */
+    synchronized Submission submit(String envelopeXdr) throws IOException {
+        TransactionEnvelope envelope = TransactionEnvelope.decode(
+            new XdrDataInputStream(new ByteArrayInputStream(Base64.decodeBase64(envelopeXdr))));
+        String hash = toHex(XdrEncoder.hash(networkId, envelope.getTx()));
+        Submission submission = new Submission(hash, envelopeXdr, envelope);
+        TransactionRecord existing = transactionsByHash.get(hash);
+        if (existing != null) {
+            // Already applied, as Horizon does for a resubmitted transaction.
+            submission.complete(existing, null, null, null);
+        } else {
+            pending.add(submission);
+        }
+        return submission;
+    }
+
+    /**
+     * Closes a ledger, applying the queued transactions.
+     */
+    synchronized LedgerRecord closeLedger() {
+        long sequence = getLedgerSequence() + 1;
+        List<Submission> applying = new ArrayList<>(pending);
+        pending.clear();
+        int transactionCount = 0;
+        int operationCount = 0;
+        for (Submission submission : applying) {
+            TransactionRecord record = apply(submission, sequence, transactionCount);
+            if (record != null) {
+                transactions.add(record);
+                transactionsByHash.put(record.hash, record);
+                transactionCount++;
+                operationCount += record.operationCount;
+            }
+        }
+        LedgerRecord ledger = new LedgerRecord(sequence, transactionCount, operationCount, baseFee,
+            System.currentTimeMillis());
+        ledgers.add(ledger);
+        notifyAll();
+        return ledger;
+    }
+
+    private TransactionRecord apply(Submission submission, long ledgerSequence, int index) {
+        Transaction transaction;
+        try {
+            transaction = Transaction.fromEnvelopeXdr(submission.envelope);
+        } catch (RuntimeException e) {
+            fail(submission, TransactionResultCode.txFAILED, "tx_malformed", 0, null, null);
+            return null;
+        }
+        String sourceId = transaction.getSourceAccount().getAccountId();
+        AccountState source = accounts.get(sourceId);
+        Operation[] operations = transaction.getOperations();
+        long fee = transaction.getFee();
+        if (source == null) {
+            fail(submission, TransactionResultCode.txNO_ACCOUNT, "tx_no_source_account", 0, null, null);
+            return null;
+        }
+        if (transaction.getSequenceNumber() != source.sequence + 1) {
+            fail(submission, TransactionResultCode.txBAD_SEQ, "tx_bad_seq", 0, null, null);
+            return null;
+        }
+        if (operations.length == 0) {
+            fail(submission, TransactionResultCode.txMISSING_OPERATION, "tx_missing_operation", 0, null, null);
+            return null;
+        }
+        if (fee < (long) baseFee * operations.length) {
+            fail(submission, TransactionResultCode.txINSUFFICIENT_FEE, "tx_insufficient_fee", 0, null, null);
+            return null;
+        }
+        if (!isSignedBySource(submission, transaction.getSourceAccount())) {
+            fail(submission, TransactionResultCode.txBAD_AUTH, "tx_bad_auth", 0, null, null);
+            return null;
+        }
+        if (source.balance < fee) {
+            fail(submission, TransactionResultCode.txINSUFFICIENT_BALANCE, "tx_insufficient_balance", 0, null,
+                null);
+            return null;
+        }
+
+        // Fee and sequence number are consumed even if an operation fails.
+        source.balance -= fee;
+        source.sequence = transaction.getSequenceNumber();
+
+        Map<String, AccountState> touched = new HashMap<>();
+        OperationResult[] results = new OperationResult[operations.length];
+        List<String> operationCodes = new ArrayList<>(operations.length);
+        List<LedgerEntryChange[]> changes = new ArrayList<>(operations.length);
+        Set<String> participants = new LinkedHashSet<>();
+        participants.add(sourceId);
+        boolean failed = false;
+        for (int i = 0; i < operations.length; i++) {
+            Operation operation = operations[i];
+            String payerId = operation.getSourceAccount() != null
+                ? operation.getSourceAccount().getAccountId() : sourceId;
+            AccountState payer = stateFor(payerId, touched);
+            String code;
+            if (operation instanceof CreateAccountOperation) {
+                CreateAccountOperation createAccount = (CreateAccountOperation) operation;
+                String destinationId = createAccount.getDestination().getAccountId();
+                long amount = toStroops(createAccount.getStartingBalance());
+                participants.add(destinationId);
+                if (payer == null) {
+                    code = "op_no_source_account";
+                    results[i] = XdrEncoder.createAccountResult(CreateAccountResultCode.CREATE_ACCOUNT_MALFORMED);
+                } else if (stateFor(destinationId, touched) != null) {
+                    code = "op_already_exists";
+                    results[i] = XdrEncoder
+                        .createAccountResult(CreateAccountResultCode.CREATE_ACCOUNT_ALREADY_EXIST);
+                } else if (payer.balance < amount) {
+                    code = "op_underfunded";
+                    results[i] = XdrEncoder
+                        .createAccountResult(CreateAccountResultCode.CREATE_ACCOUNT_UNDERFUNDED);
+                } else {
+                    code = "op_success";
+                    results[i] = XdrEncoder.createAccountResult(CreateAccountResultCode.CREATE_ACCOUNT_SUCCESS);
+                    payer.balance -= amount;
+                    AccountState created = new AccountState(destinationId, amount,
+                        ledgerPagingToken(ledgerSequence));
+                    touched.put(destinationId, created);
+                    changes.add(new LedgerEntryChange[]{
+                        XdrEncoder.accountChange(false, payerId, payer.balance, payer.sequence, ledgerSequence),
+                        XdrEncoder.accountChange(true, destinationId, amount, created.sequence, ledgerSequence)});
+                }
+            } else if (operation instanceof PaymentOperation
+                && ((PaymentOperation) operation).getAsset() instanceof AssetTypeNative) {
+                PaymentOperation payment = (PaymentOperation) operation;
+                String destinationId = payment.getDestination().getAccountId();
+                long amount = toStroops(payment.getAmount());
+                participants.add(destinationId);
+                AccountState destination = stateFor(destinationId, touched);
+                if (payer == null) {
+                    code = "op_no_source_account";
+                    results[i] = XdrEncoder.paymentResult(PaymentResultCode.PAYMENT_MALFORMED);
+                } else if (destination == null) {
+                    code = "op_no_destination";
+                    results[i] = XdrEncoder.paymentResult(PaymentResultCode.PAYMENT_NO_DESTINATION);
+                } else if (payer.balance < amount) {
+                    code = "op_underfunded";
+                    results[i] = XdrEncoder.paymentResult(PaymentResultCode.PAYMENT_UNDERFUNDED);
+                } else {
+                    code = "op_success";
+                    results[i] = XdrEncoder.paymentResult(PaymentResultCode.PAYMENT_SUCCESS);
+                    payer.balance -= amount;
+                    destination.balance += amount;
+                    changes.add(new LedgerEntryChange[]{
+                        XdrEncoder.accountChange(false, payerId, payer.balance, payer.sequence, ledgerSequence),
+                        XdrEncoder.accountChange(false, destinationId, destination.balance, destination.sequence,
+                            ledgerSequence)});
+                }
+            } else {
+                code = "op_not_supported";
+                results[i] = XdrEncoder.paymentResult(PaymentResultCode.PAYMENT_MALFORMED);
+            }
+            operationCodes.add(code);
+            failed |= !"op_success".equals(code);
+        }
+
+        if (failed) {
+            fail(submission, TransactionResultCode.txFAILED, "tx_failed", fee, results, operationCodes);
+            return null;
+        }
+        for (AccountState account : touched.values()) {
+            accounts.put(account.accountId, account);
+        }
+        try {
+            TransactionRecord record = new TransactionRecord(submission.hash, ledgerSequence,
+                ledgerPagingToken(ledgerSequence) | ((long) (index + 1) << TOID_TRANSACTION_SHIFT), sourceId,
+                transaction.getSequenceNumber(), fee, operations.length, submission.envelopeXdr,
+                XdrEncoder.result(fee, TransactionResultCode.txSUCCESS, results), XdrEncoder.meta(changes),
+                submission.envelope.getTx().getMemo(), participants, System.currentTimeMillis());
+            submission.complete(record, null, null, null);
+            return record;
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't encode transaction result", e);
+        }
+    }
+
+    /**
+     * Returns the working copy of an account for the transaction being applied, or null if it doesn't exist.
+     */
+    private AccountState stateFor(String accountId, Map<String, AccountState> touched) {
+        AccountState account = touched.get(accountId);
+        if (account == null) {
+            AccountState committed = accounts.get(accountId);
+            if (committed == null) {
+                return null;
+            }
+            account = committed.copy();
+            touched.put(accountId, account);
+        }
+        return account;
+    }
+
+    private boolean isSignedBySource(Submission submission, KeyPair source) {
+        byte[] hash = fromHex(submission.hash);
+        for (DecoratedSignature signature : submission.envelope.getSignatures()) {
+            if (source.verify(hash, signature.getSignature().getSignature())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void fail(Submission submission, TransactionResultCode resultCode, String code, long fee,
+        OperationResult[] results, List<String> operationCodes) {
+        try {
+            submission.complete(null, code,
+                operationCodes != null ? operationCodes : Collections.<String>emptyList(),
+                XdrEncoder.result(fee, resultCode, results));
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't encode transaction result", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    static class AccountState {
+
+        final String accountId;
+        long balance;
+        long sequence;
+
+        AccountState(String accountId, long balance, long sequence) {
+            this.accountId = accountId;
+            this.balance = balance;
+            this.sequence = sequence;
+        }
+
+        AccountState copy() {
+            return new AccountState(accountId, balance, sequence);
+        }
+    }
+
+    static class LedgerRecord {
+
+        final long sequence;
+        final long pagingToken;
+        final int transactionCount;
+        final int operationCount;
+        final int baseFee;
+        final long closedAtMillis;
+
+        LedgerRecord(long sequence, int transactionCount, int operationCount, int baseFee, long closedAtMillis) {
+            this.sequence = sequence;
+            this.pagingToken = ledgerPagingToken(sequence);
+            this.transactionCount = transactionCount;
+            this.operationCount = operationCount;
+            this.baseFee = baseFee;
+            this.closedAtMillis = closedAtMillis;
+        }
+    }
+
+    static class TransactionRecord {
+
+        final String hash;
+        final long ledger;
+        final long pagingToken;
+        final String sourceAccount;
+        final long sourceAccountSequence;
+        final long feePaid;
+        final int operationCount;
+        final String envelopeXdr;
+        final String resultXdr;
+        final String resultMetaXdr;
+        final kin.base.xdr.Memo memo;
+        final Set<String> participants;
+        final long createdAtMillis;
+
+        TransactionRecord(String hash, long ledger, long pagingToken, String sourceAccount,
+            long sourceAccountSequence, long feePaid, int operationCount, String envelopeXdr, String resultXdr,
+            String resultMetaXdr, kin.base.xdr.Memo memo, Set<String> participants, long createdAtMillis) {
+            this.hash = hash;
+            this.ledger = ledger;
+            this.pagingToken = pagingToken;
+            this.sourceAccount = sourceAccount;
+            this.sourceAccountSequence = sourceAccountSequence;
+            this.feePaid = feePaid;
+            this.operationCount = operationCount;
+            this.envelopeXdr = envelopeXdr;
+            this.resultXdr = resultXdr;
+            this.resultMetaXdr = resultMetaXdr;
+            this.memo = memo;
+            this.participants = participants;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
+    /**
+     * A submitted transaction, completed when its ledger closes.
+     */
+    static class Submission {
+
+        final String hash;
+        final String envelopeXdr;
+        final TransactionEnvelope envelope;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private TransactionRecord record;
+        private String resultCode;
+        private List<String> operationCodes;
+        private String resultXdr;
+
+        Submission(String hash, String envelopeXdr, TransactionEnvelope envelope) {
+            this.hash = hash;
+            this.envelopeXdr = envelopeXdr;
+            this.envelope = envelope;
+        }
+
+        void complete(TransactionRecord record, String resultCode, List<String> operationCodes, String resultXdr) {
+            this.record = record;
+            this.resultCode = resultCode;
+            this.operationCodes = operationCodes;
+            this.resultXdr = resultXdr;
+            done.countDown();
+        }
+
+        boolean await(long timeout, TimeUnit timeUnit) throws InterruptedException {
+            return done.await(timeout, timeUnit);
+        }
+
+        /**
+         * Returns the applied transaction, or null if it failed.
+         */
+        TransactionRecord getRecord() {
+            return record;
+        }
+
+        String getResultCode() {
+            return resultCode;
+        }
+
+        List<String> getOperationCodes() {
+            return operationCodes;
+        }
+
+        String getResultXdr() {
+            return resultXdr;
+        }
+    }
+}
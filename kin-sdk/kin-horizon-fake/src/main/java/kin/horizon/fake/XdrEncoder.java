@@ -0,0 +1,189 @@
+package kin.horizon.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import kin.base.KeyPair;
+import kin.base.codec.Base64;
+import kin.base.xdr.AccountEntry;
+import kin.base.xdr.AccountID;
+import kin.base.xdr.CreateAccountResult;
+import kin.base.xdr.CreateAccountResultCode;
+import kin.base.xdr.EnvelopeType;
+import kin.base.xdr.Int64;
+import kin.base.xdr.LedgerEntry;
+import kin.base.xdr.LedgerEntryChange;
+import kin.base.xdr.LedgerEntryChangeType;
+import kin.base.xdr.LedgerEntryChanges;
+import kin.base.xdr.LedgerEntryType;
+import kin.base.xdr.OperationMeta;
+import kin.base.xdr.OperationResult;
+import kin.base.xdr.OperationResultCode;
+import kin.base.xdr.OperationType;
+import kin.base.xdr.PaymentResult;
+import kin.base.xdr.PaymentResultCode;
+import kin.base.xdr.SequenceNumber;
+import kin.base.xdr.Signer;
+import kin.base.xdr.String32;
+import kin.base.xdr.Thresholds;
+import kin.base.xdr.Transaction;
+import kin.base.xdr.TransactionMeta;
+import kin.base.xdr.TransactionResult;
+import kin.base.xdr.TransactionResultCode;
+import kin.base.xdr.Uint32;
+import kin.base.xdr.Uint64;
+import kin.base.xdr.XdrDataOutputStream;
+
+/**
+ * Builds the XDR fields of the fake Horizon responses: transaction hashes, <code>result_xdr</code> and
+ * <code>result_meta_xdr</code>.
+ */
+final class XdrEncoder {
+
+    private static final byte[] DEFAULT_THRESHOLDS = {1, 0, 0, 0};
+
+    private XdrEncoder() {
+    }
+
+    static byte[] hash(byte[] networkId, Transaction transaction) throws IOException {
+        ByteArrayOutputStream signatureBase = new ByteArrayOutputStream();
+        signatureBase.write(networkId);
+        signatureBase.write(ByteBuffer.allocate(4).putInt(EnvelopeType.ENVELOPE_TYPE_TX.getValue()).array());
+        XdrDataOutputStream xdrOutputStream = new XdrDataOutputStream(signatureBase);
+        Transaction.encode(xdrOutputStream, transaction);
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(signatureBase.toByteArray());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String result(long feeCharged, TransactionResultCode code, OperationResult[] results)
+        throws IOException {
+        TransactionResult result = new TransactionResult();
+        result.setFeeCharged(int64(feeCharged));
+        TransactionResult.TransactionResultResult resultResult = new TransactionResult.TransactionResultResult();
+        resultResult.setDiscriminant(code);
+        if (code == TransactionResultCode.txSUCCESS || code == TransactionResultCode.txFAILED) {
+            resultResult.setResults(results);
+        }
+        result.setResult(resultResult);
+        TransactionResult.TransactionResultExt ext = new TransactionResult.TransactionResultExt();
+        ext.setDiscriminant(0);
+        result.setExt(ext);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TransactionResult.encode(new XdrDataOutputStream(outputStream), result);
+        return Base64.encodeBase64String(outputStream.toByteArray());
+    }
+
+    static OperationResult createAccountResult(CreateAccountResultCode code) {
+        CreateAccountResult createAccountResult = new CreateAccountResult();
+        createAccountResult.setDiscriminant(code);
+        OperationResult.OperationResultTr tr = new OperationResult.OperationResultTr();
+        tr.setDiscriminant(OperationType.CREATE_ACCOUNT);
+        tr.setCreateAccountResult(createAccountResult);
+        return innerResult(tr);
+    }
+
+    static OperationResult paymentResult(PaymentResultCode code) {
+        PaymentResult paymentResult = new PaymentResult();
+        paymentResult.setDiscriminant(code);
+        OperationResult.OperationResultTr tr = new OperationResult.OperationResultTr();
+        tr.setDiscriminant(OperationType.PAYMENT);
+        tr.setPaymentResult(paymentResult);
+        return innerResult(tr);
+    }
+
+    private static OperationResult innerResult(OperationResult.OperationResultTr tr) {
+        OperationResult result = new OperationResult();
+        result.setDiscriminant(OperationResultCode.opINNER);
+        result.setTr(tr);
+        return result;
+    }
+
+    /**
+     * Encodes a <code>TransactionMeta</code> with the given account changes for each operation.
+     */
+    static String meta(List<LedgerEntryChange[]> operationChanges) throws IOException {
+        OperationMeta[] operationMetas = new OperationMeta[operationChanges.size()];
+        for (int i = 0; i < operationMetas.length; i++) {
+            LedgerEntryChanges changes = new LedgerEntryChanges();
+            changes.setLedgerEntryChanges(operationChanges.get(i));
+            operationMetas[i] = new OperationMeta();
+            operationMetas[i].setChanges(changes);
+        }
+        TransactionMeta meta = new TransactionMeta();
+        meta.setDiscriminant(0);
+        meta.setOperations(operationMetas);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TransactionMeta.encode(new XdrDataOutputStream(outputStream), meta);
+        return Base64.encodeBase64String(outputStream.toByteArray());
+    }
+
+    static LedgerEntryChange accountChange(boolean created, String accountId, long balance, long sequence,
+        long ledgerSequence) {
+        AccountEntry account = new AccountEntry();
+        AccountID accountID = new AccountID();
+        accountID.setAccountID(KeyPair.fromAccountId(accountId).getXdrPublicKey());
+        account.setAccountID(accountID);
+        account.setBalance(int64(balance));
+        SequenceNumber sequenceNumber = new SequenceNumber();
+        sequenceNumber.setSequenceNumber(uint64(sequence));
+        account.setSeqNum(sequenceNumber);
+        account.setNumSubEntries(uint32(0));
+        account.setFlags(uint32(0));
+        String32 homeDomain = new String32();
+        homeDomain.setString32("");
+        account.setHomeDomain(homeDomain);
+        Thresholds thresholds = new Thresholds();
+        thresholds.setThresholds(DEFAULT_THRESHOLDS);
+        account.setThresholds(thresholds);
+        account.setSigners(new Signer[0]);
+        AccountEntry.AccountEntryExt accountExt = new AccountEntry.AccountEntryExt();
+        accountExt.setDiscriminant(0);
+        account.setExt(accountExt);
+
+        LedgerEntry.LedgerEntryData data = new LedgerEntry.LedgerEntryData();
+        data.setDiscriminant(LedgerEntryType.ACCOUNT);
+        data.setAccount(account);
+        LedgerEntry entry = new LedgerEntry();
+        entry.setLastModifiedLedgerSeq(uint32((int) ledgerSequence));
+        entry.setData(data);
+        LedgerEntry.LedgerEntryExt entryExt = new LedgerEntry.LedgerEntryExt();
+        entryExt.setDiscriminant(0);
+        entry.setExt(entryExt);
+
+        LedgerEntryChange change = new LedgerEntryChange();
+        if (created) {
+            change.setDiscriminant(LedgerEntryChangeType.LEDGER_ENTRY_CREATED);
+            change.setCreated(entry);
+        } else {
+            change.setDiscriminant(LedgerEntryChangeType.LEDGER_ENTRY_UPDATED);
+            change.setUpdated(entry);
+        }
+        return change;
+    }
+
+    private static Int64 int64(long value) {
+        Int64 int64 = new Int64();
+        int64.setInt64(value);
+        return int64;
+    }
+
+    private static Uint64 uint64(long value) {
+        Uint64 uint64 = new Uint64();
+        uint64.setUint64(value);
+        return uint64;
+    }
+
+    private static Uint32 uint32(int value) {
+        Uint32 uint32 = new Uint32();
+        uint32.setUint32(value);
+        return uint32;
+    }
+}
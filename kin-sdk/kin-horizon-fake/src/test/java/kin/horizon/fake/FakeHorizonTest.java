@@ -0,0 +1,259 @@
+package kin.horizon.fake;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import kin.base.Account;
+import kin.base.AssetTypeNative;
+import kin.base.CreateAccountOperation;
+import kin.base.KeyPair;
+import kin.base.Network;
+import kin.base.PaymentOperation;
+import kin.base.Server;
+import kin.base.Transaction;
+import kin.base.requests.RequestBuilder.Order;
+import kin.base.requests.TooManyRequestsException;
+import kin.base.responses.AccountResponse;
+import kin.base.responses.HttpResponseException;
+import kin.base.responses.LedgerResponse;
+import kin.base.responses.Page;
+import kin.base.responses.SubmitTransactionResponse;
+import kin.base.responses.TransactionResponse;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class FakeHorizonTest {
+
+    private static final int FEE = 100;
+
+    private final KeyPair funder = KeyPair.random();
+    private final KeyPair recipient = KeyPair.random();
+    private FakeHorizon horizon;
+    private Server server;
+
+    @Before
+    public void setUp() throws IOException {
+        Network.useTestNetwork();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Network.use(null);
+        if (horizon != null) {
+            horizon.close();
+        }
+    }
+
+    private void start(FakeHorizon.Builder builder) throws IOException {
+        horizon = builder.build();
+        horizon.start();
+        horizon.createAccount(funder.getAccountId(), "1000");
+        server = new Server(horizon.getUrl());
+    }
+
+    private FakeHorizon.Builder closeOnSubmit() {
+        return new FakeHorizon.Builder(Network.current()).ledgerCloseInterval(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void submitTransaction_AppliesPayments() throws IOException {
+        start(closeOnSubmit());
+
+        SubmitTransactionResponse created = server.submitTransaction(createRecipient("100"));
+        assertTrue(created.isSuccess());
+        SubmitTransactionResponse paid = server.submitTransaction(payRecipient("25.5"));
+        assertTrue(paid.isSuccess());
+
+        assertEquals("874.49800", horizon.getBalance(funder.getAccountId()));
+        assertEquals("125.50000", horizon.getBalance(recipient.getAccountId()));
+        AccountResponse account = server.accounts().account(recipient);
+        assertEquals("125.50000", account.getBalances()[0].getBalance());
+        assertEquals(Long.valueOf(horizon.getSequenceNumber(recipient.getAccountId())), account.getSequenceNumber());
+        assertEquals(2, horizon.getTransactionCount());
+    }
+
+    @Test
+    public void submitTransaction_BadSequence_Fails() throws IOException {
+        start(closeOnSubmit());
+        Transaction transaction = new Transaction.Builder(new Account(funder, 41L))
+            .addOperation(new CreateAccountOperation.Builder(recipient, "100").build())
+            .addFee(FEE)
+            .build();
+        transaction.sign(funder);
+
+        SubmitTransactionResponse response = server.submitTransaction(transaction);
+
+        assertFalse(response.isSuccess());
+        assertEquals("tx_bad_seq", response.getExtras().getResultCodes().getTransactionResultCode());
+        assertNull(horizon.getBalance(recipient.getAccountId()));
+        assertEquals("1000.00000", horizon.getBalance(funder.getAccountId()));
+    }
+
+    @Test
+    public void submitTransaction_Underfunded_ConsumesFee() throws IOException {
+        start(closeOnSubmit());
+        server.submitTransaction(createRecipient("100"));
+
+        SubmitTransactionResponse response = server.submitTransaction(payRecipient("5000"));
+
+        assertFalse(response.isSuccess());
+        assertEquals("tx_failed", response.getExtras().getResultCodes().getTransactionResultCode());
+        assertEquals("op_underfunded", response.getExtras().getResultCodes().getOperationsResultCodes().get(0));
+        assertEquals("899.99800", horizon.getBalance(funder.getAccountId()));
+    }
+
+    @Test
+    public void transactions_ServedByHashAndPage() throws IOException {
+        start(closeOnSubmit());
+        SubmitTransactionResponse created = server.submitTransaction(createRecipient("100"));
+        server.submitTransaction(payRecipient("1"));
+
+        TransactionResponse transaction = server.transactions().transaction(created.getHash());
+        assertEquals(created.getHash(), transaction.getHash());
+        assertEquals(funder.getAccountId(), transaction.getSourceAccount().getAccountId());
+        assertEquals(1, transaction.getLedgerChanges().size());
+
+        Page<TransactionResponse> page = server.transactions().forAccount(recipient).limit(1).execute();
+        assertEquals(1, page.getRecords().size());
+        assertEquals(created.getHash(), page.getRecords().get(0).getHash());
+        page = server.transactions().forAccount(recipient).limit(1)
+            .cursor(page.getRecords().get(0).getPagingToken()).execute();
+        assertEquals(1, page.getRecords().size());
+        page = server.transactions().forAccount(recipient).limit(1)
+            .cursor(page.getRecords().get(0).getPagingToken()).execute();
+        assertEquals(0, page.getRecords().size());
+
+        Page<LedgerResponse> ledgers = server.ledgers().order(Order.DESC).limit(1).execute();
+        assertEquals(Long.valueOf(horizon.getLedgerSequence()), ledgers.getRecords().get(0).getSequence());
+        assertEquals(Long.valueOf(FEE), Long.valueOf(ledgers.getRecords().get(0).getBaseFee()));
+    }
+
+    @Test
+    public void stream_HoldsUntilNewTransactions() throws Exception {
+        start(closeOnSubmit());
+        server.submitTransaction(createRecipient("100"));
+        final Request request = new Request.Builder()
+            .url(horizon.getUrl() + "accounts/" + recipient.getAccountId() + "/transactions?cursor=now")
+            .header("Accept", "text/event-stream")
+            .build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> events = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return new OkHttpClient().newCall(request).execute().body().string();
+                }
+            });
+            // Let the stream connect before submitting.
+            Thread.sleep(500);
+            assertFalse(events.isDone());
+
+            SubmitTransactionResponse paid = server.submitTransaction(payRecipient("1"));
+
+            String body = events.get(10, TimeUnit.SECONDS);
+            TransactionResponse transaction = server.transactions().transaction(paid.getHash());
+            assertTrue(body.startsWith("retry: "));
+            assertTrue(body.contains("id: " + transaction.getPagingToken() + "\n"));
+            assertTrue(body.contains("\"hash\":\"" + paid.getHash() + "\""));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void stream_ResumesFromLastEventId() throws IOException {
+        start(closeOnSubmit());
+        server.submitTransaction(createRecipient("100"));
+        SubmitTransactionResponse paid = server.submitTransaction(payRecipient("1"));
+        String cursor = server.transactions().transaction(paid.getHash()).getPagingToken();
+        SubmitTransactionResponse next = server.submitTransaction(payRecipient("2"));
+        Request request = new Request.Builder()
+            .url(horizon.getUrl() + "transactions?cursor=now")
+            .header("Accept", "text/event-stream")
+            .header("Last-Event-ID", cursor)
+            .build();
+
+        String body = new OkHttpClient().newCall(request).execute().body().string();
+
+        assertFalse(body.contains(paid.getHash()));
+        assertTrue(body.contains(next.getHash()));
+    }
+
+    @Test
+    public void ledgerCloseInterval_ClosesLedgersOnTimer() throws Exception {
+        start(new FakeHorizon.Builder(Network.current()).ledgerCloseInterval(50, TimeUnit.MILLISECONDS));
+        Transaction transaction = createRecipient("100");
+
+        SubmitTransactionResponse response = server.submitTransaction(transaction);
+
+        assertTrue(response.isSuccess());
+        assertNotNull(horizon.getBalance(recipient.getAccountId()));
+        assertTrue(horizon.getLedgerSequence() > 1);
+    }
+
+    @Test
+    public void faults_ServerErrors() throws IOException {
+        start(new FakeHorizon.Builder(Network.current()).faults(new Faults.Builder().errorRate(1).build()));
+        try {
+            server.ledgers().execute();
+            fail("Expected HttpResponseException");
+        } catch (HttpResponseException e) {
+            assertEquals(500, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void faults_RateLimited() throws IOException {
+        start(new FakeHorizon.Builder(Network.current()).faults(new Faults.Builder().rateLimitRate(1, 3).build()));
+        try {
+            server.accounts().account(funder);
+            fail("Expected TooManyRequestsException");
+        } catch (TooManyRequestsException expected) {
+        }
+    }
+
+    @Test
+    public void faults_Latency() throws IOException {
+        start(new FakeHorizon.Builder(Network.current())
+            .faults(new Faults.Builder().latency(200, 0, TimeUnit.MILLISECONDS).build()));
+        long start = System.currentTimeMillis();
+
+        server.accounts().account(funder);
+
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+
+    private Transaction createRecipient(String startingBalance) throws IOException {
+        Transaction transaction = new Transaction.Builder(server.accounts().account(funder))
+            .addOperation(new CreateAccountOperation.Builder(recipient, startingBalance).build())
+            .addFee(FEE)
+            .build();
+        transaction.sign(funder);
+        return transaction;
+    }
+
+    private Transaction payRecipient(String amount) throws IOException {
+        Transaction transaction = new Transaction.Builder(server.accounts().account(funder))
+            .addOperation(new PaymentOperation.Builder(recipient, new AssetTypeNative(), amount).build())
+            .addFee(FEE)
+            .build();
+        transaction.sign(funder);
+        return transaction;
+    }
+}
@@ -63,6 +63,17 @@ abstract class AbstractKinAccount implements KinAccount {
         });
     }
 
+    @NonNull
+    @Override
+    public Request<CachedBalance> getCachedBalance() {
+        return new Request<>(new Callable<CachedBalance>() {
+            @Override
+            public CachedBalance call() throws Exception {
+                return getCachedBalanceSync();
+            }
+        });
+    }
+
     @NonNull
     @Override
     public Request<Integer> getStatus() {
@@ -6,7 +6,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import kin.base.KeyPair;
 import kin.base.Server;
-import kin.base.responses.AccountResponse;
+import kin.base.responses.AccountBalanceResponse;
 import kin.base.responses.HttpResponseException;
 import kin.sdk.exception.AccountNotFoundException;
 import kin.sdk.exception.OperationFailedException;
@@ -32,15 +32,13 @@ class AccountInfoRetriever {
         Balance balance = null;
 
         try {
-            AccountResponse accountResponse = server.accounts().account(KeyPair.fromAccountId(accountId));
-            if (accountResponse == null) {
+            AccountBalanceResponse accountBalance = server.accounts().accountBalance(KeyPair.fromAccountId(accountId));
+            if (accountBalance == null) {
                 throw new OperationFailedException("can't retrieve data for account " + accountId);
             }
-            for (AccountResponse.Balance assetBalance : accountResponse.getBalances()) {
-                if (assetBalance.getAsset().getType().equalsIgnoreCase("native")) {
-                    balance = new BalanceImpl(new BigDecimal(assetBalance.getBalance()));
-
-                }
+            if (accountBalance.getNativeBalance() != null) {
+                balance = new BalanceImpl(BigDecimal.valueOf(accountBalance.getNativeBalance(),
+                    AccountBalanceResponse.BALANCE_SCALE));
             }
         } catch (HttpResponseException httpError) {
             if (httpError.getStatusCode() == 404) {
@@ -0,0 +1,90 @@
+package kin.sdk;
+
+
+import android.support.annotation.Nullable;
+import com.here.oksse.ServerSentEvent;
+import java.util.List;
+import kin.base.KeyPair;
+import kin.base.LedgerEntryChanges;
+import kin.base.Operation;
+import kin.base.Server;
+import kin.base.requests.StreamStateListener;
+import kin.base.requests.TransactionsRequestBuilder;
+import kin.base.responses.TransactionResponse;
+import kin.sdk.AccountTransactionStream.StreamedTransaction;
+
+/**
+ * A single <code>transactions().forAccount(...)</code> stream shared by all the listeners of an account.
+ * <p>
+ * Each transaction is parsed once, and its XDR decoded at most once, whatever the number of listeners.
+ * </p>
+ */
+class AccountTransactionStream extends SharedStream<StreamedTransaction> {
+
+    private final Server server;
+    private final KeyPair account;
+    @Nullable
+    private final String cursor;
+
+    /**
+     * @param cursor the cursor to stream from, or null to stream from the first transaction of the account.
+     */
+    AccountTransactionStream(Server server, KeyPair account, @Nullable String cursor) {
+        this.server = server;
+        this.account = account;
+        this.cursor = cursor;
+    }
+
+    @Override
+    ServerSentEvent stream(StreamStateListener stateListener) {
+        TransactionsRequestBuilder request = server.transactions().forAccount(account);
+        if (cursor != null) {
+            request = request.cursor(cursor);
+        }
+        request.setStreamStateListener(stateListener);
+        return request.stream(new kin.base.requests.EventListener<TransactionResponse>() {
+            @Override
+            public void onEvent(TransactionResponse transactionResponse) {
+                deliver(new StreamedTransaction(transactionResponse));
+            }
+        });
+    }
+
+    /**
+     * A streamed transaction, decoding its envelope and result meta XDR lazily and only once.
+     */
+    static class StreamedTransaction {
+
+        private final TransactionResponse response;
+        private List<Operation> operations;
+        private List<LedgerEntryChanges> ledgerChanges;
+        private boolean operationsDecoded;
+        private boolean ledgerChangesDecoded;
+
+        StreamedTransaction(TransactionResponse response) {
+            this.response = response;
+        }
+
+        TransactionResponse getResponse() {
+            return response;
+        }
+
+        @Nullable
+        synchronized List<Operation> getOperations() {
+            if (!operationsDecoded) {
+                operations = response.getOperations();
+                operationsDecoded = true;
+            }
+            return operations;
+        }
+
+        @Nullable
+        synchronized List<LedgerEntryChanges> getLedgerChanges() {
+            if (!ledgerChangesDecoded) {
+                ledgerChanges = response.getLedgerChanges();
+                ledgerChangesDecoded = true;
+            }
+            return ledgerChanges;
+        }
+    }
+}
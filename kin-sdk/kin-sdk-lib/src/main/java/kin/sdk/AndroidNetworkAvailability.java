@@ -0,0 +1,33 @@
+package kin.sdk;
+
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import kin.base.requests.NetworkAvailability;
+
+/**
+ * Network availability from the {@link ConnectivityManager}. Requires the <code>ACCESS_NETWORK_STATE</code>
+ * permission, without it the network is always considered available.
+ */
+class AndroidNetworkAvailability implements NetworkAvailability {
+
+    private final Context context;
+    private final ConnectivityManager connectivityManager;
+
+    AndroidNetworkAvailability(Context context) {
+        this.context = context;
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    @Override
+    public boolean isNetworkAvailable() {
+        if (connectivityManager == null || context.checkCallingOrSelfPermission(
+            android.Manifest.permission.ACCESS_NETWORK_STATE) != PackageManager.PERMISSION_GRANTED) {
+            return true;
+        }
+        NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+}
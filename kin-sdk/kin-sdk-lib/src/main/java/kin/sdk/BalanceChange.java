@@ -0,0 +1,21 @@
+package kin.sdk;
+
+
+import java.math.BigDecimal;
+
+/**
+ * Represents a change of the balance of an account, read from an <code>account_credited</code> or
+ * <code>account_debited</code> effect.
+ */
+public interface BalanceChange {
+
+    /**
+     * Effect id.
+     */
+    String id();
+
+    /**
+     * Amount in kin added to the balance, negative if the account was debited.
+     */
+    BigDecimal amount();
+}
@@ -0,0 +1,25 @@
+package kin.sdk;
+
+
+import java.math.BigDecimal;
+
+class BalanceChangeImpl implements BalanceChange {
+
+    private final String id;
+    private final BigDecimal amount;
+
+    BalanceChangeImpl(String id, BigDecimal amount) {
+        this.id = id;
+        this.amount = amount;
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public BigDecimal amount() {
+        return amount;
+    }
+}
@@ -0,0 +1,98 @@
+package kin.sdk;
+
+
+import android.support.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import kin.base.requests.StreamState;
+
+/**
+ * The latest balance of an account, kept up to date by the balance changes of its live transactions stream.
+ * <p>
+ * The balance is only returned while the stream is connected. It's known once the stream delivered a change of the
+ * account, or once a network read completed without the stream delivering a change meanwhile. The balance of a
+ * previous connection is never returned, as the changes made while the stream was closed were missed.
+ * </p>
+ */
+class BalanceStore {
+
+    private final AccountTransactionStream stream;
+    @Nullable
+    private Entry entry;
+    private long version;
+
+    BalanceStore(AccountTransactionStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Stores a balance change delivered by the stream.
+     */
+    synchronized void update(BigDecimal value, long ledger) {
+        version++;
+        entry = new Entry(value, ledger, stream.getConnection());
+    }
+
+    /**
+     * Returns the stored balance, or null if the stream is not connected or has not received it yet.
+     */
+    @Nullable
+    synchronized CachedBalance get() {
+        if (entry == null || entry.connection != stream.getConnection() || !isConnected()) {
+            return null;
+        }
+        return new CachedBalanceImpl(entry.value, entry.ledger, now() - entry.receivedAt, false);
+    }
+
+    /**
+     * Starts a network read, to be completed with {@link #completeRead(Read, BigDecimal)}.
+     */
+    synchronized Read startRead() {
+        return new Read(isConnected() ? version : -1, stream.getConnection());
+    }
+
+    /**
+     * Stores a balance read from the network, unless the stream was not connected during the whole read or delivered
+     * a newer balance meanwhile.
+     */
+    synchronized CachedBalance completeRead(Read read, BigDecimal value) {
+        if (read.version == version && read.connection == stream.getConnection() && isConnected()) {
+            version++;
+            entry = new Entry(value, 0, read.connection);
+        }
+        return new CachedBalanceImpl(value, 0, 0, true);
+    }
+
+    private boolean isConnected() {
+        return stream.getState() == StreamState.CONNECTED;
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    static class Read {
+
+        private final long version;
+        private final int connection;
+
+        private Read(long version, int connection) {
+            this.version = version;
+            this.connection = connection;
+        }
+    }
+
+    private static class Entry {
+
+        private final BigDecimal value;
+        private final long ledger;
+        private final long receivedAt = now();
+        private final int connection;
+
+        private Entry(BigDecimal value, long ledger, int connection) {
+            this.value = value;
+            this.ledger = ledger;
+            this.connection = connection;
+        }
+    }
+}
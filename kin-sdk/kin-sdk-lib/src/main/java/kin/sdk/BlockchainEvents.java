@@ -4,9 +4,12 @@ package kin.sdk;
 import static kin.sdk.Utils.checkNotNull;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.here.oksse.ServerSentEvent;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import kin.base.AccountLedgerEntryChange;
 import kin.base.Asset;
 import kin.base.KeyPair;
@@ -17,22 +20,91 @@ import kin.base.MemoText;
 import kin.base.Operation;
 import kin.base.PaymentOperation;
 import kin.base.Server;
+import kin.base.requests.EffectsRequestBuilder;
+import kin.base.requests.PaymentsRequestBuilder;
+import kin.base.requests.StreamStateListener;
 import kin.base.responses.TransactionResponse;
+import kin.base.responses.effects.AccountCreditedEffectResponse;
+import kin.base.responses.effects.AccountDebitedEffectResponse;
+import kin.base.responses.effects.EffectResponse;
+import kin.base.responses.operations.OperationResponse;
+import kin.base.responses.operations.PaymentOperationResponse;
+import kin.sdk.AccountTransactionStream.StreamedTransaction;
 
 /**
  * Provides listeners, for various events happens on the blockchain.
+ * <p>Balance and payment listeners share one stream of the account transactions, opened with the first listener and
+ * closed when the last one is removed. Events are delivered to the listeners through the {@link EventDispatcher}, so
+ * slow listeners don't hold the stream. While it's open, the live stream also keeps the {@link BalanceStore} of the
+ * account up to date.</p>
+ * <p>Balance change and payment operation listeners use the account effects and payments streams instead, which are
+ * filtered by Horizon and parsed without decoding any XDR.</p>
  */
 class BlockchainEvents {
 
     private static final String ASSET_TYPE_NATIVE = "native";
     private static final String CURSOR_FUTURE_ONLY = "now";
 
-    private final Server server;
     private final KeyPair accountKeyPair;
+    private final AccountTransactionStream liveTransactions;
+    private final AccountTransactionStream allTransactions;
+    private final SharedStream<EffectResponse> effects;
+    private final SharedStream<OperationResponse> payments;
+    private final EventDispatcher eventDispatcher;
+    private final BalanceStore balanceStore;
+    // Set once the stream of all the transactions delivered one, the account exists from then on.
+    private volatile boolean accountCreated;
 
     BlockchainEvents(Server server, String accountId) {
-        this.server = server;
+        this(server, accountId, new EventDispatcher.Builder().build());
+    }
+
+    BlockchainEvents(final Server server, String accountId, EventDispatcher eventDispatcher) {
         this.accountKeyPair = KeyPair.fromAccountId(accountId);
+        this.liveTransactions = new AccountTransactionStream(server, accountKeyPair, CURSOR_FUTURE_ONLY);
+        this.allTransactions = new AccountTransactionStream(server, accountKeyPair, null);
+        this.effects = new SharedStream<EffectResponse>() {
+            @Override
+            ServerSentEvent stream(StreamStateListener stateListener) {
+                EffectsRequestBuilder request = server.effects().forAccount(accountKeyPair).cursor(CURSOR_FUTURE_ONLY);
+                request.setStreamStateListener(stateListener);
+                return request.stream(new kin.base.requests.EventListener<EffectResponse>() {
+                    @Override
+                    public void onEvent(EffectResponse effect) {
+                        deliver(effect);
+                    }
+                });
+            }
+        };
+        this.payments = new SharedStream<OperationResponse>() {
+            @Override
+            ServerSentEvent stream(StreamStateListener stateListener) {
+                PaymentsRequestBuilder request = server.payments().forAccount(accountKeyPair)
+                    .cursor(CURSOR_FUTURE_ONLY);
+                request.setStreamStateListener(stateListener);
+                return request.stream(new kin.base.requests.EventListener<OperationResponse>() {
+                    @Override
+                    public void onEvent(OperationResponse operation) {
+                        deliver(operation);
+                    }
+                });
+            }
+        };
+        this.eventDispatcher = eventDispatcher;
+        this.balanceStore = new BalanceStore(liveTransactions);
+        liveTransactions.setObserver(new SharedStream.Listener<StreamedTransaction>() {
+            @Override
+            public void onEvent(StreamedTransaction transaction) {
+                updateBalanceStore(transaction);
+            }
+        });
+        // Delivered before the listeners, so that a listener added meanwhile either gets the event or sees the flag.
+        allTransactions.setObserver(new SharedStream.Listener<StreamedTransaction>() {
+            @Override
+            public void onEvent(StreamedTransaction transaction) {
+                accountCreated = true;
+            }
+        });
     }
 
     /**
@@ -43,49 +115,68 @@ class BlockchainEvents {
      */
     ListenerRegistration addBalanceListener(@NonNull final EventListener<Balance> listener) {
         checkNotNull(listener, "listener");
-        ServerSentEvent serverSentEvent = server
-                .transactions()
-                .forAccount(accountKeyPair)
-                .cursor(CURSOR_FUTURE_ONLY)
-                .stream(new kin.base.requests.EventListener<TransactionResponse>() {
-                    @Override
-                    public void onEvent(TransactionResponse transactionResponse) {
-                        extractBalanceChangeFromTransaction(transactionResponse, listener);
-                    }
-                });
-        return new ListenerRegistration(serverSentEvent);
+        final EventDispatcher.Channel<Balance> channel = eventDispatcher.newChannel(listener, true);
+        return dispatching(channel, liveTransactions, liveTransactions.addListener(new SharedStream.Listener<StreamedTransaction>() {
+            @Override
+            public void onEvent(StreamedTransaction transaction) {
+                extractBalanceChangeFromTransaction(transaction, channel);
+            }
+        }));
     }
 
-    private void extractBalanceChangeFromTransaction(TransactionResponse transactionResponse,
-                                                     @NonNull EventListener<Balance> listener) {
-        List<LedgerEntryChanges> ledgerChanges = transactionResponse.getLedgerChanges();
+    private void extractBalanceChangeFromTransaction(StreamedTransaction transaction,
+                                                     EventDispatcher.Channel<Balance> channel) {
+        for (BigDecimal balance : extractBalances(transaction)) {
+            channel.offer(new BalanceImpl(balance));
+        }
+    }
+
+    private List<BigDecimal> extractBalances(StreamedTransaction transaction) {
+        List<BigDecimal> balances = new ArrayList<>();
+        List<LedgerEntryChanges> ledgerChanges = transaction.getLedgerChanges();
         if (ledgerChanges != null) {
             for (LedgerEntryChanges ledgerChange : ledgerChanges) {
                 LedgerEntryChange[] ledgerEntryUpdates = ledgerChange.getLedgerEntryUpdates();
                 if (ledgerEntryUpdates != null) {
                     for (LedgerEntryChange ledgerEntryUpdate : ledgerEntryUpdates) {
-                        extractBalanceFromUpdate(listener, ledgerEntryUpdate);
+                        extractBalanceFromUpdate(balances, ledgerEntryUpdate);
                     }
                 }
             }
         }
+        return balances;
     }
 
-    private void extractBalanceFromUpdate(@NonNull EventListener<Balance> listener,
-                                          LedgerEntryChange ledgerEntryUpdate) {
+    private void extractBalanceFromUpdate(List<BigDecimal> balances, LedgerEntryChange ledgerEntryUpdate) {
         if (ledgerEntryUpdate instanceof AccountLedgerEntryChange) {
             AccountLedgerEntryChange accountLedgerEntryChange = (AccountLedgerEntryChange) ledgerEntryUpdate;
             KeyPair account = accountLedgerEntryChange.getAccount();
             if (account != null) {
                 if (accountKeyPair.getAccountId().equals(account.getAccountId())) {
-                    BalanceImpl balance = new BalanceImpl(
-                            new BigDecimal(accountLedgerEntryChange.getBalance()));
-                    listener.onEvent(balance);
+                    balances.add(new BigDecimal(accountLedgerEntryChange.getBalance()));
                 }
             }
         }
     }
 
+    /**
+     * Keeps the balance store up to date while the live stream is open, whichever listeners opened it.
+     */
+    private void updateBalanceStore(StreamedTransaction transaction) {
+        List<BigDecimal> balances = extractBalances(transaction);
+        if (!balances.isEmpty()) {
+            Long ledger = transaction.getResponse().getLedger();
+            balanceStore.update(balances.get(balances.size() - 1), ledger != null ? ledger : 0);
+        }
+    }
+
+    /**
+     * Returns the balance of the account, as last delivered by the live stream.
+     */
+    BalanceStore getBalanceStore() {
+        return balanceStore;
+    }
+
     /**
      * Creates and adds listener for payments concerning this account, use returned {@link ListenerRegistration} to
      * stop listening. <p><b>Note:</b> Events will be fired on background thread.</p>
@@ -94,17 +185,108 @@ class BlockchainEvents {
      */
     ListenerRegistration addPaymentListener(@NonNull final EventListener<PaymentInfo> listener) {
         checkNotNull(listener, "listener");
-        ServerSentEvent serverSentEvent = server
-                .transactions()
-                .forAccount(accountKeyPair)
-                .cursor(CURSOR_FUTURE_ONLY)
-                .stream(new kin.base.requests.EventListener<TransactionResponse>() {
-                    @Override
-                    public void onEvent(TransactionResponse transactionResponse) {
-                        extractPaymentsFromTransaction(transactionResponse, listener);
+        final EventDispatcher.Channel<PaymentInfo> channel = eventDispatcher.newChannel(listener, false);
+        return dispatching(channel, liveTransactions, liveTransactions.addListener(new SharedStream.Listener<StreamedTransaction>() {
+            @Override
+            public void onEvent(StreamedTransaction transaction) {
+                extractPaymentsFromTransaction(transaction, channel);
+            }
+        }));
+    }
+
+    /**
+     * Adds a listener for the payments of this account not stored in <code>paymentHistory</code> yet, storing them.
+     */
+    ListenerRegistration addPaymentListener(final PaymentHistory paymentHistory,
+                                            @NonNull final EventListener<PaymentInfo> listener) {
+        checkNotNull(listener, "listener");
+        final EventDispatcher.Channel<PaymentInfo> channel = eventDispatcher.newChannel(listener, false);
+        return dispatching(channel, liveTransactions, liveTransactions.addListener(new SharedStream.Listener<StreamedTransaction>() {
+            @Override
+            public void onEvent(StreamedTransaction transaction) {
+                TransactionResponse response = transaction.getResponse();
+                List<PaymentInfo> payments = extractPayments(response, transaction.getOperations());
+                if (!payments.isEmpty()) {
+                    for (PaymentInfo paymentInfo : paymentHistory.merge(response.getPagingToken(), payments)) {
+                        channel.offer(paymentInfo);
                     }
-                });
-        return new ListenerRegistration(serverSentEvent);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Creates and adds listener for the kin credited to and debited from this account, use returned
+     * {@link ListenerRegistration} to stop listening. <p><b>Note:</b> Events will be fired on background thread.</p>
+     *
+     * @param listener listener object for balance change events
+     */
+    ListenerRegistration addBalanceChangeListener(@NonNull final EventListener<BalanceChange> listener) {
+        checkNotNull(listener, "listener");
+        final EventDispatcher.Channel<BalanceChange> channel = eventDispatcher.newChannel(listener, false);
+        return dispatching(channel, effects, effects.addListener(new SharedStream.Listener<EffectResponse>() {
+            @Override
+            public void onEvent(EffectResponse effect) {
+                BalanceChange balanceChange = extractBalanceChange(effect);
+                if (balanceChange != null) {
+                    channel.offer(balanceChange);
+                }
+            }
+        }));
+    }
+
+    @Nullable
+    private static BalanceChange extractBalanceChange(EffectResponse effect) {
+        if (effect instanceof AccountCreditedEffectResponse) {
+            AccountCreditedEffectResponse credited = (AccountCreditedEffectResponse) effect;
+            if (isPaymentNative(credited.getAsset())) {
+                return new BalanceChangeImpl(effect.getId(), new BigDecimal(credited.getAmount()));
+            }
+        } else if (effect instanceof AccountDebitedEffectResponse) {
+            AccountDebitedEffectResponse debited = (AccountDebitedEffectResponse) effect;
+            if (isPaymentNative(debited.getAsset())) {
+                return new BalanceChangeImpl(effect.getId(), new BigDecimal(debited.getAmount()).negate());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates and adds listener for the payment operations concerning this account, use returned
+     * {@link ListenerRegistration} to stop listening. <p><b>Note:</b> Events will be fired on background thread.</p>
+     *
+     * @param listener listener object for payment operation events
+     */
+    ListenerRegistration addPaymentOperationListener(@NonNull final EventListener<PaymentOperationInfo> listener) {
+        checkNotNull(listener, "listener");
+        final EventDispatcher.Channel<PaymentOperationInfo> channel = eventDispatcher.newChannel(listener, false);
+        return dispatching(channel, payments, payments.addListener(new SharedStream.Listener<OperationResponse>() {
+            @Override
+            public void onEvent(OperationResponse operation) {
+                PaymentOperationInfo payment = extractPaymentOperation(operation);
+                if (payment != null) {
+                    channel.offer(payment);
+                }
+            }
+        }));
+    }
+
+    @Nullable
+    private static PaymentOperationInfo extractPaymentOperation(OperationResponse operation) {
+        if (operation instanceof PaymentOperationResponse) {
+            PaymentOperationResponse payment = (PaymentOperationResponse) operation;
+            if (isPaymentNative(payment.getAsset())) {
+                return new PaymentOperationInfoImpl(
+                        String.valueOf(payment.getId()),
+                        payment.getCreatedAt(),
+                        payment.getTo().getAccountId(),
+                        payment.getFrom().getAccountId(),
+                        new BigDecimal(payment.getAmount()),
+                        new TransactionIdImpl(payment.getTransactionHash())
+                );
+            }
+        }
+        return null;
     }
 
     /**
@@ -115,27 +297,52 @@ class BlockchainEvents {
      */
     ListenerRegistration addAccountCreationListener(final EventListener<Void> listener) {
         checkNotNull(listener, "listener");
-        ServerSentEvent serverSentEvent = server.transactions()
-                .forAccount(accountKeyPair)
-                .stream(new kin.base.requests.EventListener<TransactionResponse>() {
+        final EventDispatcher.Channel<Void> channel = eventDispatcher.newChannel(listener, false);
+        final AtomicBoolean eventOccurred = new AtomicBoolean();
+        // Streams from the first transaction of the account, so it fires even if the account already exists. The
+        // shared stream replays that transaction only when it opens, listeners added later rely on accountCreated.
+        ListenerRegistration registration = allTransactions.addListener(new SharedStream.Listener<StreamedTransaction>() {
+            @Override
+            public void onEvent(StreamedTransaction transaction) {
+                //account creation is one time operation, fire event only once
+                if (eventOccurred.compareAndSet(false, true)) {
+                    channel.offer(null);
+                }
+            }
+        });
+        if (accountCreated && eventOccurred.compareAndSet(false, true)) {
+            channel.offer(null);
+        }
+        return dispatching(channel, allTransactions, registration);
+    }
 
-                    private boolean eventOccurred = false;
+    /**
+     * Returns a registration removing the stream listener, and dropping the events not delivered yet.
+     */
+    private ListenerRegistration dispatching(final EventDispatcher.Channel<?> channel, SharedStream<?> stream,
+                                             final ListenerRegistration streamRegistration) {
+        return new ListenerRegistration(new Runnable() {
+            @Override
+            public void run() {
+                streamRegistration.remove();
+                channel.close();
+            }
+        }, stream);
+    }
 
-                    @Override
-                    public void onEvent(TransactionResponse transactionResponse) {
-                        //account creation is one time operation, fire event only once
-                        if (!eventOccurred) {
-                            eventOccurred = true;
-                            listener.onEvent(null);
-                        }
-                    }
-                });
-        return new ListenerRegistration(serverSentEvent);
+    private void extractPaymentsFromTransaction(StreamedTransaction transaction,
+                                                EventDispatcher.Channel<PaymentInfo> channel) {
+        for (PaymentInfo paymentInfo : extractPayments(transaction.getResponse(), transaction.getOperations())) {
+            channel.offer(paymentInfo);
+        }
     }
 
-    private void extractPaymentsFromTransaction(TransactionResponse transactionResponse,
-                                                EventListener<PaymentInfo> listener) {
-        List<Operation> operations = transactionResponse.getOperations();
+    /**
+     * Returns the native payments of a transaction, in the order of its operations.
+     */
+    static List<PaymentInfo> extractPayments(TransactionResponse transactionResponse,
+                                             @Nullable List<Operation> operations) {
+        List<PaymentInfo> payments = new ArrayList<>();
         if (operations != null) {
             for (Operation operation : operations) {
                 if (operation instanceof PaymentOperation) {
@@ -150,26 +357,27 @@ class BlockchainEvents {
                                 transactionResponse.getFeePaid(),
                                 extractHashTextIfAny(transactionResponse)
                         );
-                        listener.onEvent(paymentInfo);
+                        payments.add(paymentInfo);
                     }
                 }
             }
 
         }
+        return payments;
     }
 
-    private boolean isPaymentNative(Asset asset) {
+    private static boolean isPaymentNative(Asset asset) {
         return asset != null && asset.getType().equalsIgnoreCase(ASSET_TYPE_NATIVE);
     }
 
-    private String extractSourceAccountId(TransactionResponse transactionResponse, Operation operation) {
+    private static String extractSourceAccountId(TransactionResponse transactionResponse, Operation operation) {
         //if payment was sent on behalf of other account - paymentOperation will contains this account, o.w. the source
         //is the transaction source account
         return operation.getSourceAccount() != null ? operation.getSourceAccount()
                 .getAccountId() : transactionResponse.getSourceAccount().getAccountId();
     }
 
-    private String extractHashTextIfAny(TransactionResponse transactionResponse) {
+    private static String extractHashTextIfAny(TransactionResponse transactionResponse) {
         String memoString = null;
         Memo memo = transactionResponse.getMemo();
         if (memo instanceof MemoText) {
@@ -1,17 +1,39 @@
 package kin.sdk;
 
 
+import java.util.HashMap;
+import java.util.Map;
 import kin.base.Server;
 
 class BlockchainEventsCreator {
 
     private final Server server;
+    private final EventDispatcher eventDispatcher;
+    // One instance per account, so all the listeners of an account share its streams.
+    private final Map<String, BlockchainEvents> blockchainEvents = new HashMap<>();
 
     BlockchainEventsCreator(Server server) {
+        this(server, new EventDispatcher.Builder().build());
+    }
+
+    BlockchainEventsCreator(Server server, EventDispatcher eventDispatcher) {
         this.server = server;
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    synchronized BlockchainEvents create(String accountId) {
+        BlockchainEvents events = blockchainEvents.get(accountId);
+        if (events == null) {
+            events = new BlockchainEvents(server, accountId, eventDispatcher);
+            blockchainEvents.put(accountId, events);
+        }
+        return events;
     }
 
-    BlockchainEvents create(String accountId) {
-        return new BlockchainEvents(server, accountId);
+    /**
+     * Forgets the streams and the balance of a deleted account, the listeners still registered keep their streams.
+     */
+    synchronized void delete(String accountId) {
+        blockchainEvents.remove(accountId);
     }
 }
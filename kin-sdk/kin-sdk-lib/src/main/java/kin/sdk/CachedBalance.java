@@ -0,0 +1,26 @@
+package kin.sdk;
+
+/**
+ * A balance read with {@link KinAccount#getCachedBalanceSync()}, either from the balance kept up to date by the
+ * account stream or from the network.
+ */
+public interface CachedBalance extends Balance {
+
+    /**
+     * @return the ledger of the transaction which last changed the balance, or 0 if unknown because the balance was
+     * read from the network
+     */
+    long ledger();
+
+    /**
+     * @return the time in milliseconds since the balance was received. While the account stream is connected a
+     * change would have been received since, so an old balance is not outdated.
+     */
+    long ageMillis();
+
+    /**
+     * @return true if the balance was read from the network, because the account stream was not connected or had
+     * not received the balance yet
+     */
+    boolean isFromNetwork();
+}
@@ -0,0 +1,43 @@
+package kin.sdk;
+
+import java.math.BigDecimal;
+
+final class CachedBalanceImpl implements CachedBalance {
+
+    private final BigDecimal valueInKin;
+    private final long ledger;
+    private final long ageMillis;
+    private final boolean fromNetwork;
+
+    CachedBalanceImpl(BigDecimal valueInKin, long ledger, long ageMillis, boolean fromNetwork) {
+        this.valueInKin = valueInKin;
+        this.ledger = ledger;
+        this.ageMillis = ageMillis;
+        this.fromNetwork = fromNetwork;
+    }
+
+    @Override
+    public BigDecimal value() {
+        return valueInKin;
+    }
+
+    @Override
+    public String value(int precision) {
+        return valueInKin.setScale(precision, BigDecimal.ROUND_FLOOR).toString();
+    }
+
+    @Override
+    public long ledger() {
+        return ledger;
+    }
+
+    @Override
+    public long ageMillis() {
+        return ageMillis;
+    }
+
+    @Override
+    public boolean isFromNetwork() {
+        return fromNetwork;
+    }
+}
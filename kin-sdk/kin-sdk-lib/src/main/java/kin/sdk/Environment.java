@@ -2,6 +2,9 @@ package kin.sdk;
 
 import static kin.sdk.Utils.checkNotEmpty;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import kin.base.Network;
 
 /**
@@ -18,6 +21,7 @@ public class Environment {
             "Kin Testnet ; December 2018");
 
     private final String networkUrl;
+    private final List<String> networkUrls;
     private final Network network;
 
     /**
@@ -26,20 +30,46 @@ public class Environment {
      * @param networkPassphrase the network id to be used.
      */
     public Environment(String networkUrl, String networkPassphrase) {
+        this(networkUrl, networkPassphrase, new String[0]);
+    }
+
+    /**
+     * Build an Environment object served by several blockchain nodes, requests are routed to the fastest healthy
+     * node and fail over to the others.
+     * @param networkUrl the URL of the main blockchain node.
+     * @param networkPassphrase the network id to be used.
+     * @param additionalNetworkUrls the URLs of other blockchain nodes serving the same network.
+     */
+    public Environment(String networkUrl, String networkPassphrase, String... additionalNetworkUrls) {
         checkNotEmpty(networkUrl, "networkUrl");
         checkNotEmpty(networkPassphrase, "networkPassphrase");
+        List<String> networkUrls = new ArrayList<>();
+        networkUrls.add(networkUrl);
+        for (String additionalNetworkUrl : additionalNetworkUrls) {
+            checkNotEmpty(additionalNetworkUrl, "additionalNetworkUrls");
+            networkUrls.add(additionalNetworkUrl);
+        }
         this.networkUrl = networkUrl;
+        this.networkUrls = Collections.unmodifiableList(networkUrls);
         this.network = new Network(networkPassphrase);
     }
 
     /**
-     * Returns the URL of the blockchain node.
+     * Returns the URL of the blockchain node, the first one when the environment has several.
      */
     @SuppressWarnings("WeakerAccess")
     final public String getNetworkUrl() {
         return networkUrl;
     }
 
+    /**
+     * Returns the URLs of all the blockchain nodes.
+     */
+    @SuppressWarnings("WeakerAccess")
+    final public List<String> getNetworkUrls() {
+        return networkUrls;
+    }
+
     /**
      * Returns the network id.
      */
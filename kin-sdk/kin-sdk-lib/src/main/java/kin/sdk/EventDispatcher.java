@@ -0,0 +1,297 @@
+package kin.sdk;
+
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers blockchain events to the listeners added with {@link KinAccount}, off the thread reading the stream.
+ * <p>
+ * Every listener has its own bounded ring buffer of pending events, drained in order on the listener executor, so the
+ * stream keeps being read while listeners handle the previous events. When the buffer of a listener is full, the
+ * {@link OverflowPolicy} decides what happens to the new event.
+ * </p>
+ * <p>
+ * The default executor is a single thread calling all the listeners, so a slow listener also delays the events of the
+ * others; set an executor with more threads to call them concurrently. The default {@link OverflowPolicy#BLOCK} loses
+ * no event, but stops reading the stream while the buffer of a listener is full; {@link OverflowPolicy#DROP_OLDEST}
+ * never does.
+ * </p>
+ * Use {@link Builder} to configure it, and pass it to
+ * {@link KinClient#KinClient(android.content.Context, Environment, String, String, kin.base.HttpEngine, EventDispatcher)}.
+ */
+public class EventDispatcher {
+
+    /**
+     * What to do with a new event when the buffer of its listener is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for the listener to consume an event. The stream is not read meanwhile, no event is lost.
+         */
+        BLOCK,
+        /**
+         * Drop the oldest pending event of the listener.
+         */
+        DROP_OLDEST,
+        /**
+         * Replace the newest pending event of balance listeners, as a balance supersedes the previous ones. Other
+         * listeners block, as with {@link #BLOCK}.
+         */
+        COALESCE_BALANCES
+    }
+
+    private final int capacity;
+    private final Executor executor;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    private EventDispatcher(Builder builder) {
+        this.capacity = builder.capacity;
+        this.executor = builder.executor != null ? builder.executor : newDefaultExecutor();
+        this.overflowPolicy = builder.overflowPolicy;
+    }
+
+    private static ExecutorService newDefaultExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "kin-sdk-events");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the number of events waiting to be delivered, over all listeners.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Returns the highest number of events that were waiting to be delivered at the same time.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getDeliveredEventCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * Returns the number of events dropped by {@link OverflowPolicy#DROP_OLDEST}.
+     */
+    public long getDroppedEventCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the number of balance events replaced by a newer one with {@link OverflowPolicy#COALESCE_BALANCES}.
+     */
+    public long getCoalescedEventCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Creates the queue of a listener.
+     *
+     * @param coalescing true if a new event supersedes the pending ones, as balances do
+     */
+    <T> Channel<T> newChannel(EventListener<T> listener, boolean coalescing) {
+        return new Channel<>(listener, coalescing);
+    }
+
+    /**
+     * Bounded ring buffer of the pending events of a listener, drained by at most one task at a time so events are
+     * delivered in order.
+     */
+    class Channel<T> implements Runnable {
+
+        private final EventListener<T> listener;
+        private final boolean coalescing;
+        private final Object[] events = new Object[capacity];
+        private int head;
+        private int size;
+        private boolean draining;
+        private boolean closed;
+
+        private Channel(EventListener<T> listener, boolean coalescing) {
+            this.listener = listener;
+            this.coalescing = coalescing;
+        }
+
+        /**
+         * Queues an event, applying the overflow policy when the buffer is full. Called from the stream thread.
+         */
+        void offer(T event) {
+            boolean schedule;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (size == capacity && !makeRoom()) {
+                    coalescedCount.incrementAndGet();
+                    events[(head + size - 1) % capacity] = event;
+                    return;
+                }
+                if (closed) {
+                    // Closed while blocked.
+                    return;
+                }
+                events[(head + size) % capacity] = event;
+                size++;
+                updateMaxDepth(queueDepth.incrementAndGet());
+                schedule = !draining;
+                draining = true;
+            }
+            if (schedule) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // The next event schedules the delivery again, instead of waiting for a task that never runs.
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Frees a slot of the full buffer, or returns false if the new event should replace the newest pending one.
+         */
+        private boolean makeRoom() {
+            if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                events[head] = null;
+                head = (head + 1) % capacity;
+                size--;
+                queueDepth.decrementAndGet();
+                droppedCount.incrementAndGet();
+                return true;
+            }
+            if (overflowPolicy == OverflowPolicy.COALESCE_BALANCES && coalescing) {
+                return false;
+            }
+            boolean interrupted = false;
+            while (size == capacity && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+
+        /**
+         * Drops the pending events, and wakes up a stream thread blocked on this listener.
+         */
+        synchronized void close() {
+            closed = true;
+            queueDepth.addAndGet(-size);
+            for (int i = 0; i < size; i++) {
+                events[(head + i) % capacity] = null;
+            }
+            size = 0;
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                T event;
+                synchronized (this) {
+                    if (size == 0 || closed) {
+                        draining = false;
+                        return;
+                    }
+                    event = take();
+                }
+                try {
+                    listener.onEvent(event);
+                    deliveredCount.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Same as an exception on the stream thread, a failing listener doesn't stop the others.
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T take() {
+            T event = (T) events[head];
+            events[head] = null;
+            head = (head + 1) % capacity;
+            size--;
+            queueDepth.decrementAndGet();
+            notifyAll();
+            return event;
+        }
+
+        private void updateMaxDepth(int depth) {
+            int max = maxQueueDepth.get();
+            while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+                max = maxQueueDepth.get();
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private static final int DEFAULT_CAPACITY = 256;
+
+        private int capacity = DEFAULT_CAPACITY;
+        private Executor executor;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        /**
+         * Sets the maximum number of pending events per listener, 256 by default.
+         */
+        public Builder capacity(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Sets the executor calling the listeners, a single background thread by default. Events of a listener are
+         * delivered one at a time and in order, whatever the executor.
+         */
+        public Builder executor(@NonNull Executor executor) {
+            Utils.checkNotNull(executor, "executor");
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets what to do when the buffer of a listener is full, {@link OverflowPolicy#BLOCK} by default.
+         */
+        public Builder overflowPolicy(@NonNull OverflowPolicy overflowPolicy) {
+            Utils.checkNotNull(overflowPolicy, "overflowPolicy");
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public EventDispatcher build() {
+            return new EventDispatcher(this);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package kin.sdk;
 
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 import kin.base.Server;
 import kin.base.requests.LedgersRequestBuilder;
 import kin.base.requests.RequestBuilder;
@@ -11,14 +14,28 @@ import kin.sdk.exception.OperationFailedException;
 
 class GeneralBlockchainInfoRetrieverImpl implements GeneralBlockchainInfoRetriever {
 
+    // The ledgers are listened to until the fee was not requested for this many ledgers, about 15 seconds.
+    static final int SUBSCRIPTION_IDLE_LEDGERS = 3;
+
     private final Server server;
+    private final LedgerClock ledgerClock;
+    @Nullable
+    private ListenerRegistration subscription;
+    private long lastRequestMillis;
 
-    GeneralBlockchainInfoRetrieverImpl(Server server) {
+    GeneralBlockchainInfoRetrieverImpl(Server server, LedgerClock ledgerClock) {
         this.server = server;
+        this.ledgerClock = ledgerClock;
     }
 
     @Override
     public long getMinimumFeeSync() throws OperationFailedException {
+        subscribe();
+        // The ledger clock has the fee of the last ledger once its stream connected and received one.
+        LedgerClock.Ledger lastLedger = ledgerClock.getLastLedger();
+        if (lastLedger != null && lastLedger.getBaseFee() != null) {
+            return lastLedger.getBaseFee();
+        }
         LedgersRequestBuilder builder = server.ledgers().order(RequestBuilder.Order.DESC).limit(1);
         try {
             Page<LedgerResponse> response = builder.execute();
@@ -34,4 +51,38 @@ class GeneralBlockchainInfoRetrieverImpl implements GeneralBlockchainInfoRetriev
             throw new OperationFailedException(e);
         }
     }
+
+    /**
+     * Listens to the ledgers while the fee is requested, so that the following requests read the fee of the last
+     * ledger instead of Horizon. The stream is closed on the first ledger after {@link #subscriptionIdleMillis()}
+     * without request.
+     */
+    private synchronized void subscribe() {
+        lastRequestMillis = now();
+        if (subscription == null) {
+            subscription = ledgerClock.subscribe(new SharedStream.Listener<LedgerClock.Ledger>() {
+                @Override
+                public void onEvent(LedgerClock.Ledger ledger) {
+                    unsubscribeIfIdle();
+                }
+            });
+        }
+    }
+
+    private synchronized void unsubscribeIfIdle() {
+        if (subscription != null && now() - lastRequestMillis >= subscriptionIdleMillis()) {
+            subscription.remove();
+            subscription = null;
+        }
+    }
+
+    @VisibleForTesting
+    long subscriptionIdleMillis() {
+        return SUBSCRIPTION_IDLE_LEDGERS * ledgerClock.getCloseIntervalMillis();
+    }
+
+    @VisibleForTesting
+    long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
 }
@@ -3,6 +3,7 @@ package kin.sdk;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import java.math.BigDecimal;
+import kin.sdk.exception.AccountDeletedException;
 import kin.sdk.exception.AccountNotFoundException;
 import kin.sdk.exception.CryptoException;
 import kin.sdk.exception.InsufficientKinException;
@@ -137,6 +138,30 @@ public interface KinAccount {
     @NonNull
     Balance getBalanceSync() throws OperationFailedException;
 
+    /**
+     * Create {@link Request} for getting the balance in kin, from the account stream when possible
+     * <p> See {@link KinAccount#getCachedBalanceSync()} for possibles errors</p>
+     *
+     * @return {@code Request<CachedBalance>} CachedBalance - the balance in kin, with its ledger and age
+     */
+    @NonNull
+    Request<CachedBalance> getCachedBalance();
+
+    /**
+     * Get the balance in kin, as last received by the stream of the balance and payment listeners of this account.
+     * <p>While a listener added with {@link #addBalanceListener(EventListener)} or
+     * {@link #addPaymentListener(EventListener)} is connected, every balance change is received, so the balance is
+     * returned without accessing the network. Otherwise, or until the stream knows the balance, it's read from the
+     * network as with {@link #getBalanceSync()}.</p>
+     * <p><b>Note:</b> This method may access the network, and should not be called on the android main thread.</p>
+     *
+     * @return the balance in kin, with the ledger of its last change and its age
+     * @throws AccountNotFoundException if account was not created
+     * @throws OperationFailedException any other error
+     */
+    @NonNull
+    CachedBalance getCachedBalanceSync() throws OperationFailedException;
+
     /**
      * Get current account status on blockchain network.
      *
@@ -172,6 +197,26 @@ public interface KinAccount {
      */
     ListenerRegistration addPaymentListener(@NonNull final EventListener<PaymentInfo> listener);
 
+    /**
+     * Creates and adds listener for the kin credited to and debited from this account, use returned
+     * {@link ListenerRegistration} to stop listening. <p><b>Note:</b> Events will be fired on background thread.</p>
+     * <p>Changes are read from the account effects, which are lighter than the transactions streamed by
+     * {@link #addBalanceListener(EventListener)}, but give the amount of each change rather than the balance.</p>
+     *
+     * @param listener listener object for balance change events
+     */
+    ListenerRegistration addBalanceChangeListener(@NonNull final EventListener<BalanceChange> listener);
+
+    /**
+     * Creates and adds listener for payment operations concerning this account, use returned
+     * {@link ListenerRegistration} to stop listening. <p><b>Note:</b> Events will be fired on background thread.</p>
+     * <p>Payments are read from the account payments, which are lighter than the transactions streamed by
+     * {@link #addPaymentListener(EventListener)}, but have no memo and fee.</p>
+     *
+     * @param listener listener object for payment operation events
+     */
+    ListenerRegistration addPaymentOperationListener(@NonNull final EventListener<PaymentOperationInfo> listener);
+
     /**
      * Creates and adds listener for account creation event, use returned {@link ListenerRegistration} to stop
      * listening. <p><b>Note:</b> Events will be fired on background thread.</p>
@@ -180,6 +225,14 @@ public interface KinAccount {
      */
     ListenerRegistration addAccountCreationListener(final EventListener<Void> listener);
 
+    /**
+     * Returns the payments of this account stored on the device, see {@link PaymentHistory}. They are deleted along with
+     * the account.
+     *
+     * @throws AccountDeletedException if the account was deleted.
+     */
+    PaymentHistory getPaymentHistory() throws AccountDeletedException;
+
     /**
      * Export the account data as a JSON string. The seed is encrypted.
      *
@@ -16,10 +16,19 @@ final class KinAccountImpl extends AbstractKinAccount {
     private final TransactionSender transactionSender;
     private final AccountInfoRetriever accountInfoRetriever;
     private final BlockchainEvents blockchainEvents;
+    @Nullable
+    private final PaymentHistoryCreator paymentHistoryCreator;
     private boolean isDeleted = false;
 
     KinAccountImpl(KeyPair account, BackupRestore backupRestore, TransactionSender transactionSender,
         AccountInfoRetriever accountInfoRetriever, BlockchainEventsCreator blockchainEventsCreator) {
+        this(account, backupRestore, transactionSender, accountInfoRetriever, blockchainEventsCreator, null);
+    }
+
+    KinAccountImpl(KeyPair account, BackupRestore backupRestore, TransactionSender transactionSender,
+        AccountInfoRetriever accountInfoRetriever, BlockchainEventsCreator blockchainEventsCreator,
+        @Nullable PaymentHistoryCreator paymentHistoryCreator) {
+        this.paymentHistoryCreator = paymentHistoryCreator;
         this.account = account;
         this.backupRestore = backupRestore;
         this.transactionSender = transactionSender;
@@ -70,6 +79,19 @@ final class KinAccountImpl extends AbstractKinAccount {
         return accountInfoRetriever.getBalance(account.getAccountId());
     }
 
+    @NonNull
+    @Override
+    public CachedBalance getCachedBalanceSync() throws OperationFailedException {
+        checkValidAccount();
+        BalanceStore balanceStore = blockchainEvents.getBalanceStore();
+        CachedBalance balance = balanceStore.get();
+        if (balance != null) {
+            return balance;
+        }
+        BalanceStore.Read read = balanceStore.startRead();
+        return balanceStore.completeRead(read, accountInfoRetriever.getBalance(account.getAccountId()).value());
+    }
+
     @Override
     public int getStatusSync() throws OperationFailedException {
         checkValidAccount();
@@ -86,11 +108,30 @@ final class KinAccountImpl extends AbstractKinAccount {
         return blockchainEvents.addPaymentListener(listener);
     }
 
+    @Override
+    public ListenerRegistration addBalanceChangeListener(@NonNull EventListener<BalanceChange> listener) {
+        return blockchainEvents.addBalanceChangeListener(listener);
+    }
+
+    @Override
+    public ListenerRegistration addPaymentOperationListener(@NonNull EventListener<PaymentOperationInfo> listener) {
+        return blockchainEvents.addPaymentOperationListener(listener);
+    }
+
     @Override
     public ListenerRegistration addAccountCreationListener(EventListener<Void> listener) {
         return blockchainEvents.addAccountCreationListener(listener);
     }
 
+    @Override
+    public PaymentHistory getPaymentHistory() throws AccountDeletedException {
+        checkValidAccount();
+        if (paymentHistoryCreator == null) {
+            throw new IllegalStateException("payment history is not available");
+        }
+        return paymentHistoryCreator.create(account.getAccountId());
+    }
+
     @Override
     public String export(@NonNull String passphrase) throws CryptoException {
         return backupRestore.exportWallet(account, passphrase);
@@ -5,12 +5,17 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
+import kin.base.HttpEngine;
+import kin.base.HttpMetrics;
 import kin.base.KeyPair;
 import kin.base.Network;
 import kin.base.Server;
+import kin.base.requests.ReconnectPolicy;
+import kin.base.responses.GsonSingleton;
 import kin.sdk.exception.*;
 import kin.utils.Request;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,6 +31,7 @@ import static kin.sdk.Utils.checkNotNull;
 public class KinClient {
 
     private static final String STORE_NAME_PREFIX = "KinKeyStore_";
+    private static final String PAYMENT_HISTORY_DIR_PREFIX = "KinPaymentHistory_";
     private static final int TRANSACTIONS_TIMEOUT = 30;
     private final Environment environment;
     private final KeyStore keyStore;
@@ -33,7 +39,11 @@ public class KinClient {
     private final AccountInfoRetriever accountInfoRetriever;
     private final GeneralBlockchainInfoRetrieverImpl generalBlockchainInfoRetriever;
     private final BlockchainEventsCreator blockchainEventsCreator;
+    @Nullable
+    private final PaymentHistoryCreator paymentHistoryCreator;
     private final BackupRestore backupRestore;
+    private final HttpMetrics httpMetrics;
+    private final EventDispatcher eventDispatcher;
     private final String appId;
     private final String storeKey;
     @NonNull
@@ -56,20 +66,57 @@ public class KinClient {
      * @param storeKey an optional param which is the key for storing this KinClient data, different keys will store a different accounts.
      */
     public KinClient(@NonNull Context context, @NonNull Environment environment, @NonNull String appId, @NonNull String storeKey) {
+        this(context, environment, appId, storeKey, HttpEngine.getDefault());
+    }
+
+    /**
+     * Build KinClient object with a custom HTTP configuration.
+     * For more details please look at {@link #KinClient(Context context,Environment environment, String appId, String storeKey)}
+     * @param httpEngine the HTTP configuration (connection pool, dispatcher limits, HTTP/2, TLS session reuse) shared by
+     * all blockchain requests and events of this client, can be shared with other clients.
+     */
+    public KinClient(@NonNull Context context, @NonNull Environment environment, @NonNull String appId,
+        @NonNull String storeKey, @NonNull HttpEngine httpEngine) {
+        this(context, environment, appId, storeKey, httpEngine, new EventDispatcher.Builder().build());
+    }
+
+    /**
+     * Build KinClient object with a custom HTTP configuration and event delivery.
+     * For more details please look at {@link #KinClient(Context, Environment, String, String, HttpEngine)}
+     * @param eventDispatcher delivers the balance, payment and account creation events to the listeners of all the
+     * accounts of this client, see {@link EventDispatcher.Builder}.
+     */
+    public KinClient(@NonNull Context context, @NonNull Environment environment, @NonNull String appId,
+        @NonNull String storeKey, @NonNull HttpEngine httpEngine, @NonNull EventDispatcher eventDispatcher) {
         checkNotNull(storeKey, "storeKey");
         checkNotNull(context, "context");
         checkNotNull(environment, "environment");
+        checkNotNull(httpEngine, "httpEngine");
+        checkNotNull(eventDispatcher, "eventDispatcher");
         validateAppId(appId);
         this.environment = environment;
+        this.eventDispatcher = eventDispatcher;
         this.backupRestore = new BackupRestoreImpl();
-        Server server = initServer();
+        Server server = initServer(httpEngine);
+        server.setReconnectPolicy(new ReconnectPolicy.Builder()
+            .networkAvailability(new AndroidNetworkAvailability(context.getApplicationContext()))
+            // Behind proxies breaking long-lived connections, listeners keep receiving events through polling.
+            .pollingFallback(3, 2, 30, TimeUnit.SECONDS)
+            .build());
+        this.httpMetrics = server.getHttpMetrics();
         this.appId = appId;
         this.storeKey = storeKey;
         keyStore = initKeyStore(context.getApplicationContext(), storeKey);
         transactionSender = new TransactionSender(server, appId);
         accountInfoRetriever = new AccountInfoRetriever(server);
-        generalBlockchainInfoRetriever = new GeneralBlockchainInfoRetrieverImpl(server);
-        blockchainEventsCreator = new BlockchainEventsCreator(server);
+        // Shared by the components of this client, so that they all listen to a single ledgers stream.
+        LedgerClock ledgerClock = new LedgerClock(server);
+        generalBlockchainInfoRetriever = new GeneralBlockchainInfoRetrieverImpl(server, ledgerClock);
+        blockchainEventsCreator = new BlockchainEventsCreator(server, eventDispatcher);
+        paymentHistoryCreator = new PaymentHistoryCreator(server,
+            new File(context.getApplicationContext().getFilesDir(), PAYMENT_HISTORY_DIR_PREFIX + storeKey),
+            blockchainEventsCreator);
+        warmUpResponseParsing();
         loadAccounts();
     }
 
@@ -83,15 +130,35 @@ public class KinClient {
         this.accountInfoRetriever = accountInfoRetriever;
         this.generalBlockchainInfoRetriever = generalBlockchainInfoRetriever;
         this.blockchainEventsCreator = blockchainEventsCreator;
+        this.paymentHistoryCreator = null;
         this.backupRestore = backupRestore;
+        this.httpMetrics = new HttpMetrics();
+        this.eventDispatcher = new EventDispatcher.Builder().build();
         this.appId = appId;
         this.storeKey = storeKey;
         loadAccounts();
     }
 
-    private Server initServer() {
+    private Server initServer(HttpEngine httpEngine) {
         Network.use(environment.getNetwork());
-        return new Server(environment.getNetworkUrl(), TRANSACTIONS_TIMEOUT, TimeUnit.SECONDS);
+        if (environment.getNetworkUrls().size() > 1) {
+            return new Server(environment.getNetworkUrls(), httpEngine, TRANSACTIONS_TIMEOUT, TimeUnit.SECONDS);
+        }
+        return new Server(environment.getNetworkUrl(), httpEngine, TRANSACTIONS_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Builds the response parsers in the background, so the first blockchain request doesn't pay for it.
+     */
+    private void warmUpResponseParsing() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                GsonSingleton.warmUp();
+            }
+        }, "kin-sdk-warm-up");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private KeyStore initKeyStore(Context context, String id) {
@@ -228,6 +295,7 @@ public class KinClient {
             keyStore.deleteAccount(accountToDelete);
             KinAccountImpl removedAccount = kinAccounts.remove(index);
             removedAccount.markAsDeleted();
+            deleteAccountData(accountToDelete);
             deleteSuccess = true;
         }
         return deleteSuccess;
@@ -239,11 +307,19 @@ public class KinClient {
     public void clearAllAccounts() {
         keyStore.clearAllAccounts();
         for (KinAccountImpl kinAccount : kinAccounts) {
+            deleteAccountData(kinAccount.getPublicAddress());
             kinAccount.markAsDeleted();
         }
         kinAccounts.clear();
     }
 
+    private void deleteAccountData(String accountId) {
+        blockchainEventsCreator.delete(accountId);
+        if (paymentHistoryCreator != null) {
+            paymentHistoryCreator.delete(accountId);
+        }
+    }
+
     public Environment getEnvironment() {
         return environment;
     }
@@ -251,12 +327,14 @@ public class KinClient {
     @NonNull
     private KinAccountImpl createNewKinAccount(KeyPair account) {
         return new KinAccountImpl(account, backupRestore, transactionSender,
-                accountInfoRetriever, blockchainEventsCreator);
+                accountInfoRetriever, blockchainEventsCreator, paymentHistoryCreator);
     }
 
     /**
      * Get the current minimum fee that the network charges per operation.
      * This value is expressed in stroops.
+     * <p>Listens to the ledgers stream of Horizon until the fee is no longer requested for a few ledgers, so that
+     * repeated requests read the fee of the last ledger without a network request.</p>
      *
      * @return {@code Request<Integer>} - the minimum fee.
      */
@@ -273,6 +351,8 @@ public class KinClient {
      * Get the current minimum fee that the network charges per operation.
      * This value is expressed in stroops.
      * <p><b>Note:</b> This method accesses the network, and should not be called on the android main thread.</p>
+     * <p>Listens to the ledgers stream of Horizon until the fee is no longer requested for a few ledgers, so that
+     * repeated requests read the fee of the last ledger without a network request.</p>
      *
      * @return the minimum fee.
      */
@@ -287,4 +367,35 @@ public class KinClient {
     public String getStoreKey() {
         return storeKey;
     }
+
+    /**
+     * Adds a listener notified of every blockchain HTTP request made by this client (and its accounts), with its
+     * endpoint, status code, latency and rate limit headroom.
+     * <p><b>Note:</b> The listener is called on the thread that made the request, and should return quickly.</p>
+     */
+    public void addHttpMetricsListener(@NonNull HttpMetrics.Listener listener) {
+        checkNotNull(listener, "listener");
+        httpMetrics.addListener(listener);
+    }
+
+    public void removeHttpMetricsListener(@NonNull HttpMetrics.Listener listener) {
+        checkNotNull(listener, "listener");
+        httpMetrics.removeListener(listener);
+    }
+
+    /**
+     * Returns the aggregated metrics of the blockchain HTTP requests made by this client, per endpoint: latency
+     * histogram, bytes sent and received, status codes, retries and rate limit headroom.
+     */
+    public List<HttpMetrics.EndpointSnapshot> getHttpMetricsSnapshot() {
+        return httpMetrics.snapshot();
+    }
+
+    /**
+     * Returns the dispatcher delivering the events of this client to their listeners, with its queue depth, dropped and
+     * coalesced event counts.
+     */
+    public EventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
 }
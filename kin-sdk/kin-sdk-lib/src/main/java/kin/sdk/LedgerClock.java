@@ -0,0 +1,156 @@
+package kin.sdk;
+
+
+import static kin.sdk.Utils.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.here.oksse.ServerSentEvent;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import kin.base.Server;
+import kin.base.requests.LedgersRequestBuilder;
+import kin.base.requests.StreamState;
+import kin.base.requests.StreamStateListener;
+import kin.base.responses.LedgerResponse;
+
+/**
+ * The ledgers closed by the network, from a single <code>ledgers()</code> stream shared by the components of a
+ * {@link KinClient}.
+ * <p>
+ * Components needing to know when a ledger closes subscribe here instead of polling Horizon each. The stream is opened
+ * with the first subscriber and closed when the last one is removed. The last ledger is only returned while the
+ * stream is connected, as ledgers closed while it was not were missed.
+ * </p>
+ */
+class LedgerClock {
+
+    static final long DEFAULT_CLOSE_INTERVAL_MILLIS = 5000;
+    private static final String CURSOR_FUTURE_ONLY = "now";
+    // Weight of the last interval in the close interval estimate, smoothing the one second precision of close times.
+    private static final double INTERVAL_WEIGHT = 0.2;
+
+    private final SharedStream<Ledger> stream;
+    private final SimpleDateFormat closeTimeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+    @Nullable
+    private Ledger lastLedger;
+    private double closeIntervalMillis = DEFAULT_CLOSE_INTERVAL_MILLIS;
+
+    LedgerClock(final Server server) {
+        closeTimeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        this.stream = new SharedStream<Ledger>() {
+            @Override
+            ServerSentEvent stream(StreamStateListener stateListener) {
+                LedgersRequestBuilder request = server.ledgers().cursor(CURSOR_FUTURE_ONLY);
+                request.setStreamStateListener(stateListener);
+                return request.stream(new kin.base.requests.EventListener<LedgerResponse>() {
+                    @Override
+                    public void onEvent(LedgerResponse ledgerResponse) {
+                        Ledger ledger = update(ledgerResponse);
+                        if (ledger != null) {
+                            deliver(ledger);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Adds a listener notified each time a ledger closes, use returned {@link ListenerRegistration} to stop listening.
+     * <p><b>Note:</b> Events will be fired on background thread.</p>
+     */
+    ListenerRegistration subscribe(@NonNull SharedStream.Listener<Ledger> listener) {
+        checkNotNull(listener, "listener");
+        return stream.addListener(listener);
+    }
+
+    /**
+     * Returns the last closed ledger, or null if the stream is not connected or has not received a ledger since it
+     * connected.
+     */
+    @Nullable
+    synchronized Ledger getLastLedger() {
+        if (lastLedger == null || lastLedger.connection != stream.getConnection()
+            || stream.getState() != StreamState.CONNECTED) {
+            return null;
+        }
+        return lastLedger;
+    }
+
+    /**
+     * Returns the estimated time between two ledgers, from the close times received so far.
+     */
+    synchronized long getCloseIntervalMillis() {
+        return Math.round(closeIntervalMillis);
+    }
+
+    @Nullable
+    private synchronized Ledger update(LedgerResponse ledgerResponse) {
+        if (ledgerResponse.getSequence() == null) {
+            return null;
+        }
+        Ledger ledger = new Ledger(ledgerResponse.getSequence(), parseCloseTime(ledgerResponse.getClosedAt()),
+            ledgerResponse.getBaseFee(), stream.getConnection());
+        Ledger previous = lastLedger;
+        if (previous != null && ledger.sequence > previous.sequence && previous.closeTime > 0 && ledger.closeTime > 0) {
+            double interval = (double) (ledger.closeTime - previous.closeTime) / (ledger.sequence - previous.sequence);
+            if (interval > 0) {
+                closeIntervalMillis += INTERVAL_WEIGHT * (interval - closeIntervalMillis);
+            }
+        }
+        lastLedger = ledger;
+        return ledger;
+    }
+
+    private long parseCloseTime(@Nullable String closedAt) {
+        if (closedAt == null) {
+            return 0;
+        }
+        try {
+            return closeTimeFormat.parse(closedAt).getTime();
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A closed ledger.
+     */
+    static class Ledger {
+
+        private final long sequence;
+        private final long closeTime;
+        @Nullable
+        private final Long baseFee;
+        private final int connection;
+
+        private Ledger(long sequence, long closeTime, @Nullable Long baseFee, int connection) {
+            this.sequence = sequence;
+            this.closeTime = closeTime;
+            this.baseFee = baseFee;
+            this.connection = connection;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the close time in milliseconds since the epoch, or 0 if unknown.
+         */
+        long getCloseTime() {
+            return closeTime;
+        }
+
+        /**
+         * Returns the base fee in stroops, or null if unknown.
+         */
+        @Nullable
+        Long getBaseFee() {
+            return baseFee;
+        }
+    }
+}
@@ -1,23 +1,40 @@
 package kin.sdk;
 
 
-import com.here.oksse.ServerSentEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+import kin.base.requests.StreamState;
 
 /**
  * Represents a listener to {@link BlockchainEvents}, that can be removed using {@link #remove()}.
  */
 public class ListenerRegistration {
 
-    private final ServerSentEvent serverSentEvent;
+    private final Runnable removeAction;
+    private final SharedStream<?> stream;
+    private final AtomicBoolean removed = new AtomicBoolean();
 
-    ListenerRegistration(ServerSentEvent serverSentEvent) {
-        this.serverSentEvent = serverSentEvent;
+    ListenerRegistration(Runnable removeAction, SharedStream<?> stream) {
+        this.removeAction = removeAction;
+        this.stream = stream;
     }
 
     /**
-     * Remove and unregisters this listener.
+     * Remove and unregisters this listener. The underlying connection is closed once no other listener of the account
+     * uses it. Calling this method more than once has no effect.
      */
     public void remove() {
-        serverSentEvent.close();
+        if (removed.compareAndSet(false, true)) {
+            removeAction.run();
+        }
+    }
+
+    /**
+     * Returns the state of the connection delivering the events of this listener, e.g.
+     * {@link StreamState#RECONNECTING} or {@link StreamState#WAITING_FOR_NETWORK} while it's disconnected,
+     * {@link StreamState#POLLING} while events are polled because streaming fails, and {@link StreamState#CLOSED} once
+     * the listener is removed.
+     */
+    public StreamState getStreamState() {
+        return removed.get() ? StreamState.CLOSED : stream.getState();
     }
 }
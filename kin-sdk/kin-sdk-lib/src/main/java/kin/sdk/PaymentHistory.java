@@ -0,0 +1,422 @@
+package kin.sdk;
+
+
+import static kin.sdk.Utils.checkNotNull;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import kin.base.KeyPair;
+import kin.base.Server;
+import kin.base.requests.RequestBuilder;
+import kin.base.requests.TransactionsRequestBuilder;
+import kin.base.responses.HttpResponseException;
+import kin.base.responses.Page;
+import kin.base.responses.TransactionResponse;
+import kin.sdk.exception.AccountNotFoundException;
+import kin.sdk.exception.OperationFailedException;
+import kin.utils.Request;
+
+/**
+ * The payments of an account, stored on the device so that they can be listed without accessing the network.
+ * <p>
+ * {@link #update()} reads from Horizon only the transactions following the last one stored, and
+ * {@link #addPaymentListener(EventListener)} stores the payments as they happen. Payments are stored in order of their
+ * transaction paging token, and listed newest first with {@link #getPayments(int, int)}.
+ * </p>
+ * Get the history of an account with {@link KinAccount#getPaymentHistory()}.
+ */
+public class PaymentHistory {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int PAGE_LIMIT = 200;
+    private static final String PAYMENTS_EXTENSION = ".payments";
+    private static final String CURSOR_EXTENSION = ".cursor";
+
+    private final Server server;
+    private final KeyPair account;
+    private final BlockchainEvents blockchainEvents;
+    private final File paymentsFile;
+    private final File cursorFile;
+    private final Gson gson = new Gson();
+    private final Object updateLock = new Object();
+    // Sorted by paging token, then by order in the transaction.
+    private final List<Record> records = new ArrayList<>();
+    private final Set<String> keys = new HashSet<>();
+    @Nullable
+    private String syncedCursor;
+    private boolean loaded;
+    private boolean deleted;
+
+    PaymentHistory(Server server, KeyPair account, BlockchainEvents blockchainEvents, File directory) {
+        this.server = server;
+        this.account = account;
+        this.blockchainEvents = blockchainEvents;
+        this.paymentsFile = new File(directory, account.getAccountId() + PAYMENTS_EXTENSION);
+        this.cursorFile = new File(directory, account.getAccountId() + CURSOR_EXTENSION);
+    }
+
+    /**
+     * Deletes the stored payments of <code>accountId</code> in <code>directory</code>.
+     */
+    static void deleteFiles(File directory, String accountId) {
+        File cursorFile = new File(directory, accountId + CURSOR_EXTENSION);
+        new File(directory, accountId + PAYMENTS_EXTENSION).delete();
+        cursorFile.delete();
+        new File(cursorFile.getPath() + ".tmp").delete();
+    }
+
+    /**
+     * Stops storing payments, once the account was deleted: an update or a payment listener in progress would
+     * otherwise write the files again.
+     */
+    synchronized void markAsDeleted() {
+        deleted = true;
+    }
+
+    /**
+     * Create {@link Request} for storing the payments made since the last update
+     * <p> See {@link PaymentHistory#updateSync()} for possibles errors</p>
+     *
+     * @return {@code Request<Integer>} - the number of new payments.
+     */
+    @NonNull
+    public Request<Integer> update() {
+        return new Request<>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return updateSync();
+            }
+        });
+    }
+
+    /**
+     * Reads the transactions of the account following the last one stored, and stores their payments.
+     * <p><b>Note:</b> This method accesses the network, and should not be called on the android main thread.</p>
+     *
+     * @return the number of new payments
+     * @throws AccountNotFoundException if account was not created
+     * @throws OperationFailedException any other error
+     */
+    public int updateSync() throws OperationFailedException {
+        synchronized (updateLock) {
+            String cursor;
+            synchronized (this) {
+                load();
+                cursor = syncedCursor;
+            }
+            int count = 0;
+            int pageSize;
+            do {
+                List<TransactionResponse> transactions = readTransactions(cursor);
+                for (TransactionResponse transaction : transactions) {
+                    try {
+                        count += store(transaction.getPagingToken(),
+                            BlockchainEvents.extractPayments(transaction, transaction.getOperations())).size();
+                    } catch (IOException e) {
+                        throw new OperationFailedException(e);
+                    }
+                    cursor = transaction.getPagingToken();
+                }
+                if (!transactions.isEmpty()) {
+                    saveCursor(cursor);
+                }
+                pageSize = transactions.size();
+            } while (pageSize == PAGE_LIMIT);
+            return count;
+        }
+    }
+
+    /**
+     * Returns the number of stored payments.
+     */
+    public synchronized int getPaymentCount() {
+        load();
+        return records.size();
+    }
+
+    /**
+     * Returns stored payments, newest first, without accessing the network.
+     *
+     * @param offset the number of newest payments to skip
+     * @param limit the maximum number of payments to return
+     */
+    @NonNull
+    public synchronized List<PaymentInfo> getPayments(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit can't be negative");
+        }
+        load();
+        List<PaymentInfo> payments = new ArrayList<>();
+        for (int i = records.size() - 1 - offset; i >= 0 && payments.size() < limit; i--) {
+            payments.add(records.get(i).toPaymentInfo());
+        }
+        return payments;
+    }
+
+    /**
+     * Stores the payments of this account as they happen, and notifies <code>listener</code> of the ones not stored
+     * yet. Use returned {@link ListenerRegistration} to stop listening. <p><b>Note:</b> Events will be fired on
+     * background thread.</p>
+     * <p>Payments made while not listening are stored by the next {@link #update()}.</p>
+     *
+     * @param listener listener object for new payments
+     */
+    public ListenerRegistration addPaymentListener(@NonNull EventListener<PaymentInfo> listener) {
+        checkNotNull(listener, "listener");
+        return blockchainEvents.addPaymentListener(this, listener);
+    }
+
+    /**
+     * Stores the payments of a streamed transaction, skipping the ones already stored.
+     *
+     * @return the new payments
+     */
+    synchronized List<PaymentInfo> merge(String pagingToken, List<PaymentInfo> payments) {
+        try {
+            return store(pagingToken, payments);
+        } catch (IOException e) {
+            // Not stored, the next update reads the transaction again unless an update already stored it.
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+
+    private synchronized List<PaymentInfo> store(String pagingToken, List<PaymentInfo> payments) throws IOException {
+        if (deleted) {
+            return Collections.emptyList();
+        }
+        load();
+        List<Record> added = new ArrayList<>();
+        for (int i = 0; i < payments.size(); i++) {
+            Record record = new Record(pagingToken, i, payments.get(i));
+            if (!keys.contains(record.key())) {
+                added.add(record);
+            }
+        }
+        if (added.isEmpty()) {
+            return Collections.emptyList();
+        }
+        append(added);
+        List<PaymentInfo> addedPayments = new ArrayList<>();
+        for (Record record : added) {
+            keys.add(record.key());
+            insert(record);
+            addedPayments.add(record.toPaymentInfo());
+        }
+        return addedPayments;
+    }
+
+    private List<TransactionResponse> readTransactions(@Nullable String cursor) throws OperationFailedException {
+        TransactionsRequestBuilder request = server.transactions()
+            .forAccount(account)
+            .order(RequestBuilder.Order.ASC)
+            .limit(PAGE_LIMIT);
+        if (cursor != null) {
+            request.cursor(cursor);
+        }
+        try {
+            Page<TransactionResponse> page = request.execute();
+            if (page == null || page.getRecords() == null) {
+                throw new OperationFailedException("can't retrieve transactions of account " + account.getAccountId());
+            }
+            return page.getRecords();
+        } catch (HttpResponseException httpError) {
+            if (httpError.getStatusCode() == 404) {
+                throw new AccountNotFoundException(account.getAccountId());
+            } else {
+                throw new OperationFailedException(httpError);
+            }
+        } catch (IOException e) {
+            throw new OperationFailedException(e);
+        }
+    }
+
+    private void insert(Record record) {
+        int index = records.size();
+        while (index > 0 && records.get(index - 1).compareTo(record) > 0) {
+            index--;
+        }
+        records.add(index, record);
+    }
+
+    /**
+     * Reads the stored payments once, skipping a record partially written when the app was killed.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        syncedCursor = readCursor();
+        if (!paymentsFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(paymentsFile), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Record record = parse(line);
+                if (record != null && keys.add(record.key())) {
+                    insert(record);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        truncatePartialRecord();
+    }
+
+    /**
+     * Removes a record partially written when the app was killed, the next records would be appended to its line and
+     * be skipped as well.
+     */
+    private void truncatePartialRecord() {
+        try (RandomAccessFile file = new RandomAccessFile(paymentsFile, "rw")) {
+            long length = file.length();
+            long end = length;
+            while (end > 0) {
+                file.seek(end - 1);
+                if (file.read() == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < length) {
+                file.setLength(end);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Nullable
+    private Record parse(String line) {
+        try {
+            Record record = gson.fromJson(line, Record.class);
+            return record != null && record.pagingToken != null && record.hash != null ? record : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private void append(List<Record> added) throws IOException {
+        File directory = paymentsFile.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("can't create " + directory);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(paymentsFile, true), UTF_8)) {
+            for (Record record : added) {
+                writer.write(gson.toJson(record));
+                writer.write('\n');
+            }
+        }
+    }
+
+    @Nullable
+    private String readCursor() {
+        if (!cursorFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(cursorFile), UTF_8))) {
+            return reader.readLine();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Saves the paging token of the last transaction read, after its payments so that none is skipped if the app is
+     * killed in between.
+     */
+    private synchronized void saveCursor(String cursor) throws OperationFailedException {
+        if (deleted) {
+            return;
+        }
+        syncedCursor = cursor;
+        File temporaryFile = new File(cursorFile.getPath() + ".tmp");
+        try {
+            File directory = cursorFile.getParentFile();
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("can't create " + directory);
+            }
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporaryFile), UTF_8)) {
+                writer.write(cursor);
+            }
+            if (!temporaryFile.renameTo(cursorFile)) {
+                throw new IOException("can't write " + cursorFile);
+            }
+        } catch (IOException e) {
+            throw new OperationFailedException(e);
+        }
+    }
+
+    /**
+     * A stored payment, the <code>index</code>th native payment of the transaction with <code>pagingToken</code>.
+     */
+    private static class Record implements Comparable<Record> {
+
+        private final String pagingToken;
+        private final int index;
+        private final String createdAt;
+        private final String destination;
+        private final String source;
+        private final String amount;
+        private final String hash;
+        private final long fee;
+        private final String memo;
+
+        Record(String pagingToken, int index, PaymentInfo payment) {
+            this.pagingToken = pagingToken;
+            this.index = index;
+            this.createdAt = payment.createdAt();
+            this.destination = payment.destinationPublicKey();
+            this.source = payment.sourcePublicKey();
+            this.amount = payment.amount().toPlainString();
+            this.hash = payment.hash().id();
+            this.fee = payment.fee();
+            this.memo = payment.memo();
+        }
+
+        String key() {
+            return hash + ':' + index;
+        }
+
+        PaymentInfo toPaymentInfo() {
+            return new PaymentInfoImpl(createdAt, destination, source, new BigDecimal(amount),
+                new TransactionIdImpl(hash), fee, memo);
+        }
+
+        /**
+         * Paging tokens are unsigned numbers, compared by length first.
+         */
+        @Override
+        public int compareTo(@NonNull Record other) {
+            if (pagingToken.length() != other.pagingToken.length()) {
+                return pagingToken.length() < other.pagingToken.length() ? -1 : 1;
+            }
+            int result = pagingToken.compareTo(other.pagingToken);
+            return result != 0 ? result : (index < other.index ? -1 : (index == other.index ? 0 : 1));
+        }
+    }
+}
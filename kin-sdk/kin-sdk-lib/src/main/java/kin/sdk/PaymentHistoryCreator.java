@@ -0,0 +1,44 @@
+package kin.sdk;
+
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import kin.base.KeyPair;
+import kin.base.Server;
+
+class PaymentHistoryCreator {
+
+    private final Server server;
+    private final File directory;
+    private final BlockchainEventsCreator blockchainEventsCreator;
+    // One instance per account, as they own the files of the account.
+    private final Map<String, PaymentHistory> paymentHistories = new HashMap<>();
+
+    PaymentHistoryCreator(Server server, File directory, BlockchainEventsCreator blockchainEventsCreator) {
+        this.server = server;
+        this.directory = directory;
+        this.blockchainEventsCreator = blockchainEventsCreator;
+    }
+
+    synchronized PaymentHistory create(String accountId) {
+        PaymentHistory paymentHistory = paymentHistories.get(accountId);
+        if (paymentHistory == null) {
+            paymentHistory = new PaymentHistory(server, KeyPair.fromAccountId(accountId),
+                blockchainEventsCreator.create(accountId), directory);
+            paymentHistories.put(accountId, paymentHistory);
+        }
+        return paymentHistory;
+    }
+
+    /**
+     * Deletes the stored payments of a deleted account.
+     */
+    synchronized void delete(String accountId) {
+        PaymentHistory paymentHistory = paymentHistories.remove(accountId);
+        if (paymentHistory != null) {
+            paymentHistory.markAsDeleted();
+        }
+        PaymentHistory.deleteFiles(directory, accountId);
+    }
+}
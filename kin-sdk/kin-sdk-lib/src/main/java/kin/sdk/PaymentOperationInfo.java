@@ -0,0 +1,41 @@
+package kin.sdk;
+
+
+import java.math.BigDecimal;
+
+/**
+ * Represents a payment operation, read from the payments of an account without its transaction. Unlike
+ * {@link PaymentInfo} it has no memo and fee.
+ */
+public interface PaymentOperationInfo {
+
+    /**
+     * Operation id.
+     */
+    String id();
+
+    /**
+     * Transaction creation time.
+     */
+    String createdAt();
+
+    /**
+     * Destination account public id.
+     */
+    String destinationPublicKey();
+
+    /**
+     * Source account public id.
+     */
+    String sourcePublicKey();
+
+    /**
+     * Payment amount in kin.
+     */
+    BigDecimal amount();
+
+    /**
+     * Transaction id (hash).
+     */
+    TransactionId hash();
+}
@@ -0,0 +1,54 @@
+package kin.sdk;
+
+
+import java.math.BigDecimal;
+
+class PaymentOperationInfoImpl implements PaymentOperationInfo {
+
+    private final String id;
+    private final String createdAt;
+    private final String destinationPublicKey;
+    private final String sourcePublicKey;
+    private final BigDecimal amount;
+    private final TransactionId hash;
+
+    PaymentOperationInfoImpl(String id, String createdAt, String destinationPublicKey, String sourcePublicKey,
+        BigDecimal amount, TransactionId hash) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.destinationPublicKey = destinationPublicKey;
+        this.sourcePublicKey = sourcePublicKey;
+        this.amount = amount;
+        this.hash = hash;
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String createdAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String destinationPublicKey() {
+        return destinationPublicKey;
+    }
+
+    @Override
+    public String sourcePublicKey() {
+        return sourcePublicKey;
+    }
+
+    @Override
+    public BigDecimal amount() {
+        return amount;
+    }
+
+    @Override
+    public TransactionId hash() {
+        return hash;
+    }
+}
@@ -0,0 +1,117 @@
+package kin.sdk;
+
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.here.oksse.ServerSentEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import kin.base.requests.StreamState;
+import kin.base.requests.StreamStateListener;
+
+/**
+ * A single stream of events shared by all its listeners, e.g. the transactions of an account.
+ * <p>
+ * The SSE connection is opened with the first listener and closed when the last one is removed. Each event is parsed
+ * once, whatever the number of listeners.
+ * </p>
+ *
+ * @param <T> the type of the events delivered to the listeners
+ */
+abstract class SharedStream<T> {
+
+    interface Listener<T> {
+
+        void onEvent(T event);
+    }
+
+    private final List<Listener<T>> listeners = new CopyOnWriteArrayList<>();
+    @Nullable
+    private volatile Listener<T> observer;
+    private ServerSentEvent serverSentEvent;
+    private volatile int connection;
+    private volatile StreamStateListener stateListener;
+    private volatile StreamState state = StreamState.CLOSED;
+
+    synchronized ListenerRegistration addListener(@NonNull final Listener<T> listener) {
+        listeners.add(listener);
+        if (serverSentEvent == null) {
+            serverSentEvent = open();
+        }
+        return new ListenerRegistration(new Runnable() {
+            @Override
+            public void run() {
+                removeListener(listener);
+            }
+        }, this);
+    }
+
+    /**
+     * Sets a listener receiving the events while the stream is open, without keeping it open.
+     */
+    void setObserver(@Nullable Listener<T> observer) {
+        this.observer = observer;
+    }
+
+    synchronized int getListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Returns the state of the stream, {@link StreamState#CLOSED} when it has no listener.
+     */
+    StreamState getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of times the stream was opened, so that an observer can tell its state from a previous
+     * connection, which missed the events while it was closed.
+     */
+    int getConnection() {
+        return connection;
+    }
+
+    /**
+     * Opens the SSE connection, reporting its state to <code>stateListener</code> and each event to
+     * {@link #deliver(Object)}.
+     */
+    abstract ServerSentEvent stream(StreamStateListener stateListener);
+
+    /**
+     * Delivers an event to the observer, then to the listeners.
+     */
+    void deliver(T event) {
+        Listener<T> observer = this.observer;
+        if (observer != null) {
+            observer.onEvent(event);
+        }
+        for (Listener<T> listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    private synchronized void removeListener(Listener<T> listener) {
+        if (listeners.remove(listener) && listeners.isEmpty() && serverSentEvent != null) {
+            stateListener = null;
+            state = StreamState.CLOSED;
+            serverSentEvent.close();
+            serverSentEvent = null;
+        }
+    }
+
+    private ServerSentEvent open() {
+        state = StreamState.CONNECTING;
+        connection++;
+        // Ignores the state changes of the previous connections, once closed.
+        stateListener = new StreamStateListener() {
+            @Override
+            public void onStateChanged(StreamState newState) {
+                if (stateListener == this) {
+                    state = newState;
+                }
+            }
+        };
+        return stream(stateListener);
+    }
+}
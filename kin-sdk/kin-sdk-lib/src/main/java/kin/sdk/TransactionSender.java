@@ -26,6 +26,27 @@ import kin.sdk.exception.TransactionFailedException;
 
 class TransactionSender {
 
+    /**
+     * Stages of building and sending a transaction, reported to a {@link StageListener}.
+     */
+    enum Stage {
+        LOAD_ACCOUNT,
+        VERIFY_ADDRESSEE,
+        SIGN,
+        ENCODE,
+        SUBMIT
+    }
+
+    /**
+     * Notified before and after each stage on the calling thread, to break down where the time of a payment goes.
+     */
+    interface StageListener {
+
+        void onStageStarted(Stage stage);
+
+        void onStageFinished(Stage stage);
+    }
+
     private static final int MEMO_BYTES_LENGTH_LIMIT = 21; //Memo length limitation(in bytes) is 28 but we add 7 more bytes which includes the appId and some characters.
     private static final int MAX_NUM_OF_DECIMAL_PLACES = 4 ;
     private static String MEMO_APP_ID_VERSION_PREFIX = "1";
@@ -35,12 +56,17 @@ class TransactionSender {
     private static final String INSUFFICIENT_BALANCE_RESULT_CODE = "tx_insufficient_balance";
     private final Server server; //horizon server
     private final String appId;
+    private volatile StageListener stageListener;
 
     TransactionSender(Server server, String appId) {
         this.server = server;
         this.appId = appId;
     }
 
+    void setStageListener(@Nullable StageListener stageListener) {
+        this.stageListener = stageListener;
+    }
+
     Transaction buildTransaction(@NonNull KeyPair from, @NonNull String publicAddress, @NonNull BigDecimal amount,
                                  int fee) throws OperationFailedException {
         return buildTransaction(from, publicAddress, amount, fee, null);
@@ -54,17 +80,60 @@ class TransactionSender {
         }
 
         KeyPair addressee = generateAddresseeKeyPair(publicAddress);
-        AccountResponse sourceAccount = loadSourceAccount(from);
-        verifyAddresseeAccount(generateAddresseeKeyPair(addressee.getAccountId()));
-        kin.base.Transaction stellarTransaction = buildStellarTransaction(from, amount, addressee, sourceAccount, fee, memo);
-        TransactionId id = new TransactionIdImpl(Utils.byteArrayToHex(stellarTransaction.hash()));
-        WhitelistableTransaction whitelistableTransaction =
-                new WhitelistableTransaction(stellarTransaction.toEnvelopeXdrBase64(), Network.current().getNetworkPassphrase());
+        StageListener listener = stageListener;
+        AccountResponse sourceAccount;
+        startStage(listener, Stage.LOAD_ACCOUNT);
+        try {
+            sourceAccount = loadSourceAccount(from);
+        } finally {
+            finishStage(listener, Stage.LOAD_ACCOUNT);
+        }
+        startStage(listener, Stage.VERIFY_ADDRESSEE);
+        try {
+            verifyAddresseeAccount(generateAddresseeKeyPair(addressee.getAccountId()));
+        } finally {
+            finishStage(listener, Stage.VERIFY_ADDRESSEE);
+        }
+        startStage(listener, Stage.SIGN);
+        kin.base.Transaction stellarTransaction;
+        TransactionId id;
+        try {
+            stellarTransaction = buildStellarTransaction(from, amount, addressee, sourceAccount, fee, memo);
+            id = new TransactionIdImpl(Utils.byteArrayToHex(stellarTransaction.hash()));
+        } finally {
+            finishStage(listener, Stage.SIGN);
+        }
+        startStage(listener, Stage.ENCODE);
+        WhitelistableTransaction whitelistableTransaction;
+        try {
+            whitelistableTransaction = new WhitelistableTransaction(stellarTransaction.toEnvelopeXdrBase64(),
+                Network.current().getNetworkPassphrase());
+        } finally {
+            finishStage(listener, Stage.ENCODE);
+        }
         return new Transaction(addressee, from, amount, fee, memo, id, stellarTransaction, whitelistableTransaction);
     }
 
     TransactionId sendTransaction(Transaction transaction) throws OperationFailedException {
-        return sendTransaction(transaction.getStellarTransaction());
+        StageListener listener = stageListener;
+        startStage(listener, Stage.SUBMIT);
+        try {
+            return sendTransaction(transaction.getStellarTransaction());
+        } finally {
+            finishStage(listener, Stage.SUBMIT);
+        }
+    }
+
+    private static void startStage(@Nullable StageListener listener, Stage stage) {
+        if (listener != null) {
+            listener.onStageStarted(stage);
+        }
+    }
+
+    private static void finishStage(@Nullable StageListener listener, Stage stage) {
+        if (listener != null) {
+            listener.onStageFinished(stage);
+        }
     }
 
     TransactionId sendWhitelistTransaction(String whitelist) throws OperationFailedException {
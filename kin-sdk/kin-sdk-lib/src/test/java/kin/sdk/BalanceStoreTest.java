@@ -0,0 +1,86 @@
+package kin.sdk;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import kin.base.requests.StreamState;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BalanceStoreTest {
+
+    private final AccountTransactionStream stream = mock(AccountTransactionStream.class);
+    private BalanceStore balanceStore;
+
+    @Before
+    public void setUp() {
+        when(stream.getState()).thenReturn(StreamState.CONNECTED);
+        when(stream.getConnection()).thenReturn(1);
+        balanceStore = new BalanceStore(stream);
+    }
+
+    @Test
+    public void get_StreamConnected_ReturnsLatestBalance() {
+        assertThat(balanceStore.get(), nullValue());
+
+        balanceStore.update(new BigDecimal("10"), 100);
+        balanceStore.update(new BigDecimal("7.5"), 101);
+
+        CachedBalance balance = balanceStore.get();
+        assertThat(balance.value(), equalTo(new BigDecimal("7.5")));
+        assertThat(balance.ledger(), equalTo(101L));
+        assertThat(balance.isFromNetwork(), equalTo(false));
+    }
+
+    @Test
+    public void get_StreamDisconnected_Null() {
+        balanceStore.update(new BigDecimal("10"), 100);
+        when(stream.getState()).thenReturn(StreamState.RECONNECTING);
+
+        assertThat(balanceStore.get(), nullValue());
+    }
+
+    @Test
+    public void get_StreamReopened_Null() {
+        balanceStore.update(new BigDecimal("10"), 100);
+        when(stream.getConnection()).thenReturn(2);
+
+        assertThat(balanceStore.get(), nullValue());
+    }
+
+    @Test
+    public void completeRead_StreamConnected_StoresNetworkBalance() {
+        BalanceStore.Read read = balanceStore.startRead();
+        CachedBalance balance = balanceStore.completeRead(read, new BigDecimal("3"));
+
+        assertThat(balance.isFromNetwork(), equalTo(true));
+        CachedBalance cached = balanceStore.get();
+        assertThat(cached.value(), equalTo(new BigDecimal("3")));
+        assertThat(cached.ledger(), equalTo(0L));
+        assertThat(cached.isFromNetwork(), equalTo(false));
+    }
+
+    @Test
+    public void completeRead_StreamUpdatedMeanwhile_KeepsStreamBalance() {
+        BalanceStore.Read read = balanceStore.startRead();
+        balanceStore.update(new BigDecimal("8"), 100);
+        CachedBalance balance = balanceStore.completeRead(read, new BigDecimal("3"));
+
+        assertThat(balance.value(), equalTo(new BigDecimal("3")));
+        assertThat(balanceStore.get().value(), equalTo(new BigDecimal("8")));
+    }
+
+    @Test
+    public void completeRead_StreamConnectedDuringRead_NotStored() {
+        when(stream.getState()).thenReturn(StreamState.CONNECTING);
+        BalanceStore.Read read = balanceStore.startRead();
+        when(stream.getState()).thenReturn(StreamState.CONNECTED);
+        balanceStore.completeRead(read, new BigDecimal("3"));
+
+        assertThat(balanceStore.get(), nullValue());
+    }
+}
@@ -8,6 +8,9 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.here.oksse.ServerSentEvent;
@@ -21,13 +24,20 @@ import java.util.concurrent.TimeUnit;
 import kin.base.KeyPair;
 import kin.base.Network;
 import kin.base.Server;
+import kin.base.requests.EffectsRequestBuilder;
+import kin.base.requests.PaymentsRequestBuilder;
+import kin.base.requests.StreamState;
+import kin.base.requests.StreamStateListener;
 import kin.base.requests.TransactionsRequestBuilder;
 import kin.base.responses.GsonSingleton;
 import kin.base.responses.TransactionResponse;
+import kin.base.responses.effects.EffectResponse;
+import kin.base.responses.operations.OperationResponse;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -44,6 +54,10 @@ public class BlockchainEventsTest {
     @Mock
     private TransactionsRequestBuilder mockTransactionsRequestBuilder;
     @Mock
+    private EffectsRequestBuilder mockEffectsRequestBuilder;
+    @Mock
+    private PaymentsRequestBuilder mockPaymentsRequestBuilder;
+    @Mock
     private ServerSentEvent mockServerSentEvent;
     private BlockchainEvents blockchainEvents;
     private ConcurrentLinkedQueue<TransactionResponse> responsesQueue = new ConcurrentLinkedQueue<>();
@@ -64,6 +78,12 @@ public class BlockchainEventsTest {
         when(server.transactions()).thenReturn(mockTransactionsRequestBuilder);
         when(mockTransactionsRequestBuilder.forAccount((KeyPair) any())).thenReturn(mockTransactionsRequestBuilder);
         when(mockTransactionsRequestBuilder.cursor(anyString())).thenReturn(mockTransactionsRequestBuilder);
+        when(server.effects()).thenReturn(mockEffectsRequestBuilder);
+        when(mockEffectsRequestBuilder.forAccount((KeyPair) any())).thenReturn(mockEffectsRequestBuilder);
+        when(mockEffectsRequestBuilder.cursor(anyString())).thenReturn(mockEffectsRequestBuilder);
+        when(server.payments()).thenReturn(mockPaymentsRequestBuilder);
+        when(mockPaymentsRequestBuilder.forAccount((KeyPair) any())).thenReturn(mockPaymentsRequestBuilder);
+        when(mockPaymentsRequestBuilder.cursor(anyString())).thenReturn(mockPaymentsRequestBuilder);
     }
 
     //using MockWebServer to mock real network responses is the ideal, unfortunately, streaming mocking
@@ -205,6 +225,29 @@ public class BlockchainEventsTest {
         assertThat(eventsCount[0], equalTo(2));
     }
 
+    @Test
+    public void addAccountCreationListener_AddedAfterFirstEvent_Fires() throws Exception {
+        enqueueCreateAccountResponses();
+        final CountDownLatch firstLatch = new CountDownLatch(1);
+        blockchainEvents.addAccountCreationListener(new EventListener<Void>() {
+            @Override
+            public void onEvent(Void data) {
+                firstLatch.countDown();
+            }
+        });
+        assertTrue(firstLatch.await(1, TimeUnit.SECONDS));
+
+        final CountDownLatch secondLatch = new CountDownLatch(1);
+        blockchainEvents.addAccountCreationListener(new EventListener<Void>() {
+            @Override
+            public void onEvent(Void data) {
+                secondLatch.countDown();
+            }
+        });
+
+        assertTrue(secondLatch.await(1, TimeUnit.SECONDS));
+    }
+
     @Test
     public void addAccountCreationListener_StopListener_NoEvents() throws Exception {
         final int[] eventsCount = {0};
@@ -281,6 +324,160 @@ public class BlockchainEventsTest {
         assertThat(eventsCount[0], equalTo(0));
     }
 
+    @Test
+    public void addBalanceAndPaymentListeners_ShareOneStream() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(4);
+        ListenerRegistration balanceRegistration = blockchainEvents.addBalanceListener(new EventListener<Balance>() {
+            @Override
+            public void onEvent(Balance data) {
+                latch.countDown();
+            }
+        });
+        ListenerRegistration paymentRegistration = blockchainEvents
+            .addPaymentListener(new EventListener<PaymentInfo>() {
+                @Override
+                public void onEvent(PaymentInfo data) {
+                    latch.countDown();
+                }
+            });
+        // Once both listeners are added, so that both receive the events.
+        enqueueTransactionsResponses();
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        verify(mockTransactionsRequestBuilder, times(1))
+            .stream(ArgumentMatchers.<kin.base.requests.EventListener<TransactionResponse>>any());
+
+        balanceRegistration.remove();
+        balanceRegistration.remove();
+        verify(mockServerSentEvent, never()).close();
+
+        paymentRegistration.remove();
+        verify(mockServerSentEvent, times(1)).close();
+    }
+
+    @Test
+    public void addListener_AfterLastRemoved_ReopensStream() throws Exception {
+        EventListener<Balance> listener = new EventListener<Balance>() {
+            @Override
+            public void onEvent(Balance data) {
+            }
+        };
+        blockchainEvents.addBalanceListener(listener).remove();
+        isCancelled = false;
+        ListenerRegistration registration = blockchainEvents.addBalanceListener(listener);
+
+        verify(mockTransactionsRequestBuilder, times(2))
+            .stream(ArgumentMatchers.<kin.base.requests.EventListener<TransactionResponse>>any());
+        registration.remove();
+        verify(mockServerSentEvent, times(2)).close();
+    }
+
+    @Test
+    public void listenerRegistration_ReportsStreamState() throws Exception {
+        ListenerRegistration registration = blockchainEvents.addBalanceListener(new EventListener<Balance>() {
+            @Override
+            public void onEvent(Balance data) {
+            }
+        });
+        ArgumentCaptor<StreamStateListener> stateListener = ArgumentCaptor.forClass(StreamStateListener.class);
+        verify(mockTransactionsRequestBuilder).setStreamStateListener(stateListener.capture());
+        assertThat(registration.getStreamState(), equalTo(StreamState.CONNECTING));
+
+        stateListener.getValue().onStateChanged(StreamState.CONNECTED);
+        assertThat(registration.getStreamState(), equalTo(StreamState.CONNECTED));
+        stateListener.getValue().onStateChanged(StreamState.WAITING_FOR_NETWORK);
+        assertThat(registration.getStreamState(), equalTo(StreamState.WAITING_FOR_NETWORK));
+
+        registration.remove();
+        assertThat(registration.getStreamState(), equalTo(StreamState.CLOSED));
+    }
+
+    @Test
+    public void addPaymentListener_UpdatesBalanceStore() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        blockchainEvents.addPaymentListener(new EventListener<PaymentInfo>() {
+            @Override
+            public void onEvent(PaymentInfo data) {
+                latch.countDown();
+            }
+        });
+        ArgumentCaptor<StreamStateListener> stateListener = ArgumentCaptor.forClass(StreamStateListener.class);
+        verify(mockTransactionsRequestBuilder).setStreamStateListener(stateListener.capture());
+        stateListener.getValue().onStateChanged(StreamState.CONNECTED);
+        enqueueTransactionsResponses();
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+
+        CachedBalance balance = blockchainEvents.getBalanceStore().get();
+        assertThat(balance.value(), equalTo(new BigDecimal("11299.997")));
+        assertThat(balance.ledger(), equalTo(71371L));
+        assertThat(balance.isFromNetwork(), equalTo(false));
+    }
+
+    @Test
+    public void addBalanceChangeListener_DeliversNativeCreditsAndDebits() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final List<BalanceChange> actualResults = new ArrayList<>();
+        ListenerRegistration registration = blockchainEvents
+            .addBalanceChangeListener(new EventListener<BalanceChange>() {
+                @Override
+                public void onEvent(BalanceChange data) {
+                    actualResults.add(data);
+                    latch.countDown();
+                }
+            });
+        ArgumentCaptor<kin.base.requests.EventListener<EffectResponse>> streamListener = eventListenerCaptor();
+        verify(mockEffectsRequestBuilder).cursor("now");
+        verify(mockEffectsRequestBuilder).stream(streamListener.capture());
+
+        streamListener.getValue().onEvent(createResponse("effect_account_credited.json", EffectResponse.class));
+        streamListener.getValue().onEvent(createResponse("effect_account_debited.json", EffectResponse.class));
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+
+        assertThat(actualResults.get(0).id(), equalTo("0000306536110886913-0000000001"));
+        assertThat(actualResults.get(0).amount(), equalTo(new BigDecimal("250.00000")));
+        assertThat(actualResults.get(1).amount(), equalTo(new BigDecimal("-100.50000")));
+        verify(server, never()).transactions();
+        assertThat(registration.getStreamState(), equalTo(StreamState.CONNECTING));
+    }
+
+    @Test
+    public void addPaymentOperationListener_DeliversNativePayments() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<PaymentOperationInfo> actualResults = new ArrayList<>();
+        blockchainEvents.addPaymentOperationListener(new EventListener<PaymentOperationInfo>() {
+            @Override
+            public void onEvent(PaymentOperationInfo data) {
+                actualResults.add(data);
+                latch.countDown();
+            }
+        });
+        ArgumentCaptor<kin.base.requests.EventListener<OperationResponse>> streamListener = eventListenerCaptor();
+        verify(mockPaymentsRequestBuilder).cursor("now");
+        verify(mockPaymentsRequestBuilder).stream(streamListener.capture());
+
+        streamListener.getValue()
+            .onEvent(createResponse("payment_operation_response.json", OperationResponse.class));
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+
+        PaymentOperationInfo payment = actualResults.get(0);
+        assertThat(payment.id(), equalTo("306536110886913"));
+        assertThat(payment.sourcePublicKey(), equalTo("GBS43BF24ENNS3KPACUZVKK2VYPOZVBQO2CISGZ777RYGOPYC2FT6S3K"));
+        assertThat(payment.destinationPublicKey(), equalTo(ACCOUNT_ID));
+        assertThat(payment.amount(), equalTo(new BigDecimal("250.00000")));
+        assertThat(payment.hash().id(),
+            equalTo("3eb3024a9c03451e7c8b8d3ba525a3a241e286cb694a262444d46d92e7605f22"));
+        assertThat(payment.createdAt(), equalTo("2018-09-12T11:27:53Z"));
+        verify(server, never()).transactions();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArgumentCaptor<kin.base.requests.EventListener<T>> eventListenerCaptor() {
+        return ArgumentCaptor.forClass((Class) kin.base.requests.EventListener.class);
+    }
+
+    private <T> T createResponse(String res, Class<T> type) {
+        return GsonSingleton.getInstance().fromJson(loadResource(BlockchainEventsTest.this.getClass(), res), type);
+    }
+
     @SuppressWarnings("ConstantConditions")
     @Test
     public void addPaymentListener_NullListener_IllegalArgumentException() throws Exception {
@@ -0,0 +1,192 @@
+package kin.sdk;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import kin.sdk.EventDispatcher.OverflowPolicy;
+import org.junit.Test;
+
+public class EventDispatcherTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final List<Integer> events = new ArrayList<>();
+    private final EventListener<Integer> recorder = new EventListener<Integer>() {
+        @Override
+        public void onEvent(Integer data) {
+            events.add(data);
+        }
+    };
+
+    @Test
+    public void offer_DeliversInOrderOnExecutor() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final List<String> threads = new ArrayList<>();
+        EventDispatcher dispatcher = new EventDispatcher.Builder().build();
+        EventDispatcher.Channel<Integer> channel = dispatcher.newChannel(new EventListener<Integer>() {
+            @Override
+            public void onEvent(Integer data) {
+                events.add(data);
+                threads.add(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        }, false);
+
+        channel.offer(1);
+        channel.offer(2);
+        channel.offer(3);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertThat(events, contains(1, 2, 3));
+        assertThat(threads.get(0), equalTo("kin-sdk-events"));
+        // Counted once the listener returns, right after the latch.
+        long deadline = System.currentTimeMillis() + 1000;
+        while (dispatcher.getDeliveredEventCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dispatcher.getDeliveredEventCount(), equalTo(3L));
+    }
+
+    @Test
+    public void offer_DropOldest_KeepsNewestEvents() {
+        EventDispatcher dispatcher = newDispatcher(OverflowPolicy.DROP_OLDEST);
+        EventDispatcher.Channel<Integer> channel = dispatcher.newChannel(recorder, false);
+
+        channel.offer(1);
+        channel.offer(2);
+        channel.offer(3);
+        assertThat(dispatcher.getQueueDepth(), equalTo(2));
+        executor.runAll();
+
+        assertThat(events, contains(2, 3));
+        assertThat(dispatcher.getDroppedEventCount(), equalTo(1L));
+        assertThat(dispatcher.getMaxQueueDepth(), equalTo(2));
+        assertThat(dispatcher.getQueueDepth(), equalTo(0));
+    }
+
+    @Test
+    public void offer_CoalesceBalances_ReplacesNewestPendingBalance() {
+        EventDispatcher dispatcher = newDispatcher(OverflowPolicy.COALESCE_BALANCES);
+        EventDispatcher.Channel<Integer> channel = dispatcher.newChannel(recorder, true);
+
+        channel.offer(1);
+        channel.offer(2);
+        channel.offer(3);
+        channel.offer(4);
+        executor.runAll();
+
+        assertThat(events, contains(1, 4));
+        assertThat(dispatcher.getCoalescedEventCount(), equalTo(2L));
+    }
+
+    @Test
+    public void offer_Block_WaitsForListener() throws Exception {
+        EventDispatcher dispatcher = newDispatcher(OverflowPolicy.COALESCE_BALANCES);
+        // Not coalescing, so it blocks like OverflowPolicy.BLOCK.
+        final EventDispatcher.Channel<Integer> channel = dispatcher.newChannel(recorder, false);
+        channel.offer(1);
+        channel.offer(2);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                channel.offer(3);
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+
+        executor.runAll();
+        producer.join(1000);
+        assertFalse(producer.isAlive());
+        executor.runAll();
+
+        assertThat(events, contains(1, 2, 3));
+        assertThat(dispatcher.getDroppedEventCount(), equalTo(0L));
+    }
+
+    @Test
+    public void close_DropsPendingEventsAndReleasesBlockedProducer() throws Exception {
+        EventDispatcher dispatcher = newDispatcher(OverflowPolicy.BLOCK);
+        final EventDispatcher.Channel<Integer> channel = dispatcher.newChannel(recorder, false);
+        channel.offer(1);
+        channel.offer(2);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                channel.offer(3);
+            }
+        });
+        producer.start();
+        producer.join(200);
+
+        channel.close();
+        producer.join(1000);
+        assertFalse(producer.isAlive());
+        channel.offer(4);
+        executor.runAll();
+
+        assertTrue(events.isEmpty());
+        assertThat(dispatcher.getQueueDepth(), equalTo(0));
+    }
+
+    @Test
+    public void offer_ExecutorRejected_DeliveredWithNextEvent() {
+        EventDispatcher dispatcher = newDispatcher(OverflowPolicy.DROP_OLDEST);
+        EventDispatcher.Channel<Integer> channel = dispatcher.newChannel(recorder, false);
+
+        executor.rejecting = true;
+        channel.offer(1);
+        executor.rejecting = false;
+        channel.offer(2);
+        executor.runAll();
+
+        assertThat(events, contains(1, 2));
+    }
+
+    private EventDispatcher newDispatcher(OverflowPolicy overflowPolicy) {
+        return new EventDispatcher.Builder()
+            .capacity(2)
+            .executor(executor)
+            .overflowPolicy(overflowPolicy)
+            .build();
+    }
+
+    /**
+     * Runs the tasks only when asked, so events stay queued meanwhile.
+     */
+    private static class ManualExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+        volatile boolean rejecting;
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            if (rejecting) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    if (tasks.isEmpty()) {
+                        return;
+                    }
+                    task = tasks.remove(0);
+                }
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package kin.sdk;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.gson.reflect.TypeToken;
+import com.here.oksse.ServerSentEvent;
+import kin.base.Server;
+import kin.base.requests.LedgersRequestBuilder;
+import kin.base.requests.RequestBuilder;
+import kin.base.requests.StreamState;
+import kin.base.requests.StreamStateListener;
+import kin.base.responses.GsonSingleton;
+import kin.base.responses.LedgerResponse;
+import kin.base.responses.Page;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class GeneralBlockchainInfoRetrieverImplTest {
+
+    @Mock
+    private Server server;
+    @Mock
+    private LedgersRequestBuilder mockLedgersRequestBuilder;
+    @Mock
+    private ServerSentEvent mockServerSentEvent;
+    private long now;
+    private GeneralBlockchainInfoRetrieverImpl retriever;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(server.ledgers()).thenReturn(mockLedgersRequestBuilder);
+        when(mockLedgersRequestBuilder.cursor(anyString())).thenReturn(mockLedgersRequestBuilder);
+        when(mockLedgersRequestBuilder.order((RequestBuilder.Order) any())).thenReturn(mockLedgersRequestBuilder);
+        when(mockLedgersRequestBuilder.limit(anyInt())).thenReturn(mockLedgersRequestBuilder);
+        when(mockLedgersRequestBuilder.execute()).thenReturn(page(100));
+        when(mockLedgersRequestBuilder.stream(org.mockito.ArgumentMatchers
+            .<kin.base.requests.EventListener<LedgerResponse>>any())).thenReturn(mockServerSentEvent);
+        retriever = new GeneralBlockchainInfoRetrieverImpl(server, new LedgerClock(server)) {
+            @Override
+            long now() {
+                return now;
+            }
+        };
+    }
+
+    @Test
+    public void getMinimumFeeSync_ListensToLedgers_ReadsFeeOfLastLedger() throws Exception {
+        assertThat(retriever.getMinimumFeeSync(), equalTo(100L));
+        kin.base.requests.EventListener<LedgerResponse> streamListener = connectedStream();
+
+        streamListener.onEvent(ledger(200));
+
+        assertThat(retriever.getMinimumFeeSync(), equalTo(200L));
+        verify(mockLedgersRequestBuilder, times(1)).execute();
+        verify(mockLedgersRequestBuilder, times(1)).stream(org.mockito.ArgumentMatchers
+            .<kin.base.requests.EventListener<LedgerResponse>>any());
+    }
+
+    @Test
+    public void getMinimumFeeSync_NotRequestedAnymore_StopsListening() throws Exception {
+        retriever.getMinimumFeeSync();
+        kin.base.requests.EventListener<LedgerResponse> streamListener = connectedStream();
+
+        now += retriever.subscriptionIdleMillis() - 1;
+        streamListener.onEvent(ledger(100));
+        verify(mockServerSentEvent, never()).close();
+        now += 1;
+        streamListener.onEvent(ledger(100));
+
+        verify(mockServerSentEvent).close();
+    }
+
+    @Test
+    public void getMinimumFeeSync_SingleRequest_StopsListeningAfterFewLedgers() throws Exception {
+        retriever.getMinimumFeeSync();
+        kin.base.requests.EventListener<LedgerResponse> streamListener = connectedStream();
+
+        // A few ledgers later, instead of a fixed delay.
+        now += GeneralBlockchainInfoRetrieverImpl.SUBSCRIPTION_IDLE_LEDGERS
+            * LedgerClock.DEFAULT_CLOSE_INTERVAL_MILLIS;
+        streamListener.onEvent(ledger(100));
+
+        verify(mockServerSentEvent).close();
+    }
+
+    private kin.base.requests.EventListener<LedgerResponse> connectedStream() {
+        ArgumentCaptor<kin.base.requests.EventListener<LedgerResponse>> streamListenerCaptor = eventListenerCaptor();
+        verify(mockLedgersRequestBuilder).stream(streamListenerCaptor.capture());
+        ArgumentCaptor<StreamStateListener> stateListenerCaptor = ArgumentCaptor.forClass(StreamStateListener.class);
+        verify(mockLedgersRequestBuilder).setStreamStateListener(stateListenerCaptor.capture());
+        stateListenerCaptor.getValue().onStateChanged(StreamState.CONNECTED);
+        return streamListenerCaptor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArgumentCaptor<kin.base.requests.EventListener<T>> eventListenerCaptor() {
+        return ArgumentCaptor.forClass((Class) kin.base.requests.EventListener.class);
+    }
+
+    private static LedgerResponse ledger(long baseFee) {
+        return GsonSingleton.getInstance().fromJson("{\"sequence\": 100, \"closed_at\": \"2018-11-19T16:36:42Z\", "
+            + "\"base_fee_in_stroops\": " + baseFee + "}", LedgerResponse.class);
+    }
+
+    private static Page<LedgerResponse> page(long baseFee) {
+        return GsonSingleton.getInstance().fromJson("{\"_embedded\": {\"records\": [{\"base_fee_in_stroops\": "
+            + baseFee + "}]}}", new TypeToken<Page<LedgerResponse>>() {}.getType());
+    }
+}
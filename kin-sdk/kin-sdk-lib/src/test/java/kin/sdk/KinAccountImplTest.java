@@ -2,13 +2,16 @@ package kin.sdk;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import kin.base.KeyPair;
+import kin.base.requests.StreamState;
 import kin.sdk.exception.AccountDeletedException;
 import org.junit.Before;
 import org.junit.Test;
@@ -92,6 +95,25 @@ public class KinAccountImplTest {
         verify(mockAccountInfoRetriever).getBalance(expectedRandomAccount.getAccountId());
     }
 
+    @Test
+    public void getCachedBalanceSync_StreamNotConnected_ReadsNetwork() throws Exception {
+        AccountTransactionStream stream = mock(AccountTransactionStream.class);
+        when(stream.getState()).thenReturn(StreamState.RECONNECTING);
+        BalanceStore balanceStore = new BalanceStore(stream);
+        balanceStore.update(new BigDecimal("5.0"), 42);
+        BlockchainEvents blockchainEvents = mock(BlockchainEvents.class);
+        when(blockchainEvents.getBalanceStore()).thenReturn(balanceStore);
+        when(mockBlockchainEventsCreator.create(anyString())).thenReturn(blockchainEvents);
+        initWithRandomAccount();
+        when(mockAccountInfoRetriever.getBalance(anyString())).thenReturn(new BalanceImpl(new BigDecimal("11.0")));
+
+        CachedBalance balance = kinAccount.getCachedBalanceSync();
+
+        assertEquals(new BigDecimal("11.0"), balance.value());
+        assertTrue(balance.isFromNetwork());
+        verify(mockAccountInfoRetriever).getBalance(expectedRandomAccount.getAccountId());
+    }
+
     @Test
     public void getStatusSync() throws Exception {
         initWithRandomAccount();
@@ -138,6 +160,14 @@ public class KinAccountImplTest {
         kinAccount.getStatusSync();
     }
 
+    @Test(expected = AccountDeletedException.class)
+    public void getPaymentHistory_DeletedAccount_Exception() throws Exception {
+        initWithRandomAccount();
+
+        kinAccount.markAsDeleted();
+        kinAccount.getPaymentHistory();
+    }
+
     @Test
     public void getPublicAddress_DeletedAccount_Empty() throws Exception {
         initWithRandomAccount();
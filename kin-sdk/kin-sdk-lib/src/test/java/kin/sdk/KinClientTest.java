@@ -19,6 +19,7 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("deprecation")
@@ -257,9 +258,11 @@ public class KinClientTest {
         createKeyStoreWithRandomAccount();
 
         assertTrue(kinClient.hasAccount());
+        String accountId = kinClient.getAccount(0).getPublicAddress();
         kinClient.deleteAccount(0);
 
         assertFalse(kinClient.hasAccount());
+        verify(mockBlockchainEventsCreator).delete(accountId);
     }
 
     @Test
@@ -378,6 +381,24 @@ public class KinClientTest {
         new Environment(null, Environment.TEST.getNetworkPassphrase());
     }
 
+    @Test
+    public void environment_AdditionalNetworkUrls() throws Exception {
+        Environment environment = new Environment("https://first", Environment.TEST.getNetworkPassphrase(),
+            "https://second", "https://third");
+
+        assertEquals("https://first", environment.getNetworkUrl());
+        assertEquals(Arrays.asList("https://first", "https://second", "https://third"),
+            environment.getNetworkUrls());
+    }
+
+    @Test
+    public void environment_EmptyAdditionalNetworkUrl_IllegalArgumentException() throws Exception {
+        expectedEx.expect(IllegalArgumentException.class);
+        expectedEx.expectMessage("additionalNetworkUrls");
+
+        new Environment("https://first", Environment.TEST.getNetworkPassphrase(), "");
+    }
+
     @Test
     public void environment_MissingNetworkPassphrase_IllegalArgumentException() throws Exception {
         expectedEx.expect(IllegalArgumentException.class);
@@ -0,0 +1,132 @@
+package kin.sdk;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.here.oksse.ServerSentEvent;
+import java.util.ArrayList;
+import java.util.List;
+import kin.base.Server;
+import kin.base.requests.LedgersRequestBuilder;
+import kin.base.requests.StreamState;
+import kin.base.requests.StreamStateListener;
+import kin.base.responses.GsonSingleton;
+import kin.base.responses.LedgerResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class LedgerClockTest {
+
+    @Mock
+    private Server server;
+    @Mock
+    private LedgersRequestBuilder mockLedgersRequestBuilder;
+    @Mock
+    private ServerSentEvent mockServerSentEvent;
+    private LedgerClock ledgerClock;
+    private kin.base.requests.EventListener<LedgerResponse> streamListener;
+    private StreamStateListener stateListener;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(server.ledgers()).thenReturn(mockLedgersRequestBuilder);
+        when(mockLedgersRequestBuilder.cursor(anyString())).thenReturn(mockLedgersRequestBuilder);
+        when(mockLedgersRequestBuilder.stream(org.mockito.ArgumentMatchers
+            .<kin.base.requests.EventListener<LedgerResponse>>any())).thenReturn(mockServerSentEvent);
+        ledgerClock = new LedgerClock(server);
+    }
+
+    @Test
+    public void subscribe_DeliversClosedLedgers() throws Exception {
+        final List<LedgerClock.Ledger> ledgers = new ArrayList<>();
+        subscribe(new SharedStream.Listener<LedgerClock.Ledger>() {
+            @Override
+            public void onEvent(LedgerClock.Ledger ledger) {
+                ledgers.add(ledger);
+            }
+        });
+        verify(mockLedgersRequestBuilder).cursor("now");
+        stateListener.onStateChanged(StreamState.CONNECTED);
+        assertThat(ledgerClock.getLastLedger(), nullValue());
+
+        streamListener.onEvent(ledger(100, "2018-11-19T16:36:42Z", 100));
+
+        assertThat(ledgers.size(), equalTo(1));
+        LedgerClock.Ledger lastLedger = ledgerClock.getLastLedger();
+        assertThat(lastLedger.getSequence(), equalTo(100L));
+        assertThat(lastLedger.getCloseTime(), equalTo(1542645402000L));
+        assertThat(lastLedger.getBaseFee(), equalTo(100L));
+    }
+
+    @Test
+    public void getCloseIntervalMillis_EstimatedFromCloseTimes() throws Exception {
+        subscribe(noOpListener());
+        stateListener.onStateChanged(StreamState.CONNECTED);
+        assertThat(ledgerClock.getCloseIntervalMillis(), equalTo(LedgerClock.DEFAULT_CLOSE_INTERVAL_MILLIS));
+
+        streamListener.onEvent(ledger(100, "2018-11-19T16:36:40Z", 100));
+        // Two ledgers closed in 10 seconds, one was missed.
+        streamListener.onEvent(ledger(102, "2018-11-19T16:36:50Z", 100));
+        assertThat(ledgerClock.getCloseIntervalMillis(), equalTo(5000L));
+        streamListener.onEvent(ledger(103, "2018-11-19T16:37:00Z", 100));
+
+        assertThat(ledgerClock.getCloseIntervalMillis(), equalTo(6000L));
+    }
+
+    @Test
+    public void getLastLedger_StreamDisconnectedOrReopened_Null() throws Exception {
+        ListenerRegistration registration = subscribe(noOpListener());
+        stateListener.onStateChanged(StreamState.CONNECTED);
+        streamListener.onEvent(ledger(100, "2018-11-19T16:36:42Z", 100));
+
+        stateListener.onStateChanged(StreamState.RECONNECTING);
+        assertThat(ledgerClock.getLastLedger(), nullValue());
+        stateListener.onStateChanged(StreamState.CONNECTED);
+        assertThat(ledgerClock.getLastLedger().getSequence(), equalTo(100L));
+
+        registration.remove();
+        verify(mockServerSentEvent).close();
+        subscribe(noOpListener());
+        stateListener.onStateChanged(StreamState.CONNECTED);
+        assertThat(ledgerClock.getLastLedger(), nullValue());
+    }
+
+    private ListenerRegistration subscribe(SharedStream.Listener<LedgerClock.Ledger> listener) {
+        int subscriptions = streamListener == null ? 1 : 2;
+        ListenerRegistration registration = ledgerClock.subscribe(listener);
+        ArgumentCaptor<kin.base.requests.EventListener<LedgerResponse>> streamListenerCaptor = eventListenerCaptor();
+        verify(mockLedgersRequestBuilder, times(subscriptions)).stream(streamListenerCaptor.capture());
+        ArgumentCaptor<StreamStateListener> stateListenerCaptor = ArgumentCaptor.forClass(StreamStateListener.class);
+        verify(mockLedgersRequestBuilder, times(subscriptions)).setStreamStateListener(stateListenerCaptor.capture());
+        streamListener = streamListenerCaptor.getValue();
+        stateListener = stateListenerCaptor.getValue();
+        return registration;
+    }
+
+    private static SharedStream.Listener<LedgerClock.Ledger> noOpListener() {
+        return new SharedStream.Listener<LedgerClock.Ledger>() {
+            @Override
+            public void onEvent(LedgerClock.Ledger ledger) {
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArgumentCaptor<kin.base.requests.EventListener<T>> eventListenerCaptor() {
+        return ArgumentCaptor.forClass((Class) kin.base.requests.EventListener.class);
+    }
+
+    private static LedgerResponse ledger(long sequence, String closedAt, long baseFee) {
+        return GsonSingleton.getInstance().fromJson("{\"sequence\": " + sequence + ", \"closed_at\": \"" + closedAt
+            + "\", \"base_fee_in_stroops\": " + baseFee + "}", LedgerResponse.class);
+    }
+}
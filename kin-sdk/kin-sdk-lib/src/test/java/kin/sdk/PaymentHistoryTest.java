@@ -0,0 +1,166 @@
+package kin.sdk;
+
+import static kin.sdk.TestUtils.loadResource;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import kin.base.KeyPair;
+import kin.base.Network;
+import kin.base.Server;
+import kin.base.requests.RequestBuilder;
+import kin.base.requests.TransactionsRequestBuilder;
+import kin.base.responses.GsonSingleton;
+import kin.base.responses.Page;
+import kin.base.responses.TransactionResponse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class PaymentHistoryTest {
+
+    private static final String ACCOUNT_ID = "GBLUDU6Y6KVM5MCJWOLPVVSJEVICGEGXHOOHEAPWRSXJ7XVMBFKISOLR";
+    private static final String LAST_PAGING_TOKEN = "306536110886912";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    @Mock
+    private Server server;
+    @Mock
+    private TransactionsRequestBuilder mockTransactionsRequestBuilder;
+    @Mock
+    private BlockchainEvents blockchainEvents;
+    @Mock
+    private BlockchainEventsCreator blockchainEventsCreator;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        Network.useTestNetwork();
+        when(server.transactions()).thenReturn(mockTransactionsRequestBuilder);
+        when(mockTransactionsRequestBuilder.forAccount((KeyPair) any())).thenReturn(mockTransactionsRequestBuilder);
+        when(mockTransactionsRequestBuilder.order((RequestBuilder.Order) any()))
+            .thenReturn(mockTransactionsRequestBuilder);
+        when(mockTransactionsRequestBuilder.limit(anyInt())).thenReturn(mockTransactionsRequestBuilder);
+        when(mockTransactionsRequestBuilder.cursor(anyString())).thenReturn(mockTransactionsRequestBuilder);
+    }
+
+    @Test
+    public void updateSync_StoresPaymentsAndResumesFromLastPagingToken() throws Exception {
+        when(mockTransactionsRequestBuilder.execute()).thenReturn(
+            page("payment_listener_tx_response1.json", "payment_listener_tx_response2.json"), page());
+        PaymentHistory paymentHistory = newPaymentHistory();
+
+        assertThat(paymentHistory.updateSync(), equalTo(2));
+        assertThat(paymentHistory.updateSync(), equalTo(0));
+
+        verify(mockTransactionsRequestBuilder).cursor(LAST_PAGING_TOKEN);
+        List<PaymentInfo> payments = paymentHistory.getPayments(0, 10);
+        assertThat(payments.size(), equalTo(2));
+        assertThat(payments.get(0).hash().id(),
+            equalTo("c4ad29472150a741c0924086a76fea1aac326261afacee05c0b36be7e8fb5727"));
+        assertThat(payments.get(1).hash().id(),
+            equalTo("3eb3024a9c03451e7c8b8d3ba525a3a241e286cb694a262444d46d92e7605f22"));
+        assertThat(payments.get(1).amount(), equalTo(new BigDecimal("250")));
+        assertThat(payments.get(1).memo(), equalTo("1-test-test1"));
+        assertThat(paymentHistory.getPayments(1, 10).size(), equalTo(1));
+    }
+
+    @Test
+    public void getPayments_NewInstance_LoadsStoredPaymentsAndCursor() throws Exception {
+        when(mockTransactionsRequestBuilder.execute()).thenReturn(page("payment_listener_tx_response1.json"), page());
+        newPaymentHistory().updateSync();
+        // A record partially written when the app was killed.
+        try (FileOutputStream out = new FileOutputStream(new File(folder.getRoot(), ACCOUNT_ID + ".payments"), true)) {
+            out.write("{\"pagingToken\": \"30653611".getBytes("UTF-8"));
+        }
+        TransactionResponse stored = transaction("payment_listener_tx_response1.json");
+
+        PaymentHistory paymentHistory = newPaymentHistory();
+
+        assertThat(paymentHistory.getPaymentCount(), equalTo(1));
+        assertThat(paymentHistory.updateSync(), equalTo(0));
+        verify(mockTransactionsRequestBuilder).cursor(stored.getPagingToken());
+        // A payment stored after the partial record is still there after the next restart.
+        TransactionResponse live = transaction("payment_listener_tx_response2.json");
+        paymentHistory.merge(live.getPagingToken(), BlockchainEvents.extractPayments(live, live.getOperations()));
+        assertThat(newPaymentHistory().getPaymentCount(), equalTo(2));
+    }
+
+    @Test
+    public void merge_SkipsStoredPayments() throws Exception {
+        when(mockTransactionsRequestBuilder.execute()).thenReturn(
+            page("payment_listener_tx_response1.json"), page());
+        PaymentHistory paymentHistory = newPaymentHistory();
+        paymentHistory.updateSync();
+        TransactionResponse stored = transaction("payment_listener_tx_response1.json");
+        TransactionResponse live = transaction("payment_listener_tx_response2.json");
+
+        assertThat(paymentHistory.merge(stored.getPagingToken(),
+            BlockchainEvents.extractPayments(stored, stored.getOperations())).size(), equalTo(0));
+        List<PaymentInfo> added = paymentHistory.merge(live.getPagingToken(),
+            BlockchainEvents.extractPayments(live, live.getOperations()));
+
+        assertThat(added.size(), equalTo(1));
+        assertThat(paymentHistory.getPaymentCount(), equalTo(2));
+        assertThat(paymentHistory.getPayments(0, 1).get(0).hash().id(), equalTo(live.getHash()));
+        // Live payments don't move the cursor, the next update reads from the last updated transaction.
+        paymentHistory.updateSync();
+        verify(mockTransactionsRequestBuilder, times(1)).cursor(stored.getPagingToken());
+    }
+
+    @Test
+    public void delete_DeletesStoredPaymentsAndStopsStoring() throws Exception {
+        when(mockTransactionsRequestBuilder.execute()).thenReturn(page("payment_listener_tx_response1.json"));
+        when(blockchainEventsCreator.create(ACCOUNT_ID)).thenReturn(blockchainEvents);
+        PaymentHistoryCreator creator = new PaymentHistoryCreator(server, folder.getRoot(), blockchainEventsCreator);
+        PaymentHistory paymentHistory = creator.create(ACCOUNT_ID);
+        paymentHistory.updateSync();
+
+        creator.delete(ACCOUNT_ID);
+
+        assertThat(new File(folder.getRoot(), ACCOUNT_ID + ".payments").exists(), equalTo(false));
+        assertThat(new File(folder.getRoot(), ACCOUNT_ID + ".cursor").exists(), equalTo(false));
+        // A listener still running doesn't store the payments again.
+        TransactionResponse live = transaction("payment_listener_tx_response2.json");
+        assertThat(paymentHistory.merge(live.getPagingToken(),
+            BlockchainEvents.extractPayments(live, live.getOperations())).size(), equalTo(0));
+        assertThat(new File(folder.getRoot(), ACCOUNT_ID + ".payments").exists(), equalTo(false));
+        PaymentHistory recreated = creator.create(ACCOUNT_ID);
+        assertThat(recreated == paymentHistory, equalTo(false));
+        assertThat(recreated.getPaymentCount(), equalTo(0));
+    }
+
+    private PaymentHistory newPaymentHistory() {
+        return new PaymentHistory(server, KeyPair.fromAccountId(ACCOUNT_ID), blockchainEvents, folder.getRoot());
+    }
+
+    private TransactionResponse transaction(String res) {
+        return GsonSingleton.getInstance().fromJson(loadResource(getClass(), res), TransactionResponse.class);
+    }
+
+    private Page<TransactionResponse> page(String... resources) {
+        StringBuilder records = new StringBuilder();
+        for (String res : resources) {
+            if (records.length() > 0) {
+                records.append(',');
+            }
+            records.append(loadResource(getClass(), res));
+        }
+        return GsonSingleton.getInstance().fromJson("{\"_embedded\": {\"records\": [" + records + "]}}",
+            new TypeToken<Page<TransactionResponse>>() {}.getType());
+    }
+}
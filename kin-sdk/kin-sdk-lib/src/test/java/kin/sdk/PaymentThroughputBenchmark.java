@@ -0,0 +1,488 @@
+package kin.sdk;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import kin.base.KeyPair;
+import kin.base.Network;
+import kin.base.Server;
+import kin.horizon.fake.FakeHorizon;
+import kin.horizon.fake.Faults;
+import kin.sdk.TransactionSender.Stage;
+
+/**
+ * End-to-end payment throughput benchmark of {@link KinAccount#buildTransactionSync} and
+ * {@link KinAccount#sendTransactionSync}, against an in-process {@link FakeHorizon}.
+ * <p>
+ * Accounts are split between the threads, each thread paying from its own accounts (so sequence numbers never
+ * collide) to the next account in the list. Every payment is broken down into the {@link Stage}s of
+ * {@link TransactionSender}, recording the latency and the bytes allocated by the calling thread in each stage.
+ * Keys and injected faults are derived from a fixed seed, so runs with the same configuration are comparable across
+ * SDK versions.
+ * </p>
+ */
+class PaymentThroughputBenchmark {
+
+    private static final String APP_ID = "bnch";
+    private static final int FEE = 100;
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+    private static final String STARTING_BALANCE = "100000000";
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    static class Config {
+
+        int accounts = 8;
+        int threads = 4;
+        int warmupPayments = 40;
+        int payments = 200;
+        long ledgerCloseMillis = 0;
+        long horizonLatencyMillis = 0;
+        long seed = 42;
+        String tag = "snapshot";
+
+        /**
+         * Reads overrides from <code>kin.benchmark*</code> system properties, e.g. <code>-Dkin.benchmarkThreads=8</code>.
+         */
+        static Config fromSystemProperties() {
+            Config config = new Config();
+            config.accounts = Integer.getInteger("kin.benchmarkAccounts", config.accounts);
+            config.threads = Integer.getInteger("kin.benchmarkThreads", config.threads);
+            config.warmupPayments = Integer.getInteger("kin.benchmarkWarmupPayments", config.warmupPayments);
+            config.payments = Integer.getInteger("kin.benchmarkPayments", config.payments);
+            config.ledgerCloseMillis = Long.getLong("kin.benchmarkLedgerCloseMillis", config.ledgerCloseMillis);
+            config.horizonLatencyMillis = Long.getLong("kin.benchmarkHorizonLatencyMillis",
+                config.horizonLatencyMillis);
+            config.seed = Long.getLong("kin.benchmarkSeed", config.seed);
+            config.tag = System.getProperty("kin.benchmarkTag", config.tag);
+            return config;
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("accounts", accounts);
+            json.addProperty("threads", threads);
+            json.addProperty("warmupPayments", warmupPayments);
+            json.addProperty("payments", payments);
+            json.addProperty("ledgerCloseMillis", ledgerCloseMillis);
+            json.addProperty("horizonLatencyMillis", horizonLatencyMillis);
+            json.addProperty("seed", seed);
+            return json;
+        }
+    }
+
+    private final Config config;
+
+    PaymentThroughputBenchmark(Config config) {
+        if (config.threads < 1 || config.accounts < Math.max(2, config.threads)) {
+            throw new IllegalArgumentException("Needs at least one thread, two accounts and an account per thread");
+        }
+        this.config = config;
+    }
+
+    Report run() throws Exception {
+        Network previousNetwork = Network.current();
+        Network.use(Environment.TEST.getNetwork());
+        FakeHorizon horizon = new FakeHorizon.Builder(Network.current())
+            .ledgerCloseInterval(config.ledgerCloseMillis, TimeUnit.MILLISECONDS)
+            .baseFee(FEE)
+            .faults(new Faults.Builder()
+                .latency(config.horizonLatencyMillis, 0, TimeUnit.MILLISECONDS)
+                .seed(config.seed)
+                .build())
+            .build();
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+        try {
+            horizon.start();
+            List<KeyPair> keyPairs = createAccounts(horizon);
+            Server server = new Server(horizon.getUrl());
+            TransactionSender transactionSender = new TransactionSender(server, APP_ID);
+            Environment environment = new Environment(horizon.getUrl(), Environment.TEST.getNetworkPassphrase());
+            KinClient kinClient = new KinClient(environment, new FakeKeyStore(keyPairs), transactionSender, new AccountInfoRetriever(server),
+                new GeneralBlockchainInfoRetrieverImpl(server, new LedgerClock(server)), new BlockchainEventsCreator(server),
+                new FakeBackupRestore(), APP_ID, "");
+            final StageRecorders recorders = new StageRecorders();
+            transactionSender.setStageListener(recorders);
+
+            CyclicBarrier measureStart = new CyclicBarrier(config.threads + 1);
+            CyclicBarrier measureEnd = new CyclicBarrier(config.threads + 1);
+            List<Future<Recorder>> workers = new ArrayList<>();
+            for (int thread = 0; thread < config.threads; thread++) {
+                workers.add(executor.submit(new Worker(kinClient, thread, recorders, measureStart, measureEnd)));
+            }
+            long elapsedNanos;
+            try {
+                measureStart.await();
+                long startNanos = System.nanoTime();
+                measureEnd.await();
+                elapsedNanos = System.nanoTime() - startNanos;
+            } catch (BrokenBarrierException e) {
+                throw workerFailure(workers, e);
+            }
+
+            List<Recorder> results = new ArrayList<>();
+            for (Future<Recorder> worker : workers) {
+                results.add(worker.get());
+            }
+            transactionSender.setStageListener(null);
+            return new Report(config, Recorder.merge(results), elapsedNanos, horizon.getTransactionCount());
+        } finally {
+            executor.shutdownNow();
+            horizon.close();
+            Network.use(previousNetwork);
+        }
+    }
+
+    /**
+     * Returns the exception of the worker that broke the barriers, the others only saw them broken.
+     */
+    private static Exception workerFailure(List<Future<Recorder>> workers, BrokenBarrierException broken)
+        throws InterruptedException {
+        for (Future<Recorder> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof BrokenBarrierException)) {
+                    return e;
+                }
+            }
+        }
+        return broken;
+    }
+
+    private List<KeyPair> createAccounts(FakeHorizon horizon) {
+        Random random = new Random(config.seed);
+        List<KeyPair> keyPairs = new ArrayList<>(config.accounts);
+        for (int i = 0; i < config.accounts; i++) {
+            byte[] seed = new byte[32];
+            random.nextBytes(seed);
+            KeyPair keyPair = KeyPair.fromSecretSeed(seed);
+            horizon.createAccount(keyPair.getAccountId(), STARTING_BALANCE);
+            keyPairs.add(keyPair);
+        }
+        return keyPairs;
+    }
+
+    /**
+     * Pays from the accounts <code>thread, thread + threads, ...</code>, round robin.
+     */
+    private class Worker implements Callable<Recorder> {
+
+        private final KinClient kinClient;
+        private final int thread;
+        private final StageRecorders recorders;
+        private final CyclicBarrier measureStart;
+        private final CyclicBarrier measureEnd;
+
+        Worker(KinClient kinClient, int thread, StageRecorders recorders, CyclicBarrier measureStart,
+            CyclicBarrier measureEnd) {
+            this.kinClient = kinClient;
+            this.thread = thread;
+            this.recorders = recorders;
+            this.measureStart = measureStart;
+            this.measureEnd = measureEnd;
+        }
+
+        @Override
+        public Recorder call() throws Exception {
+            try {
+                return measure();
+            } catch (Exception | Error e) {
+                // Breaks the barriers, so that the other threads stop waiting for this one.
+                measureStart.reset();
+                measureEnd.reset();
+                throw e;
+            }
+        }
+
+        private Recorder measure() throws Exception {
+            Recorder recorder = recorders.forCurrentThread();
+            int warmup = share(config.warmupPayments);
+            int payments = share(config.payments);
+            int next = thread;
+            recorder.enabled = false;
+            for (int i = 0; i < warmup; i++) {
+                next = pay(next, recorder);
+            }
+            measureStart.await();
+            recorder.enabled = true;
+            for (int i = 0; i < payments; i++) {
+                next = pay(next, recorder);
+            }
+            recorder.enabled = false;
+            measureEnd.await();
+            return recorder;
+        }
+
+        private int share(int total) {
+            return total / config.threads + (thread < total % config.threads ? 1 : 0);
+        }
+
+        private int pay(int from, Recorder recorder) {
+            KinAccount account = kinClient.getAccount(from);
+            String destination = kinClient.getAccount((from + 1) % config.accounts).getPublicAddress();
+            long start = System.nanoTime();
+            try {
+                Transaction transaction = account.buildTransactionSync(destination, AMOUNT, FEE);
+                account.sendTransactionSync(transaction);
+                recorder.recordPayment(System.nanoTime() - start);
+            } catch (Exception e) {
+                recorder.recordFailure(e);
+            }
+            int next = from + config.threads;
+            return next < config.accounts ? next : thread;
+        }
+    }
+
+    /**
+     * Dispatches stage notifications to the recorder of the calling thread.
+     */
+    private static class StageRecorders implements TransactionSender.StageListener {
+
+        private final ThreadLocal<Recorder> recorders = new ThreadLocal<Recorder>() {
+            @Override
+            protected Recorder initialValue() {
+                return new Recorder();
+            }
+        };
+
+        Recorder forCurrentThread() {
+            return recorders.get();
+        }
+
+        @Override
+        public void onStageStarted(Stage stage) {
+            recorders.get().start(stage);
+        }
+
+        @Override
+        public void onStageFinished(Stage stage) {
+            recorders.get().finish(stage);
+        }
+    }
+
+    /**
+     * Single threaded latency and allocation samples.
+     */
+    private static class Recorder {
+
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        volatile boolean enabled;
+        final Map<Stage, Samples> stages = new EnumMap<>(Stage.class);
+        final Samples payments = new Samples();
+        final List<String> failures = new ArrayList<>();
+        private final long[] startNanos = new long[Stage.values().length];
+        private final long[] startBytes = new long[Stage.values().length];
+
+        Recorder() {
+            for (Stage stage : Stage.values()) {
+                stages.put(stage, new Samples());
+            }
+        }
+
+        void start(Stage stage) {
+            if (enabled) {
+                startBytes[stage.ordinal()] = allocatedBytes();
+                startNanos[stage.ordinal()] = System.nanoTime();
+            }
+        }
+
+        void finish(Stage stage) {
+            if (enabled) {
+                long nanos = System.nanoTime() - startNanos[stage.ordinal()];
+                stages.get(stage).add(nanos, allocatedBytes() - startBytes[stage.ordinal()]);
+            }
+        }
+
+        void recordPayment(long nanos) {
+            if (enabled) {
+                payments.add(nanos, 0);
+            }
+        }
+
+        void recordFailure(Exception e) {
+            if (enabled) {
+                failures.add(e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+
+        static long allocatedBytes() {
+            if (THREADS instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+            }
+            return 0;
+        }
+
+        static Recorder merge(List<Recorder> recorders) {
+            Recorder merged = new Recorder();
+            for (Recorder recorder : recorders) {
+                for (Stage stage : Stage.values()) {
+                    merged.stages.get(stage).addAll(recorder.stages.get(stage));
+                }
+                merged.payments.addAll(recorder.payments);
+                merged.failures.addAll(recorder.failures);
+            }
+            return merged;
+        }
+    }
+
+    private static class Samples {
+
+        private long[] nanos = new long[64];
+        private int count;
+        private long totalNanos;
+        private long totalBytes;
+
+        void add(long sampleNanos, long sampleBytes) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = sampleNanos;
+            totalNanos += sampleNanos;
+            totalBytes += sampleBytes;
+        }
+
+        void addAll(Samples samples) {
+            for (int i = 0; i < samples.count; i++) {
+                add(samples.nanos[i], 0);
+            }
+            totalBytes += samples.totalBytes;
+        }
+
+        JsonObject toJson() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            JsonObject json = new JsonObject();
+            json.addProperty("count", count);
+            json.addProperty("meanMicros", count == 0 ? 0 : micros(totalNanos / count));
+            for (double percentile : PERCENTILES) {
+                json.addProperty("p" + (int) percentile + "Micros", micros(percentile(sorted, percentile)));
+            }
+            json.addProperty("bytesPerOp", count == 0 ? 0 : totalBytes / count);
+            // Bytes allocated per second spent in the stage, comparable to the JMH gc profiler rates.
+            json.addProperty("allocationMBPerSec", totalNanos == 0 ? 0
+                : round(totalBytes / (totalNanos / 1e9) / (1024 * 1024)));
+            return json;
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, index)];
+        }
+
+        private static double micros(long nanos) {
+            return round(nanos / 1000.0);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10) / 10.0;
+        }
+    }
+
+    static class Report {
+
+        private final Config config;
+        private final Recorder recorder;
+        private final long elapsedNanos;
+        private final int appliedTransactions;
+
+        Report(Config config, Recorder recorder, long elapsedNanos, int appliedTransactions) {
+            this.config = config;
+            this.recorder = recorder;
+            this.elapsedNanos = elapsedNanos;
+            this.appliedTransactions = appliedTransactions;
+        }
+
+        int getPaymentCount() {
+            return recorder.payments.count;
+        }
+
+        List<String> getFailures() {
+            return recorder.failures;
+        }
+
+        int getStageCount(Stage stage) {
+            return recorder.stages.get(stage).count;
+        }
+
+        int getAppliedTransactions() {
+            return appliedTransactions;
+        }
+
+        double getPaymentsPerSecond() {
+            return recorder.payments.count / (elapsedNanos / 1e9);
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("benchmark", "payment-throughput");
+            json.addProperty("tag", config.tag);
+            json.add("config", config.toJson());
+            JsonObject jvm = new JsonObject();
+            jvm.addProperty("version", System.getProperty("java.version"));
+            jvm.addProperty("vm", System.getProperty("java.vm.name"));
+            jvm.addProperty("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+            jvm.addProperty("processors", Runtime.getRuntime().availableProcessors());
+            json.add("jvm", jvm);
+            json.addProperty("paymentsPerSecond", Samples.round(getPaymentsPerSecond()));
+            json.addProperty("failures", recorder.failures.size());
+            json.add("payment", recorder.payments.toJson());
+            JsonObject stages = new JsonObject();
+            for (Stage stage : Stage.values()) {
+                stages.add(stage.name().toLowerCase(Locale.US), recorder.stages.get(stage).toJson());
+            }
+            json.add("stages", stages);
+            if (!recorder.failures.isEmpty()) {
+                JsonArray failures = new JsonArray();
+                for (String failure : recorder.failures.subList(0, Math.min(10, recorder.failures.size()))) {
+                    failures.add(failure);
+                }
+                json.add("firstFailures", failures);
+            }
+            return json;
+        }
+
+        /**
+         * Writes the report as <code>payments-&lt;tag&gt;.json</code> in <code>directory</code>.
+         */
+        File write(File directory) throws IOException {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Can't create " + directory);
+            }
+            File file = new File(directory, "payments-" + config.tag + ".json");
+            Writer writer = new FileWriter(file);
+            try {
+                new GsonBuilder().setPrettyPrinting().create().toJson(toJson(), writer);
+            } finally {
+                writer.close();
+            }
+            return file;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package kin.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import kin.sdk.TransactionSender.Stage;
+import org.junit.Test;
+
+/**
+ * Runs {@link PaymentThroughputBenchmark} with a small default load, sized up with system properties. Skipped unless
+ * the <code>kin.benchmark</code> system property is set, e.g.
+ * <code>./gradlew :kin-sdk:kin-sdk-lib:testDebugUnitTest --tests kin.sdk.PaymentThroughputBenchmarkTest
+ * -Pbenchmark -PbenchmarkTag=1.0.4 -PbenchmarkPayments=20000 -PbenchmarkThreads=8</code>
+ */
+public class PaymentThroughputBenchmarkTest {
+
+    @Test
+    public void run_RecordsEveryStageOfEveryPayment() throws Exception {
+        assumeTrue(Boolean.getBoolean("kin.benchmark"));
+        PaymentThroughputBenchmark.Config config = PaymentThroughputBenchmark.Config.fromSystemProperties();
+
+        PaymentThroughputBenchmark.Report report = new PaymentThroughputBenchmark(config).run();
+
+        assertTrue(report.getFailures().toString(), report.getFailures().isEmpty());
+        assertEquals(config.payments, report.getPaymentCount());
+        assertEquals(config.warmupPayments + config.payments, report.getAppliedTransactions());
+        for (Stage stage : Stage.values()) {
+            assertEquals(config.payments, report.getStageCount(stage));
+        }
+        assertTrue(report.getPaymentsPerSecond() > 0);
+        String reportDirectory = System.getProperty("kin.benchmarkReportDir");
+        if (reportDirectory != null) {
+            report.write(new File(reportDirectory));
+        }
+    }
+}
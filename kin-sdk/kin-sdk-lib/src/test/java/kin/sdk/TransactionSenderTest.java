@@ -14,6 +14,9 @@ import static org.junit.Assert.assertThat;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import kin.base.FormatException;
 import kin.base.KeyPair;
@@ -101,6 +104,32 @@ public class TransactionSenderTest {
         assertThat(mockWebServer.takeRequest().getBody().readUtf8(), equalTo(TX_BODY));
     }
 
+    @Test
+    public void sendTransaction_NotifiesStagesInOrder() throws Exception {
+        mockWebServer.enqueue(TestUtils.generateSuccessMockResponse(this.getClass(), "tx_account_from.json"));
+        mockWebServer.enqueue(TestUtils.generateSuccessMockResponse(this.getClass(), "tx_account_to.json"));
+        mockWebServer.enqueue(TestUtils.generateSuccessMockResponse(this.getClass(), "tx_success_res.json"));
+        final List<String> events = new ArrayList<>();
+        transactionSender.setStageListener(new TransactionSender.StageListener() {
+            @Override
+            public void onStageStarted(TransactionSender.Stage stage) {
+                events.add("start " + stage);
+            }
+
+            @Override
+            public void onStageFinished(TransactionSender.Stage stage) {
+                events.add("finish " + stage);
+            }
+        });
+
+        Transaction transaction = transactionSender.buildTransaction(account, ACCOUNT_ID_TO, new BigDecimal("1.5"), FEE);
+        transactionSender.sendTransaction(transaction);
+
+        assertEquals(Arrays.asList("start LOAD_ACCOUNT", "finish LOAD_ACCOUNT", "start VERIFY_ADDRESSEE",
+            "finish VERIFY_ADDRESSEE", "start SIGN", "finish SIGN", "start ENCODE", "finish ENCODE", "start SUBMIT",
+            "finish SUBMIT"), events);
+    }
+
     @Test
     public void sendTransaction_WithMemo_success() throws Exception {
         //send transaction fetch first to account details, then from account details, and finally perform tx,